@@ -0,0 +1,83 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.ModificationItem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.ldap.core.DirContextAdapter;
+
+/**
+ * Measures computing the modifications of an entry in update mode, which is what every
+ * ODM {@code update} and {@code modifyAttributes(DirContextOperations)} goes through.
+ *
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DirContextAdapterBenchmark {
+
+	@Param({ "10", "100" })
+	public int multiValueSize;
+
+	private BasicAttributes original;
+
+	private String[] updatedValues;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.original = new BasicAttributes(true);
+		this.original.put("objectclass", "inetOrgPerson");
+		this.original.put("cn", "Some Person");
+		this.original.put("sn", "Person");
+		this.original.put("description", "Original description");
+		BasicAttribute member = new BasicAttribute("member");
+		this.updatedValues = new String[this.multiValueSize];
+		for (int i = 0; i < this.multiValueSize; i++) {
+			member.add("uid=user" + i + ",ou=people");
+			// replace every other value
+			this.updatedValues[i] = (i % 2 == 0) ? "uid=user" + i + ",ou=people" : "uid=other" + i + ",ou=people";
+		}
+		this.original.put(member);
+	}
+
+	@Benchmark
+	public ModificationItem[] getModificationItems() {
+		DirContextAdapter adapter = new DirContextAdapter((BasicAttributes) this.original.clone(),
+				EmbeddedDirectory.personDn("user000001"));
+		adapter.setUpdateMode(true);
+		adapter.setAttributeValue("cn", "Some Other Person");
+		adapter.setAttributeValue("description", null);
+		adapter.setAttributeValue("mail", "someone@example.com");
+		adapter.setAttributeValues("member", this.updatedValues);
+		return adapter.getModificationItems();
+	}
+
+}
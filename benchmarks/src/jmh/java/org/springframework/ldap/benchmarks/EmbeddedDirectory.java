@@ -0,0 +1,129 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.benchmarks;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import javax.naming.Name;
+
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.LdapContextSource;
+import org.springframework.ldap.support.LdapNameBuilder;
+import org.springframework.ldap.test.unboundid.EmbeddedLdapServer;
+
+/**
+ * Starts an in-process UnboundID directory server on a free port and populates it with a
+ * flat tree of {@code inetOrgPerson} entries below {@code ou=people}. Shared by the
+ * benchmarks that need a live server to talk to.
+ *
+ * @since 3.1
+ */
+final class EmbeddedDirectory {
+
+	static final String BASE = "dc=jayway,dc=se";
+
+	static final String PEOPLE = "ou=people";
+
+	private final EmbeddedLdapServer server;
+
+	private final LdapContextSource contextSource;
+
+	private final LdapTemplate ldapTemplate;
+
+	private EmbeddedDirectory(EmbeddedLdapServer server, LdapContextSource contextSource) {
+		this.server = server;
+		this.contextSource = contextSource;
+		this.ldapTemplate = new LdapTemplate(contextSource);
+	}
+
+	/**
+	 * Start a server and populate it with the given number of person entries.
+	 *
+	 * @param entries the number of person entries to create.
+	 * @param pooled whether the returned context source should use native JNDI pooling.
+	 * @return the started directory.
+	 * @throws Exception if the server cannot be started or populated.
+	 */
+	static EmbeddedDirectory start(int entries, boolean pooled) throws Exception {
+		int port = freePort();
+		EmbeddedLdapServer server = EmbeddedLdapServer.newEmbeddedServer("jayway", BASE, port);
+
+		LdapContextSource contextSource = new LdapContextSource();
+		contextSource.setUrl("ldap://localhost:" + port);
+		contextSource.setBase(BASE);
+		contextSource.setUserDn("uid=admin,ou=system");
+		contextSource.setPassword("secret");
+		contextSource.setPooled(pooled);
+		contextSource.afterPropertiesSet();
+
+		EmbeddedDirectory directory = new EmbeddedDirectory(server, contextSource);
+		directory.populate(entries);
+		return directory;
+	}
+
+	private void populate(int entries) {
+		DirContextAdapter people = new DirContextAdapter(LdapNameBuilder.newInstance(PEOPLE).build());
+		people.setAttributeValues("objectclass", new String[] { "top", "organizationalUnit" });
+		people.setAttributeValue("ou", "people");
+		this.ldapTemplate.bind(people);
+
+		for (int i = 0; i < entries; i++) {
+			String uid = uid(i);
+			DirContextAdapter person = new DirContextAdapter(personDn(uid));
+			person.setAttributeValues("objectclass",
+					new String[] { "top", "person", "organizationalPerson", "inetOrgPerson" });
+			person.setAttributeValue("uid", uid);
+			person.setAttributeValue("cn", "Person " + i);
+			person.setAttributeValue("sn", "Surname" + i);
+			person.setAttributeValue("givenName", "Given" + i);
+			person.setAttributeValue("mail", uid + "@example.com");
+			person.setAttributeValue("telephoneNumber", "+46 555-" + i);
+			person.setAttributeValue("description", "Benchmark person number " + i);
+			this.ldapTemplate.bind(person);
+		}
+	}
+
+	static String uid(int index) {
+		return String.format("user%06d", index);
+	}
+
+	static Name personDn(String uid) {
+		return LdapNameBuilder.newInstance(PEOPLE).add("uid", uid).build();
+	}
+
+	LdapContextSource getContextSource() {
+		return this.contextSource;
+	}
+
+	LdapTemplate getLdapTemplate() {
+		return this.ldapTemplate;
+	}
+
+	void shutdown() throws Exception {
+		this.server.shutdown();
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			socket.setReuseAddress(true);
+			return socket.getLocalPort();
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.odm.core.impl.DefaultObjectDirectoryMapper;
+import org.springframework.ldap.odm.typeconversion.ConverterManager;
+import org.springframework.ldap.odm.typeconversion.impl.ConversionServiceConverterManager;
+import org.springframework.ldap.support.LdapUtils;
+
+/**
+ * Compares the reflective read and write paths of {@link DefaultObjectDirectoryMapper},
+ * which use accessors resolved once when a class is managed, with field by field
+ * reflection as performed up to Spring LDAP 3.0, for entities of increasing width.
+ * <p>
+ * The <code>reflection</code> variant reproduces the former algorithm: a
+ * <code>Constructor.newInstance</code> and a map of attribute names built for every
+ * entry, and <code>Field.get</code>/<code>Field.set</code> for every value. Generated
+ * mappers are disabled so that the <code>accessors</code> variant measures the
+ * reflective fallback rather than generated code.
+ *
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class EntryAccessorBenchmark {
+
+	@Param({ "5", "20", "60" })
+	public int attributes;
+
+	@Param({ "reflection", "accessors" })
+	public String path;
+
+	private Class<?> entityClass;
+
+	private DefaultObjectDirectoryMapper odm;
+
+	private ReflectiveMapper reflectiveMapper;
+
+	private DirContextAdapter entry;
+
+	private Object entity;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.entityClass = entityClass(this.attributes);
+		this.odm = new DefaultObjectDirectoryMapper();
+		this.odm.setUseGeneratedMappers(false);
+		this.odm.manageClass(this.entityClass);
+		this.reflectiveMapper = new ReflectiveMapper(this.entityClass);
+
+		this.entry = new DirContextAdapter(LdapUtils.newLdapName("cn=wide,ou=people"));
+		this.entry.setAttributeValues("objectclass", new String[] { "top", "extensibleObject" });
+		for (int i = 0; i < this.attributes; i++) {
+			this.entry.setAttributeValue("attribute" + i, "value " + i);
+		}
+		this.entity = this.odm.mapFromLdapDataEntry(this.entry, this.entityClass);
+	}
+
+	@Benchmark
+	public Object mapFromLdapDataEntry() throws Exception {
+		if ("reflection".equals(this.path)) {
+			return this.reflectiveMapper.read(this.entry);
+		}
+		return this.odm.mapFromLdapDataEntry(this.entry, this.entityClass);
+	}
+
+	@Benchmark
+	public DirContextAdapter mapToLdapDataEntry() throws Exception {
+		DirContextAdapter context = new DirContextAdapter(this.entry.getDn());
+		if ("reflection".equals(this.path)) {
+			this.reflectiveMapper.write(this.entity, context);
+		}
+		else {
+			this.odm.mapToLdapDataEntry(this.entity, context);
+		}
+		return context;
+	}
+
+	private static Class<?> entityClass(int attributes) {
+		switch (attributes) {
+		case 5:
+			return WideEntries.Wide5.class;
+		case 20:
+			return WideEntries.Wide20.class;
+		case 60:
+			return WideEntries.Wide60.class;
+		default:
+			throw new IllegalArgumentException("No entity with " + attributes + " attributes");
+		}
+	}
+
+	/**
+	 * Maps the single valued String attributes of the wide entities the way
+	 * <code>DefaultObjectDirectoryMapper</code> did before its accessors were resolved
+	 * up front.
+	 */
+	private static final class ReflectiveMapper {
+
+		private final ConverterManager converterManager = new ConversionServiceConverterManager();
+
+		private final Class<?> entityClass;
+
+		private final Map<Field, String> fields = new HashMap<>();
+
+		private final Field idField;
+
+		ReflectiveMapper(Class<?> entityClass) throws NoSuchFieldException {
+			this.entityClass = entityClass;
+			for (Field field : entityClass.getDeclaredFields()) {
+				field.setAccessible(true);
+				if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic() && !"dn".equals(field.getName())) {
+					this.fields.put(field, field.getName().toLowerCase(Locale.ROOT));
+				}
+			}
+			this.idField = entityClass.getDeclaredField("dn");
+			this.idField.setAccessible(true);
+		}
+
+		Object read(DirContextAdapter context) throws ReflectiveOperationException, NamingException {
+			Constructor<?> constructor = this.entityClass.getConstructor();
+			Object result = constructor.newInstance();
+
+			Map<String, Attribute> attributeValueMap = new HashMap<>();
+			NamingEnumeration<? extends Attribute> all = context.getAttributes().getAll();
+			while (all.hasMoreElements()) {
+				Attribute attribute = all.nextElement();
+				attributeValueMap.put(attribute.getID().toLowerCase(Locale.ROOT), attribute);
+			}
+			if (attributeValueMap.get("objectclass") == null) {
+				throw new IllegalStateException("No object classes");
+			}
+
+			for (Field field : this.fields.keySet()) {
+				Attribute attribute = attributeValueMap.get(this.fields.get(field));
+				if (attribute != null && attribute.get() != null) {
+					field.set(result, this.converterManager.convert(attribute.get(), "", String.class));
+				}
+			}
+			this.idField.set(result, this.converterManager.convert(context.getDn(), "", this.idField.getType()));
+			return result;
+		}
+
+		void write(Object entity, DirContextAdapter context) throws IllegalAccessException {
+			context.setAttributeValues("objectclass", new String[] { "extensibleObject", "top" });
+			for (Field field : this.fields.keySet()) {
+				Object value = field.get(entity);
+				context.setAttributeValue(this.fields.get(field),
+						(value != null) ? this.converterManager.convert(value, "", String.class) : null);
+			}
+		}
+
+	}
+
+}
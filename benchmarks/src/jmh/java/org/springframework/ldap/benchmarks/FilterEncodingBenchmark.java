@@ -0,0 +1,70 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.ldap.filter.AbstractFilter;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.Filter;
+import org.springframework.ldap.filter.LikeFilter;
+import org.springframework.ldap.filter.NotFilter;
+import org.springframework.ldap.filter.OrFilter;
+import org.springframework.ldap.filter.PresentFilter;
+
+/**
+ * Measures {@link AbstractFilter#encode()} for a typical authorization style filter,
+ * including values that need escaping.
+ *
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FilterEncodingBenchmark {
+
+	private Filter filter;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		OrFilter groups = new OrFilter();
+		for (int i = 0; i < 10; i++) {
+			groups.or(new EqualsFilter("memberOf", "cn=group" + i + ",ou=groups,dc=jayway,dc=se"));
+		}
+		this.filter = new AndFilter()
+				.and(new EqualsFilter("objectclass", "inetOrgPerson"))
+				.and(new LikeFilter("cn", "Some*Person"))
+				.and(new EqualsFilter("description", "(needs) \\escaping*"))
+				.and(new NotFilter(new PresentFilter("accountLocked")))
+				.and(groups);
+	}
+
+	@Benchmark
+	public String encode() {
+		return this.filter.encode();
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.naming.directory.SearchControls;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.SearchExecutor;
+import org.springframework.ldap.core.support.CountNameClassPairCallbackHandler;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.support.LdapUtils;
+
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+/**
+ * Measures the round trip of {@link LdapTemplate} searches against an in-process
+ * directory server, covering both the callback handler based search and
+ * {@link LdapTemplate#searchForStream(LdapQuery, AttributesMapper)}.
+ *
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LdapTemplateSearchBenchmark {
+
+	@Param({ "100", "1000" })
+	public int entries;
+
+	private EmbeddedDirectory directory;
+
+	private LdapTemplate ldapTemplate;
+
+	private SearchExecutor subtreeSearch;
+
+	private SearchExecutor pointSearch;
+
+	private LdapQuery subtreeQuery;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.directory = EmbeddedDirectory.start(this.entries, true);
+		this.ldapTemplate = this.directory.getLdapTemplate();
+
+		SearchControls subtreeControls = new SearchControls();
+		subtreeControls.setSearchScope(SearchControls.SUBTREE_SCOPE);
+		subtreeControls.setReturningAttributes(new String[] { "uid", "cn", "mail" });
+		this.subtreeSearch = (ctx) -> ctx.search(LdapUtils.newLdapName(EmbeddedDirectory.PEOPLE),
+				"(objectclass=inetOrgPerson)", subtreeControls);
+
+		SearchControls pointControls = new SearchControls();
+		pointControls.setSearchScope(SearchControls.ONELEVEL_SCOPE);
+		String uid = EmbeddedDirectory.uid(this.entries / 2);
+		this.pointSearch = (ctx) -> ctx.search(LdapUtils.newLdapName(EmbeddedDirectory.PEOPLE),
+				"(uid=" + uid + ")", pointControls);
+
+		this.subtreeQuery = query().base(EmbeddedDirectory.PEOPLE)
+				.attributes("uid", "cn", "mail")
+				.where("objectclass").is("inetOrgPerson");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.directory.shutdown();
+	}
+
+	@Benchmark
+	public int searchAllWithCallbackHandler() {
+		CountNameClassPairCallbackHandler handler = new CountNameClassPairCallbackHandler();
+		this.ldapTemplate.search(this.subtreeSearch, handler, new LdapTemplate.NullDirContextProcessor());
+		return handler.getNoOfRows();
+	}
+
+	@Benchmark
+	public int searchSingleWithCallbackHandler() {
+		CountNameClassPairCallbackHandler handler = new CountNameClassPairCallbackHandler();
+		this.ldapTemplate.search(this.pointSearch, handler, new LdapTemplate.NullDirContextProcessor());
+		return handler.getNoOfRows();
+	}
+
+	@Benchmark
+	public void searchAllForStream(Blackhole blackhole) {
+		try (Stream<Object> results = this.ldapTemplate.searchForStream(this.subtreeQuery,
+				(AttributesMapper<Object>) (attributes) -> attributes.get("uid").get())) {
+			results.forEach(blackhole::consume);
+		}
+	}
+
+}
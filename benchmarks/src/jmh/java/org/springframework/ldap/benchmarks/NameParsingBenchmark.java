@@ -0,0 +1,58 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.ldap.LdapName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.ldap.core.DistinguishedName;
+import org.springframework.ldap.support.LdapUtils;
+
+/**
+ * Measures parsing of distinguished names through {@link LdapUtils#newLdapName(String)}
+ * and the legacy {@link DistinguishedName} parser.
+ *
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class NameParsingBenchmark {
+
+	@Param({ "uid=user000042,ou=people,dc=jayway,dc=se",
+			"cn=Some\\, Person+employeeNumber=42,ou=Some Unit,ou=company,dc=jayway,dc=se" })
+	public String dn;
+
+	@Benchmark
+	public LdapName newLdapName() {
+		return LdapUtils.newLdapName(this.dn);
+	}
+
+	@Benchmark
+	public DistinguishedName distinguishedName() {
+		return new DistinguishedName(this.dn);
+	}
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.odm.core.impl.DefaultObjectDirectoryMapper;
+
+/**
+ * Measures {@link DefaultObjectDirectoryMapper} in both directions, without any network
+ * involvement, so that the cost of the mapping layer can be told apart from the cost of
+ * the directory round trip.
+ *
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ObjectDirectoryMapperBenchmark {
+
+	private DefaultObjectDirectoryMapper odm;
+
+	private DirContextAdapter entry;
+
+	private Person person;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		this.odm = new DefaultObjectDirectoryMapper();
+		this.odm.manageClass(Person.class);
+
+		this.entry = new DirContextAdapter(EmbeddedDirectory.personDn("user000042"));
+		this.entry.setAttributeValues("objectclass",
+				new String[] { "top", "person", "organizationalPerson", "inetOrgPerson" });
+		this.entry.setAttributeValue("uid", "user000042");
+		this.entry.setAttributeValue("cn", "Person 42");
+		this.entry.setAttributeValue("sn", "Surname42");
+		this.entry.setAttributeValue("givenName", "Given42");
+		this.entry.setAttributeValue("mail", "user000042@example.com");
+		this.entry.setAttributeValue("telephoneNumber", "+46 555-42");
+		this.entry.setAttributeValue("description", "Benchmark person number 42");
+		this.entry.setAttributeValues("memberOf", new String[] { "cn=group1,ou=groups", "cn=group2,ou=groups",
+				"cn=group3,ou=groups", "cn=group4,ou=groups" });
+
+		this.person = this.odm.mapFromLdapDataEntry(this.entry, Person.class);
+	}
+
+	@Benchmark
+	public Person mapFromLdapDataEntry() {
+		return this.odm.mapFromLdapDataEntry(this.entry, Person.class);
+	}
+
+	@Benchmark
+	public DirContextAdapter mapToLdapDataEntry() {
+		DirContextAdapter context = new DirContextAdapter(this.person.getDn());
+		this.odm.mapToLdapDataEntry(this.person, context);
+		return context;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import java.util.List;
+
+import javax.naming.Name;
+
+import org.springframework.ldap.odm.annotations.Attribute;
+import org.springframework.ldap.odm.annotations.DnAttribute;
+import org.springframework.ldap.odm.annotations.Entry;
+import org.springframework.ldap.odm.annotations.Id;
+
+/**
+ * Entity used by the ODM benchmarks.
+ *
+ * @since 3.1
+ */
+@Entry(objectClasses = { "inetOrgPerson", "organizationalPerson", "person", "top" }, base = EmbeddedDirectory.PEOPLE)
+public final class Person {
+
+	@Id
+	private Name dn;
+
+	@Attribute(name = "uid")
+	@DnAttribute(value = "uid", index = 1)
+	private String uid;
+
+	@Attribute(name = "cn")
+	private String fullName;
+
+	@Attribute(name = "sn")
+	private String lastName;
+
+	@Attribute(name = "givenName")
+	private String firstName;
+
+	@Attribute(name = "mail")
+	private String email;
+
+	@Attribute(name = "telephoneNumber")
+	private String phone;
+
+	private String description;
+
+	@Attribute(name = "memberOf", readonly = true)
+	private List<Name> memberOf;
+
+	public Name getDn() {
+		return this.dn;
+	}
+
+	public String getUid() {
+		return this.uid;
+	}
+
+	public String getFullName() {
+		return this.fullName;
+	}
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public String getEmail() {
+		return this.email;
+	}
+
+	public String getPhone() {
+		return this.phone;
+	}
+
+	public String getDescription() {
+		return this.description;
+	}
+
+	public List<Name> getMemberOf() {
+		return this.memberOf;
+	}
+
+}
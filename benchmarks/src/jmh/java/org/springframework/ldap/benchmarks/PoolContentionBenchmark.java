@@ -0,0 +1,108 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.directory.DirContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.pool2.factory.ConcurrentPooledContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+
+/**
+ * Measures borrowing a context from a pool and returning it, with 64 threads contending
+ * for the pool, comparing the commons-pool2 based {@link PooledContextSource} with
+ * {@link ConcurrentPooledContextSource}. No directory operation is issued while a context
+ * is borrowed, only a configurable amount of CPU work, so that the cost of the pool itself
+ * dominates.
+ *
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(64)
+public class PoolContentionBenchmark {
+
+	@Param({ "commons-pool2", "concurrent" })
+	public String pool;
+
+	@Param({ "8", "64" })
+	public int maxTotalPerKey;
+
+	@Param({ "0", "100" })
+	public int work;
+
+	private EmbeddedDirectory directory;
+
+	private ContextSource contextSource;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.directory = EmbeddedDirectory.start(0, false);
+
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMaxTotalPerKey(this.maxTotalPerKey);
+		poolConfig.setMaxIdlePerKey(this.maxTotalPerKey);
+		poolConfig.setJmxEnabled(false);
+		if ("concurrent".equals(this.pool)) {
+			ConcurrentPooledContextSource concurrentPooledContextSource = new ConcurrentPooledContextSource(poolConfig);
+			concurrentPooledContextSource.setContextSource(this.directory.getContextSource());
+			this.contextSource = concurrentPooledContextSource;
+		}
+		else {
+			PooledContextSource pooledContextSource = new PooledContextSource(poolConfig);
+			pooledContextSource.setContextSource(this.directory.getContextSource());
+			this.contextSource = pooledContextSource;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		((DisposableBean) this.contextSource).destroy();
+		this.directory.shutdown();
+	}
+
+	@Benchmark
+	public void borrowAndReturn(Blackhole blackhole) throws Exception {
+		DirContext dirContext = this.contextSource.getReadOnlyContext();
+		try {
+			blackhole.consume(dirContext);
+			Blackhole.consumeCPU(this.work);
+		}
+		finally {
+			dirContext.close();
+		}
+	}
+
+}
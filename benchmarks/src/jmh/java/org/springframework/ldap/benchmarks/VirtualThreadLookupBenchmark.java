@@ -0,0 +1,135 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.Name;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.LdapTemplate;
+import org.springframework.ldap.core.support.ConcurrencyLimitingContextSource;
+import org.springframework.ldap.pool2.factory.PoolConfig;
+import org.springframework.ldap.pool2.factory.PooledContextSource;
+
+/**
+ * Compares issuing a burst of concurrent {@link LdapTemplate#lookup(Name, AttributesMapper)
+ * lookups}, one task per lookup, on platform threads and on virtual threads. In both
+ * cases the number of lookups in flight is bounded by a
+ * {@link ConcurrencyLimitingContextSource} in front of a {@link PooledContextSource}.
+ * <p>
+ * Virtual threads require Java 21; on earlier runtimes the <code>virtual</code>
+ * variant fails during setup.
+ *
+ * @since 3.1
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class VirtualThreadLookupBenchmark {
+
+	private static final int ENTRIES = 1000;
+
+	@Param({ "platform", "virtual" })
+	public String threads;
+
+	@Param({ "10000" })
+	public int lookups;
+
+	@Param({ "32" })
+	public int maxConcurrency;
+
+	private EmbeddedDirectory directory;
+
+	private PooledContextSource pooledContextSource;
+
+	private LdapTemplate ldapTemplate;
+
+	private ExecutorService executor;
+
+	private Name[] dns;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		this.directory = EmbeddedDirectory.start(ENTRIES, false);
+
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMaxTotalPerKey(this.maxConcurrency);
+		poolConfig.setMaxIdlePerKey(this.maxConcurrency);
+		this.pooledContextSource = new PooledContextSource(poolConfig);
+		this.pooledContextSource.setContextSource(this.directory.getContextSource());
+		this.ldapTemplate = new LdapTemplate(
+				new ConcurrencyLimitingContextSource(this.pooledContextSource, this.maxConcurrency));
+
+		this.executor = "virtual".equals(this.threads) ? newVirtualThreadPerTaskExecutor()
+				: Executors.newCachedThreadPool();
+
+		this.dns = new Name[ENTRIES];
+		for (int i = 0; i < ENTRIES; i++) {
+			this.dns[i] = EmbeddedDirectory.personDn(EmbeddedDirectory.uid(i));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		this.executor.shutdownNow();
+		this.pooledContextSource.destroy();
+		this.directory.shutdown();
+	}
+
+	@Benchmark
+	public int concurrentLookups() throws Exception {
+		AttributesMapper<Object> mapper = (attributes) -> attributes.get("uid").get();
+		List<Future<Object>> results = new ArrayList<>(this.lookups);
+		for (int i = 0; i < this.lookups; i++) {
+			Name dn = this.dns[i % ENTRIES];
+			results.add(this.executor.submit(() -> this.ldapTemplate.lookup(dn, mapper)));
+		}
+		int completed = 0;
+		for (Future<Object> result : results) {
+			if (result.get() != null) {
+				completed++;
+			}
+		}
+		return completed;
+	}
+
+	private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		}
+		catch (NoSuchMethodException ex) {
+			throw new IllegalStateException("Virtual threads require Java 21 or later", ex);
+		}
+	}
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.ldap.benchmarks;
+
+import javax.naming.Name;
+
+import org.springframework.ldap.odm.annotations.Entry;
+import org.springframework.ldap.odm.annotations.Id;
+
+/**
+ * Entities with 5, 20 and 60 single valued attributes, used to measure how the cost
+ * of mapping an entry scales with its width.
+ *
+ * @since 3.1
+ */
+public final class WideEntries {
+
+	private WideEntries() {
+	}
+
+	@Entry(objectClasses = { "extensibleObject", "top" })
+	public static final class Wide5 {
+
+		@Id
+		private Name dn;
+
+		private String attribute0;
+
+		private String attribute1;
+
+		private String attribute2;
+
+		private String attribute3;
+
+		private String attribute4;
+
+	}
+
+	@Entry(objectClasses = { "extensibleObject", "top" })
+	public static final class Wide20 {
+
+		@Id
+		private Name dn;
+
+		private String attribute0;
+
+		private String attribute1;
+
+		private String attribute2;
+
+		private String attribute3;
+
+		private String attribute4;
+
+		private String attribute5;
+
+		private String attribute6;
+
+		private String attribute7;
+
+		private String attribute8;
+
+		private String attribute9;
+
+		private String attribute10;
+
+		private String attribute11;
+
+		private String attribute12;
+
+		private String attribute13;
+
+		private String attribute14;
+
+		private String attribute15;
+
+		private String attribute16;
+
+		private String attribute17;
+
+		private String attribute18;
+
+		private String attribute19;
+
+	}
+
+	@Entry(objectClasses = { "extensibleObject", "top" })
+	public static final class Wide60 {
+
+		@Id
+		private Name dn;
+
+		private String attribute0;
+
+		private String attribute1;
+
+		private String attribute2;
+
+		private String attribute3;
+
+		private String attribute4;
+
+		private String attribute5;
+
+		private String attribute6;
+
+		private String attribute7;
+
+		private String attribute8;
+
+		private String attribute9;
+
+		private String attribute10;
+
+		private String attribute11;
+
+		private String attribute12;
+
+		private String attribute13;
+
+		private String attribute14;
+
+		private String attribute15;
+
+		private String attribute16;
+
+		private String attribute17;
+
+		private String attribute18;
+
+		private String attribute19;
+
+		private String attribute20;
+
+		private String attribute21;
+
+		private String attribute22;
+
+		private String attribute23;
+
+		private String attribute24;
+
+		private String attribute25;
+
+		private String attribute26;
+
+		private String attribute27;
+
+		private String attribute28;
+
+		private String attribute29;
+
+		private String attribute30;
+
+		private String attribute31;
+
+		private String attribute32;
+
+		private String attribute33;
+
+		private String attribute34;
+
+		private String attribute35;
+
+		private String attribute36;
+
+		private String attribute37;
+
+		private String attribute38;
+
+		private String attribute39;
+
+		private String attribute40;
+
+		private String attribute41;
+
+		private String attribute42;
+
+		private String attribute43;
+
+		private String attribute44;
+
+		private String attribute45;
+
+		private String attribute46;
+
+		private String attribute47;
+
+		private String attribute48;
+
+		private String attribute49;
+
+		private String attribute50;
+
+		private String attribute51;
+
+		private String attribute52;
+
+		private String attribute53;
+
+		private String attribute54;
+
+		private String attribute55;
+
+		private String attribute56;
+
+		private String attribute57;
+
+		private String attribute58;
+
+		private String attribute59;
+
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.naming.Name;
+
+import org.springframework.ldap.query.LdapQuery;
+
+/**
+ * Interface that specifies a set of asynchronous LDAP operations returning
+ * {@link CompletableFuture} instances. Implemented by {@link AsyncLdapTemplate}.
+ * <p>
+ * Every operation is started as soon as it is invoked and runs on its own
+ * context, so that independent operations, such as looking up a user, its
+ * groups and its manager, are performed concurrently. Exceptions are
+ * translated in the same way as by {@link LdapOperations} and complete the
+ * returned future exceptionally rather than being thrown.
+ * <p>
+ * Cancelling a returned future abandons the operation; a search in progress
+ * is stopped and its results are closed.
+ *
+ * @since 3.1
+ * @see LdapOperations
+ * @see ReactiveLdapOperations
+ */
+public interface AsyncLdapOperations {
+
+	/**
+	 * Search for all objects matching the supplied query. Each
+	 * <code>SearchResult</code> is supplied to the specified
+	 * <code>ContextMapper</code>; <code>null</code> results are skipped.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param mapper the <code>ContextMapper</code> to use for mapping the
+	 * search results.
+	 * @param <T> the type of the mapped objects.
+	 * @return a future of the list of mapped objects.
+	 * @see LdapOperations#search(LdapQuery, ContextMapper)
+	 */
+	<T> CompletableFuture<List<T>> search(LdapQuery query, ContextMapper<T> mapper);
+
+	/**
+	 * Search for all objects matching the supplied query. The
+	 * <code>Attributes</code> of each search result are supplied to the
+	 * specified <code>AttributesMapper</code>; <code>null</code> results are
+	 * skipped.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param mapper the <code>AttributesMapper</code> to use for mapping the
+	 * search results.
+	 * @param <T> the type of the mapped objects.
+	 * @return a future of the list of mapped objects.
+	 * @see LdapOperations#search(LdapQuery, AttributesMapper)
+	 */
+	<T> CompletableFuture<List<T>> search(LdapQuery query, AttributesMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name and map it using a
+	 * <code>ContextMapper</code>.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @param mapper the <code>ContextMapper</code> to use for mapping the
+	 * entry.
+	 * @param <T> the type of the mapped object.
+	 * @return a future of the mapped object.
+	 * @see LdapOperations#lookup(Name, ContextMapper)
+	 */
+	<T> CompletableFuture<T> lookup(Name dn, ContextMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name and map it using a
+	 * <code>ContextMapper</code>.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @param mapper the <code>ContextMapper</code> to use for mapping the
+	 * entry.
+	 * @param <T> the type of the mapped object.
+	 * @return a future of the mapped object.
+	 * @see LdapOperations#lookup(String, ContextMapper)
+	 */
+	<T> CompletableFuture<T> lookup(String dn, ContextMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name and map its
+	 * attributes using an <code>AttributesMapper</code>.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @param mapper the <code>AttributesMapper</code> to use for mapping the
+	 * entry.
+	 * @param <T> the type of the mapped object.
+	 * @return a future of the mapped object.
+	 * @see LdapOperations#lookup(Name, AttributesMapper)
+	 */
+	<T> CompletableFuture<T> lookup(Name dn, AttributesMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name and map its
+	 * attributes using an <code>AttributesMapper</code>.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @param mapper the <code>AttributesMapper</code> to use for mapping the
+	 * entry.
+	 * @param <T> the type of the mapped object.
+	 * @return a future of the mapped object.
+	 * @see LdapOperations#lookup(String, AttributesMapper)
+	 */
+	<T> CompletableFuture<T> lookup(String dn, AttributesMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name, returning it as a
+	 * <code>DirContextOperations</code> instance.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @return a future of the entry.
+	 * @see LdapOperations#lookupContext(Name)
+	 */
+	CompletableFuture<DirContextOperations> lookupContext(Name dn);
+
+	/**
+	 * Look up the entry at the specified distinguished name, returning it as a
+	 * <code>DirContextOperations</code> instance.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @return a future of the entry.
+	 * @see LdapOperations#lookupContext(String)
+	 */
+	CompletableFuture<DirContextOperations> lookupContext(String dn);
+
+	/**
+	 * Perform a simple LDAP 'bind' authentication of the single entry found by
+	 * the supplied query.
+	 *
+	 * @param query the query identifying the entry to authenticate.
+	 * @param password the password to use for authentication.
+	 * @return a future completing when authentication succeeded, or completing
+	 * exceptionally otherwise.
+	 * @see LdapOperations#authenticate(LdapQuery, String)
+	 */
+	CompletableFuture<Void> authenticate(LdapQuery query, String password);
+
+	/**
+	 * Perform a simple LDAP 'bind' authentication of the single entry found by
+	 * the supplied query, mapping the authenticated entry using the supplied
+	 * mapper.
+	 *
+	 * @param query the query identifying the entry to authenticate.
+	 * @param password the password to use for authentication.
+	 * @param mapper the mapper invoked with the authenticated context.
+	 * @param <T> the type of the mapped object.
+	 * @return a future of the mapped object, completing exceptionally if
+	 * authentication failed.
+	 * @see LdapOperations#authenticate(LdapQuery, String, AuthenticatedLdapEntryContextMapper)
+	 */
+	<T> CompletableFuture<T> authenticate(LdapQuery query, String password,
+			AuthenticatedLdapEntryContextMapper<T> mapper);
+
+	/**
+	 * Read a named entry from the LDAP directory into a Java object.
+	 *
+	 * @param dn the distinguished name of the entry to read.
+	 * @param clazz the class of the entry.
+	 * @param <T> the type of the entry.
+	 * @return a future of the mapped entry.
+	 * @see LdapOperations#findByDn(Name, Class)
+	 */
+	<T> CompletableFuture<T> findByDn(Name dn, Class<T> clazz);
+
+	/**
+	 * Find all entries in the LDAP directory of a given type matching the
+	 * specified query.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param clazz the class of the entries.
+	 * @param <T> the type of the entries.
+	 * @return a future of the list of mapped entries.
+	 * @see LdapOperations#find(LdapQuery, Class)
+	 */
+	<T> CompletableFuture<List<T>> find(LdapQuery query, Class<T> clazz);
+
+	/**
+	 * Find the one entry in the LDAP directory of a given type matching the
+	 * specified query. The future completes exceptionally with an
+	 * {@link org.springframework.dao.EmptyResultDataAccessException} if no
+	 * entry is found, or an
+	 * {@link org.springframework.dao.IncorrectResultSizeDataAccessException}
+	 * if more than one is.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param clazz the class of the entry.
+	 * @param <T> the type of the entry.
+	 * @return a future of the single mapped entry.
+	 * @see LdapOperations#findOne(LdapQuery, Class)
+	 */
+	<T> CompletableFuture<T> findOne(LdapQuery query, Class<T> clazz);
+
+	/**
+	 * Create the given entry in the LDAP directory.
+	 *
+	 * @param entry the entry to create.
+	 * @return a future completing when the entry has been created.
+	 * @see LdapOperations#create(Object)
+	 */
+	CompletableFuture<Void> create(Object entry);
+
+	/**
+	 * Update the given entry in the LDAP directory.
+	 *
+	 * @param entry the entry to update.
+	 * @return a future completing when the entry has been updated.
+	 * @see LdapOperations#update(Object)
+	 */
+	CompletableFuture<Void> update(Object entry);
+
+	/**
+	 * Delete the given entry from the LDAP directory.
+	 *
+	 * @param entry the entry to delete.
+	 * @return a future completing when the entry has been deleted.
+	 * @see LdapOperations#delete(Object)
+	 */
+	CompletableFuture<Void> delete(Object entry);
+
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import javax.naming.Name;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+
+import io.micrometer.observation.Observation;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.ldap.observation.LdapObservationContext;
+import org.springframework.ldap.observation.LdapObservationContext.Operation;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Asynchronous counterpart of {@link LdapTemplate}, implementing
+ * {@link AsyncLdapOperations}.
+ * <p>
+ * JNDI is a blocking API, so every operation is run as a separate task on an
+ * {@link Executor}. By default a new virtual thread is started per operation
+ * where the runtime supports them (Java 21 and later), falling back to a
+ * {@link SimpleAsyncTaskExecutor} starting a new platform thread per operation
+ * otherwise. Use {@link #setExecutor(Executor)} to bound the number of
+ * concurrently executing operations.
+ * <p>
+ * Each operation obtains its own context from the context source and
+ * releases it as soon as it completes, so concurrent operations never share
+ * a context; with a pooling context source the number of operations in flight
+ * is effectively limited by the size of the pool. Point operations are
+ * delegated to the underlying {@link LdapTemplate}, so that its exception
+ * translation, configuration and observations apply.
+ * <p>
+ * Cancelling a future before its operation has started prevents the
+ * operation from being performed at all. Cancelling a search in progress
+ * closes its <code>NamingEnumeration</code>, stopping the search, and the
+ * context is returned to the context source by the thread running the
+ * search. Point operations already in progress run to completion, but their
+ * results are discarded.
+ *
+ * @since 3.1
+ */
+public class AsyncLdapTemplate implements AsyncLdapOperations {
+
+	private final LdapTemplate ldapTemplate;
+
+	private Executor executor = defaultExecutor();
+
+	private int pageSize = 0;
+
+	/**
+	 * Create a new instance using an {@link LdapTemplate} with default
+	 * settings for the supplied <code>ContextSource</code>.
+	 *
+	 * @param contextSource the <code>ContextSource</code> to use.
+	 */
+	public AsyncLdapTemplate(ContextSource contextSource) {
+		this(new LdapTemplate(contextSource));
+	}
+
+	/**
+	 * Create a new instance delegating to the supplied {@link LdapTemplate}.
+	 *
+	 * @param ldapTemplate the template to delegate to.
+	 */
+	public AsyncLdapTemplate(LdapTemplate ldapTemplate) {
+		Assert.notNull(ldapTemplate, "ldapTemplate must not be null");
+		Assert.notNull(ldapTemplate.getContextSource(), "ldapTemplate must have a ContextSource");
+		this.ldapTemplate = ldapTemplate;
+	}
+
+	/**
+	 * Get the underlying {@link LdapTemplate}.
+	 *
+	 * @return the template operations are delegated to.
+	 */
+	public LdapTemplate getLdapTemplate() {
+		return this.ldapTemplate;
+	}
+
+	/**
+	 * Set the executor operations are run on. Default is a virtual thread per
+	 * operation where available, and a new platform thread per operation
+	 * otherwise.
+	 *
+	 * @param executor the executor to use.
+	 */
+	public void setExecutor(Executor executor) {
+		Assert.notNull(executor, "executor must not be null");
+		this.executor = executor;
+	}
+
+	/**
+	 * Set the number of results to request per page in searches. Default is
+	 * <code>0</code>, meaning searches do not use the paged results control.
+	 *
+	 * @param pageSize the page size, or <code>0</code> to disable paging.
+	 */
+	public void setPageSize(int pageSize) {
+		Assert.isTrue(pageSize >= 0, "pageSize must not be negative");
+		this.pageSize = pageSize;
+	}
+
+	@Override
+	public <T> CompletableFuture<List<T>> search(LdapQuery query, ContextMapper<T> mapper) {
+		return search(query, true, (result) -> {
+			Object object = result.getObject();
+			if (object == null) {
+				throw new ObjectRetrievalException("Binding did not contain any object.");
+			}
+			return mapper.mapFromContext(object);
+		});
+	}
+
+	@Override
+	public <T> CompletableFuture<List<T>> search(LdapQuery query, AttributesMapper<T> mapper) {
+		return search(query, false, (result) -> mapper.mapFromAttributes(result.getAttributes()));
+	}
+
+	private <T> CompletableFuture<List<T>> search(LdapQuery query, boolean returnObjFlag,
+			SearchResultMapper<T> mapper) {
+		SearchControls searchControls = this.ldapTemplate.searchControlsForQuery(query, returnObjFlag);
+		AsyncSearch<T> search = new AsyncSearch<>(query.base(), query.filter().encode(), searchControls,
+				this.pageSize, mapper);
+		submit(search, search);
+		return search;
+	}
+
+	@Override
+	public <T> CompletableFuture<T> lookup(Name dn, ContextMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> lookup(String dn, ContextMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> lookup(Name dn, AttributesMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> lookup(String dn, AttributesMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.lookup(dn, mapper));
+	}
+
+	@Override
+	public CompletableFuture<DirContextOperations> lookupContext(Name dn) {
+		return execute(() -> this.ldapTemplate.lookupContext(dn));
+	}
+
+	@Override
+	public CompletableFuture<DirContextOperations> lookupContext(String dn) {
+		return execute(() -> this.ldapTemplate.lookupContext(dn));
+	}
+
+	@Override
+	public CompletableFuture<Void> authenticate(LdapQuery query, String password) {
+		return execute(() -> this.ldapTemplate.authenticate(query, password));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> authenticate(LdapQuery query, String password,
+			AuthenticatedLdapEntryContextMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.authenticate(query, password, mapper));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> findByDn(Name dn, Class<T> clazz) {
+		return execute(() -> this.ldapTemplate.findByDn(dn, clazz));
+	}
+
+	@Override
+	public <T> CompletableFuture<List<T>> find(LdapQuery query, Class<T> clazz) {
+		return search(this.ldapTemplate.findQuery(query, clazz),
+				this.ldapTemplate.entryMapper(clazz, query.attributes() == null));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> findOne(LdapQuery query, Class<T> clazz) {
+		CompletableFuture<List<T>> search = find(query, clazz);
+		CompletableFuture<T> result = search.thenApply((entries) -> {
+			if (entries.isEmpty()) {
+				throw new EmptyResultDataAccessException(1);
+			}
+			else if (entries.size() != 1) {
+				throw new IncorrectResultSizeDataAccessException(1, entries.size());
+			}
+			return entries.get(0);
+		});
+		result.whenComplete((entry, ex) -> {
+			if (result.isCancelled()) {
+				search.cancel(false);
+			}
+		});
+		return result;
+	}
+
+	@Override
+	public CompletableFuture<Void> create(Object entry) {
+		return execute(() -> this.ldapTemplate.create(entry));
+	}
+
+	@Override
+	public CompletableFuture<Void> update(Object entry) {
+		return execute(() -> this.ldapTemplate.update(entry));
+	}
+
+	@Override
+	public CompletableFuture<Void> delete(Object entry) {
+		return execute(() -> this.ldapTemplate.delete(entry));
+	}
+
+	private <T> CompletableFuture<T> execute(Supplier<T> operation) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		submit(future, () -> {
+			if (future.isDone()) {
+				return;
+			}
+			try {
+				future.complete(operation.get());
+			}
+			catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		});
+		return future;
+	}
+
+	private CompletableFuture<Void> execute(Runnable operation) {
+		return execute(() -> {
+			operation.run();
+			return null;
+		});
+	}
+
+	private void submit(CompletableFuture<?> future, Runnable task) {
+		try {
+			this.executor.execute(task);
+		}
+		catch (RuntimeException ex) {
+			future.completeExceptionally(ex);
+		}
+	}
+
+	private static Executor defaultExecutor() {
+		Method method = ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+		if (method != null) {
+			try {
+				return (Executor) method.invoke(null);
+			}
+			catch (ReflectiveOperationException | RuntimeException ex) {
+				// virtual threads are a preview feature that is not enabled
+			}
+		}
+		return new SimpleAsyncTaskExecutor("spring-ldap-async-");
+	}
+
+	private interface SearchResultMapper<T> {
+
+		T map(SearchResult result) throws javax.naming.NamingException;
+
+	}
+
+	/**
+	 * A search, both the task performing it and the future of its results.
+	 * The cursor over the results is closed when the future is cancelled,
+	 * while the context is only ever released by the thread running the
+	 * search, so that it is never returned to the context source while still
+	 * in use.
+	 */
+	private final class AsyncSearch<T> extends CompletableFuture<List<T>> implements Runnable {
+
+		private final Name base;
+
+		private final String filter;
+
+		private final SearchControls searchControls;
+
+		private final int pageSize;
+
+		private final SearchResultMapper<T> mapper;
+
+		private PagedSearchCursor cursor;
+
+		private AsyncSearch(Name base, String filter, SearchControls searchControls, int pageSize,
+				SearchResultMapper<T> mapper) {
+			this.base = base;
+			this.filter = filter;
+			this.searchControls = searchControls;
+			this.pageSize = pageSize;
+			this.mapper = mapper;
+		}
+
+		@Override
+		public void run() {
+			if (isDone()) {
+				return;
+			}
+			LdapObservationContext observationContext = new LdapObservationContext(Operation.SEARCH, this.base,
+					this.filter, this.searchControls.getSearchScope());
+			Observation observation = ldapTemplate.observation(observationContext).start();
+			List<T> results = new ArrayList<>();
+			Throwable failure = null;
+			DirContext ctx = null;
+			try {
+				ctx = ldapTemplate.getContextSource().getReadOnlyContext();
+				PagedSearchCursor cursor = open(ctx);
+				SearchResult result;
+				while (cursor != null && !isDone() && (result = cursor.next()) != null) {
+					T mapped = this.mapper.map(result);
+					observationContext.incrementResultCount();
+					if (mapped != null) {
+						results.add(mapped);
+					}
+				}
+			}
+			catch (javax.naming.NamingException e) {
+				failure = isCancelled() ? null : ldapTemplate.translateSearchException(e);
+			}
+			catch (Throwable ex) {
+				failure = ex;
+			}
+			finally {
+				close();
+				LdapUtils.closeContext(ctx);
+			}
+			// closing the results of a cancelled search may surface as a failure
+			boolean failed = (failure != null && !isCancelled());
+			if (failed) {
+				observation.error(failure);
+			}
+			observation.stop();
+			if (failed) {
+				completeExceptionally(failure);
+			}
+			else {
+				complete(results);
+			}
+		}
+
+		private synchronized PagedSearchCursor open(DirContext ctx) {
+			if (isDone()) {
+				return null;
+			}
+			this.cursor = new PagedSearchCursor(ctx, this.base, this.filter, this.searchControls, this.pageSize);
+			return this.cursor;
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			if (cancelled) {
+				close();
+			}
+			return cancelled;
+		}
+
+		private synchronized void close() {
+			if (this.cursor != null) {
+				this.cursor.close();
+				this.cursor = null;
+			}
+		}
+
+	}
+
+}
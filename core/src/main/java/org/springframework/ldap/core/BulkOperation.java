@@ -0,0 +1,180 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import javax.naming.directory.DirContext;
+
+import org.springframework.ldap.UncategorizedLdapException;
+import org.springframework.ldap.support.LdapUtils;
+
+/**
+ * Writes, or reads, a sequence of entries in chunks on a fixed number of
+ * workers, each of which uses a single context for all the chunks it takes.
+ * The calling thread acts as one of the workers, so that with a parallelism of
+ * one everything runs on the caller.
+ * <p>
+ * Entries failing to be written are recorded in the {@link BulkResult} by the
+ * {@link ChunkWriter}. Any other exception, such as a failure to obtain a
+ * context, stops all workers and is rethrown to the caller.
+ *
+ * @param <T> the type of the entries.
+ * @since 3.1
+ */
+final class BulkOperation<T> {
+
+	private final Iterator<T> entries;
+
+	private final int chunkSize;
+
+	private final int parallelism;
+
+	private final Supplier<DirContext> contextSupplier;
+
+	private final ChunkWriter<T> writer;
+
+	private final BulkResult<T> result = new BulkResult<>();
+
+	private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+	/**
+	 * Create a new instance.
+	 *
+	 * @param entries the entries to write.
+	 * @param chunkSize the number of entries handed to the writer at once.
+	 * @param parallelism the number of workers, and so of contexts used.
+	 * @param contextSupplier supplies the context of each worker.
+	 * @param writer writes a chunk of entries.
+	 */
+	BulkOperation(Iterator<T> entries, int chunkSize, int parallelism, Supplier<DirContext> contextSupplier,
+			ChunkWriter<T> writer) {
+		this.entries = entries;
+		this.chunkSize = chunkSize;
+		this.parallelism = parallelism;
+		this.contextSupplier = contextSupplier;
+		this.writer = writer;
+	}
+
+	/**
+	 * Write all entries, returning once every worker has finished.
+	 *
+	 * @param executor the executor to run the workers other than the calling
+	 * thread on.
+	 * @return the outcome of each entry.
+	 */
+	BulkResult<T> execute(Executor executor) {
+		CountDownLatch finished = new CountDownLatch(this.parallelism - 1);
+		for (int i = 1; i < this.parallelism; i++) {
+			try {
+				executor.execute(() -> {
+					try {
+						work();
+					}
+					finally {
+						finished.countDown();
+					}
+				});
+			}
+			catch (RuntimeException ex) {
+				this.failure.compareAndSet(null, ex);
+				for (; i < this.parallelism; i++) {
+					finished.countDown();
+				}
+			}
+		}
+		work();
+		try {
+			finished.await();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			this.failure.compareAndSet(null, ex);
+			throw new UncategorizedLdapException("Interrupted while waiting for bulk operation", ex);
+		}
+		Throwable failure = this.failure.get();
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (failure instanceof javax.naming.NamingException) {
+			throw LdapUtils.convertLdapException((javax.naming.NamingException) failure);
+		}
+		if (failure != null) {
+			throw new UncategorizedLdapException("Bulk operation failed", failure);
+		}
+		return this.result;
+	}
+
+	private void work() {
+		DirContext ctx = null;
+		try {
+			List<T> chunk;
+			while (this.failure.get() == null && !(chunk = nextChunk()).isEmpty()) {
+				if (ctx == null) {
+					ctx = this.contextSupplier.get();
+				}
+				this.writer.write(ctx, chunk, this.result);
+			}
+		}
+		catch (Throwable ex) {
+			this.failure.compareAndSet(null, ex);
+		}
+		finally {
+			if (ctx != null) {
+				try {
+					ctx.close();
+				}
+				catch (Exception ex) {
+					// Never mind this.
+				}
+			}
+		}
+	}
+
+	private List<T> nextChunk() {
+		List<T> chunk = new ArrayList<>(this.chunkSize);
+		synchronized (this.entries) {
+			while (chunk.size() < this.chunkSize && this.entries.hasNext()) {
+				chunk.add(this.entries.next());
+			}
+		}
+		return chunk;
+	}
+
+	/**
+	 * Writes a chunk of entries using the context of a worker, recording the
+	 * outcome of each entry.
+	 *
+	 * @param <T> the type of the entries.
+	 */
+	@FunctionalInterface
+	interface ChunkWriter<T> {
+
+		void write(DirContext ctx, List<T> chunk, BulkResult<T> result) throws javax.naming.NamingException;
+
+	}
+
+}
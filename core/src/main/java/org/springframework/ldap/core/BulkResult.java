@@ -0,0 +1,127 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk write, such as
+ * {@link LdapOperations#updateAll(java.util.stream.Stream, int)}: the entries
+ * that were written successfully and those that failed, each with the
+ * exception it failed with. A failure to write one entry does not stop the
+ * others from being written.
+ * <p>
+ * When entries are written concurrently, they are reported in the order in
+ * which they completed rather than in the order in which they were supplied.
+ *
+ * @param <T> the type of the entries.
+ * @since 3.1
+ */
+public final class BulkResult<T> {
+
+	private final List<T> succeeded = new ArrayList<>();
+
+	private final List<Failure<T>> failures = new ArrayList<>();
+
+	BulkResult() {
+	}
+
+	synchronized void succeeded(T entry) {
+		this.succeeded.add(entry);
+	}
+
+	synchronized void failed(T entry, RuntimeException exception) {
+		this.failures.add(new Failure<>(entry, exception));
+	}
+
+	/**
+	 * Get the entries that were written successfully.
+	 *
+	 * @return the entries written, never <code>null</code>.
+	 */
+	public synchronized List<T> getSucceeded() {
+		return Collections.unmodifiableList(new ArrayList<>(this.succeeded));
+	}
+
+	/**
+	 * Get the entries that could not be written.
+	 *
+	 * @return the failed entries and their exceptions, never <code>null</code>.
+	 */
+	public synchronized List<Failure<T>> getFailures() {
+		return Collections.unmodifiableList(new ArrayList<>(this.failures));
+	}
+
+	/**
+	 * Check whether any entry could not be written.
+	 *
+	 * @return <code>true</code> if at least one entry failed.
+	 */
+	public synchronized boolean hasFailures() {
+		return !this.failures.isEmpty();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("BulkResult[succeeded=%1$d, failed=%2$d]", this.succeeded.size(), this.failures.size());
+	}
+
+	/**
+	 * An entry that could not be written, along with the reason why.
+	 *
+	 * @param <T> the type of the entry.
+	 */
+	public static final class Failure<T> {
+
+		private final T entry;
+
+		private final RuntimeException exception;
+
+		Failure(T entry, RuntimeException exception) {
+			this.entry = entry;
+			this.exception = exception;
+		}
+
+		/**
+		 * Get the entry that could not be written.
+		 *
+		 * @return the entry.
+		 */
+		public T getEntry() {
+			return this.entry;
+		}
+
+		/**
+		 * Get the exception writing the entry failed with, typically an
+		 * {@link org.springframework.ldap.NamingException}.
+		 *
+		 * @return the exception.
+		 */
+		public RuntimeException getException() {
+			return this.exception;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Failure[entry=%1$s, exception=%2$s]", this.entry, this.exception);
+		}
+
+	}
+
+}
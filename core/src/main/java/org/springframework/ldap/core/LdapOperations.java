@@ -31,7 +31,10 @@ import javax.naming.NameClassPair;
 import javax.naming.directory.Attributes;
 import javax.naming.directory.ModificationItem;
 import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 /**
@@ -1039,6 +1042,95 @@ public interface LdapOperations {
 	 */
 	<T> T lookup(String dn, String[] attributes, ContextMapper<T> mapper) throws NamingException;
 
+	/**
+	 * Get the specified attributes of several entries at once, passing them to
+	 * an <code>AttributesMapper</code>. Rather than looking up each entry
+	 * separately, the entries are read in chunks, with a single one-level
+	 * search per parent entry of each chunk, matching the relative
+	 * distinguished names of the requested entries. Entries whose relative
+	 * distinguished name can't be expressed as a filter are looked up
+	 * individually. Equivalent to
+	 * <code>lookupAll(dns, attributes, mapper, 1)</code>.
+	 *
+	 * @param dns The distinguished names of the entries to find.
+	 * @param attributes The names of the attributes to pass to the mapper, or
+	 * <code>null</code> for all attributes.
+	 * @param mapper The <code>AttributesMapper</code> to use for mapping the
+	 * found entries.
+	 * @return the objects returned from the mapper, keyed by the distinguished
+	 * name of their entry, in the order the names were supplied. Entries that
+	 * are not found, or that are mapped to <code>null</code>, are left out.
+	 * Since <code>LdapName</code> equality ignores case and formatting
+	 * differences, the values can be retrieved using any equivalent name.
+	 * @throws NamingException if any error other than entries not being found
+	 * occurs.
+	 * @since 3.1
+	 * @see LdapTemplate#setBulkChunkSize(int)
+	 */
+	<T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes, AttributesMapper<T> mapper)
+			throws NamingException;
+
+	/**
+	 * Get the specified attributes of several entries at once, passing them to
+	 * an <code>AttributesMapper</code>, as by
+	 * {@link #lookupAll(Collection, String[], AttributesMapper)}, with chunks
+	 * of entries read concurrently on up to <code>parallelism</code>
+	 * read-only contexts, each of which is reused for all the chunks it reads.
+	 *
+	 * @param dns The distinguished names of the entries to find.
+	 * @param attributes The names of the attributes to pass to the mapper, or
+	 * <code>null</code> for all attributes.
+	 * @param mapper The <code>AttributesMapper</code> to use for mapping the
+	 * found entries.
+	 * @param parallelism The maximum number of chunks to read concurrently.
+	 * @return the objects returned from the mapper, keyed by the distinguished
+	 * name of their entry, in the order the names were supplied.
+	 * @throws NamingException if any error other than entries not being found
+	 * occurs.
+	 * @since 3.1
+	 */
+	<T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes, AttributesMapper<T> mapper,
+			int parallelism) throws NamingException;
+
+	/**
+	 * Get the specified attributes of several entries at once, passing them to
+	 * a <code>ContextMapper</code>, as by
+	 * {@link #lookupAll(Collection, String[], AttributesMapper)}.
+	 *
+	 * @param dns The distinguished names of the entries to find.
+	 * @param attributes The names of the attributes to pass to the mapper, or
+	 * <code>null</code> for all attributes.
+	 * @param mapper The <code>ContextMapper</code> to use for mapping the found
+	 * entries.
+	 * @return the objects returned from the mapper, keyed by the distinguished
+	 * name of their entry, in the order the names were supplied.
+	 * @throws NamingException if any error other than entries not being found
+	 * occurs.
+	 * @since 3.1
+	 */
+	<T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes, ContextMapper<T> mapper)
+			throws NamingException;
+
+	/**
+	 * Get the specified attributes of several entries at once, passing them to
+	 * a <code>ContextMapper</code>, as by
+	 * {@link #lookupAll(Collection, String[], AttributesMapper, int)}.
+	 *
+	 * @param dns The distinguished names of the entries to find.
+	 * @param attributes The names of the attributes to pass to the mapper, or
+	 * <code>null</code> for all attributes.
+	 * @param mapper The <code>ContextMapper</code> to use for mapping the found
+	 * entries.
+	 * @param parallelism The maximum number of chunks to read concurrently.
+	 * @return the objects returned from the mapper, keyed by the distinguished
+	 * name of their entry, in the order the names were supplied.
+	 * @throws NamingException if any error other than entries not being found
+	 * occurs.
+	 * @since 3.1
+	 */
+	<T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes, ContextMapper<T> mapper,
+			int parallelism) throws NamingException;
+
 	/**
 	 * Modify an entry in the LDAP tree using the supplied
 	 * <code>ModificationItems</code>.
@@ -1725,6 +1817,152 @@ public interface LdapOperations {
 	 */
 	<T> Stream<T> searchForStream(LdapQuery query, ContextMapper<T> mapper);
 
+	/**
+	 * Perform a search with parameters from the specified LdapQuery, retrieving
+	 * the results page by page using the paged results control (RFC 2696). The
+	 * Attributes of the found entries will be supplied to the
+	 * <code>AttributesMapper</code> as the returned <code>Stream</code> is
+	 * consumed.
+	 * <p>
+	 * All pages are retrieved using the same context, and the next page is only
+	 * requested once the previous one has been consumed, so that arbitrarily
+	 * large result sets can be processed in constant memory. No context is
+	 * obtained and no search is performed until the stream is consumed, and the
+	 * context is only released when the stream is closed, so the stream should
+	 * be used in a try-with-resources statement.
+	 * <p>
+	 * The context source must supply contexts accepting request controls; note
+	 * that this is not the case for pooled contexts obtained from a
+	 * {@link org.springframework.ldap.pool2.factory.PooledContextSource}.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param pageSize the number of entries to request per page; <code>0</code>
+	 * performs a single search without the paged results control.
+	 * @param mapper the <code>Attributes</code> to supply all found Attributes to.
+	 * @return a <code>Stream</code> of all entries received from the
+	 * <code>AttributesMapper</code>.
+	 *
+	 * @throws NamingException if any error occurs.
+	 * @since 3.1
+	 * @see org.springframework.ldap.query.LdapQueryBuilder
+	 */
+	<T> Stream<T> searchForStream(LdapQuery query, int pageSize, AttributesMapper<T> mapper);
+
+	/**
+	 * Perform a search with parameters from the specified LdapQuery, retrieving
+	 * the results page by page using the paged results control (RFC 2696). All
+	 * found objects will be supplied to the <code>ContextMapper</code> as the
+	 * returned <code>Stream</code> is consumed.
+	 * <p>
+	 * All pages are retrieved using the same context, and the next page is only
+	 * requested once the previous one has been consumed, so that arbitrarily
+	 * large result sets can be processed in constant memory. No context is
+	 * obtained and no search is performed until the stream is consumed, and the
+	 * context is only released when the stream is closed, so the stream should
+	 * be used in a try-with-resources statement.
+	 * <p>
+	 * The context source must supply contexts accepting request controls; note
+	 * that this is not the case for pooled contexts obtained from a
+	 * {@link org.springframework.ldap.pool2.factory.PooledContextSource}.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param pageSize the number of entries to request per page; <code>0</code>
+	 * performs a single search without the paged results control.
+	 * @param mapper the <code>ContextMapper</code> to supply all found entries to.
+	 * @return a <code>Stream</code> of all entries received from the
+	 * <code>ContextMapper</code>.
+	 *
+	 * @throws NamingException if any error occurs.
+	 * @since 3.1
+	 * @see org.springframework.ldap.query.LdapQueryBuilder
+	 */
+	<T> Stream<T> searchForStream(LdapQuery query, int pageSize, ContextMapper<T> mapper);
+
+	/**
+	 * Perform a search with parameters from the specified LdapQuery, split into
+	 * partitions by the supplied {@link SearchPartitioner} that are searched
+	 * concurrently, each on a separate context. The Attributes of the found
+	 * entries are supplied to the <code>AttributesMapper</code> on the threads
+	 * performing the searches, and the results are merged into the returned
+	 * <code>Stream</code> in no particular order.
+	 * <p>
+	 * The partitions are searched as described for
+	 * {@link #searchForStream(LdapQuery, int, AttributesMapper)}. The searches
+	 * are held back while the stream is not consumed, and are stopped when the
+	 * stream is closed, so the stream should be used in a try-with-resources
+	 * statement.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param partitioner the strategy for splitting the query into partitions.
+	 * @param parallelism the maximum number of partitions searched
+	 * concurrently.
+	 * @param pageSize the number of entries to request per page in each
+	 * partition; <code>0</code> searches each partition without the paged
+	 * results control.
+	 * @param mapper the <code>Attributes</code> to supply all found Attributes to.
+	 * @return a <code>Stream</code> of all entries received from the
+	 * <code>AttributesMapper</code>.
+	 *
+	 * @throws NamingException if any error occurs.
+	 * @since 3.1
+	 */
+	<T> Stream<T> searchForStream(LdapQuery query, SearchPartitioner partitioner, int parallelism, int pageSize,
+			AttributesMapper<T> mapper);
+
+	/**
+	 * Perform a search with parameters from the specified LdapQuery, split into
+	 * partitions by the supplied {@link SearchPartitioner} that are searched
+	 * concurrently, each on a separate context. The found objects are supplied
+	 * to the <code>ContextMapper</code> on the threads performing the searches,
+	 * and the results are merged into the returned <code>Stream</code> in no
+	 * particular order.
+	 * <p>
+	 * The partitions are searched as described for
+	 * {@link #searchForStream(LdapQuery, int, ContextMapper)}. The searches are
+	 * held back while the stream is not consumed, and are stopped when the
+	 * stream is closed, so the stream should be used in a try-with-resources
+	 * statement.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param partitioner the strategy for splitting the query into partitions.
+	 * @param parallelism the maximum number of partitions searched
+	 * concurrently.
+	 * @param pageSize the number of entries to request per page in each
+	 * partition; <code>0</code> searches each partition without the paged
+	 * results control.
+	 * @param mapper the <code>ContextMapper</code> to supply all found entries to.
+	 * @return a <code>Stream</code> of all entries received from the
+	 * <code>ContextMapper</code>.
+	 *
+	 * @throws NamingException if any error occurs.
+	 * @since 3.1
+	 */
+	<T> Stream<T> searchForStream(LdapQuery query, SearchPartitioner partitioner, int parallelism, int pageSize,
+			ContextMapper<T> mapper);
+
+	/**
+	 * Perform a search with parameters from the specified LdapQuery, split into
+	 * partitions by the supplied {@link SearchPartitioner} that are searched
+	 * concurrently, each on a separate context. The found entries are passed to
+	 * the <code>NameClassPairCallbackHandler</code> one at a time, on the
+	 * calling thread, in no particular order.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param partitioner the strategy for splitting the query into partitions.
+	 * @param parallelism the maximum number of partitions searched
+	 * concurrently.
+	 * @param pageSize the number of entries to request per page in each
+	 * partition; <code>0</code> searches each partition without the paged
+	 * results control.
+	 * @param handler the <code>NameClassPairCallbackHandler</code> to supply
+	 * all found entries to.
+	 *
+	 * @throws NamingException if any error occurs.
+	 * @since 3.1
+	 */
+	void search(LdapQuery query, SearchPartitioner partitioner, int parallelism, int pageSize,
+			NameClassPairCallbackHandler handler);
+
 	/**
 	 * Read a named entry from the LDAP directory. The referenced class must have object-directory mapping metadata
 	 * specified using {@link org.springframework.ldap.odm.annotations.Entry} and associated annotations.
@@ -1745,7 +1983,8 @@ public interface LdapOperations {
 	 * If the field annotated with {@link org.springframework.ldap.odm.annotations.Id}
 	 * is set in the object, this will be used as the distinguished name of the new entry. If no explicit DN is specified,
 	 * an attempt will be made to calculate the name from fields annotated with {@link org.springframework.ldap.odm.annotations.DnAttribute}.
-	 * If an id can be calculated, this will be populated in the supplied object.
+	 * If an id can be calculated, this will be populated in the supplied object, unless its id can only be set
+	 * through its constructor, as for records.
 	 *
 	 * @param entry The entry to be create, it must <em>not</em> be null or already exist in the directory.
 	 *
@@ -1768,7 +2007,9 @@ public interface LdapOperations {
 	 * operation will be performed using the <code>ModificationItems</code> resulting from the changes of the
 	 * entry compared to its current state in the directory.
 	 * If the id of the entry has changed, i.e. if it wasn't specified from the beginning, or if it is calculated to
-	 * have changed, the new value will be populated in the supplied object.
+	 * have changed, the new value will be populated in the supplied object. Objects whose id can only be set
+	 * through their constructor, such as records, keep their previous id; read a moved entry again to obtain
+	 * an object holding its new distinguished name.
 	 *
 	 * @param entry The entry to update, it must already exist in the directory.
 	 *
@@ -1793,6 +2034,123 @@ public interface LdapOperations {
 	 */
 	void delete(Object entry);
 
+	/**
+	 * Create the given entries in the LDAP directory, one at a time on a
+	 * single read-write context. The referenced classes must have
+	 * object-directory mapping metadata specified using
+	 * {@link org.springframework.ldap.odm.annotations.Entry} and associated
+	 * annotations. Each entry is created as by {@link #create(Object)}; a
+	 * failure to create one entry is reported in the result rather than
+	 * thrown, and does not stop the others from being created.
+	 *
+	 * @param <T> The Java type of the entries
+	 * @param entries The entries to create.
+	 * @return The outcome of each entry.
+	 *
+	 * @throws org.springframework.ldap.NamingException if no read-write context
+	 * can be obtained.
+	 * @since 3.1
+	 */
+	<T> BulkResult<T> createAll(Collection<T> entries);
+
+	/**
+	 * Create the given entries in the LDAP directory, writing chunks of them
+	 * concurrently on up to <code>parallelism</code> read-write contexts, each
+	 * of which is reused for all the chunks it writes. The entries are only
+	 * consumed as they are written, so the stream may supply more entries than
+	 * fit in memory at once, and it is closed once all entries have been
+	 * written. Each entry is created as by {@link #create(Object)}; a failure
+	 * to create one entry is reported in the result rather than thrown, and
+	 * does not stop the others from being created.
+	 *
+	 * @param <T> The Java type of the entries
+	 * @param entries The entries to create.
+	 * @param parallelism The maximum number of entries to create concurrently.
+	 * @return The outcome of each entry.
+	 *
+	 * @throws org.springframework.ldap.NamingException if no read-write context
+	 * can be obtained.
+	 * @since 3.1
+	 */
+	<T> BulkResult<T> createAll(Stream<T> entries, int parallelism);
+
+	/**
+	 * Update the given entries in the LDAP directory, on a single read-write
+	 * context. Each entry is updated as by {@link #update(Object)}, except that
+	 * the current data of the entries is read with a single search per parent
+	 * entry for each chunk of entries, rather than with one lookup per entry.
+	 * A failure to update one entry is reported in the result rather than
+	 * thrown, and does not stop the others from being updated.
+	 *
+	 * @param <T> The Java type of the entries
+	 * @param entries The entries to update, they must already exist in the directory.
+	 * @return The outcome of each entry.
+	 *
+	 * @throws org.springframework.ldap.NamingException if no read-write context
+	 * can be obtained.
+	 * @since 3.1
+	 */
+	<T> BulkResult<T> updateAll(Collection<T> entries);
+
+	/**
+	 * Update the given entries in the LDAP directory, writing chunks of them
+	 * concurrently on up to <code>parallelism</code> read-write contexts, each
+	 * of which is reused for all the chunks it writes. Each entry is updated as
+	 * by {@link #update(Object)}, except that the current data of the entries
+	 * of a chunk is read with a single search per parent entry, rather than
+	 * with one lookup per entry. The entries are only consumed as they are
+	 * written, and the stream is closed once all entries have been written.
+	 * A failure to update one entry is reported in the result rather than
+	 * thrown, and does not stop the others from being updated.
+	 *
+	 * @param <T> The Java type of the entries
+	 * @param entries The entries to update, they must already exist in the directory.
+	 * @param parallelism The maximum number of entries to update concurrently.
+	 * @return The outcome of each entry.
+	 *
+	 * @throws org.springframework.ldap.NamingException if no read-write context
+	 * can be obtained.
+	 * @since 3.1
+	 */
+	<T> BulkResult<T> updateAll(Stream<T> entries, int parallelism);
+
+	/**
+	 * Delete the given entries from the LDAP directory, one at a time on a
+	 * single read-write context. Each entry is deleted as by
+	 * {@link #delete(Object)}; a failure to delete one entry is reported in the
+	 * result rather than thrown, and does not stop the others from being
+	 * deleted.
+	 *
+	 * @param <T> The Java type of the entries
+	 * @param entries The entries to delete, they must already exist in the directory.
+	 * @return The outcome of each entry.
+	 *
+	 * @throws org.springframework.ldap.NamingException if no read-write context
+	 * can be obtained.
+	 * @since 3.1
+	 */
+	<T> BulkResult<T> deleteAll(Collection<T> entries);
+
+	/**
+	 * Delete the given entries from the LDAP directory, concurrently on up to
+	 * <code>parallelism</code> read-write contexts, each of which is reused for
+	 * all the chunks of entries it deletes. Each entry is deleted as by
+	 * {@link #delete(Object)}. The entries are only consumed as they are
+	 * deleted, and the stream is closed once all entries have been deleted.
+	 * A failure to delete one entry is reported in the result rather than
+	 * thrown, and does not stop the others from being deleted.
+	 *
+	 * @param <T> The Java type of the entries
+	 * @param entries The entries to delete, they must already exist in the directory.
+	 * @param parallelism The maximum number of entries to delete concurrently.
+	 * @return The outcome of each entry.
+	 *
+	 * @throws org.springframework.ldap.NamingException if no read-write context
+	 * can be obtained.
+	 * @since 3.1
+	 */
+	<T> BulkResult<T> deleteAll(Stream<T> entries, int parallelism);
+
 	/**
 	 * Find all entries in the LDAP directory of a given type. The referenced class must have object-directory mapping metadata
 	 * specified using {@link org.springframework.ldap.odm.annotations.Entry} and associated annotations.
@@ -1861,6 +2219,31 @@ public interface LdapOperations {
 	 */
 	<T> List<T> find(LdapQuery query, Class<T> clazz);
 
+	/**
+	 * Search for entries in the LDAP directory, mapping them to a projection of
+	 * the specified class. The referenced class must have object-directory
+	 * mapping metadata specified using {@link org.springframework.ldap.odm.annotations.Entry}
+	 * and associated annotations. The projection is an interface or a record
+	 * declaring a subset of its fields, either as accessor methods or as record
+	 * components.
+	 * <p>
+	 * Unless the query specifies the attributes to return, only the attributes
+	 * needed to populate the projection are requested from the server, which
+	 * keeps the size of the responses down when only a few of the attributes of
+	 * large entries are needed, typically for list views.
+	 *
+	 * @param <T> The projection type to return
+	 * @param query the LDAP query specification
+	 * @param clazz The Java type of the entries
+	 * @param projection The projection of the Java type to return
+	 * @return All matching entries, as projections.
+	 *
+	 * @throws org.springframework.ldap.NamingException on error.
+	 * @see org.springframework.ldap.query.LdapQueryBuilder
+	 * @since 3.1
+	 */
+	<T> List<T> find(LdapQuery query, Class<?> clazz, Class<T> projection);
+
 	/**
 	 * Search for objects in the directory tree matching the specified LdapQuery, expecting to find exactly one match.
 	 * The referenced class must have object-directory mapping metadata specified using
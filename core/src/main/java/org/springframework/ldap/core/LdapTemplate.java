@@ -15,20 +15,33 @@
  */
 package org.springframework.ldap.core;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.ldap.AuthenticationException;
 import org.springframework.ldap.NamingException;
 import org.springframework.ldap.UncategorizedLdapException;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.EqualsFilter;
 import org.springframework.ldap.filter.Filter;
+import org.springframework.ldap.filter.OrFilter;
+import org.springframework.ldap.observation.DefaultLdapObservationConvention;
+import org.springframework.ldap.observation.LdapObservationContext;
+import org.springframework.ldap.observation.LdapObservationContext.Operation;
+import org.springframework.ldap.observation.LdapObservationConvention;
+import org.springframework.ldap.observation.LdapObservationDocumentation;
 import org.springframework.ldap.odm.core.ObjectDirectoryMapper;
 import org.springframework.ldap.odm.core.OdmException;
 import org.springframework.ldap.odm.core.impl.DefaultObjectDirectoryMapper;
 import org.springframework.ldap.query.LdapQuery;
 import org.springframework.ldap.query.LdapQueryBuilder;
+import org.springframework.ldap.query.SearchScope;
+import org.springframework.ldap.support.LdapNameBuilder;
 import org.springframework.ldap.support.LdapUtils;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
@@ -46,12 +59,22 @@ import javax.naming.directory.ModificationItem;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
 import javax.naming.ldap.LdapName;
+import javax.naming.ldap.Rdn;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -80,12 +103,16 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 
 	private static final Logger LOG = LoggerFactory.getLogger(LdapTemplate.class);
 
+	private static final int DEFAULT_BULK_CHUNK_SIZE = 100;
+
 	private static final boolean DONT_RETURN_OBJ_FLAG = false;
 
 	private static final boolean RETURN_OBJ_FLAG = true;
 
 	private static final String[] ALL_ATTRIBUTES = null;
 
+	private static final LdapObservationConvention DEFAULT_OBSERVATION_CONVENTION = new DefaultLdapObservationConvention();
+
 	private ContextSource contextSource;
 
 	private boolean ignorePartialResultException = false;
@@ -102,6 +129,14 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 
 	private ObjectDirectoryMapper odm = new DefaultObjectDirectoryMapper();
 
+	private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+
+	private LdapObservationConvention observationConvention;
+
+	private Executor partitionExecutor = new SimpleAsyncTaskExecutor("spring-ldap-partition-");
+
+	private int bulkChunkSize = DEFAULT_BULK_CHUNK_SIZE;
+
 	/**
 	 * Constructor for bean usage.
 	 */
@@ -145,6 +180,66 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		this.odm = odm;
 	}
 
+	/**
+	 * Set the {@link ObservationRegistry} used to observe the LDAP operations
+	 * performed by this instance. Default is {@link ObservationRegistry#NOOP},
+	 * i.e. no observations are recorded.
+	 *
+	 * @param observationRegistry the ObservationRegistry to use.
+	 * @since 3.1
+	 */
+	public void setObservationRegistry(ObservationRegistry observationRegistry) {
+		Assert.notNull(observationRegistry, "observationRegistry must not be null");
+		this.observationRegistry = observationRegistry;
+	}
+
+	/**
+	 * Set a custom {@link LdapObservationConvention} to use when creating
+	 * observations. By default {@link DefaultLdapObservationConvention} is used.
+	 *
+	 * @param observationConvention the convention to use.
+	 * @since 3.1
+	 */
+	public void setObservationConvention(LdapObservationConvention observationConvention) {
+		this.observationConvention = observationConvention;
+	}
+
+	/**
+	 * Set the {@link Executor} running the searches of partitioned searches,
+	 * such as {@link #searchForStream(LdapQuery, SearchPartitioner, int, int, AttributesMapper)},
+	 * and the writes of bulk operations, such as {@link #updateAll(Stream, int)}.
+	 * Each search submits as many tasks as its parallelism, each of which
+	 * searches partitions until none are left, so an executor with fewer
+	 * threads available effectively reduces the parallelism. Bulk operations
+	 * submit one task less, as the calling thread takes part. Default is a
+	 * {@link SimpleAsyncTaskExecutor}.
+	 *
+	 * @param partitionExecutor the executor to use.
+	 * @since 3.1
+	 */
+	public void setPartitionExecutor(Executor partitionExecutor) {
+		Assert.notNull(partitionExecutor, "partitionExecutor must not be null");
+		this.partitionExecutor = partitionExecutor;
+	}
+
+	/**
+	 * Set the number of entries each connection of a bulk operation, such as
+	 * {@link #updateAll(Stream, int)} or
+	 * {@link #lookupAll(Collection, String[], AttributesMapper, int)}, takes
+	 * from the supplied entries at a time. The current state of the entries of
+	 * a chunk is read with a single search per parent entry, with a filter
+	 * matching the relative distinguished name of each entry, so the chunk
+	 * size should stay well below the size limit and maximum filter length of
+	 * the server. Default is 100.
+	 *
+	 * @param bulkChunkSize the number of entries to write or read per chunk.
+	 * @since 3.1
+	 */
+	public void setBulkChunkSize(int bulkChunkSize) {
+		Assert.isTrue(bulkChunkSize > 0, "bulkChunkSize must be positive");
+		this.bulkChunkSize = bulkChunkSize;
+	}
+
 	/**
 	 * Get the ContextSource.
 	 * 
@@ -278,7 +373,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		if (handler instanceof ContextMapperCallbackHandler) {
 			assureReturnObjFlagSet(controls);
 		}
-		search(se, handler);
+		search(new ObservedSearchExecutor(se, Operation.SEARCH, base, filter, controls), handler);
 	}
 
 	/**
@@ -297,7 +392,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		if (handler instanceof ContextMapperCallbackHandler) {
 			assureReturnObjFlagSet(controls);
 		}
-		search(se, handler);
+		search(new ObservedSearchExecutor(se, Operation.SEARCH, base, filter, controls), handler);
 	}
 
 	/**
@@ -316,7 +411,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		if (handler instanceof ContextMapperCallbackHandler) {
 			assureReturnObjFlagSet(controls);
 		}
-		search(se, handler, processor);
+		search(new ObservedSearchExecutor(se, Operation.SEARCH, base, filter, controls), handler, processor);
 	}
 
 	/**
@@ -335,7 +430,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		if (handler instanceof ContextMapperCallbackHandler) {
 			assureReturnObjFlagSet(controls);
 		}
-		search(se, handler, processor);
+		search(new ObservedSearchExecutor(se, Operation.SEARCH, base, filter, controls), handler, processor);
 	}
 
 	/**
@@ -364,6 +459,15 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public void search(SearchExecutor se, NameClassPairCallbackHandler handler, DirContextProcessor processor) {
+		LdapObservationContext observationContext = (se instanceof ObservedSearchExecutor)
+				? ((ObservedSearchExecutor) se).createObservationContext()
+				: new LdapObservationContext(Operation.SEARCH, null, null, null);
+		observation(observationContext).observe(() -> doSearch(se, handler, processor, observationContext));
+	}
+
+	private void doSearch(SearchExecutor se, NameClassPairCallbackHandler handler, DirContextProcessor processor,
+			LdapObservationContext observationContext) {
+
 		DirContext ctx = contextSource.getReadOnlyContext();
 
 		NamingEnumeration results = null;
@@ -375,6 +479,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 			while (results.hasMore()) {
 				NameClassPair result = (NameClassPair) results.next();
 				handler.handleNameClassPair(result);
+				observationContext.incrementResultCount();
 			}
 		}
 		catch (NameNotFoundException e) {
@@ -665,7 +770,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 			}
 		};
 
-		search(searchExecutor, handler);
+		search(new ObservedSearchExecutor(searchExecutor, Operation.LIST, base, null, null), handler);
 	}
 
 	/**
@@ -679,7 +784,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 			}
 		};
 
-		search(searchExecutor, handler);
+		search(new ObservedSearchExecutor(searchExecutor, Operation.LIST, base, null, null), handler);
 	}
 
 	/**
@@ -729,7 +834,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 			}
 		};
 
-		search(searchExecutor, handler);
+		search(new ObservedSearchExecutor(searchExecutor, Operation.LIST_BINDINGS, base, null, null), handler);
 	}
 
 	/**
@@ -743,7 +848,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 			}
 		};
 
-		search(searchExecutor, handler);
+		search(new ObservedSearchExecutor(searchExecutor, Operation.LIST_BINDINGS, base, null, null), handler);
 	}
 
 	/**
@@ -822,6 +927,29 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		return executeWithContext(ce, ctx);
 	}
 
+	private <T> T executeReadOnly(Operation operation, Object dn, ContextExecutor<T> ce) {
+		LdapObservationContext observationContext = new LdapObservationContext(operation, dn);
+		return observation(observationContext).observe(() -> {
+			T result = executeReadOnly(ce);
+			observationContext.setResultCount(1);
+			return result;
+		});
+	}
+
+	private <T> T executeReadWrite(Operation operation, Object dn, ContextExecutor<T> ce) {
+		LdapObservationContext observationContext = new LdapObservationContext(operation, dn);
+		return observation(observationContext).observe(() -> {
+			T result = executeReadWrite(ce);
+			observationContext.setResultCount(1);
+			return result;
+		});
+	}
+
+	Observation observation(LdapObservationContext observationContext) {
+		return LdapObservationDocumentation.LDAP_OPERATION.observation(this.observationConvention,
+				DEFAULT_OBSERVATION_CONVENTION, () -> observationContext, this.observationRegistry);
+	}
+
 	private <T> T executeWithContext(ContextExecutor<T> ce, DirContext ctx) {
 		try {
 			return ce.executeWithContext(ctx);
@@ -839,7 +967,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public Object lookup(final Name dn) {
-		return executeReadOnly(new ContextExecutor() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				return ctx.lookup(dn);
 			}
@@ -851,7 +979,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public Object lookup(final String dn) {
-		return executeReadOnly(new ContextExecutor() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				return ctx.lookup(dn);
 			}
@@ -863,7 +991,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> T lookup(final Name dn, final AttributesMapper<T> mapper) {
-		return executeReadOnly(new ContextExecutor<T>() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor<T>() {
 			public T executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				Attributes attributes = ctx.getAttributes(dn);
 				return mapper.mapFromAttributes(attributes);
@@ -877,7 +1005,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	@Override
 	public <T> T lookup(final String dn, final AttributesMapper<T> mapper) {
 
-		return executeReadOnly(new ContextExecutor<T>() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor<T>() {
 			public T executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				Attributes attributes = ctx.getAttributes(dn);
 				return mapper.mapFromAttributes(attributes);
@@ -890,7 +1018,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> T lookup(final Name dn, final ContextMapper<T> mapper) {
-		return executeReadOnly(new ContextExecutor<T>() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor<T>() {
 			public T executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				Object object = ctx.lookup(dn);
 				return mapper.mapFromContext(object);
@@ -903,7 +1031,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> T lookup(final String dn, final ContextMapper<T> mapper) {
-		return executeReadOnly(new ContextExecutor<T>() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor<T>() {
 			public T executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				Object object = ctx.lookup(dn);
 				return mapper.mapFromContext(object);
@@ -916,7 +1044,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> T lookup(final Name dn, final String[] attributes, final AttributesMapper<T> mapper) {
-		return executeReadOnly(new ContextExecutor<T>() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor<T>() {
 			public T executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				Attributes filteredAttributes = ctx.getAttributes(dn, attributes);
 				return mapper.mapFromAttributes(filteredAttributes);
@@ -929,7 +1057,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> T lookup(final String dn, final String[] attributes, final AttributesMapper<T> mapper) {
-		return executeReadOnly(new ContextExecutor<T>() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor<T>() {
 			public T executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				Attributes filteredAttributes = ctx.getAttributes(dn, attributes);
 				return mapper.mapFromAttributes(filteredAttributes);
@@ -942,7 +1070,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> T lookup(final Name dn, final String[] attributes, final ContextMapper<T> mapper) {
-		return executeReadOnly(new ContextExecutor<T>() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor<T>() {
 			public T executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				Attributes filteredAttributes = ctx.getAttributes(dn, attributes);
 				DirContextAdapter contextAdapter = new DirContextAdapter(filteredAttributes, dn);
@@ -956,7 +1084,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> T lookup(final String dn, final String[] attributes, final ContextMapper<T> mapper) {
-		return executeReadOnly(new ContextExecutor<T>() {
+		return executeReadOnly(Operation.LOOKUP, dn, new ContextExecutor<T>() {
 			public T executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				Attributes filteredAttributes = ctx.getAttributes(dn, attributes);
 				LdapName name = LdapUtils.newLdapName(dn);
@@ -966,12 +1094,103 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		});
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes,
+			AttributesMapper<T> mapper) {
+		return lookupAll(dns, attributes, mapper, 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes,
+			AttributesMapper<T> mapper, int parallelism) {
+		Assert.notNull(mapper, "mapper must not be null");
+		return lookupAll(dns, attributes, parallelism, (dn, found) -> mapper.mapFromAttributes(found));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes,
+			ContextMapper<T> mapper) {
+		return lookupAll(dns, attributes, mapper, 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes,
+			ContextMapper<T> mapper, int parallelism) {
+		Assert.notNull(mapper, "mapper must not be null");
+		return lookupAll(dns, attributes, parallelism,
+				(dn, found) -> mapper.mapFromContext(new DirContextAdapter(found, dn)));
+	}
+
+	private <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes, int parallelism,
+			EntryMapper<T> mapper) {
+		Assert.notNull(dns, "dns must not be null");
+		Assert.isTrue(parallelism > 0, "parallelism must be positive");
+		// order the names by parent, so that each chunk needs as few searches as possible
+		Map<LdapName, List<LdapName>> dnsByParent = new LinkedHashMap<>();
+		List<LdapName> requested = new ArrayList<>(dns.size());
+		for (Name dn : dns) {
+			LdapName name = LdapUtils.newLdapName(dn);
+			LdapName parent = name.isEmpty() ? name : (LdapName) name.getPrefix(name.size() - 1);
+			dnsByParent.computeIfAbsent(parent, (key) -> new ArrayList<>()).add(name);
+			requested.add(name);
+		}
+		List<LdapName> ordered = new ArrayList<>(requested.size());
+		dnsByParent.values().forEach(ordered::addAll);
+
+		Map<LdapName, T> found = new ConcurrentHashMap<>();
+		new BulkOperation<LdapName>(ordered.iterator(), this.bulkChunkSize, parallelism,
+				contextSource::getReadOnlyContext, (ctx, chunk, result) -> {
+					try {
+						List<LdapName> unmatched = searchEntries(ctx, chunk, attributes,
+								(dn, entry) -> put(found, dn, mapper.map(dn, entry)));
+						for (LdapName dn : unmatched) {
+							try {
+								put(found, dn, mapper.map(dn, ctx.getAttributes(dn, attributes)));
+							}
+							catch (NameNotFoundException ex) {
+								// Not found, leave it out.
+							}
+						}
+					}
+					catch (javax.naming.NamingException ex) {
+						throw LdapUtils.convertLdapException(ex);
+					}
+				}).execute(this.partitionExecutor);
+
+		Map<LdapName, T> result = new LinkedHashMap<>();
+		for (LdapName dn : requested) {
+			T value = found.get(dn);
+			if (value != null) {
+				result.put(dn, value);
+			}
+		}
+		return result;
+	}
+
+	private static <T> void put(Map<LdapName, T> found, LdapName dn, T value) {
+		if (value != null) {
+			found.put(dn, value);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public void modifyAttributes(final Name dn, final ModificationItem[] mods) {
-		executeReadWrite(new ContextExecutor() {
+		executeReadWrite(Operation.MODIFY_ATTRIBUTES, dn, new ContextExecutor() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.modifyAttributes(dn, mods);
 				return null;
@@ -984,7 +1203,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public void modifyAttributes(final String dn, final ModificationItem[] mods) {
-		executeReadWrite(new ContextExecutor() {
+		executeReadWrite(Operation.MODIFY_ATTRIBUTES, dn, new ContextExecutor() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.modifyAttributes(dn, mods);
 				return null;
@@ -997,7 +1216,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public void bind(final Name dn, final Object obj, final Attributes attributes) {
-		executeReadWrite(new ContextExecutor<Object>() {
+		executeReadWrite(Operation.BIND, dn, new ContextExecutor<Object>() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.bind(dn, obj, attributes);
 				return null;
@@ -1010,7 +1229,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public void bind(final String dn, final Object obj, final Attributes attributes) {
-		executeReadWrite(new ContextExecutor<Object>() {
+		executeReadWrite(Operation.BIND, dn, new ContextExecutor<Object>() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.bind(dn, obj, attributes);
 				return null;
@@ -1061,7 +1280,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	}
 
 	private void doUnbind(final Name dn) {
-		executeReadWrite(new ContextExecutor<Object>() {
+		executeReadWrite(Operation.UNBIND, dn, new ContextExecutor<Object>() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.unbind(dn);
 				return null;
@@ -1070,7 +1289,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	}
 
 	private void doUnbind(final String dn) {
-		executeReadWrite(new ContextExecutor<Object>() {
+		executeReadWrite(Operation.UNBIND, dn, new ContextExecutor<Object>() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.unbind(dn);
 				return null;
@@ -1079,7 +1298,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	}
 
 	private void doUnbindRecursively(final Name dn) {
-		executeReadWrite(new ContextExecutor<Object>() {
+		executeReadWrite(Operation.UNBIND, dn, new ContextExecutor<Object>() {
 			public Object executeWithContext(DirContext ctx) {
 				deleteRecursively(ctx, LdapUtils.newLdapName(dn));
 				return null;
@@ -1088,7 +1307,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	}
 
 	private void doUnbindRecursively(final String dn) {
-		executeReadWrite(new ContextExecutor<Object>() {
+		executeReadWrite(Operation.UNBIND, dn, new ContextExecutor<Object>() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				deleteRecursively(ctx, LdapUtils.newLdapName(dn));
 				return null;
@@ -1137,7 +1356,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public void rebind(final Name dn, final Object obj, final Attributes attributes) {
-		executeReadWrite(new ContextExecutor() {
+		executeReadWrite(Operation.REBIND, dn, new ContextExecutor() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.rebind(dn, obj, attributes);
 				return null;
@@ -1150,7 +1369,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public void rebind(final String dn, final Object obj, final Attributes attributes) {
-		executeReadWrite(new ContextExecutor() {
+		executeReadWrite(Operation.REBIND, dn, new ContextExecutor() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.rebind(dn, obj, attributes);
 				return null;
@@ -1163,7 +1382,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public void rename(final Name oldDn, final Name newDn) {
-		executeReadWrite(new ContextExecutor() {
+		executeReadWrite(Operation.RENAME, oldDn, new ContextExecutor() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.rename(oldDn, newDn);
 				return null;
@@ -1176,7 +1395,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public void rename(final String oldDn, final String newDn) {
-		executeReadWrite(new ContextExecutor() {
+		executeReadWrite(Operation.RENAME, oldDn, new ContextExecutor() {
 			public Object executeWithContext(DirContext ctx) throws javax.naming.NamingException {
 				ctx.rename(oldDn, newDn);
 				return null;
@@ -1257,6 +1476,41 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		}
 	}
 
+	/**
+	 * {@link SearchExecutor} decorator carrying the details needed to observe
+	 * the search it performs.
+	 */
+	private static final class ObservedSearchExecutor implements SearchExecutor {
+
+		private final SearchExecutor delegate;
+
+		private final Operation operation;
+
+		private final Object base;
+
+		private final String filter;
+
+		private final Integer searchScope;
+
+		private ObservedSearchExecutor(SearchExecutor delegate, Operation operation, Object base, String filter,
+				SearchControls controls) {
+			this.delegate = delegate;
+			this.operation = operation;
+			this.base = base;
+			this.filter = filter;
+			this.searchScope = (controls != null) ? controls.getSearchScope() : null;
+		}
+
+		@Override
+		public NamingEnumeration executeSearch(DirContext ctx) throws javax.naming.NamingException {
+			return this.delegate.executeSearch(ctx);
+		}
+
+		LdapObservationContext createObservationContext() {
+			return new LdapObservationContext(this.operation, this.base, this.filter, this.searchScope);
+		}
+	}
+
 	/**
 	 * Do-nothing implementation of {@link DirContextProcessor}.
 	 *
@@ -1448,6 +1702,20 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 								final AuthenticatedLdapEntryContextCallback callback,
 								final AuthenticationErrorCallback errorCallback) {
 
+		LdapObservationContext observationContext = new LdapObservationContext(Operation.AUTHENTICATE, base, filter,
+				searchControls.getSearchScope());
+		return observation(observationContext).observe(() -> doAuthenticate(base, filter, password, searchControls,
+				callback, errorCallback, observationContext));
+	}
+
+	private AuthenticationStatus doAuthenticate(Name base,
+								String filter,
+								String password,
+								SearchControls searchControls,
+								final AuthenticatedLdapEntryContextCallback callback,
+								final AuthenticationErrorCallback errorCallback,
+								LdapObservationContext observationContext) {
+
 		List<LdapEntryIdentification> result = search(base, filter, searchControls, new LdapEntryIdentificationContextMapper());
 		if (result.size() == 0) {
 			String msg = "No results found for search, base: '" + base + "'; filter: '" + filter + "'.";
@@ -1468,10 +1736,12 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 					return null;
 				}
 			}, ctx);
+			observationContext.setResultCount(1);
 			return AuthenticationStatus.SUCCESS;
 		}
 		catch (Exception e) {
 			LOG.debug("Authentication failed for entry with DN '" + entryIdentification.getAbsoluteName() + "'", e);
+			observationContext.setError(e);
 			errorCallback.execute(e);
 			return AuthenticationStatus.UNDEFINED_FAILURE;
 		}
@@ -1631,7 +1901,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 
 	}
 
-	private SearchControls searchControlsForQuery(LdapQuery query, boolean returnObjFlag) {
+	SearchControls searchControlsForQuery(LdapQuery query, boolean returnObjFlag) {
 		SearchControls searchControls = getDefaultSearchControls(
 				defaultSearchScope,
 				returnObjFlag,
@@ -1728,13 +1998,167 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 
 		assureReturnObjFlagSet(searchControls);
 
-		NamingEnumeration<SearchResult> results = unchecked(() -> ctx.search(base, encodedFilter, searchControls));
+		LdapObservationContext observationContext = new LdapObservationContext(Operation.SEARCH, base, encodedFilter,
+				searchControls.getSearchScope());
+		Observation observation = observation(observationContext).start();
+		NamingEnumeration<SearchResult> results;
+		try {
+			results = unchecked(() -> ctx.search(base, encodedFilter, searchControls));
+		}
+		catch (RuntimeException ex) {
+			observation.error(ex);
+			observation.stop();
+			throw ex;
+		}
 		if (results == null) {
+			observation.stop();
 			return Stream.empty();
 		}
 		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(CollectionUtils.toIterator(results), Spliterator.ORDERED), false)
-				.map((nameClassPair) -> unchecked(() -> mapper.apply(nameClassPair)))
-				.filter(Objects::nonNull).onClose(() -> closeContextAndNamingEnumeration(ctx, results));
+				.map((nameClassPair) -> {
+					observationContext.incrementResultCount();
+					try {
+						return unchecked(() -> mapper.apply(nameClassPair));
+					}
+					catch (RuntimeException ex) {
+						observation.error(ex);
+						throw ex;
+					}
+				})
+				.filter(Objects::nonNull).onClose(() -> {
+					closeContextAndNamingEnumeration(ctx, results);
+					observation.stop();
+				});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, int pageSize, AttributesMapper<T> attributesMapper) {
+		return searchForStream(query, pageSize, (SearchResult result) -> {
+			Attributes attributes = result.getAttributes();
+			return unchecked(() -> attributesMapper.mapFromAttributes(attributes));
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, int pageSize, ContextMapper<T> mapper) {
+		return searchForStream(query, pageSize, (SearchResult result) -> {
+			Object object = result.getObject();
+			if (object == null) {
+				throw new ObjectRetrievalException("Binding did not contain any object.");
+			}
+			return unchecked(() -> mapper.mapFromContext(object));
+		});
+	}
+
+	<T> Stream<T> searchForStream(LdapQuery query, int pageSize, Function<SearchResult, T> mapper) {
+		Assert.isTrue(pageSize >= 0, "pageSize must not be negative");
+		Name base = query.base();
+		SearchControls searchControls = searchControlsForQuery(query, RETURN_OBJ_FLAG);
+		String encodedFilter = query.filter().encode();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(String.format("Searching - base=%1$s, finalFilter=%2$s, scope=%3$s, pageSize=%4$d", base,
+					encodedFilter, searchControls, pageSize));
+		}
+
+		LdapObservationContext observationContext = new LdapObservationContext(Operation.SEARCH, base, encodedFilter,
+				searchControls.getSearchScope());
+		Observation observation = observation(observationContext).start();
+		PagedSearchSpliterator results = new PagedSearchSpliterator(base, encodedFilter, searchControls, pageSize,
+				observation, observationContext);
+		return StreamSupport.stream(results, false)
+				.map((searchResult) -> {
+					try {
+						return mapper.apply(searchResult);
+					}
+					catch (RuntimeException ex) {
+						observation.error(ex);
+						throw ex;
+					}
+				})
+				.filter(Objects::nonNull).onClose(() -> {
+					results.close();
+					observation.stop();
+				});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, SearchPartitioner partitioner, int parallelism,
+			int pageSize, AttributesMapper<T> mapper) {
+		return partitionedSearch(query, partitioner, parallelism,
+				(partition) -> searchForStream(partition, pageSize, mapper));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, SearchPartitioner partitioner, int parallelism,
+			int pageSize, ContextMapper<T> mapper) {
+		return partitionedSearch(query, partitioner, parallelism,
+				(partition) -> searchForStream(partition, pageSize, mapper));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void search(LdapQuery query, SearchPartitioner partitioner, int parallelism, int pageSize,
+			NameClassPairCallbackHandler handler) {
+		try (Stream<SearchResult> results = partitionedSearch(query, partitioner, parallelism,
+				(partition) -> searchForStream(partition, pageSize, Function.identity()))) {
+			results.forEach((result) -> {
+				try {
+					handler.handleNameClassPair(result);
+				}
+				catch (javax.naming.NamingException e) {
+					throw LdapUtils.convertLdapException(e);
+				}
+			});
+		}
+	}
+
+	private <T> Stream<T> partitionedSearch(LdapQuery query, SearchPartitioner partitioner, int parallelism,
+			Function<LdapQuery, Stream<T>> searcher) {
+		Assert.notNull(partitioner, "partitioner must not be null");
+		Assert.isTrue(parallelism > 0, "parallelism must be positive");
+		List<LdapQuery> partitions = partitioner.partition(withDefaultSearchScope(query), this);
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(String.format("Searching %1$d partitions with parallelism %2$d", partitions.size(),
+					parallelism));
+		}
+
+		PartitionedSearch<T> search = new PartitionedSearch<>(partitions, parallelism, searcher);
+		search.start(this.partitionExecutor);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(search, Spliterator.NONNULL), false)
+				.onClose(search::close);
+	}
+
+	/**
+	 * Resolve a missing search scope of the query against the
+	 * {@link #setDefaultSearchScope(int) default search scope}, so that a
+	 * partitioner sees the scope the unpartitioned search would use.
+	 */
+	private LdapQuery withDefaultSearchScope(LdapQuery query) {
+		if (query.searchScope() != null) {
+			return query;
+		}
+		for (SearchScope scope : SearchScope.values()) {
+			if (scope.getId() == this.defaultSearchScope) {
+				return LdapQueryBuilder.fromQuery(query).searchScope(scope).filter(query.filter());
+			}
+		}
+		return query;
 	}
 
 	/**
@@ -1749,12 +2173,7 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		// Make sure the class is OK before doing the lookup
 		String[] attributes = odm.manageClass(clazz);
 
-		T result = lookup(dn, attributes, new ContextMapper<T>() {
-			@Override
-			public T mapFromContext(Object ctx) throws javax.naming.NamingException {
-				return odm.mapFromLdapDataEntry((DirContextOperations) ctx, clazz);
-			}
-		});
+		T result = lookup(dn, attributes, entryMapper(clazz, true));
 
 		if (result == null) {
 			throw new OdmException(String.format("Entry %1$s does not have the required objectclasses ", dn));
@@ -1777,18 +2196,26 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 			LOG.debug(String.format("Creating entry - %1$s", entry));
 		}
 
+		DirContextAdapter context = newEntryContext(entry);
+		bind(context);
+		odm.takeSnapshot(entry, context);
+	}
+
+	/*
+	 * Map a new entry, determining and setting its id unless it is set already.
+	 */
+	private DirContextAdapter newEntryContext(Object entry) {
 		Name id = odm.getId(entry);
 		if(id == null) {
 			id = odm.getCalculatedId(entry);
-			odm.setId(entry, id);
+			setIdIfWritable(entry, id);
 		}
 
 		Assert.notNull(id, String.format("Unable to determine id for entry %s", entry.toString()));
 
 		DirContextAdapter context = new DirContextAdapter(id);
 		odm.mapToLdapDataEntry(entry, context);
-
-		bind(context);
+		return context;
 	}
 
 	/**
@@ -1804,36 +2231,94 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		Name originalId = odm.getId(entry);
 		Name calculatedId = odm.getCalculatedId(entry);
 
-		if(originalId != null && calculatedId != null && !originalId.equals(calculatedId)) {
+		if(isMoved(entry, originalId, calculatedId)) {
 			// The DN has changed - remove the original entry and bind the new one
 			// (because other data may have changed as well
-			if (LOG.isDebugEnabled()) {
-				LOG.debug(String.format("Calculated DN of %s; of entry %s differs from explicitly specified one; %s - moving",
-						calculatedId, entry, originalId));
-			}
-
 			unbind(originalId);
 
 			DirContextAdapter context = new DirContextAdapter(calculatedId);
 			odm.mapToLdapDataEntry(entry, context);
 
 			bind(context);
-			odm.setId(entry, calculatedId);
+			if (setIdIfWritable(entry, calculatedId)) {
+				odm.takeSnapshot(entry, context);
+			}
 		} else {
 			// DN is the same, just modify the attributes
+			Name id = updatedId(entry, originalId, calculatedId);
+
+			DirContextAdapter snapshotContext = snapshotContext(entry, id);
+			if (snapshotContext != null) {
+				// The current state of the entry is known, so there is no need to read it
+				ModificationItem[] mods = snapshotContext.getModificationItems();
+				if (mods.length > 0) {
+					modifyAttributes(id, mods);
+				}
+				snapshotContext.update();
+				odm.takeSnapshot(entry, snapshotContext);
+			}
+			else {
+				// Read the current state on the read-write context, as updateAll does,
+				// since a read-only one may not have seen the latest changes yet
+				executeReadWrite(Operation.MODIFY_ATTRIBUTES, id, (ctx) -> {
+					DirContextOperations context = (DirContextOperations) ctx.lookup(id);
+					odm.mapToLdapDataEntry(entry, context);
+					modify(ctx, entry, id, context);
+					return null;
+				});
+			}
+		}
+	}
 
-			Name id = originalId;
-			if(id == null) {
-				id = calculatedId;
-				odm.setId(entry, calculatedId);
+	/*
+	 * Map an entry onto the state it was last read or written with, if known.
+	 */
+	private DirContextAdapter snapshotContext(Object entry, Name id) {
+		Attributes snapshot = odm.getSnapshot(entry);
+		if (snapshot == null) {
+			return null;
+		}
+		DirContextAdapter context = new DirContextAdapter(snapshot, id);
+		context.setUpdateMode(true);
+		odm.mapToLdapDataEntry(entry, context);
+		return context;
+	}
+
+	private boolean isMoved(Object entry, Name originalId, Name calculatedId) {
+		if(originalId != null && calculatedId != null && !originalId.equals(calculatedId)) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(String.format("Calculated DN of %s; of entry %s differs from explicitly specified one; %s - moving",
+						calculatedId, entry, originalId));
 			}
+			return true;
+		}
+		return false;
+	}
 
-			Assert.notNull(id, String.format("Unable to determine id for entry %s", entry.toString()));
+	/*
+	 * Set the id of an entry unless it can only be set through its constructor, as for
+	 * records, in which case the entry keeps its previous id.
+	 */
+	private boolean setIdIfWritable(Object entry, Name id) {
+		if (!odm.isIdWritable(entry.getClass())) {
+			return false;
+		}
+		odm.setId(entry, id);
+		return true;
+	}
 
-			DirContextOperations context = lookupContext(id);
-			odm.mapToLdapDataEntry(entry, context);
-			modifyAttributes(context);
+	/*
+	 * Determine the id of an entry to modify in place, setting it unless it is set already.
+	 */
+	private Name updatedId(Object entry, Name originalId, Name calculatedId) {
+		Name id = originalId;
+		if(id == null) {
+			id = calculatedId;
+			setIdIfWritable(entry, calculatedId);
 		}
+
+		Assert.notNull(id, String.format("Unable to determine id for entry %s", entry.toString()));
+		return id;
 	}
 
 	/**
@@ -1846,13 +2331,267 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 			LOG.debug(String.format("Deleting %1$s", entry));
 		}
 
+		unbind(deletedId(entry));
+	}
+
+	private Name deletedId(Object entry) {
 		Name id = odm.getId(entry);
 		if(id == null) {
 			id = odm.getCalculatedId(entry);
 		}
 
 		Assert.notNull(id, String.format("Unable to determine id for entry %s", entry.toString()));
-		unbind(id);
+		return id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> BulkResult<T> createAll(Collection<T> entries) {
+		Assert.notNull(entries, "entries must not be null");
+		return createAll(entries.stream(), 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> BulkResult<T> createAll(Stream<T> entries, int parallelism) {
+		return bulk(entries, parallelism, (ctx, chunk, result) -> {
+			for (T entry : chunk) {
+				write(entry, result, () -> {
+					DirContextAdapter context = newEntryContext(entry);
+					ctx.bind(context.getDn(), context, null);
+					odm.takeSnapshot(entry, context);
+				});
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> BulkResult<T> updateAll(Collection<T> entries) {
+		Assert.notNull(entries, "entries must not be null");
+		return updateAll(entries.stream(), 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> BulkResult<T> updateAll(Stream<T> entries, int parallelism) {
+		return bulk(entries, parallelism, (ctx, chunk, result) -> {
+			List<T> modifiedEntries = new ArrayList<>(chunk.size());
+			List<Name> modifiedIds = new ArrayList<>(chunk.size());
+			for (T entry : chunk) {
+				try {
+					Name originalId = odm.getId(entry);
+					Name calculatedId = odm.getCalculatedId(entry);
+					if (isMoved(entry, originalId, calculatedId)) {
+						write(entry, result, () -> {
+							ctx.unbind(originalId);
+							DirContextAdapter context = new DirContextAdapter(calculatedId);
+							odm.mapToLdapDataEntry(entry, context);
+							ctx.bind(calculatedId, context, null);
+							if (setIdIfWritable(entry, calculatedId)) {
+								odm.takeSnapshot(entry, context);
+							}
+						});
+					}
+					else {
+						Name id = updatedId(entry, originalId, calculatedId);
+						DirContextAdapter snapshotContext = snapshotContext(entry, id);
+						if (snapshotContext != null) {
+							write(entry, result, () -> modify(ctx, entry, id, snapshotContext));
+						}
+						else {
+							modifiedIds.add(id);
+							modifiedEntries.add(entry);
+						}
+					}
+				}
+				catch (RuntimeException ex) {
+					result.failed(entry, ex);
+				}
+			}
+			Map<LdapName, DirContextOperations> originals = lookupContexts(ctx, modifiedIds);
+			for (int i = 0; i < modifiedEntries.size(); i++) {
+				T entry = modifiedEntries.get(i);
+				Name id = modifiedIds.get(i);
+				write(entry, result, () -> {
+					DirContextOperations context = originals.get(LdapUtils.newLdapName(id));
+					if (context == null) {
+						context = (DirContextOperations) ctx.lookup(id);
+					}
+					odm.mapToLdapDataEntry(entry, context);
+					modify(ctx, entry, id, context);
+				});
+			}
+		});
+	}
+
+	private void modify(DirContext ctx, Object entry, Name id, DirContextOperations context)
+			throws javax.naming.NamingException {
+		ModificationItem[] mods = context.getModificationItems();
+		if (mods.length > 0) {
+			ctx.modifyAttributes(id, mods);
+		}
+		context.update();
+		odm.takeSnapshot(entry, context);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> BulkResult<T> deleteAll(Collection<T> entries) {
+		Assert.notNull(entries, "entries must not be null");
+		return deleteAll(entries.stream(), 1);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> BulkResult<T> deleteAll(Stream<T> entries, int parallelism) {
+		return bulk(entries, parallelism, (ctx, chunk, result) -> {
+			for (T entry : chunk) {
+				write(entry, result, () -> ctx.unbind(deletedId(entry)));
+			}
+		});
+	}
+
+	private <T> BulkResult<T> bulk(Stream<T> entries, int parallelism, BulkOperation.ChunkWriter<T> writer) {
+		Assert.notNull(entries, "entries must not be null");
+		Assert.isTrue(parallelism > 0, "parallelism must be positive");
+		try (entries) {
+			return new BulkOperation<>(entries.iterator(), this.bulkChunkSize, parallelism,
+					contextSource::getReadWriteContext, writer).execute(this.partitionExecutor);
+		}
+	}
+
+	/*
+	 * Write a single entry of a bulk operation, recording the outcome.
+	 */
+	private static <T> void write(T entry, BulkResult<T> result, EntryWrite write) {
+		try {
+			write.run();
+			result.succeeded(entry);
+		}
+		catch (javax.naming.NamingException ex) {
+			result.failed(entry, LdapUtils.convertLdapException(ex));
+		}
+		catch (RuntimeException ex) {
+			result.failed(entry, ex);
+		}
+	}
+
+	/*
+	 * Read the current state of the supplied entries with one search per parent entry,
+	 * matching the relative distinguished names of its children. Entries that can't be
+	 * matched by a filter, or that are not found, are left out, as are all entries not
+	 * found yet when a search fails, e.g. because it exceeds a size limit; the caller
+	 * reads them one at a time instead.
+	 */
+	private Map<LdapName, DirContextOperations> lookupContexts(DirContext ctx, Collection<Name> ids) {
+		Map<LdapName, DirContextOperations> contexts = new HashMap<>();
+		try {
+			searchEntries(ctx, ids, null, (dn, attributes) -> {
+				DirContextAdapter context = new DirContextAdapter(attributes, dn);
+				context.setUpdateMode(true);
+				contexts.put(dn, context);
+			});
+		}
+		catch (javax.naming.NamingException | RuntimeException ex) {
+			LOG.debug("Failed to read entries with a single search, reading them one at a time", ex);
+		}
+		return contexts;
+	}
+
+	/*
+	 * Read the supplied entries with one one-level search per parent entry, with a filter
+	 * matching the relative distinguished names of its children, passing each entry found
+	 * to the callback. Entries under a parent that does not exist are not found. Returns
+	 * the names that can't be matched by a filter, for them to be read one at a time.
+	 */
+	private List<LdapName> searchEntries(DirContext ctx, Collection<? extends Name> ids, String[] attributes,
+			EntryCallback callback) throws javax.naming.NamingException {
+		Map<LdapName, OrFilter> filtersByParent = new LinkedHashMap<>();
+		List<LdapName> unmatched = new ArrayList<>();
+		for (Name id : ids) {
+			LdapName dn = LdapUtils.newLdapName(id);
+			Filter filter = dn.isEmpty() ? null : rdnFilter(dn.getRdn(dn.size() - 1));
+			if (filter != null) {
+				filtersByParent.computeIfAbsent((LdapName) dn.getPrefix(dn.size() - 1), (parent) -> new OrFilter())
+						.or(filter);
+			}
+			else {
+				unmatched.add(dn);
+			}
+		}
+		SearchControls controls = new SearchControls();
+		controls.setSearchScope(SearchControls.ONELEVEL_SCOPE);
+		controls.setReturningAttributes(attributes);
+		for (Map.Entry<LdapName, OrFilter> parent : filtersByParent.entrySet()) {
+			NamingEnumeration<SearchResult> results;
+			try {
+				results = ctx.search(parent.getKey(), parent.getValue().encode(), controls);
+			}
+			catch (NameNotFoundException ex) {
+				continue;
+			}
+			try {
+				while (results.hasMore()) {
+					SearchResult searchResult = results.next();
+					if (searchResult.isRelative()) {
+						LdapName dn = LdapNameBuilder.newInstance(parent.getKey()).add(searchResult.getName()).build();
+						callback.found(dn, searchResult.getAttributes());
+					}
+				}
+			}
+			finally {
+				closeNamingEnumeration(results);
+			}
+		}
+		return unmatched;
+	}
+
+	private static Filter rdnFilter(Rdn rdn) throws javax.naming.NamingException {
+		AndFilter filter = new AndFilter();
+		NamingEnumeration<? extends javax.naming.directory.Attribute> attributes = rdn.toAttributes().getAll();
+		while (attributes.hasMore()) {
+			javax.naming.directory.Attribute attribute = attributes.next();
+			Object value = attribute.get();
+			if (!(value instanceof String)) {
+				return null;
+			}
+			filter.and(new EqualsFilter(attribute.getID(), (String) value));
+		}
+		return filter;
+	}
+
+	@FunctionalInterface
+	private interface EntryWrite {
+
+		void run() throws javax.naming.NamingException;
+
+	}
+
+	@FunctionalInterface
+	private interface EntryCallback {
+
+		void found(LdapName dn, Attributes attributes) throws javax.naming.NamingException;
+
+	}
+
+	@FunctionalInterface
+	private interface EntryMapper<T> {
+
+		T map(LdapName dn, Attributes attributes) throws javax.naming.NamingException;
+
 	}
 
 	/**
@@ -1878,6 +2617,26 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> List<T> find(Name base, Filter filter, SearchControls searchControls, final Class<T> clazz) {
+		return find(base, filter, searchControls, clazz, () -> odm.manageClass(clazz),
+				entryMapper(clazz, searchControls.getReturningAttributes() == null));
+	}
+
+	/*
+	 * Map entries of the supplied class, recording their state if they are read with all
+	 * the attributes of the class.
+	 */
+	<T> ContextMapper<T> entryMapper(Class<T> clazz, boolean allAttributes) {
+		return (ctx) -> {
+			T entry = odm.mapFromLdapDataEntry((DirContextOperations) ctx, clazz);
+			if (entry != null && allAttributes) {
+				odm.takeSnapshot(entry, (DirContextOperations) ctx);
+			}
+			return entry;
+		};
+	}
+
+	private <T> List<T> find(Name base, Filter filter, SearchControls searchControls, Class<?> clazz,
+			Supplier<String[]> attributes, ContextMapper<T> mapper) {
 		Filter finalFilter = odm.filterFor(clazz, filter);
 
 		// Search from the root if we are not told where to search from
@@ -1888,20 +2647,14 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 
 		// extend search controls with the attributes to return
 		if (searchControls.getReturningAttributes() == null) {
-			String[] attributes = this.odm.manageClass(clazz);
-			searchControls.setReturningAttributes(attributes);
+			searchControls.setReturningAttributes(attributes.get());
 		}
 
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(String.format("Searching - base=%1$s, finalFilter=%2$s, scope=%3$s", base, finalFilter, searchControls));
 		}
 
-		List<T> result = search(localBase, finalFilter.encode(), searchControls, new ContextMapper<T>() {
-			@Override
-			public T mapFromContext(Object ctx) throws javax.naming.NamingException {
-				return odm.mapFromLdapDataEntry((DirContextOperations) ctx, clazz);
-			}
-		});
+		List<T> result = search(localBase, finalFilter.encode(), searchControls, mapper);
 		result.remove(null);
 
 		if (LOG.isDebugEnabled()) {
@@ -1920,6 +2673,16 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 		return find(query.base(), query.filter(), searchControls, clazz);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <T> List<T> find(LdapQuery query, Class<?> clazz, Class<T> projection) {
+		SearchControls searchControls = searchControlsForQuery(query, RETURN_OBJ_FLAG);
+		return find(query.base(), query.filter(), searchControls, clazz, () -> odm.manageProjection(clazz, projection),
+				(ctx) -> odm.mapFromLdapDataEntry((DirContextOperations) ctx, clazz, projection));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -1942,38 +2705,65 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 	 */
 	@Override
 	public <T> Stream<T> findForStream(LdapQuery query, Class<T> clazz) {
+		return searchForStream(findQuery(query, clazz), entryMapper(clazz, query.attributes() == null));
+	}
+
+	/**
+	 * Restrict the supplied query to entries of the given class, requesting the
+	 * attributes managed by the class unless the query specifies its own.
+	 */
+	LdapQuery findQuery(LdapQuery query, Class<?> clazz) {
 		LdapQueryBuilder builder = LdapQueryBuilder.fromQuery(query);
 		if (query.attributes() == null) {
 			String[] attributes = odm.manageClass(clazz);
 			builder.attributes(attributes);
 		}
 		Filter includeClass = odm.filterFor(clazz, query.filter());
-		ContextMapper<T> contextMapper = (object) -> odm.mapFromLdapDataEntry((DirContextOperations) object, clazz);
-		return searchForStream(builder.filter(includeClass), contextMapper);
+		return builder.filter(includeClass);
 	}
 
 	private <T> T unchecked(CheckedSupplier<T> supplier) {
 		try {
 			return supplier.get();
-		} catch (NameNotFoundException e) {
+		} catch (javax.naming.NamingException e) {
+			RuntimeException ex = translateSearchException(e);
+			if (ex != null) {
+				throw ex;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Translate an exception encountered while searching, honouring the
+	 * <code>ignoreNameNotFoundException</code>,
+	 * <code>ignorePartialResultException</code> and
+	 * <code>ignoreSizeLimitExceededException</code> settings.
+	 *
+	 * @param e the exception to translate.
+	 * @return the translated exception, or <code>null</code> if the exception
+	 * should be ignored, in which case the search is to be considered complete.
+	 */
+	RuntimeException translateSearchException(javax.naming.NamingException e) {
+		if (e instanceof NameNotFoundException) {
 			// It is possible to ignore errors caused by base not found
 			if (!ignoreNameNotFoundException) {
-				throw LdapUtils.convertLdapException(e);
+				return LdapUtils.convertLdapException(e);
 			}
 			LOG.warn("Base context not found, ignoring: " + e.getMessage());
-		} catch (PartialResultException e) {
+		} else if (e instanceof PartialResultException) {
 			// Workaround for AD servers not handling referrals correctly.
 			if (!ignorePartialResultException) {
-				throw LdapUtils.convertLdapException(e);
+				return LdapUtils.convertLdapException(e);
 			}
 			LOG.debug("PartialResultException encountered and ignored", e);
-		} catch(SizeLimitExceededException e) {
-			if(!ignoreSizeLimitExceededException) {
-				throw LdapUtils.convertLdapException(e);
+		} else if (e instanceof SizeLimitExceededException) {
+			if (!ignoreSizeLimitExceededException) {
+				return LdapUtils.convertLdapException(e);
 			}
 			LOG.debug("SizeLimitExceededException encountered and ignored", e);
-		} catch (javax.naming.NamingException e) {
-			throw LdapUtils.convertLdapException(e);
+		} else {
+			return LdapUtils.convertLdapException(e);
 		}
 		return null;
 	}
@@ -2015,4 +2805,89 @@ public class LdapTemplate implements LdapOperations, InitializingBean {
 			return success;
 		}
 	}
+
+	/**
+	 * Spliterator over the results of a {@link PagedSearchCursor}. The context
+	 * is only obtained from the context source when the first result is
+	 * requested, so that a stream which is never consumed never holds a
+	 * context.
+	 */
+	private final class PagedSearchSpliterator extends Spliterators.AbstractSpliterator<SearchResult> {
+
+		private final Name base;
+
+		private final String filter;
+
+		private final SearchControls searchControls;
+
+		private final int pageSize;
+
+		private final Observation observation;
+
+		private final LdapObservationContext observationContext;
+
+		private DirContext ctx;
+
+		private PagedSearchCursor cursor;
+
+		private boolean closed;
+
+		PagedSearchSpliterator(Name base, String filter, SearchControls searchControls, int pageSize,
+				Observation observation, LdapObservationContext observationContext) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.base = base;
+			this.filter = filter;
+			this.searchControls = searchControls;
+			this.pageSize = pageSize;
+			this.observation = observation;
+			this.observationContext = observationContext;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super SearchResult> action) {
+			if (this.closed) {
+				return false;
+			}
+			SearchResult result;
+			try {
+				if (this.cursor == null) {
+					this.ctx = contextSource.getReadOnlyContext();
+					this.cursor = new PagedSearchCursor(this.ctx, this.base, this.filter, this.searchControls,
+							this.pageSize);
+				}
+				result = this.cursor.next();
+			}
+			catch (javax.naming.NamingException e) {
+				RuntimeException ex = translateSearchException(e);
+				if (ex != null) {
+					this.observation.error(ex);
+					throw ex;
+				}
+				result = null;
+			}
+			catch (RuntimeException ex) {
+				this.observation.error(ex);
+				throw ex;
+			}
+			if (result == null) {
+				this.cursor.close();
+				return false;
+			}
+			this.observationContext.incrementResultCount();
+			action.accept(result);
+			return true;
+		}
+
+		void close() {
+			this.closed = true;
+			if (this.cursor != null) {
+				this.cursor.close();
+			}
+			if (this.ctx != null) {
+				closeContext(this.ctx);
+			}
+		}
+
+	}
+
 }
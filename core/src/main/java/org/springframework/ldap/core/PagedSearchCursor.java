@@ -0,0 +1,193 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.naming.Name;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.PagedResultsControl;
+import javax.naming.ldap.PagedResultsResponseControl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ldap.control.CreateControlFailedException;
+
+/**
+ * Cursor over the results of a search, transparently following the cookies
+ * of the paged results control (RFC 2696) on a single context. A page is only
+ * requested from the server once all results of the previous page have been
+ * consumed, so the pace at which results are pulled from the cursor governs
+ * the pace at which the directory is queried.
+ * <p>
+ * The request controls originally set on the context are restored when the
+ * cursor is closed. Closing the cursor does not close the context itself.
+ *
+ * @since 3.1
+ */
+final class PagedSearchCursor implements AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PagedSearchCursor.class);
+
+	private final DirContext ctx;
+
+	private final Name base;
+
+	private final String filter;
+
+	private final SearchControls searchControls;
+
+	private final int pageSize;
+
+	private Control[] originalControls;
+
+	private NamingEnumeration<SearchResult> page;
+
+	private byte[] cookie;
+
+	private boolean done;
+
+	/**
+	 * Create a new cursor. The search is not executed until the first result is
+	 * requested.
+	 *
+	 * @param ctx the context to search on; must be an {@link LdapContext} if
+	 * paging is requested.
+	 * @param base the search base.
+	 * @param filter the encoded search filter.
+	 * @param searchControls the search controls.
+	 * @param pageSize the number of results to request per page, or
+	 * <code>0</code> to search without the paged results control.
+	 */
+	PagedSearchCursor(DirContext ctx, Name base, String filter, SearchControls searchControls, int pageSize) {
+		this.ctx = ctx;
+		this.base = base;
+		this.filter = filter;
+		this.searchControls = searchControls;
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Get the next search result, requesting the next page from the server if
+	 * the current page is exhausted.
+	 *
+	 * @return the next search result, or <code>null</code> if there are no
+	 * more results.
+	 * @throws NamingException if the search fails.
+	 */
+	SearchResult next() throws NamingException {
+		while (!this.done) {
+			if (this.page == null) {
+				this.page = search();
+			}
+			if (this.page.hasMore()) {
+				return this.page.next();
+			}
+			endPage();
+		}
+		return null;
+	}
+
+	/**
+	 * Close the results of the current page and restore the request controls
+	 * of the context.
+	 */
+	@Override
+	public void close() {
+		this.done = true;
+		closePage();
+		if (this.originalControls != null) {
+			try {
+				((LdapContext) this.ctx).setRequestControls(this.originalControls);
+			}
+			catch (NamingException e) {
+				LOG.debug("Failed to restore request controls", e);
+			}
+			this.originalControls = null;
+		}
+	}
+
+	private NamingEnumeration<SearchResult> search() throws NamingException {
+		if (this.pageSize > 0) {
+			if (!(this.ctx instanceof LdapContext)) {
+				throw new IllegalArgumentException("Request Control operations require LDAPv3 - "
+						+ "Context must be of type LdapContext");
+			}
+			LdapContext ldapContext = (LdapContext) this.ctx;
+			if (this.originalControls == null) {
+				Control[] controls = ldapContext.getRequestControls();
+				this.originalControls = (controls != null) ? controls : new Control[0];
+			}
+			ldapContext.setRequestControls(requestControls());
+		}
+		return this.ctx.search(this.base, this.filter, this.searchControls);
+	}
+
+	private Control[] requestControls() {
+		List<Control> controls = new ArrayList<>(this.originalControls.length + 1);
+		for (Control control : this.originalControls) {
+			if (!PagedResultsControl.OID.equals(control.getID())) {
+				controls.add(control);
+			}
+		}
+		try {
+			controls.add(new PagedResultsControl(this.pageSize, this.cookie, Control.CRITICAL));
+		}
+		catch (IOException e) {
+			throw new CreateControlFailedException("Error creating PagedResultsControl", e);
+		}
+		return controls.toArray(new Control[0]);
+	}
+
+	private void endPage() throws NamingException {
+		this.cookie = null;
+		if (this.pageSize > 0) {
+			Control[] responseControls = ((LdapContext) this.ctx).getResponseControls();
+			if (responseControls != null) {
+				for (Control control : responseControls) {
+					if (control instanceof PagedResultsResponseControl) {
+						this.cookie = ((PagedResultsResponseControl) control).getCookie();
+					}
+				}
+			}
+		}
+		closePage();
+		this.done = (this.cookie == null || this.cookie.length == 0);
+	}
+
+	private void closePage() {
+		if (this.page != null) {
+			try {
+				this.page.close();
+			}
+			catch (NamingException e) {
+				LOG.debug("Failed to close search results", e);
+			}
+			this.page = null;
+		}
+	}
+
+}
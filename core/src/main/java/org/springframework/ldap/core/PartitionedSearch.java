@@ -0,0 +1,198 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.ldap.UncategorizedLdapException;
+import org.springframework.ldap.query.LdapQuery;
+
+/**
+ * Executes the partitions of a search concurrently, merging their results into
+ * a single iterator. A fixed number of workers take partitions off a shared
+ * queue and hand their results to the consumer through a bounded buffer, so
+ * that a slow consumer holds back the searches rather than the results piling
+ * up in memory.
+ * <p>
+ * Closing the search stops the workers, which close the search they are
+ * working on as soon as they notice.
+ *
+ * @param <T> the type of the results.
+ * @since 3.1
+ */
+final class PartitionedSearch<T> implements Iterator<T>, AutoCloseable {
+
+	private static final Object WORKER_DONE = new Object();
+
+	private static final int BUFFER_SIZE_PER_WORKER = 256;
+
+	private final Queue<LdapQuery> partitions;
+
+	private final Function<LdapQuery, Stream<T>> searcher;
+
+	private final BlockingQueue<Object> buffer;
+
+	private final int workers;
+
+	private int finishedWorkers;
+
+	private volatile boolean closed;
+
+	private Object next;
+
+	/**
+	 * Create a new instance.
+	 *
+	 * @param partitions the partitions to search.
+	 * @param parallelism the maximum number of partitions to search concurrently.
+	 * @param searcher performs the search of a single partition.
+	 */
+	PartitionedSearch(List<LdapQuery> partitions, int parallelism, Function<LdapQuery, Stream<T>> searcher) {
+		this.partitions = new ConcurrentLinkedQueue<>(partitions);
+		this.searcher = searcher;
+		this.workers = Math.min(parallelism, partitions.size());
+		this.buffer = new ArrayBlockingQueue<>(Math.max(this.workers, 1) * BUFFER_SIZE_PER_WORKER);
+	}
+
+	/**
+	 * Start the workers.
+	 *
+	 * @param executor the executor to run the workers on.
+	 */
+	void start(Executor executor) {
+		for (int i = 0; i < this.workers; i++) {
+			try {
+				executor.execute(this::work);
+			}
+			catch (RuntimeException ex) {
+				close();
+				throw ex;
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (this.next == null && this.finishedWorkers < this.workers) {
+			Object element;
+			try {
+				element = this.buffer.take();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				close();
+				throw new UncategorizedLdapException("Interrupted while waiting for search results", ex);
+			}
+			if (element == WORKER_DONE) {
+				this.finishedWorkers++;
+			}
+			else if (element instanceof Failure) {
+				close();
+				Throwable failure = ((Failure) element).exception;
+				if (failure instanceof RuntimeException) {
+					throw (RuntimeException) failure;
+				}
+				if (failure instanceof Error) {
+					throw (Error) failure;
+				}
+				throw new UncategorizedLdapException("Partitioned search failed", failure);
+			}
+			else {
+				this.next = element;
+			}
+		}
+		return this.next != null;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		T result = (T) this.next;
+		this.next = null;
+		return result;
+	}
+
+	@Override
+	public void close() {
+		this.closed = true;
+		this.buffer.clear();
+	}
+
+	private void work() {
+		try {
+			LdapQuery partition;
+			while (!this.closed && (partition = this.partitions.poll()) != null) {
+				try (Stream<T> results = this.searcher.apply(partition)) {
+					Iterator<T> iterator = results.iterator();
+					while (!this.closed && iterator.hasNext()) {
+						put(iterator.next());
+					}
+				}
+			}
+			put(WORKER_DONE);
+		}
+		catch (Throwable ex) {
+			put(new Failure(ex));
+		}
+	}
+
+	private void put(Object element) {
+		// Keep trying when interrupted, the consumer would otherwise wait forever
+		boolean interrupted = false;
+		try {
+			while (!this.closed) {
+				try {
+					if (this.buffer.offer(element, 100, TimeUnit.MILLISECONDS)) {
+						return;
+					}
+				}
+				catch (InterruptedException ex) {
+					interrupted = true;
+				}
+			}
+		}
+		finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static final class Failure {
+
+		private final Throwable exception;
+
+		private Failure(Throwable exception) {
+			this.exception = exception;
+		}
+
+	}
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import javax.naming.Name;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.ModificationItem;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.ldap.query.LdapQuery;
+
+/**
+ * Interface that specifies a basic set of reactive LDAP operations. Implemented
+ * by {@link ReactiveLdapTemplate}.
+ * <p>
+ * None of the operations perform any I/O until subscribed to. Exceptions are
+ * translated in the same way as by {@link LdapOperations} and signalled as
+ * error signals rather than thrown.
+ *
+ * @since 3.1
+ * @see LdapOperations
+ */
+public interface ReactiveLdapOperations {
+
+	/**
+	 * Search for all objects matching the supplied query. Each
+	 * <code>SearchResult</code> is supplied to the specified
+	 * <code>ContextMapper</code>; <code>null</code> results are skipped.
+	 * Results are read from the directory as they are requested by the
+	 * subscriber.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param mapper the <code>ContextMapper</code> to use for mapping the
+	 * search results.
+	 * @param <T> the type of the mapped objects.
+	 * @return a <code>Flux</code> of the mapped objects.
+	 */
+	<T> Flux<T> search(LdapQuery query, ContextMapper<T> mapper);
+
+	/**
+	 * Search for all objects matching the supplied query. The
+	 * <code>Attributes</code> of each search result are supplied to the
+	 * specified <code>AttributesMapper</code>; <code>null</code> results are
+	 * skipped. Results are read from the directory as they are requested by
+	 * the subscriber.
+	 *
+	 * @param query the LDAP query specification.
+	 * @param mapper the <code>AttributesMapper</code> to use for mapping the
+	 * search results.
+	 * @param <T> the type of the mapped objects.
+	 * @return a <code>Flux</code> of the mapped objects.
+	 */
+	<T> Flux<T> search(LdapQuery query, AttributesMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name and map it using a
+	 * <code>ContextMapper</code>.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @param mapper the <code>ContextMapper</code> to use for mapping the
+	 * entry.
+	 * @param <T> the type of the mapped object.
+	 * @return a <code>Mono</code> of the mapped object, empty if the mapper
+	 * returned <code>null</code>.
+	 * @see LdapOperations#lookup(Name, ContextMapper)
+	 */
+	<T> Mono<T> lookup(Name dn, ContextMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name and map it using a
+	 * <code>ContextMapper</code>.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @param mapper the <code>ContextMapper</code> to use for mapping the
+	 * entry.
+	 * @param <T> the type of the mapped object.
+	 * @return a <code>Mono</code> of the mapped object, empty if the mapper
+	 * returned <code>null</code>.
+	 * @see LdapOperations#lookup(String, ContextMapper)
+	 */
+	<T> Mono<T> lookup(String dn, ContextMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name and map its
+	 * attributes using an <code>AttributesMapper</code>.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @param mapper the <code>AttributesMapper</code> to use for mapping the
+	 * entry.
+	 * @param <T> the type of the mapped object.
+	 * @return a <code>Mono</code> of the mapped object, empty if the mapper
+	 * returned <code>null</code>.
+	 * @see LdapOperations#lookup(Name, AttributesMapper)
+	 */
+	<T> Mono<T> lookup(Name dn, AttributesMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name and map its
+	 * attributes using an <code>AttributesMapper</code>.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @param mapper the <code>AttributesMapper</code> to use for mapping the
+	 * entry.
+	 * @param <T> the type of the mapped object.
+	 * @return a <code>Mono</code> of the mapped object, empty if the mapper
+	 * returned <code>null</code>.
+	 * @see LdapOperations#lookup(String, AttributesMapper)
+	 */
+	<T> Mono<T> lookup(String dn, AttributesMapper<T> mapper);
+
+	/**
+	 * Look up the entry at the specified distinguished name, returning it as a
+	 * <code>DirContextOperations</code> instance.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @return a <code>Mono</code> of the entry.
+	 * @see LdapOperations#lookupContext(Name)
+	 */
+	Mono<DirContextOperations> lookupContext(Name dn);
+
+	/**
+	 * Look up the entry at the specified distinguished name, returning it as a
+	 * <code>DirContextOperations</code> instance.
+	 *
+	 * @param dn the distinguished name of the entry to look up.
+	 * @return a <code>Mono</code> of the entry.
+	 * @see LdapOperations#lookupContext(String)
+	 */
+	Mono<DirContextOperations> lookupContext(String dn);
+
+	/**
+	 * Create an entry in the LDAP tree.
+	 *
+	 * @param dn the distinguished name of the entry to create.
+	 * @param obj the object to bind; may be <code>null</code>.
+	 * @param attributes the attributes of the entry; may be <code>null</code>.
+	 * @return a <code>Mono</code> completing when the entry has been created.
+	 * @see LdapOperations#bind(Name, Object, Attributes)
+	 */
+	Mono<Void> bind(Name dn, Object obj, Attributes attributes);
+
+	/**
+	 * Create an entry in the LDAP tree.
+	 *
+	 * @param dn the distinguished name of the entry to create.
+	 * @param obj the object to bind; may be <code>null</code>.
+	 * @param attributes the attributes of the entry; may be <code>null</code>.
+	 * @return a <code>Mono</code> completing when the entry has been created.
+	 * @see LdapOperations#bind(String, Object, Attributes)
+	 */
+	Mono<Void> bind(String dn, Object obj, Attributes attributes);
+
+	/**
+	 * Create an entry in the LDAP tree from the supplied
+	 * <code>DirContextOperations</code>.
+	 *
+	 * @param ctx the context to bind.
+	 * @return a <code>Mono</code> completing when the entry has been created.
+	 * @see LdapOperations#bind(DirContextOperations)
+	 */
+	Mono<Void> bind(DirContextOperations ctx);
+
+	/**
+	 * Modify the attributes of an entry.
+	 *
+	 * @param dn the distinguished name of the entry to modify.
+	 * @param mods the modifications to perform.
+	 * @return a <code>Mono</code> completing when the entry has been modified.
+	 * @see LdapOperations#modifyAttributes(Name, ModificationItem[])
+	 */
+	Mono<Void> modifyAttributes(Name dn, ModificationItem[] mods);
+
+	/**
+	 * Modify the attributes of an entry.
+	 *
+	 * @param dn the distinguished name of the entry to modify.
+	 * @param mods the modifications to perform.
+	 * @return a <code>Mono</code> completing when the entry has been modified.
+	 * @see LdapOperations#modifyAttributes(String, ModificationItem[])
+	 */
+	Mono<Void> modifyAttributes(String dn, ModificationItem[] mods);
+
+	/**
+	 * Modify an entry using the modifications recorded in the supplied
+	 * <code>DirContextOperations</code>.
+	 *
+	 * @param ctx the context to modify, as previously obtained from
+	 * {@link #lookupContext(Name)}.
+	 * @return a <code>Mono</code> completing when the entry has been modified.
+	 * @see LdapOperations#modifyAttributes(DirContextOperations)
+	 */
+	Mono<Void> modifyAttributes(DirContextOperations ctx);
+
+	/**
+	 * Remove an entry from the LDAP tree. The entry must not have any
+	 * children.
+	 *
+	 * @param dn the distinguished name of the entry to remove.
+	 * @return a <code>Mono</code> completing when the entry has been removed.
+	 * @see LdapOperations#unbind(Name)
+	 */
+	Mono<Void> unbind(Name dn);
+
+	/**
+	 * Remove an entry from the LDAP tree. The entry must not have any
+	 * children.
+	 *
+	 * @param dn the distinguished name of the entry to remove.
+	 * @return a <code>Mono</code> completing when the entry has been removed.
+	 * @see LdapOperations#unbind(String)
+	 */
+	Mono<Void> unbind(String dn);
+
+	/**
+	 * Perform a simple LDAP 'bind' authentication of the single entry found by
+	 * the supplied query.
+	 *
+	 * @param query the query identifying the entry to authenticate.
+	 * @param password the password to use for authentication.
+	 * @return a <code>Mono</code> completing when authentication succeeded, or
+	 * signalling the error otherwise.
+	 * @see LdapOperations#authenticate(LdapQuery, String)
+	 */
+	Mono<Void> authenticate(LdapQuery query, String password);
+
+	/**
+	 * Perform a simple LDAP 'bind' authentication of the single entry found by
+	 * the supplied query, mapping the authenticated entry using the supplied
+	 * mapper.
+	 *
+	 * @param query the query identifying the entry to authenticate.
+	 * @param password the password to use for authentication.
+	 * @param mapper the mapper invoked with the authenticated context.
+	 * @param <T> the type of the mapped object.
+	 * @return a <code>Mono</code> of the mapped object, or signalling the
+	 * error if authentication failed.
+	 * @see LdapOperations#authenticate(LdapQuery, String, AuthenticatedLdapEntryContextMapper)
+	 */
+	<T> Mono<T> authenticate(LdapQuery query, String password, AuthenticatedLdapEntryContextMapper<T> mapper);
+
+}
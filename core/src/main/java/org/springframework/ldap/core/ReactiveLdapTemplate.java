@@ -0,0 +1,321 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.concurrent.Callable;
+
+import javax.naming.Name;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.ModificationItem;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+
+import io.micrometer.observation.Observation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.ldap.observation.LdapObservationContext;
+import org.springframework.ldap.observation.LdapObservationContext.Operation;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.util.Assert;
+
+/**
+ * Reactive counterpart of {@link LdapTemplate}, implementing
+ * {@link ReactiveLdapOperations}.
+ * <p>
+ * JNDI is a blocking API, so every operation is subscribed to on a
+ * {@link Scheduler} dedicated to blocking I/O, by default
+ * {@link Schedulers#boundedElastic()}, keeping callers such as event loop
+ * threads from being blocked. The number of concurrently executing operations
+ * is bounded by that scheduler.
+ * <p>
+ * Point operations are delegated to the underlying {@link LdapTemplate}, so
+ * that its exception translation, configuration and observations apply. Searches
+ * are read from a single context as results are requested by the subscriber.
+ * If a {@link #setPageSize(int) page size} is set, the paged results control
+ * (RFC 2696) is used and the next page is only requested from the server once
+ * the subscriber has consumed the previous one, bounding the number of
+ * results buffered on the client. Note that paging requires contexts
+ * accepting request controls; contexts obtained from a
+ * {@link org.springframework.ldap.pool2.factory.PooledContextSource} do not,
+ * use a {@link org.springframework.ldap.pool2.factory.MutablePooledContextSource}
+ * instead.
+ * <p>
+ * Cancelling a search closes its results and returns the context to the
+ * context source.
+ *
+ * @since 3.1
+ */
+public class ReactiveLdapTemplate implements ReactiveLdapOperations {
+
+	private final LdapTemplate ldapTemplate;
+
+	private Scheduler scheduler = Schedulers.boundedElastic();
+
+	private int pageSize = 0;
+
+	/**
+	 * Create a new instance using an {@link LdapTemplate} with default
+	 * settings for the supplied <code>ContextSource</code>.
+	 *
+	 * @param contextSource the <code>ContextSource</code> to use.
+	 */
+	public ReactiveLdapTemplate(ContextSource contextSource) {
+		this(new LdapTemplate(contextSource));
+	}
+
+	/**
+	 * Create a new instance delegating to the supplied {@link LdapTemplate}.
+	 *
+	 * @param ldapTemplate the template to delegate to.
+	 */
+	public ReactiveLdapTemplate(LdapTemplate ldapTemplate) {
+		Assert.notNull(ldapTemplate, "ldapTemplate must not be null");
+		Assert.notNull(ldapTemplate.getContextSource(), "ldapTemplate must have a ContextSource");
+		this.ldapTemplate = ldapTemplate;
+	}
+
+	/**
+	 * Get the underlying {@link LdapTemplate}.
+	 *
+	 * @return the template operations are delegated to.
+	 */
+	public LdapTemplate getLdapTemplate() {
+		return this.ldapTemplate;
+	}
+
+	/**
+	 * Set the scheduler blocking LDAP operations are subscribed to. Default is
+	 * {@link Schedulers#boundedElastic()}.
+	 *
+	 * @param scheduler the scheduler to use.
+	 */
+	public void setScheduler(Scheduler scheduler) {
+		Assert.notNull(scheduler, "scheduler must not be null");
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Set the number of results to request per page in searches. Default is
+	 * <code>0</code>, meaning searches do not use the paged results control.
+	 *
+	 * @param pageSize the page size, or <code>0</code> to disable paging.
+	 */
+	public void setPageSize(int pageSize) {
+		Assert.isTrue(pageSize >= 0, "pageSize must not be negative");
+		this.pageSize = pageSize;
+	}
+
+	@Override
+	public <T> Flux<T> search(LdapQuery query, ContextMapper<T> mapper) {
+		return search(query, true, (result) -> {
+			Object object = result.getObject();
+			if (object == null) {
+				throw new ObjectRetrievalException("Binding did not contain any object.");
+			}
+			return mapper.mapFromContext(object);
+		});
+	}
+
+	@Override
+	public <T> Flux<T> search(LdapQuery query, AttributesMapper<T> mapper) {
+		return search(query, false, (result) -> mapper.mapFromAttributes(result.getAttributes()));
+	}
+
+	private <T> Flux<T> search(LdapQuery query, boolean returnObjFlag, SearchResultMapper<T> mapper) {
+		Name base = query.base();
+		String filter = query.filter().encode();
+		SearchControls searchControls = this.ldapTemplate.searchControlsForQuery(query, returnObjFlag);
+		int pageSize = this.pageSize;
+		return Flux.using(() -> new ReactiveSearch<>(base, filter, searchControls, pageSize, mapper),
+				(search) -> Flux.generate(search::next), ReactiveSearch::close)
+				.subscribeOn(this.scheduler);
+	}
+
+	@Override
+	public <T> Mono<T> lookup(Name dn, ContextMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> Mono<T> lookup(String dn, ContextMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> Mono<T> lookup(Name dn, AttributesMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> Mono<T> lookup(String dn, AttributesMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.lookup(dn, mapper));
+	}
+
+	@Override
+	public Mono<DirContextOperations> lookupContext(Name dn) {
+		return execute(() -> this.ldapTemplate.lookupContext(dn));
+	}
+
+	@Override
+	public Mono<DirContextOperations> lookupContext(String dn) {
+		return execute(() -> this.ldapTemplate.lookupContext(dn));
+	}
+
+	@Override
+	public Mono<Void> bind(Name dn, Object obj, Attributes attributes) {
+		return execute(() -> this.ldapTemplate.bind(dn, obj, attributes));
+	}
+
+	@Override
+	public Mono<Void> bind(String dn, Object obj, Attributes attributes) {
+		return execute(() -> this.ldapTemplate.bind(dn, obj, attributes));
+	}
+
+	@Override
+	public Mono<Void> bind(DirContextOperations ctx) {
+		return execute(() -> this.ldapTemplate.bind(ctx));
+	}
+
+	@Override
+	public Mono<Void> modifyAttributes(Name dn, ModificationItem[] mods) {
+		return execute(() -> this.ldapTemplate.modifyAttributes(dn, mods));
+	}
+
+	@Override
+	public Mono<Void> modifyAttributes(String dn, ModificationItem[] mods) {
+		return execute(() -> this.ldapTemplate.modifyAttributes(dn, mods));
+	}
+
+	@Override
+	public Mono<Void> modifyAttributes(DirContextOperations ctx) {
+		return execute(() -> this.ldapTemplate.modifyAttributes(ctx));
+	}
+
+	@Override
+	public Mono<Void> unbind(Name dn) {
+		return execute(() -> this.ldapTemplate.unbind(dn));
+	}
+
+	@Override
+	public Mono<Void> unbind(String dn) {
+		return execute(() -> this.ldapTemplate.unbind(dn));
+	}
+
+	@Override
+	public Mono<Void> authenticate(LdapQuery query, String password) {
+		return execute(() -> this.ldapTemplate.authenticate(query, password));
+	}
+
+	@Override
+	public <T> Mono<T> authenticate(LdapQuery query, String password, AuthenticatedLdapEntryContextMapper<T> mapper) {
+		return execute(() -> this.ldapTemplate.authenticate(query, password, mapper));
+	}
+
+	private <T> Mono<T> execute(Callable<T> callable) {
+		return Mono.fromCallable(callable).subscribeOn(this.scheduler);
+	}
+
+	private Mono<Void> execute(Runnable runnable) {
+		return Mono.<Void>fromRunnable(runnable).subscribeOn(this.scheduler);
+	}
+
+	private interface SearchResultMapper<T> {
+
+		T map(SearchResult result) throws javax.naming.NamingException;
+
+	}
+
+	/**
+	 * State of a single subscription to a search: the context, the cursor over
+	 * its results and the observation of the search.
+	 */
+	private final class ReactiveSearch<T> {
+
+		private final SearchResultMapper<T> mapper;
+
+		private final LdapObservationContext observationContext;
+
+		private final Observation observation;
+
+		private final DirContext ctx;
+
+		private final PagedSearchCursor cursor;
+
+		private ReactiveSearch(Name base, String filter, SearchControls searchControls, int pageSize,
+				SearchResultMapper<T> mapper) {
+			this.mapper = mapper;
+			this.observationContext = new LdapObservationContext(Operation.SEARCH, base, filter,
+					searchControls.getSearchScope());
+			this.observation = ldapTemplate.observation(this.observationContext).start();
+			try {
+				this.ctx = ldapTemplate.getContextSource().getReadOnlyContext();
+			}
+			catch (RuntimeException ex) {
+				this.observation.error(ex);
+				this.observation.stop();
+				throw ex;
+			}
+			this.cursor = new PagedSearchCursor(this.ctx, base, filter, searchControls, pageSize);
+		}
+
+		private void next(SynchronousSink<T> sink) {
+			try {
+				SearchResult result;
+				while ((result = this.cursor.next()) != null) {
+					T mapped = this.mapper.map(result);
+					this.observationContext.incrementResultCount();
+					if (mapped != null) {
+						sink.next(mapped);
+						return;
+					}
+				}
+				sink.complete();
+			}
+			catch (javax.naming.NamingException e) {
+				RuntimeException ex = ldapTemplate.translateSearchException(e);
+				if (ex != null) {
+					error(sink, ex);
+				}
+				else {
+					sink.complete();
+				}
+			}
+			catch (RuntimeException ex) {
+				error(sink, ex);
+			}
+		}
+
+		private void error(SynchronousSink<T> sink, RuntimeException ex) {
+			this.observation.error(ex);
+			sink.error(ex);
+		}
+
+		private void close() {
+			this.cursor.close();
+			LdapUtils.closeContext(this.ctx);
+			this.observation.stop();
+		}
+
+	}
+
+}
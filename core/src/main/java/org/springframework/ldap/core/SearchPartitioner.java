@@ -0,0 +1,53 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.List;
+
+import org.springframework.ldap.query.LdapQuery;
+
+/**
+ * Strategy for splitting a search into partitions that can be executed
+ * concurrently, used by the partitioned search methods of
+ * {@link LdapOperations}.
+ * <p>
+ * The results of the returned queries must be disjoint, and together equal the
+ * results of the original query, so that merging them neither loses nor
+ * duplicates entries.
+ * <p>
+ * {@link LdapTemplate} resolves a missing search scope of the query against
+ * its {@link LdapTemplate#setDefaultSearchScope(int) default search scope}
+ * before passing it to the partitioner.
+ *
+ * @since 3.1
+ * @see org.springframework.ldap.core.support.ChildEntrySearchPartitioner
+ * @see org.springframework.ldap.core.support.AttributePrefixSearchPartitioner
+ */
+@FunctionalInterface
+public interface SearchPartitioner {
+
+	/**
+	 * Split the supplied query into partitions.
+	 *
+	 * @param query the query to split.
+	 * @param operations operations that may be used to inspect the directory
+	 * in order to decide on the partitions.
+	 * @return the partitions; never empty.
+	 */
+	List<LdapQuery> partition(LdapQuery query, LdapOperations operations);
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.core.SearchPartitioner;
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.LikeFilter;
+import org.springframework.ldap.filter.NotFilter;
+import org.springframework.ldap.filter.OrFilter;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.LdapQueryBuilder;
+import org.springframework.util.Assert;
+
+/**
+ * {@link SearchPartitioner} splitting a search into ranges of values of an
+ * attribute, by the prefix of the value. For every prefix the partition
+ * <code>(&amp;(<i>filter</i>)(<i>attribute</i>=<i>prefix</i>*))</code> is
+ * searched, and one final partition matches all entries whose value starts with
+ * none of the prefixes or that do not have the attribute at all.
+ * <p>
+ * The attribute should use case-insensitive matching, such as <code>uid</code>
+ * or <code>cn</code>, as prefixes are compared case-insensitively. By default
+ * the prefixes are the letters <code>a</code> to <code>z</code> and the digits
+ * <code>0</code> to <code>9</code>; no prefix may be a prefix of another. For
+ * a multi-valued attribute an entry may match several partitions, so a
+ * single-valued attribute should be used.
+ * <p>
+ * Note that any count limit of the query applies to each partition
+ * individually.
+ *
+ * @since 3.1
+ */
+public class AttributePrefixSearchPartitioner implements SearchPartitioner {
+
+	private static final String[] DEFAULT_PREFIXES = "abcdefghijklmnopqrstuvwxyz0123456789".split("");
+
+	private final String attribute;
+
+	private final List<String> prefixes;
+
+	/**
+	 * Create a partitioner using the letters <code>a</code> to <code>z</code>
+	 * and the digits <code>0</code> to <code>9</code> as prefixes.
+	 *
+	 * @param attribute the attribute to partition by.
+	 */
+	public AttributePrefixSearchPartitioner(String attribute) {
+		this(attribute, DEFAULT_PREFIXES);
+	}
+
+	/**
+	 * Create a partitioner using the supplied prefixes.
+	 *
+	 * @param attribute the attribute to partition by.
+	 * @param prefixes the value prefixes, of which no one may be a prefix of
+	 * another.
+	 */
+	public AttributePrefixSearchPartitioner(String attribute, String... prefixes) {
+		Assert.hasText(attribute, "attribute must not be empty");
+		Assert.notEmpty(prefixes, "prefixes must not be empty");
+		List<String> normalized = new ArrayList<>(prefixes.length);
+		for (String prefix : prefixes) {
+			Assert.hasLength(prefix, "prefixes must not be empty");
+			normalized.add(prefix.toLowerCase(Locale.ROOT));
+		}
+		for (int i = 0; i < normalized.size(); i++) {
+			for (int j = 0; j < normalized.size(); j++) {
+				String prefix = normalized.get(i);
+				String other = normalized.get(j);
+				Assert.isTrue(i == j || !other.startsWith(prefix),
+						() -> "Prefix '" + prefix + "' overlaps with '" + other + "'");
+			}
+		}
+		this.attribute = attribute;
+		this.prefixes = normalized;
+	}
+
+	@Override
+	public List<LdapQuery> partition(LdapQuery query, LdapOperations operations) {
+		List<LdapQuery> partitions = new ArrayList<>(this.prefixes.size() + 1);
+		OrFilter anyPrefix = new OrFilter();
+		for (String prefix : this.prefixes) {
+			LikeFilter prefixFilter = new LikeFilter(this.attribute, prefix + "*");
+			anyPrefix.or(prefixFilter);
+			partitions.add(LdapQueryBuilder.fromQuery(query)
+					.filter(new AndFilter().and(query.filter()).and(prefixFilter)));
+		}
+		partitions.add(LdapQueryBuilder.fromQuery(query)
+				.filter(new AndFilter().and(query.filter()).and(new NotFilter(anyPrefix))));
+		return partitions;
+	}
+
+}
@@ -0,0 +1,1212 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.naming.Name;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.ModificationItem;
+import javax.naming.directory.SearchControls;
+import javax.naming.ldap.LdapName;
+
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.AuthenticatedLdapEntryContextCallback;
+import org.springframework.ldap.core.AuthenticatedLdapEntryContextMapper;
+import org.springframework.ldap.core.AuthenticationErrorCallback;
+import org.springframework.ldap.core.BulkResult;
+import org.springframework.ldap.core.ContextExecutor;
+import org.springframework.ldap.core.ContextMapper;
+import org.springframework.ldap.core.DirContextOperations;
+import org.springframework.ldap.core.DirContextProcessor;
+import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.core.NameClassPairCallbackHandler;
+import org.springframework.ldap.core.NameClassPairMapper;
+import org.springframework.ldap.core.SearchExecutor;
+import org.springframework.ldap.core.SearchPartitioner;
+import org.springframework.ldap.filter.Filter;
+import org.springframework.ldap.odm.annotations.EntryConstructor;
+import org.springframework.ldap.odm.core.ObjectDirectoryMapper;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.util.Assert;
+
+/**
+ * An {@link LdapOperations} decorator caching the mapped results of entry
+ * lookups, that is the <code>lookup</code> variants taking a mapper and
+ * {@link #findByDn(Name, Class)}. Results are keyed by the normalized
+ * distinguished name, the requested attributes and the mapper or entity class,
+ * so the same mapper instance should be reused for repeated lookups; stateless
+ * lambdas and method references are.
+ * <p>
+ * The results of {@link #search(LdapQuery, ContextMapper)},
+ * {@link #search(LdapQuery, AttributesMapper)}, {@link #find(LdapQuery, Class)}
+ * and {@link #find(LdapQuery, Class, Class)} are cached separately, keyed by base, scope, count limit, requested
+ * attributes, mapper, entity class or projection and the canonical
+ * form of the filter. The operands of <code>and</code> and <code>or</code>
+ * filters are sorted, so equivalent queries built in a different order share
+ * the same results. Use {@link #setQueryTimeToLiveResolver(Function)} to cache
+ * the results of some queries for longer than others, or not at all. All
+ * other operations are passed straight through to the target.
+ * <p>
+ * Cached entries expire after {@link #setTimeToLive(Duration) a time to live}
+ * and the least recently used ones are evicted once
+ * {@link #setMaximumSize(int) the maximum size} is reached. Writes performed
+ * through this instance invalidate the lookups of the affected distinguished
+ * name and the queries whose scope contains it; <code>rename</code> and
+ * recursive <code>unbind</code> invalidate the whole subtree, and
+ * <code>executeReadWrite</code>, which may modify anything, as well as the
+ * bulk writes such as <code>updateAll</code>, clear the cache.
+ * Changes made by other clients only become visible once the cached entries
+ * expire. Distinguished names are compared as given, so writes and queries
+ * should consistently use either relative or absolute names.
+ * <p>
+ * Concurrent identical reads that are not served from the cache, for
+ * instance right after a popular entry expired, are coalesced: a single call
+ * is made to the target and its result, or exception, is shared by all
+ * callers. This applies even to reads whose results are not cached at all,
+ * so setting both time to live values to zero turns this class into a pure
+ * request coalescing layer. Reads made after a write never share the call of
+ * a read started before it. A caller waiting for another caller's read can be
+ * interrupted, in which case it fails with an
+ * {@link org.springframework.ldap.UncategorizedLdapException}; configure a read
+ * timeout on the context source so that the read itself cannot hang.
+ * <p>
+ * Cached results are shared between all callers and must not be modified.
+ * For that reason the ODM operations <code>findByDn</code> and
+ * <code>find</code> only cache and coalesce immutable entries, that is records
+ * and classes created through an
+ * {@link org.springframework.ldap.odm.annotations.EntryConstructor}; other
+ * entities are read from the target on every call, so that a caller modifying
+ * an entry before updating it never exposes uncommitted changes to other
+ * callers. Caching of such mutable entities can be enabled with
+ * {@link #setCacheMutableEntities(boolean)}.
+ * Exceptions, including <code>NameNotFoundException</code>, are never cached.
+ *
+ * @since 3.1
+ * @see #getStatistics()
+ * @see #getQueryStatistics()
+ */
+public class CachingLdapOperations implements LdapOperations {
+
+	private static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+
+	private static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+	private static final ClassValue<Boolean> IMMUTABLE_ENTITIES = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			return type.isRecord() || Arrays.stream(type.getDeclaredConstructors())
+					.anyMatch((constructor) -> constructor.isAnnotationPresent(EntryConstructor.class));
+		}
+	};
+
+	private final LdapOperations delegate;
+
+	private long timeToLiveMillis = DEFAULT_TIME_TO_LIVE.toMillis();
+
+	private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+	private long queryTimeToLiveMillis = DEFAULT_TIME_TO_LIVE.toMillis();
+
+	private Function<LdapQuery, Duration> queryTimeToLiveResolver;
+
+	private Clock clock = Clock.systemUTC();
+
+	private boolean cacheMutableEntities;
+
+	private volatile ExpiringCache<EntryKey> entries;
+
+	private volatile ExpiringCache<QueryKey> queries;
+
+	/**
+	 * Create a new instance caching the results of the supplied target.
+	 *
+	 * @param delegate the target operations, typically an
+	 * <code>LdapTemplate</code>.
+	 */
+	public CachingLdapOperations(LdapOperations delegate) {
+		Assert.notNull(delegate, "delegate must not be null");
+		this.delegate = delegate;
+		this.entries = newCache();
+		this.queries = newCache();
+	}
+
+	/**
+	 * Set how long lookup results are cached. Default is 5 minutes.
+	 *
+	 * @param timeToLive the time to live; lookup results are not cached if
+	 * zero, but concurrent identical lookups are still coalesced.
+	 */
+	public void setTimeToLive(Duration timeToLive) {
+		Assert.isTrue(timeToLive != null && !timeToLive.isNegative(), "timeToLive must not be negative");
+		this.timeToLiveMillis = timeToLive.toMillis();
+	}
+
+	/**
+	 * Set how long query results are cached unless a
+	 * {@link #setQueryTimeToLiveResolver(Function) resolver} is set. Default is
+	 * 5 minutes.
+	 *
+	 * @param queryTimeToLive the time to live; query results are not cached if
+	 * zero, but concurrent identical queries are still coalesced.
+	 */
+	public void setQueryTimeToLive(Duration queryTimeToLive) {
+		Assert.isTrue(queryTimeToLive != null && !queryTimeToLive.isNegative(),
+				"queryTimeToLive must not be negative");
+		this.queryTimeToLiveMillis = queryTimeToLive.toMillis();
+	}
+
+	/**
+	 * Set a function determining how long the results of each query are cached,
+	 * taking precedence over {@link #setQueryTimeToLive(Duration)}. The results
+	 * of queries for which it returns <code>null</code> or zero are not
+	 * cached.
+	 *
+	 * @param queryTimeToLiveResolver the function to use.
+	 */
+	public void setQueryTimeToLiveResolver(Function<LdapQuery, Duration> queryTimeToLiveResolver) {
+		this.queryTimeToLiveResolver = queryTimeToLiveResolver;
+	}
+
+	/**
+	 * Set the maximum number of cached lookup results, and separately of cached
+	 * query results. Changing the maximum size clears the cache. Default is
+	 * 10000.
+	 *
+	 * @param maximumSize the maximum number of entries; must be positive.
+	 */
+	public void setMaximumSize(int maximumSize) {
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		this.maximumSize = maximumSize;
+		this.entries = newCache();
+		this.queries = newCache();
+	}
+
+	/**
+	 * Set whether ODM entities that are neither records nor created through an
+	 * {@link org.springframework.ldap.odm.annotations.EntryConstructor} are
+	 * cached. Such entities are then shared between all callers, so they must
+	 * never be modified, not even in order to update them; read them through
+	 * the target instead. Default is <code>false</code>.
+	 *
+	 * @param cacheMutableEntities <code>true</code> to cache mutable entities.
+	 */
+	public void setCacheMutableEntities(boolean cacheMutableEntities) {
+		this.cacheMutableEntities = cacheMutableEntities;
+	}
+
+	/**
+	 * Set the clock used to expire cached entries. Changing the clock clears
+	 * the cache. Intended for testing.
+	 *
+	 * @param clock the clock to use.
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock must not be null");
+		this.clock = clock;
+		this.entries = newCache();
+		this.queries = newCache();
+	}
+
+	/**
+	 * @return the target operations.
+	 */
+	public LdapOperations getDelegate() {
+		return this.delegate;
+	}
+
+	/**
+	 * @return the current hit, miss and eviction statistics of the lookup
+	 * cache.
+	 */
+	public LdapCacheStatistics getStatistics() {
+		return this.entries.statistics();
+	}
+
+	/**
+	 * @return the current hit, miss and eviction statistics of the query
+	 * cache.
+	 */
+	public LdapCacheStatistics getQueryStatistics() {
+		return this.queries.statistics();
+	}
+
+	/**
+	 * Remove all cached results for the supplied distinguished name, and all
+	 * cached query results whose scope contains it, e.g. after it has been
+	 * modified by other means than this instance.
+	 *
+	 * @param dn the distinguished name of the modified entry.
+	 */
+	public void invalidate(Name dn) {
+		LdapName normalized = normalize(dn);
+		this.entries.invalidate((key) -> key.dn.equals(normalized));
+		this.queries.invalidate((key) -> key.isAffectedBy(normalized, false));
+	}
+
+	/**
+	 * Remove all cached results for the supplied distinguished name.
+	 *
+	 * @param dn the distinguished name of the modified entry.
+	 * @see #invalidate(Name)
+	 */
+	public void invalidate(String dn) {
+		invalidate(LdapUtils.newLdapName(dn));
+	}
+
+	/**
+	 * Remove all cached results.
+	 */
+	public void invalidateAll() {
+		this.entries.invalidateAll();
+		this.queries.invalidateAll();
+	}
+
+	private void invalidateSubtree(LdapName base) {
+		this.entries.invalidate((key) -> key.dn.startsWith(base));
+		this.queries.invalidate((key) -> key.isAffectedBy(base, true));
+	}
+
+	private void invalidateEntity(Object entry) {
+		Name calculatedId = this.delegate.getObjectDirectoryMapper().getCalculatedId(entry);
+		if (calculatedId != null) {
+			invalidate(calculatedId);
+		}
+	}
+
+	private <T> T cached(LdapName dn, String[] attributes, Object discriminator, Supplier<T> loader) {
+		return this.entries.get(new EntryKey(dn, attributes, discriminator), this.timeToLiveMillis, loader);
+	}
+
+	private <T> List<T> cachedQuery(LdapQuery query, Object discriminator, Supplier<List<T>> loader) {
+		long timeToLiveMillis = queryTimeToLiveMillis(query);
+		List<T> result = this.queries.get(new QueryKey(query, discriminator), timeToLiveMillis,
+				() -> new ArrayList<>(loader.get()));
+		return new ArrayList<>(result);
+	}
+
+	private boolean isCacheable(Class<?> clazz) {
+		return this.cacheMutableEntities || IMMUTABLE_ENTITIES.get(clazz);
+	}
+
+	private long queryTimeToLiveMillis(LdapQuery query) {
+		if (this.queryTimeToLiveResolver == null) {
+			return this.queryTimeToLiveMillis;
+		}
+		Duration timeToLive = this.queryTimeToLiveResolver.apply(query);
+		return (timeToLive != null) ? timeToLive.toMillis() : 0;
+	}
+
+	private <K> ExpiringCache<K> newCache() {
+		return new ExpiringCache<>(this.maximumSize, this.clock);
+	}
+
+	private static LdapName normalize(Name dn) {
+		return LdapUtils.newLdapName(dn);
+	}
+
+	private static LdapName normalize(String dn) {
+		return LdapUtils.newLdapName(dn);
+	}
+
+	private static List<String> normalizeAttributes(String[] attributes) {
+		if (attributes == null) {
+			return null;
+		}
+		return Arrays.stream(attributes)
+				.map((attribute) -> attribute.toLowerCase(Locale.ROOT))
+				.distinct()
+				.sorted()
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public void search(SearchExecutor se, NameClassPairCallbackHandler handler, DirContextProcessor processor) {
+		this.delegate.search(se, handler, processor);
+	}
+
+	@Override
+	public void search(SearchExecutor se, NameClassPairCallbackHandler handler) {
+		this.delegate.search(se, handler);
+	}
+
+	@Override
+	public <T> T executeReadOnly(ContextExecutor<T> ce) {
+		return this.delegate.executeReadOnly(ce);
+	}
+
+	@Override
+	public <T> T executeReadWrite(ContextExecutor<T> ce) {
+		try {
+			return this.delegate.executeReadWrite(ce);
+		}
+		finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public void search(Name base, String filter, SearchControls controls, NameClassPairCallbackHandler handler) {
+		this.delegate.search(base, filter, controls, handler);
+	}
+
+	@Override
+	public void search(String base, String filter, SearchControls controls, NameClassPairCallbackHandler handler) {
+		this.delegate.search(base, filter, controls, handler);
+	}
+
+	@Override
+	public void search(Name base, String filter, SearchControls controls, NameClassPairCallbackHandler handler, DirContextProcessor processor) {
+		this.delegate.search(base, filter, controls, handler, processor);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, SearchControls controls, AttributesMapper<T> mapper, DirContextProcessor processor) {
+		return this.delegate.search(base, filter, controls, mapper, processor);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, SearchControls controls, AttributesMapper<T> mapper, DirContextProcessor processor) {
+		return this.delegate.search(base, filter, controls, mapper, processor);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, SearchControls controls, ContextMapper<T> mapper, DirContextProcessor processor) {
+		return this.delegate.search(base, filter, controls, mapper, processor);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, SearchControls controls, ContextMapper<T> mapper, DirContextProcessor processor) {
+		return this.delegate.search(base, filter, controls, mapper, processor);
+	}
+
+	@Override
+	public void search(String base, String filter, SearchControls controls, NameClassPairCallbackHandler handler, DirContextProcessor processor) {
+		this.delegate.search(base, filter, controls, handler, processor);
+	}
+
+	@Override
+	public void search(Name base, String filter, int searchScope, boolean returningObjFlag, NameClassPairCallbackHandler handler) {
+		this.delegate.search(base, filter, searchScope, returningObjFlag, handler);
+	}
+
+	@Override
+	public void search(String base, String filter, int searchScope, boolean returningObjFlag, NameClassPairCallbackHandler handler) {
+		this.delegate.search(base, filter, searchScope, returningObjFlag, handler);
+	}
+
+	@Override
+	public void search(Name base, String filter, NameClassPairCallbackHandler handler) {
+		this.delegate.search(base, filter, handler);
+	}
+
+	@Override
+	public void search(String base, String filter, NameClassPairCallbackHandler handler) {
+		this.delegate.search(base, filter, handler);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, int searchScope, String[] attrs, AttributesMapper<T> mapper) {
+		return this.delegate.search(base, filter, searchScope, attrs, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, int searchScope, String[] attrs, AttributesMapper<T> mapper) {
+		return this.delegate.search(base, filter, searchScope, attrs, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, int searchScope, AttributesMapper<T> mapper) {
+		return this.delegate.search(base, filter, searchScope, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, int searchScope, AttributesMapper<T> mapper) {
+		return this.delegate.search(base, filter, searchScope, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, AttributesMapper<T> mapper) {
+		return this.delegate.search(base, filter, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, AttributesMapper<T> mapper) {
+		return this.delegate.search(base, filter, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, int searchScope, String[] attrs, ContextMapper<T> mapper) {
+		return this.delegate.search(base, filter, searchScope, attrs, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, int searchScope, String[] attrs, ContextMapper<T> mapper) {
+		return this.delegate.search(base, filter, searchScope, attrs, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, int searchScope, ContextMapper<T> mapper) {
+		return this.delegate.search(base, filter, searchScope, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, int searchScope, ContextMapper<T> mapper) {
+		return this.delegate.search(base, filter, searchScope, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, ContextMapper<T> mapper) {
+		return this.delegate.search(base, filter, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, ContextMapper<T> mapper) {
+		return this.delegate.search(base, filter, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, SearchControls controls, ContextMapper<T> mapper) {
+		return this.delegate.search(base, filter, controls, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, SearchControls controls, ContextMapper<T> mapper) {
+		return this.delegate.search(base, filter, controls, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(String base, String filter, SearchControls controls, AttributesMapper<T> mapper) {
+		return this.delegate.search(base, filter, controls, mapper);
+	}
+
+	@Override
+	public <T> List<T> search(Name base, String filter, SearchControls controls, AttributesMapper<T> mapper) {
+		return this.delegate.search(base, filter, controls, mapper);
+	}
+
+	@Override
+	public void list(String base, NameClassPairCallbackHandler handler) {
+		this.delegate.list(base, handler);
+	}
+
+	@Override
+	public void list(Name base, NameClassPairCallbackHandler handler) {
+		this.delegate.list(base, handler);
+	}
+
+	@Override
+	public <T> List<T> list(String base, NameClassPairMapper<T> mapper) {
+		return this.delegate.list(base, mapper);
+	}
+
+	@Override
+	public <T> List<T> list(Name base, NameClassPairMapper<T> mapper) {
+		return this.delegate.list(base, mapper);
+	}
+
+	@Override
+	public List<String> list(String base) {
+		return this.delegate.list(base);
+	}
+
+	@Override
+	public List<String> list(Name base) {
+		return this.delegate.list(base);
+	}
+
+	@Override
+	public void listBindings(String base, NameClassPairCallbackHandler handler) {
+		this.delegate.listBindings(base, handler);
+	}
+
+	@Override
+	public void listBindings(Name base, NameClassPairCallbackHandler handler) {
+		this.delegate.listBindings(base, handler);
+	}
+
+	@Override
+	public <T> List<T> listBindings(String base, NameClassPairMapper<T> mapper) {
+		return this.delegate.listBindings(base, mapper);
+	}
+
+	@Override
+	public <T> List<T> listBindings(Name base, NameClassPairMapper<T> mapper) {
+		return this.delegate.listBindings(base, mapper);
+	}
+
+	@Override
+	public List<String> listBindings(String base) {
+		return this.delegate.listBindings(base);
+	}
+
+	@Override
+	public List<String> listBindings(Name base) {
+		return this.delegate.listBindings(base);
+	}
+
+	@Override
+	public <T> List<T> listBindings(String base, ContextMapper<T> mapper) {
+		return this.delegate.listBindings(base, mapper);
+	}
+
+	@Override
+	public <T> List<T> listBindings(Name base, ContextMapper<T> mapper) {
+		return this.delegate.listBindings(base, mapper);
+	}
+
+	@Override
+	public Object lookup(Name dn) {
+		return this.delegate.lookup(dn);
+	}
+
+	@Override
+	public Object lookup(String dn) {
+		return this.delegate.lookup(dn);
+	}
+
+	@Override
+	public <T> T lookup(Name dn, AttributesMapper<T> mapper) {
+		return cached(normalize(dn), null, mapper, () -> this.delegate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> T lookup(String dn, AttributesMapper<T> mapper) {
+		return cached(normalize(dn), null, mapper, () -> this.delegate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> T lookup(Name dn, ContextMapper<T> mapper) {
+		return cached(normalize(dn), null, mapper, () -> this.delegate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> T lookup(String dn, ContextMapper<T> mapper) {
+		return cached(normalize(dn), null, mapper, () -> this.delegate.lookup(dn, mapper));
+	}
+
+	@Override
+	public <T> T lookup(Name dn, String[] attributes, AttributesMapper<T> mapper) {
+		return cached(normalize(dn), attributes, mapper, () -> this.delegate.lookup(dn, attributes, mapper));
+	}
+
+	@Override
+	public <T> T lookup(String dn, String[] attributes, AttributesMapper<T> mapper) {
+		return cached(normalize(dn), attributes, mapper, () -> this.delegate.lookup(dn, attributes, mapper));
+	}
+
+	@Override
+	public <T> T lookup(Name dn, String[] attributes, ContextMapper<T> mapper) {
+		return cached(normalize(dn), attributes, mapper, () -> this.delegate.lookup(dn, attributes, mapper));
+	}
+
+	@Override
+	public <T> T lookup(String dn, String[] attributes, ContextMapper<T> mapper) {
+		return cached(normalize(dn), attributes, mapper, () -> this.delegate.lookup(dn, attributes, mapper));
+	}
+
+	@Override
+	public <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes,
+			AttributesMapper<T> mapper) {
+		return this.delegate.lookupAll(dns, attributes, mapper);
+	}
+
+	@Override
+	public <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes,
+			AttributesMapper<T> mapper, int parallelism) {
+		return this.delegate.lookupAll(dns, attributes, mapper, parallelism);
+	}
+
+	@Override
+	public <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes,
+			ContextMapper<T> mapper) {
+		return this.delegate.lookupAll(dns, attributes, mapper);
+	}
+
+	@Override
+	public <T> Map<LdapName, T> lookupAll(Collection<? extends Name> dns, String[] attributes,
+			ContextMapper<T> mapper, int parallelism) {
+		return this.delegate.lookupAll(dns, attributes, mapper, parallelism);
+	}
+
+	@Override
+	public void modifyAttributes(Name dn, ModificationItem[] mods) {
+		try {
+			this.delegate.modifyAttributes(dn, mods);
+		}
+		finally {
+			invalidate(dn);
+		}
+	}
+
+	@Override
+	public void modifyAttributes(String dn, ModificationItem[] mods) {
+		try {
+			this.delegate.modifyAttributes(dn, mods);
+		}
+		finally {
+			invalidate(dn);
+		}
+	}
+
+	@Override
+	public void bind(Name dn, Object obj, Attributes attributes) {
+		try {
+			this.delegate.bind(dn, obj, attributes);
+		}
+		finally {
+			invalidate(dn);
+		}
+	}
+
+	@Override
+	public void bind(String dn, Object obj, Attributes attributes) {
+		try {
+			this.delegate.bind(dn, obj, attributes);
+		}
+		finally {
+			invalidate(dn);
+		}
+	}
+
+	@Override
+	public void unbind(Name dn) {
+		try {
+			this.delegate.unbind(dn);
+		}
+		finally {
+			invalidate(dn);
+		}
+	}
+
+	@Override
+	public void unbind(String dn) {
+		try {
+			this.delegate.unbind(dn);
+		}
+		finally {
+			invalidate(dn);
+		}
+	}
+
+	@Override
+	public void unbind(Name dn, boolean recursive) {
+		try {
+			this.delegate.unbind(dn, recursive);
+		}
+		finally {
+			if (recursive) {
+				invalidateSubtree(normalize(dn));
+			}
+			else {
+				invalidate(dn);
+			}
+		}
+	}
+
+	@Override
+	public void unbind(String dn, boolean recursive) {
+		try {
+			this.delegate.unbind(dn, recursive);
+		}
+		finally {
+			if (recursive) {
+				invalidateSubtree(normalize(dn));
+			}
+			else {
+				invalidate(dn);
+			}
+		}
+	}
+
+	@Override
+	public void rebind(Name dn, Object obj, Attributes attributes) {
+		try {
+			this.delegate.rebind(dn, obj, attributes);
+		}
+		finally {
+			invalidate(dn);
+		}
+	}
+
+	@Override
+	public void rebind(String dn, Object obj, Attributes attributes) {
+		try {
+			this.delegate.rebind(dn, obj, attributes);
+		}
+		finally {
+			invalidate(dn);
+		}
+	}
+
+	@Override
+	public void rename(Name oldDn, Name newDn) {
+		try {
+			this.delegate.rename(oldDn, newDn);
+		}
+		finally {
+			invalidateSubtree(normalize(oldDn));
+			invalidateSubtree(normalize(newDn));
+		}
+	}
+
+	@Override
+	public void rename(String oldDn, String newDn) {
+		try {
+			this.delegate.rename(oldDn, newDn);
+		}
+		finally {
+			invalidateSubtree(normalize(oldDn));
+			invalidateSubtree(normalize(newDn));
+		}
+	}
+
+	@Override
+	public DirContextOperations lookupContext(Name dn) {
+		return this.delegate.lookupContext(dn);
+	}
+
+	@Override
+	public DirContextOperations lookupContext(String dn) {
+		return this.delegate.lookupContext(dn);
+	}
+
+	@Override
+	public void modifyAttributes(DirContextOperations ctx) {
+		try {
+			this.delegate.modifyAttributes(ctx);
+		}
+		finally {
+			invalidate(ctx.getDn());
+		}
+	}
+
+	@Override
+	public void bind(DirContextOperations ctx) {
+		try {
+			this.delegate.bind(ctx);
+		}
+		finally {
+			invalidate(ctx.getDn());
+		}
+	}
+
+	@Override
+	public void rebind(DirContextOperations ctx) {
+		try {
+			this.delegate.rebind(ctx);
+		}
+		finally {
+			invalidate(ctx.getDn());
+		}
+	}
+
+	@Override
+	public boolean authenticate(Name base, String filter, String password) {
+		return this.delegate.authenticate(base, filter, password);
+	}
+
+	@Override
+	public boolean authenticate(String base, String filter, String password) {
+		return this.delegate.authenticate(base, filter, password);
+	}
+
+	@Override
+	public boolean authenticate(Name base, String filter, String password, AuthenticatedLdapEntryContextCallback callback) {
+		return this.delegate.authenticate(base, filter, password, callback);
+	}
+
+	@Override
+	public boolean authenticate(String base, String filter, String password, AuthenticatedLdapEntryContextCallback callback) {
+		return this.delegate.authenticate(base, filter, password, callback);
+	}
+
+	@Override
+	public boolean authenticate(Name base, String filter, String password, AuthenticatedLdapEntryContextCallback callback, AuthenticationErrorCallback errorCallback) {
+		return this.delegate.authenticate(base, filter, password, callback, errorCallback);
+	}
+
+	@Override
+	public boolean authenticate(String base, String filter, String password, AuthenticatedLdapEntryContextCallback callback, AuthenticationErrorCallback errorCallback) {
+		return this.delegate.authenticate(base, filter, password, callback, errorCallback);
+	}
+
+	@Override
+	public boolean authenticate(Name base, String filter, String password, AuthenticationErrorCallback errorCallback) {
+		return this.delegate.authenticate(base, filter, password, errorCallback);
+	}
+
+	@Override
+	public boolean authenticate(String base, String filter, String password, AuthenticationErrorCallback errorCallback) {
+		return this.delegate.authenticate(base, filter, password, errorCallback);
+	}
+
+	@Override
+	public <T> T authenticate(LdapQuery query, String password, AuthenticatedLdapEntryContextMapper<T> mapper) {
+		return this.delegate.authenticate(query, password, mapper);
+	}
+
+	@Override
+	public void authenticate(LdapQuery query, String password) {
+		this.delegate.authenticate(query, password);
+	}
+
+	@Override
+	public <T> T searchForObject(Name base, String filter, ContextMapper<T> mapper) {
+		return this.delegate.searchForObject(base, filter, mapper);
+	}
+
+	@Override
+	public <T> T searchForObject(Name base, String filter, SearchControls searchControls, ContextMapper<T> mapper) {
+		return this.delegate.searchForObject(base, filter, searchControls, mapper);
+	}
+
+	@Override
+	public <T> T searchForObject(String base, String filter, SearchControls searchControls, ContextMapper<T> mapper) {
+		return this.delegate.searchForObject(base, filter, searchControls, mapper);
+	}
+
+	@Override
+	public <T> T searchForObject(String base, String filter, ContextMapper<T> mapper) {
+		return this.delegate.searchForObject(base, filter, mapper);
+	}
+
+	@Override
+	public void search(LdapQuery query, NameClassPairCallbackHandler callbackHandler) {
+		this.delegate.search(query, callbackHandler);
+	}
+
+	@Override
+	public <T> List<T> search(LdapQuery query, ContextMapper<T> mapper) {
+		return cachedQuery(query, mapper, () -> this.delegate.search(query, mapper));
+	}
+
+	@Override
+	public <T> List<T> search(LdapQuery query, AttributesMapper<T> mapper) {
+		return cachedQuery(query, mapper, () -> this.delegate.search(query, mapper));
+	}
+
+	@Override
+	public DirContextOperations searchForContext(LdapQuery query) {
+		return this.delegate.searchForContext(query);
+	}
+
+	@Override
+	public <T> T searchForObject(LdapQuery query, ContextMapper<T> mapper) {
+		return this.delegate.searchForObject(query, mapper);
+	}
+
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, AttributesMapper<T> mapper) {
+		return this.delegate.searchForStream(query, mapper);
+	}
+
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, ContextMapper<T> mapper) {
+		return this.delegate.searchForStream(query, mapper);
+	}
+
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, int pageSize, AttributesMapper<T> mapper) {
+		return this.delegate.searchForStream(query, pageSize, mapper);
+	}
+
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, int pageSize, ContextMapper<T> mapper) {
+		return this.delegate.searchForStream(query, pageSize, mapper);
+	}
+
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, SearchPartitioner partitioner, int parallelism, int pageSize, AttributesMapper<T> mapper) {
+		return this.delegate.searchForStream(query, partitioner, parallelism, pageSize, mapper);
+	}
+
+	@Override
+	public <T> Stream<T> searchForStream(LdapQuery query, SearchPartitioner partitioner, int parallelism, int pageSize, ContextMapper<T> mapper) {
+		return this.delegate.searchForStream(query, partitioner, parallelism, pageSize, mapper);
+	}
+
+	@Override
+	public void search(LdapQuery query, SearchPartitioner partitioner, int parallelism, int pageSize, NameClassPairCallbackHandler handler) {
+		this.delegate.search(query, partitioner, parallelism, pageSize, handler);
+	}
+
+	@Override
+	public <T> T findByDn(Name dn, Class<T> clazz) {
+		if (!isCacheable(clazz)) {
+			return this.delegate.findByDn(dn, clazz);
+		}
+		return cached(normalize(dn), null, clazz, () -> this.delegate.findByDn(dn, clazz));
+	}
+
+	@Override
+	public void create(Object entry) {
+		try {
+			this.delegate.create(entry);
+		}
+		finally {
+			invalidateEntity(entry);
+		}
+	}
+
+	@Override
+	public void update(Object entry) {
+		ObjectDirectoryMapper odm = this.delegate.getObjectDirectoryMapper();
+		Name originalId = odm.getId(entry);
+		try {
+			this.delegate.update(entry);
+		}
+		finally {
+			if (originalId != null) {
+				invalidate(originalId);
+			}
+			invalidateEntity(entry);
+		}
+	}
+
+	@Override
+	public void delete(Object entry) {
+		Name id = this.delegate.getObjectDirectoryMapper().getId(entry);
+		try {
+			this.delegate.delete(entry);
+		}
+		finally {
+			if (id != null) {
+				invalidate(id);
+			}
+		}
+	}
+
+	@Override
+	public <T> BulkResult<T> createAll(Collection<T> entries) {
+		try {
+			return this.delegate.createAll(entries);
+		}
+		finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public <T> BulkResult<T> createAll(Stream<T> entries, int parallelism) {
+		try {
+			return this.delegate.createAll(entries, parallelism);
+		}
+		finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public <T> BulkResult<T> updateAll(Collection<T> entries) {
+		try {
+			return this.delegate.updateAll(entries);
+		}
+		finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public <T> BulkResult<T> updateAll(Stream<T> entries, int parallelism) {
+		try {
+			return this.delegate.updateAll(entries, parallelism);
+		}
+		finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public <T> BulkResult<T> deleteAll(Collection<T> entries) {
+		try {
+			return this.delegate.deleteAll(entries);
+		}
+		finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public <T> BulkResult<T> deleteAll(Stream<T> entries, int parallelism) {
+		try {
+			return this.delegate.deleteAll(entries, parallelism);
+		}
+		finally {
+			invalidateAll();
+		}
+	}
+
+	@Override
+	public <T> List<T> findAll(Class<T> clazz) {
+		return this.delegate.findAll(clazz);
+	}
+
+	@Override
+	public <T> List<T> findAll(Name base, SearchControls searchControls, Class<T> clazz) {
+		return this.delegate.findAll(base, searchControls, clazz);
+	}
+
+	@Override
+	public <T> List<T> find(Name base, Filter filter, SearchControls searchControls, Class<T> clazz) {
+		return this.delegate.find(base, filter, searchControls, clazz);
+	}
+
+	@Override
+	public <T> List<T> find(LdapQuery query, Class<T> clazz) {
+		if (!isCacheable(clazz)) {
+			return this.delegate.find(query, clazz);
+		}
+		return cachedQuery(query, clazz, () -> this.delegate.find(query, clazz));
+	}
+
+	@Override
+	public <T> List<T> find(LdapQuery query, Class<?> clazz, Class<T> projection) {
+		if (!isCacheable(projection)) {
+			return this.delegate.find(query, clazz, projection);
+		}
+		return cachedQuery(query, Arrays.asList(clazz, projection), () -> this.delegate.find(query, clazz, projection));
+	}
+
+	@Override
+	public <T> T findOne(LdapQuery query, Class<T> clazz) {
+		return this.delegate.findOne(query, clazz);
+	}
+
+	@Override
+	public <T> Stream<T> findForStream(LdapQuery query, Class<T> clazz) {
+		return this.delegate.findForStream(query, clazz);
+	}
+
+	@Override
+	public ObjectDirectoryMapper getObjectDirectoryMapper() {
+		return this.delegate.getObjectDirectoryMapper();
+	}
+
+	private static final class EntryKey {
+
+		private final LdapName dn;
+
+		private final List<String> attributes;
+
+		private final Object discriminator;
+
+		private EntryKey(LdapName dn, String[] attributes, Object discriminator) {
+			this.dn = dn;
+			this.attributes = normalizeAttributes(attributes);
+			this.discriminator = discriminator;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof EntryKey)) {
+				return false;
+			}
+			EntryKey other = (EntryKey) o;
+			return this.dn.equals(other.dn) && Objects.equals(this.attributes, other.attributes)
+					&& Objects.equals(this.discriminator, other.discriminator);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.dn, this.attributes, this.discriminator);
+		}
+
+	}
+
+	private static final class QueryKey {
+
+		private final LdapName base;
+
+		private final SearchScope scope;
+
+		private final Integer countLimit;
+
+		private final List<String> attributes;
+
+		private final String filter;
+
+		private final Object discriminator;
+
+		private QueryKey(LdapQuery query, Object discriminator) {
+			this.base = (query.base() != null) ? normalize(query.base()) : LdapUtils.emptyLdapName();
+			this.scope = query.searchScope();
+			this.countLimit = query.countLimit();
+			this.attributes = normalizeAttributes(query.attributes());
+			this.filter = FilterCanonicalizer.canonicalize(query.filter());
+			this.discriminator = discriminator;
+		}
+
+		/**
+		 * Whether a change to the supplied entry, or to the subtree below it,
+		 * may change the results of this query. Queries without an explicit
+		 * scope are treated as subtree searches.
+		 */
+		private boolean isAffectedBy(LdapName dn, boolean subtree) {
+			if (subtree && this.base.startsWith(dn)) {
+				return true;
+			}
+			if (this.scope == SearchScope.OBJECT) {
+				return dn.equals(this.base);
+			}
+			if (this.scope == SearchScope.ONELEVEL) {
+				return dn.size() == this.base.size() + 1 && dn.startsWith(this.base);
+			}
+			return dn.startsWith(this.base);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof QueryKey)) {
+				return false;
+			}
+			QueryKey other = (QueryKey) o;
+			return this.base.equals(other.base) && this.scope == other.scope
+					&& Objects.equals(this.countLimit, other.countLimit)
+					&& Objects.equals(this.attributes, other.attributes) && this.filter.equals(other.filter)
+					&& Objects.equals(this.discriminator, other.discriminator);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.base, this.scope, this.countLimit, this.attributes, this.filter,
+					this.discriminator);
+		}
+
+	}
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.naming.Name;
+
+import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.core.SearchPartitioner;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.LdapQueryBuilder;
+import org.springframework.ldap.query.SearchScope;
+import org.springframework.ldap.support.LdapNameBuilder;
+
+/**
+ * {@link SearchPartitioner} splitting a subtree search into one subtree search
+ * per immediate child of the search base, as found by a one-level
+ * {@link LdapOperations#list(Name) list}, and an object search for the base
+ * entry itself.
+ * <p>
+ * This works well for trees organised in a number of similarly sized branches,
+ * for example one organizational unit per country or department. For flat
+ * trees, where most entries are immediate children of the base, use an
+ * {@link AttributePrefixSearchPartitioner} instead.
+ * <p>
+ * Queries with a search scope other than subtree are not split. A query
+ * without a search scope is treated as a subtree search; {@link LdapOperations}
+ * implementations resolve a missing scope against their default search scope
+ * before partitioning. Note that any count limit of the query applies to each
+ * partition individually.
+ *
+ * @since 3.1
+ */
+public class ChildEntrySearchPartitioner implements SearchPartitioner {
+
+	@Override
+	public List<LdapQuery> partition(LdapQuery query, LdapOperations operations) {
+		if (query.searchScope() != null && query.searchScope() != SearchScope.SUBTREE) {
+			return Collections.singletonList(query);
+		}
+		Name base = query.base();
+		List<String> children = operations.list(base);
+		List<LdapQuery> partitions = new ArrayList<>(children.size() + 1);
+		partitions.add(LdapQueryBuilder.fromQuery(query)
+				.searchScope(SearchScope.OBJECT)
+				.filter(query.filter()));
+		for (String child : children) {
+			partitions.add(LdapQueryBuilder.fromQuery(query)
+					.base(LdapNameBuilder.newInstance(base).add(child).build())
+					.searchScope(SearchScope.SUBTREE)
+					.filter(query.filter()));
+		}
+		return partitions;
+	}
+
+}
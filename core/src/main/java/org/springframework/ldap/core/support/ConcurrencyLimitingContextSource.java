@@ -0,0 +1,175 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.directory.DirContext;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ContextSource} decorator bounding the number of contexts that may be
+ * in use at any one time with a {@link Semaphore}, rather than relying on the
+ * number of threads calling it. A permit is acquired before a context is
+ * obtained from the target and released when the context is closed.
+ * <p>
+ * This is the recommended way of using Spring LDAP from virtual threads. The
+ * JDK's LDAP provider waits for responses while holding object monitors, which
+ * pins the virtual thread to its carrier for the duration of every operation.
+ * With an unbounded number of virtual threads this quickly starves the
+ * carrier pool. Threads waiting for a permit, on the other hand, are parked
+ * without pinning. Keeping the number of permits well below the number of
+ * carrier threads leaves carriers available for other work, and keeping it no
+ * higher than the maximum number of active contexts of a pooled target means
+ * that borrowing from the pool never has to block.
+ * <p>
+ * By default callers wait indefinitely for a permit; use
+ * {@link #setMaxWaitMillis(long)} to fail with a
+ * <code>DataAccessResourceFailureException</code> instead.
+ *
+ * @since 3.1
+ */
+public class ConcurrencyLimitingContextSource extends DelegatingBaseLdapPathContextSourceSupport
+		implements ContextSource {
+
+	private final ContextSource target;
+
+	private final Semaphore semaphore;
+
+	private final int maxConcurrency;
+
+	private long maxWaitMillis = -1;
+
+	/**
+	 * Create a new instance.
+	 *
+	 * @param target the <code>ContextSource</code> to obtain contexts from.
+	 * @param maxConcurrency the maximum number of contexts in use at any one
+	 * time.
+	 */
+	public ConcurrencyLimitingContextSource(ContextSource target, int maxConcurrency) {
+		Assert.notNull(target, "target must not be null");
+		Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be positive");
+		this.target = target;
+		this.maxConcurrency = maxConcurrency;
+		this.semaphore = new Semaphore(maxConcurrency, true);
+	}
+
+	@Override
+	protected ContextSource getTarget() {
+		return this.target;
+	}
+
+	/**
+	 * Set the maximum number of milliseconds to wait for a context to become
+	 * available. A negative value, the default, means waiting indefinitely.
+	 *
+	 * @param maxWaitMillis the maximum time to wait, in milliseconds.
+	 */
+	public void setMaxWaitMillis(long maxWaitMillis) {
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/**
+	 * Get the maximum number of contexts in use at any one time.
+	 *
+	 * @return the maximum concurrency.
+	 */
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	/**
+	 * Get the number of contexts that may currently be obtained without
+	 * waiting.
+	 *
+	 * @return the number of available permits.
+	 */
+	public int getAvailablePermits() {
+		return this.semaphore.availablePermits();
+	}
+
+	/**
+	 * Get an estimate of the number of threads waiting for a context.
+	 *
+	 * @return the estimated number of waiting threads.
+	 */
+	public int getQueueLength() {
+		return this.semaphore.getQueueLength();
+	}
+
+	@Override
+	public DirContext getReadOnlyContext() {
+		acquire();
+		try {
+			return releasingProxy(this.target.getReadOnlyContext());
+		}
+		catch (RuntimeException ex) {
+			this.semaphore.release();
+			throw ex;
+		}
+	}
+
+	@Override
+	public DirContext getReadWriteContext() {
+		acquire();
+		try {
+			return releasingProxy(this.target.getReadWriteContext());
+		}
+		catch (RuntimeException ex) {
+			this.semaphore.release();
+			throw ex;
+		}
+	}
+
+	@Override
+	public DirContext getContext(String principal, String credentials) {
+		acquire();
+		try {
+			return releasingProxy(this.target.getContext(principal, credentials));
+		}
+		catch (RuntimeException ex) {
+			this.semaphore.release();
+			throw ex;
+		}
+	}
+
+	private void acquire() {
+		try {
+			if (this.maxWaitMillis < 0) {
+				this.semaphore.acquire();
+			}
+			else if (!this.semaphore.tryAcquire(this.maxWaitMillis, TimeUnit.MILLISECONDS)) {
+				throw new DataAccessResourceFailureException("Timed out after " + this.maxWaitMillis
+						+ " ms waiting for one of " + this.maxConcurrency + " contexts to become available");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new DataAccessResourceFailureException("Interrupted while waiting for a context", ex);
+		}
+	}
+
+	private DirContext releasingProxy(DirContext context) {
+		return ReleasingDirContextInvocationHandler.newProxy(context, this.semaphore::release, null);
+	}
+
+}
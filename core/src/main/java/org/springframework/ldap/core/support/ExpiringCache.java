@@ -0,0 +1,245 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.ldap.UncategorizedLdapException;
+
+/**
+ * Minimal thread-safe, size bounded cache with per entry expiry used by
+ * {@link CachingLdapOperations}. Entries are evicted in least recently used
+ * order once the maximum size is reached.
+ * <p>
+ * Each invalidation bumps a generation counter, and values loaded while an
+ * invalidation took place are returned to the caller but not stored, so a
+ * slow read racing with a write can never leave a stale entry behind.
+ * <p>
+ * Concurrent misses for the same key are coalesced: only the first caller
+ * invokes the loader, and the others wait for and share its outcome, value or
+ * exception alike, even if the value is not to be cached. A caller never joins
+ * a load started before the last invalidation, so reads following a write
+ * always go to the server. Waiting callers can be interrupted, so that a load
+ * that never completes does not hold them indefinitely.
+ *
+ * @param <K> the key type.
+ * @since 3.1
+ */
+final class ExpiringCache<K> {
+
+	private final LinkedHashMap<K, CachedValue> entries;
+
+	private final Map<K, Load> loads = new HashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder coalesced = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	private final LongAdder invalidations = new LongAdder();
+
+	private final int maximumSize;
+
+	private final Clock clock;
+
+	private long generation;
+
+	ExpiringCache(int maximumSize, Clock clock) {
+		this.maximumSize = maximumSize;
+		this.clock = clock;
+		this.entries = new LinkedHashMap<K, CachedValue>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, CachedValue> eldest) {
+				if (size() > ExpiringCache.this.maximumSize) {
+					ExpiringCache.this.evictions.increment();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Return the cached value for the key, loading and caching it on a miss.
+	 * Loader exceptions are propagated and nothing is cached.
+	 *
+	 * @param key the cache key.
+	 * @param timeToLiveMillis how long a loaded value is kept; values are not
+	 * cached at all, and loads are not counted as misses, if not positive.
+	 * @param loader called on a miss, unless a load of the same key is already
+	 * in progress.
+	 * @return the cached or loaded value, possibly <code>null</code>.
+	 * @throws UncategorizedLdapException if interrupted while waiting for a load
+	 * in progress.
+	 */
+	@SuppressWarnings("unchecked")
+	<V> V get(K key, long timeToLiveMillis, Supplier<V> loader) {
+		long now = this.clock.millis();
+		Load load;
+		boolean joined = false;
+		synchronized (this.entries) {
+			CachedValue cached = this.entries.get(key);
+			if (cached != null) {
+				if (cached.expiresAt > now) {
+					this.hits.increment();
+					return (V) cached.value;
+				}
+				this.entries.remove(key);
+				this.evictions.increment();
+			}
+			load = this.loads.get(key);
+			if (load != null && load.generation == this.generation) {
+				this.coalesced.increment();
+				joined = true;
+			}
+			else {
+				load = new Load(this.generation);
+				this.loads.put(key, load);
+				if (timeToLiveMillis > 0) {
+					this.misses.increment();
+				}
+			}
+		}
+		if (joined) {
+			return (V) load.await();
+		}
+		V value;
+		try {
+			value = loader.get();
+		}
+		catch (RuntimeException | Error ex) {
+			complete(key, load, null, ex, 0, now);
+			throw ex;
+		}
+		complete(key, load, value, null, timeToLiveMillis, now);
+		return value;
+	}
+
+	private void complete(K key, Load load, Object value, Throwable failure, long timeToLiveMillis, long now) {
+		synchronized (this.entries) {
+			this.loads.remove(key, load);
+			if (failure == null && timeToLiveMillis > 0 && load.generation == this.generation) {
+				this.entries.put(key, new CachedValue(value, now + timeToLiveMillis));
+			}
+		}
+		load.complete(value, failure);
+	}
+
+	/**
+	 * Remove all entries whose key matches the supplied predicate.
+	 *
+	 * @param predicate selects the keys to remove.
+	 */
+	void invalidate(Predicate<? super K> predicate) {
+		synchronized (this.entries) {
+			this.generation++;
+			Iterator<K> keys = this.entries.keySet().iterator();
+			while (keys.hasNext()) {
+				if (predicate.test(keys.next())) {
+					keys.remove();
+					this.invalidations.increment();
+				}
+			}
+		}
+	}
+
+	void invalidateAll() {
+		synchronized (this.entries) {
+			this.generation++;
+			this.invalidations.add(this.entries.size());
+			this.entries.clear();
+		}
+	}
+
+	int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	LdapCacheStatistics statistics() {
+		return new LdapCacheStatistics(this.hits.sum(), this.misses.sum(), this.coalesced.sum(),
+				this.evictions.sum(), this.invalidations.sum(), size());
+	}
+
+	/**
+	 * A load in progress, awaited by concurrent callers asking for the same key.
+	 */
+	private static final class Load {
+
+		private final long generation;
+
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		private Object value;
+
+		private Throwable failure;
+
+		private Load(long generation) {
+			this.generation = generation;
+		}
+
+		private void complete(Object value, Throwable failure) {
+			this.value = value;
+			this.failure = failure;
+			this.done.countDown();
+		}
+
+		private Object await() {
+			try {
+				this.done.await();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new UncategorizedLdapException("Interrupted while waiting for a concurrent read", ex);
+			}
+			if (this.failure instanceof RuntimeException) {
+				throw (RuntimeException) this.failure;
+			}
+			if (this.failure instanceof Error) {
+				throw (Error) this.failure;
+			}
+			return this.value;
+		}
+
+	}
+
+	private static final class CachedValue {
+
+		private final Object value;
+
+		private final long expiresAt;
+
+		private CachedValue(Object value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
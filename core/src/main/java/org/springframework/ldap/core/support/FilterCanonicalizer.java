@@ -0,0 +1,194 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+import org.springframework.ldap.filter.Filter;
+
+/**
+ * Reduces LDAP filters to a canonical string, so that logically identical
+ * filters built in a different order produce the same cache key. The encoded
+ * filter is parsed and rebuilt with
+ * <ul>
+ * <li>nested <code>&amp;</code> and <code>|</code> filters of the same kind
+ * flattened into their parent,</li>
+ * <li>the operands of <code>&amp;</code> and <code>|</code> sorted and
+ * duplicates removed, and single operand filters replaced by their operand,</li>
+ * <li>attribute descriptions lower cased and hex escapes in assertion values
+ * lower cased.</li>
+ * </ul>
+ * Assertion values are otherwise left untouched, since whether they compare
+ * case-insensitively depends on the matching rule of the attribute. Filters
+ * that cannot be parsed, which may happen with a <code>HardcodedFilter</code>,
+ * are returned as encoded.
+ *
+ * @since 3.1
+ */
+final class FilterCanonicalizer {
+
+	private FilterCanonicalizer() {
+	}
+
+	static String canonicalize(Filter filter) {
+		return (filter != null) ? canonicalize(filter.encode()) : "";
+	}
+
+	static String canonicalize(String filter) {
+		String trimmed = filter.trim();
+		if (trimmed.isEmpty()) {
+			return trimmed;
+		}
+		if (trimmed.charAt(0) != '(') {
+			trimmed = "(" + trimmed + ")";
+		}
+		try {
+			Parser parser = new Parser(trimmed);
+			String canonical = parser.parseFilter();
+			return parser.atEnd() ? canonical : filter;
+		}
+		catch (IllegalArgumentException ex) {
+			return filter;
+		}
+	}
+
+	private static final class Parser {
+
+		private final String filter;
+
+		private int position;
+
+		private Parser(String filter) {
+			this.filter = filter;
+		}
+
+		private boolean atEnd() {
+			return this.position == this.filter.length();
+		}
+
+		private String parseFilter() {
+			expect('(');
+			char c = peek();
+			String result;
+			if (c == '&' || c == '|') {
+				this.position++;
+				result = composite(c, parseOperands());
+			}
+			else if (c == '!') {
+				this.position++;
+				result = "(!" + parseFilter() + ")";
+			}
+			else {
+				result = "(" + item() + ")";
+			}
+			expect(')');
+			return result;
+		}
+
+		private List<String> parseOperands() {
+			List<String> operands = new ArrayList<>();
+			while (!atEnd() && peek() == '(') {
+				operands.add(parseFilter());
+			}
+			return operands;
+		}
+
+		private static String composite(char operator, List<String> operands) {
+			TreeSet<String> flattened = new TreeSet<>();
+			String nestedPrefix = "(" + operator;
+			for (String operand : operands) {
+				if (operand.startsWith(nestedPrefix)) {
+					flattened.addAll(new Parser(operand.substring(2, operand.length() - 1)).parseAll());
+				}
+				else {
+					flattened.add(operand);
+				}
+			}
+			if (flattened.size() == 1) {
+				return flattened.first();
+			}
+			StringBuilder result = new StringBuilder(nestedPrefix);
+			flattened.forEach(result::append);
+			return result.append(')').toString();
+		}
+
+		private List<String> parseAll() {
+			List<String> operands = parseOperands();
+			if (!atEnd()) {
+				throw new IllegalArgumentException("Unexpected content in filter");
+			}
+			return operands;
+		}
+
+		private String item() {
+			int start = this.position;
+			int end = this.filter.indexOf(')', start);
+			int open = this.filter.indexOf('(', start);
+			if (end < 0 || (open >= 0 && open < end)) {
+				throw new IllegalArgumentException("Malformed filter item");
+			}
+			this.position = end;
+			String item = this.filter.substring(start, end);
+			int equals = item.indexOf('=');
+			if (equals <= 0) {
+				throw new IllegalArgumentException("Malformed filter item");
+			}
+			int attributeEnd = equals;
+			char type = item.charAt(equals - 1);
+			if (type == '~' || type == '>' || type == '<' || type == ':') {
+				attributeEnd--;
+			}
+			return item.substring(0, attributeEnd).toLowerCase(Locale.ROOT) + item.substring(attributeEnd, equals + 1)
+					+ lowerCaseEscapes(item.substring(equals + 1));
+		}
+
+		private static String lowerCaseEscapes(String value) {
+			if (value.indexOf('\\') < 0) {
+				return value;
+			}
+			StringBuilder result = new StringBuilder(value.length());
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				result.append(c);
+				if (c == '\\' && i + 2 < value.length()) {
+					result.append(Character.toLowerCase(value.charAt(++i)));
+					result.append(Character.toLowerCase(value.charAt(++i)));
+				}
+			}
+			return result.toString();
+		}
+
+		private char peek() {
+			if (atEnd()) {
+				throw new IllegalArgumentException("Unexpected end of filter");
+			}
+			return this.filter.charAt(this.position);
+		}
+
+		private void expect(char expected) {
+			if (peek() != expected) {
+				throw new IllegalArgumentException("Expected '" + expected + "'");
+			}
+			this.position++;
+		}
+
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+/**
+ * Point in time statistics of a {@link CachingLdapOperations} cache.
+ *
+ * @since 3.1
+ * @see CachingLdapOperations#getStatistics()
+ */
+public final class LdapCacheStatistics {
+
+	private final long hitCount;
+
+	private final long missCount;
+
+	private final long coalescedCount;
+
+	private final long evictionCount;
+
+	private final long invalidationCount;
+
+	private final int size;
+
+	LdapCacheStatistics(long hitCount, long missCount, long coalescedCount, long evictionCount,
+			long invalidationCount, int size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.coalescedCount = coalescedCount;
+		this.evictionCount = evictionCount;
+		this.invalidationCount = invalidationCount;
+		this.size = size;
+	}
+
+	/**
+	 * @return the number of reads served from the cache.
+	 */
+	public long getHitCount() {
+		return this.hitCount;
+	}
+
+	/**
+	 * @return the number of reads that went to the server.
+	 */
+	public long getMissCount() {
+		return this.missCount;
+	}
+
+	/**
+	 * @return the number of reads that were not served from the cache but
+	 * shared the server call of a concurrent identical read.
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount;
+	}
+
+	/**
+	 * @return the ratio of hits to all reads, or <code>0</code> if nothing has
+	 * been read yet.
+	 */
+	public double getHitRate() {
+		long requests = this.hitCount + this.missCount;
+		return (requests != 0) ? (double) this.hitCount / requests : 0;
+	}
+
+	/**
+	 * @return the number of entries removed because they expired or because
+	 * the cache was full.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount;
+	}
+
+	/**
+	 * @return the number of entries removed because of a write.
+	 */
+	public long getInvalidationCount() {
+		return this.invalidationCount;
+	}
+
+	/**
+	 * @return the number of entries currently cached.
+	 */
+	public int getSize() {
+		return this.size;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"LdapCacheStatistics[hits=%d, misses=%d, coalesced=%d, evictions=%d, invalidations=%d, size=%d]",
+				this.hitCount, this.missCount, this.coalescedCount, this.evictionCount, this.invalidationCount,
+				this.size);
+	}
+
+}
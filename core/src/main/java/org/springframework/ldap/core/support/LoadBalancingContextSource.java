@@ -0,0 +1,446 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.naming.directory.DirContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.ldap.pool2.validation.DefaultDirContextValidator;
+import org.springframework.ldap.pool2.validation.DirContextValidator;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ContextSource} spreading contexts over several equivalent directory
+ * servers, each represented by its own target <code>ContextSource</code>,
+ * typically an {@link LdapContextSource} with a single URL, possibly wrapped
+ * in a pool. Unlike configuring all URLs on one context source, which makes
+ * JNDI try them strictly in order, this sends every server its share of the
+ * load and keeps track of the health of each one.
+ * <p>
+ * Each new context is obtained from a server chosen by the configured
+ * {@link Policy}. If that server can't be reached, the remaining healthy
+ * servers are tried in turn. A server is ejected after
+ * {@link #setFailureThreshold(int) a number of} consecutive failures, whether
+ * in obtaining a context, in an operation performed on one of its contexts or
+ * in a probe, and is no longer used while other servers are healthy. Only
+ * communication failures count; authentication failures, for instance, do
+ * not.
+ * <p>
+ * Once {@link #afterPropertiesSet() initialized}, every server is probed
+ * periodically in the background by validating a fresh read-only context with
+ * the {@link DirContextValidator}. Probes measure the latency of each server,
+ * used by the {@link Policy#LATENCY_WEIGHTED} policy, and re-admit ejected
+ * servers after {@link #setRecoveryThreshold(int) a number of} consecutive
+ * successful probes. If all servers are ejected, they are still tried as a
+ * last resort.
+ *
+ * @since 3.1
+ */
+public class LoadBalancingContextSource extends DelegatingBaseLdapPathContextSourceSupport
+		implements ContextSource, InitializingBean, DisposableBean {
+
+	private static final Logger LOG = LoggerFactory.getLogger(LoadBalancingContextSource.class);
+
+	private static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofSeconds(5);
+
+	private final List<Server> servers;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	private Policy policy = Policy.ROUND_ROBIN;
+
+	private DirContextValidator validator = new DefaultDirContextValidator();
+
+	private Duration probeInterval = DEFAULT_PROBE_INTERVAL;
+
+	private int failureThreshold = 3;
+
+	private int recoveryThreshold = 2;
+
+	private ScheduledExecutorService probeExecutor;
+
+	/**
+	 * Create a new instance.
+	 *
+	 * @param targets one context source per directory server; all servers must
+	 * hold the same data under the same base.
+	 */
+	public LoadBalancingContextSource(List<? extends ContextSource> targets) {
+		Assert.notEmpty(targets, "targets must not be empty");
+		List<Server> servers = new ArrayList<>(targets.size());
+		for (ContextSource target : targets) {
+			Assert.notNull(target, "targets must not contain null elements");
+			servers.add(new Server(target));
+		}
+		this.servers = Collections.unmodifiableList(servers);
+	}
+
+	@Override
+	protected ContextSource getTarget() {
+		return this.servers.get(0).target;
+	}
+
+	/**
+	 * Set the policy choosing the server each new context is obtained from.
+	 * Default is {@link Policy#ROUND_ROBIN}.
+	 *
+	 * @param policy the policy to use.
+	 */
+	public void setPolicy(Policy policy) {
+		Assert.notNull(policy, "policy must not be null");
+		this.policy = policy;
+	}
+
+	/**
+	 * Set the validator used to probe servers. Default is a
+	 * {@link DefaultDirContextValidator}.
+	 *
+	 * @param validator the validator to use.
+	 */
+	public void setValidator(DirContextValidator validator) {
+		Assert.notNull(validator, "validator must not be null");
+		this.validator = validator;
+	}
+
+	/**
+	 * Set the time between two probes of the servers. Default is 5 seconds.
+	 *
+	 * @param probeInterval the probe interval; must be positive.
+	 */
+	public void setProbeInterval(Duration probeInterval) {
+		Assert.isTrue(probeInterval != null && !probeInterval.isNegative() && !probeInterval.isZero(),
+				"probeInterval must be positive");
+		this.probeInterval = probeInterval;
+	}
+
+	/**
+	 * Set the number of consecutive failures after which a server is ejected.
+	 * Default is 3.
+	 *
+	 * @param failureThreshold the number of failures; must be positive.
+	 */
+	public void setFailureThreshold(int failureThreshold) {
+		Assert.isTrue(failureThreshold > 0, "failureThreshold must be positive");
+		this.failureThreshold = failureThreshold;
+	}
+
+	/**
+	 * Set the number of consecutive successful probes after which an ejected
+	 * server is used again. Default is 2.
+	 *
+	 * @param recoveryThreshold the number of probes; must be positive.
+	 */
+	public void setRecoveryThreshold(int recoveryThreshold) {
+		Assert.isTrue(recoveryThreshold > 0, "recoveryThreshold must be positive");
+		this.recoveryThreshold = recoveryThreshold;
+	}
+
+	/**
+	 * Get the servers contexts are obtained from, in the order they were
+	 * supplied.
+	 *
+	 * @return the current state of each server.
+	 */
+	public List<Server> getServers() {
+		return this.servers;
+	}
+
+	/**
+	 * Start probing the servers in the background.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		if (this.probeExecutor == null) {
+			this.probeExecutor = Executors.newSingleThreadScheduledExecutor((runnable) -> {
+				Thread thread = new Thread(runnable, "spring-ldap-probe");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long intervalMillis = this.probeInterval.toMillis();
+			this.probeExecutor.scheduleWithFixedDelay(this::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stop probing the servers.
+	 */
+	@Override
+	public void destroy() {
+		if (this.probeExecutor != null) {
+			this.probeExecutor.shutdownNow();
+			this.probeExecutor = null;
+		}
+	}
+
+	@Override
+	public DirContext getReadOnlyContext() {
+		return getContext(ContextSource::getReadOnlyContext);
+	}
+
+	@Override
+	public DirContext getReadWriteContext() {
+		return getContext(ContextSource::getReadWriteContext);
+	}
+
+	@Override
+	public DirContext getContext(String principal, String credentials) {
+		return getContext((target) -> target.getContext(principal, credentials));
+	}
+
+	private DirContext getContext(Function<ContextSource, DirContext> factory) {
+		RuntimeException failure = null;
+		for (Server server : candidates()) {
+			server.outstanding.incrementAndGet();
+			try {
+				DirContext context = factory.apply(server.target);
+				return ReleasingDirContextInvocationHandler.newProxy(context, server.outstanding::decrementAndGet,
+						(ex) -> {
+							if (isCommunicationFailure(ex)) {
+								failed(server, ex);
+							}
+						});
+			}
+			catch (RuntimeException ex) {
+				server.outstanding.decrementAndGet();
+				if (!isCommunicationFailure(ex)) {
+					throw ex;
+				}
+				failed(server, ex);
+				failure = ex;
+			}
+		}
+		throw failure;
+	}
+
+	/*
+	 * The servers to try, in order: the healthy ones, the first of which chosen by the
+	 * policy, or all of them if none is healthy.
+	 */
+	private List<Server> candidates() {
+		List<Server> healthy = new ArrayList<>(this.servers.size());
+		for (Server server : this.servers) {
+			if (!server.ejected) {
+				healthy.add(server);
+			}
+		}
+		List<Server> candidates = healthy.isEmpty() ? new ArrayList<>(this.servers) : healthy;
+		Collections.rotate(candidates, -Math.floorMod(this.next.getAndIncrement(), candidates.size()));
+		if (this.policy == Policy.LEAST_OUTSTANDING) {
+			candidates.sort(Comparator.comparingInt((server) -> server.outstanding.get()));
+		}
+		else if (this.policy == Policy.LATENCY_WEIGHTED) {
+			candidates.sort(Comparator.comparingLong((server) -> server.latencyNanos));
+			Collections.swap(candidates, 0, weightedByLatency(candidates));
+		}
+		return candidates;
+	}
+
+	/*
+	 * Pick a server with a probability inversely proportional to its latency; servers
+	 * not probed yet are weighted like the fastest one.
+	 */
+	private static int weightedByLatency(List<Server> candidates) {
+		long fastest = Long.MAX_VALUE;
+		for (Server server : candidates) {
+			if (server.latencyNanos > 0) {
+				fastest = Math.min(fastest, server.latencyNanos);
+			}
+		}
+		double[] weights = new double[candidates.size()];
+		double total = 0;
+		for (int i = 0; i < weights.length; i++) {
+			long latency = candidates.get(i).latencyNanos;
+			weights[i] = 1.0 / Math.max(1, (latency > 0 || fastest == Long.MAX_VALUE) ? latency : fastest);
+			total += weights[i];
+		}
+		double random = ThreadLocalRandom.current().nextDouble(total);
+		for (int i = 0; i < weights.length; i++) {
+			random -= weights[i];
+			if (random < 0) {
+				return i;
+			}
+		}
+		return weights.length - 1;
+	}
+
+	/**
+	 * Probe every server now by validating a new read-only context, updating
+	 * its latency and health. Called periodically once initialized.
+	 */
+	public synchronized void probe() {
+		for (Server server : this.servers) {
+			long start = System.nanoTime();
+			DirContext context = null;
+			boolean valid;
+			try {
+				context = server.target.getReadOnlyContext();
+				valid = this.validator.validateDirContext(DirContextType.READ_ONLY, context);
+			}
+			catch (RuntimeException ex) {
+				LOG.debug("Probe of {} failed", server, ex);
+				valid = false;
+			}
+			finally {
+				LdapUtils.closeContext(context);
+			}
+			if (valid) {
+				succeeded(server, System.nanoTime() - start);
+			}
+			else {
+				failed(server, null);
+			}
+		}
+	}
+
+	private void succeeded(Server server, long latencyNanos) {
+		synchronized (server) {
+			server.latencyNanos = (server.latencyNanos == 0) ? latencyNanos
+					: (server.latencyNanos * 7 + latencyNanos * 3) / 10;
+			server.consecutiveFailures = 0;
+			if (server.ejected && ++server.consecutiveSuccesses >= this.recoveryThreshold) {
+				server.ejected = false;
+				LOG.info("Re-admitting {}", server);
+			}
+		}
+	}
+
+	private void failed(Server server, Throwable ex) {
+		synchronized (server) {
+			server.consecutiveSuccesses = 0;
+			if (!server.ejected && ++server.consecutiveFailures >= this.failureThreshold) {
+				server.ejected = true;
+				LOG.warn("Ejecting {} after {} consecutive failures", server, server.consecutiveFailures, ex);
+			}
+		}
+	}
+
+	private static boolean isCommunicationFailure(Throwable ex) {
+		for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+			if (cause instanceof org.springframework.ldap.CommunicationException
+					|| cause instanceof org.springframework.ldap.ServiceUnavailableException
+					|| cause instanceof javax.naming.CommunicationException
+					|| cause instanceof javax.naming.ServiceUnavailableException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Policies choosing the server a new context is obtained from.
+	 */
+	public enum Policy {
+
+		/**
+		 * Use each healthy server in turn.
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * Use the healthy server with the fewest contexts currently open, taking
+		 * turns between servers with the same number.
+		 */
+		LEAST_OUTSTANDING,
+
+		/**
+		 * Use a healthy server chosen at random, with a probability inversely
+		 * proportional to its latency as measured by the latest probes.
+		 */
+		LATENCY_WEIGHTED
+
+	}
+
+	/**
+	 * The state of one of the servers of a {@link LoadBalancingContextSource}.
+	 */
+	public static final class Server {
+
+		private final ContextSource target;
+
+		private final AtomicInteger outstanding = new AtomicInteger();
+
+		private volatile boolean ejected;
+
+		private volatile long latencyNanos;
+
+		private int consecutiveFailures;
+
+		private int consecutiveSuccesses;
+
+		private Server(ContextSource target) {
+			this.target = target;
+		}
+
+		/**
+		 * @return the context source of the server.
+		 */
+		public ContextSource getContextSource() {
+			return this.target;
+		}
+
+		/**
+		 * @return whether the server has been ejected after consecutive
+		 * failures and not yet re-admitted.
+		 */
+		public boolean isEjected() {
+			return this.ejected;
+		}
+
+		/**
+		 * @return the number of contexts of the server currently open.
+		 */
+		public int getOutstanding() {
+			return this.outstanding.get();
+		}
+
+		/**
+		 * @return the latency of the server as measured by probes, averaged
+		 * over recent probes, or <code>null</code> if it hasn't been probed
+		 * successfully yet.
+		 */
+		public Duration getLatency() {
+			long latency = this.latencyNanos;
+			return (latency > 0) ? Duration.ofNanos(latency) : null;
+		}
+
+		@Override
+		public String toString() {
+			return "Server[" + this.target + "]";
+		}
+
+	}
+
+}
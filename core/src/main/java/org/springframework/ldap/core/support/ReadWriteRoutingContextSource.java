@@ -0,0 +1,159 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import javax.naming.directory.DirContext;
+
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ContextSource} routing read-only contexts to read replicas and
+ * read-write contexts to the primary server, so that reads can be scaled
+ * horizontally without changing the code using the context source. The
+ * replicas are typically combined in a {@link LoadBalancingContextSource}.
+ * Authenticating contexts obtained with {@link #getContext(String, String)}
+ * are routed like read-only contexts.
+ * <p>
+ * Since replicas may lag behind the primary, a
+ * {@link #setReadYourWritesWindow(Duration) read-your-writes window} can be
+ * set: for that long after a thread last obtained or closed a read-write
+ * context, its reads are routed to the primary as well, so that it sees its
+ * own writes. When a write takes place within a Spring managed transaction,
+ * reads are also routed to the primary until the transaction completes,
+ * however long it takes. Note that within a transaction managed by a
+ * {@link org.springframework.ldap.transaction.compensating.manager.ContextSourceTransactionManager},
+ * all operations use the same read-write context anyway.
+ *
+ * @since 3.1
+ */
+public class ReadWriteRoutingContextSource extends DelegatingBaseLdapPathContextSourceSupport
+		implements ContextSource {
+
+	private final ContextSource primary;
+
+	private final ContextSource replicas;
+
+	private final ThreadLocal<Long> lastWrite = new ThreadLocal<>();
+
+	private final Object transactionKey = new Object();
+
+	private long readYourWritesWindowMillis = 0;
+
+	private Clock clock = Clock.systemUTC();
+
+	/**
+	 * Create a new instance.
+	 *
+	 * @param primary the context source read-write contexts are obtained from.
+	 * @param replicas the context source read-only contexts are obtained from.
+	 */
+	public ReadWriteRoutingContextSource(ContextSource primary, ContextSource replicas) {
+		Assert.notNull(primary, "primary must not be null");
+		Assert.notNull(replicas, "replicas must not be null");
+		this.primary = primary;
+		this.replicas = replicas;
+	}
+
+	@Override
+	protected ContextSource getTarget() {
+		return this.primary;
+	}
+
+	/**
+	 * Set how long reads of a thread are routed to the primary after it
+	 * performed a write. Default is zero, meaning reads always go to the
+	 * replicas.
+	 *
+	 * @param readYourWritesWindow the window; must not be negative.
+	 */
+	public void setReadYourWritesWindow(Duration readYourWritesWindow) {
+		Assert.isTrue(readYourWritesWindow != null && !readYourWritesWindow.isNegative(),
+				"readYourWritesWindow must not be negative");
+		this.readYourWritesWindowMillis = readYourWritesWindow.toMillis();
+	}
+
+	/**
+	 * Set the clock used to measure the read-your-writes window. Intended for
+	 * testing.
+	 *
+	 * @param clock the clock to use.
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "clock must not be null");
+		this.clock = clock;
+	}
+
+	@Override
+	public DirContext getReadOnlyContext() {
+		return readTarget().getReadOnlyContext();
+	}
+
+	@Override
+	public DirContext getReadWriteContext() {
+		recordWrite();
+		return ReleasingDirContextInvocationHandler.newProxy(this.primary.getReadWriteContext(), this::recordWrite,
+				null);
+	}
+
+	@Override
+	public DirContext getContext(String principal, String credentials) {
+		return readTarget().getContext(principal, credentials);
+	}
+
+	private ContextSource readTarget() {
+		return wroteRecently() ? this.primary : this.replicas;
+	}
+
+	private boolean wroteRecently() {
+		if (TransactionSynchronizationManager.hasResource(this.transactionKey)) {
+			return true;
+		}
+		Long lastWrite = this.lastWrite.get();
+		if (lastWrite == null) {
+			return false;
+		}
+		if (this.clock.millis() - lastWrite < this.readYourWritesWindowMillis) {
+			return true;
+		}
+		this.lastWrite.remove();
+		return false;
+	}
+
+	private void recordWrite() {
+		if (this.readYourWritesWindowMillis <= 0) {
+			return;
+		}
+		this.lastWrite.set(this.clock.millis());
+		if (TransactionSynchronizationManager.isSynchronizationActive()
+				&& !TransactionSynchronizationManager.hasResource(this.transactionKey)) {
+			TransactionSynchronizationManager.bindResource(this.transactionKey, Boolean.TRUE);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+				}
+			});
+		}
+	}
+
+}
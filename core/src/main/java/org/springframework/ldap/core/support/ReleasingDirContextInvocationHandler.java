@@ -0,0 +1,107 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javax.naming.directory.DirContext;
+
+import org.springframework.ldap.core.DirContextProxy;
+import org.springframework.ldap.support.LdapUtils;
+
+/**
+ * Forwards all operations to a target context, running a release callback the
+ * first time the context is closed. Used by context source decorators that
+ * keep track of the contexts handed out.
+ *
+ * @since 3.1
+ */
+final class ReleasingDirContextInvocationHandler implements InvocationHandler {
+
+	private final DirContext target;
+
+	private final Runnable release;
+
+	private final Consumer<Throwable> failureListener;
+
+	private final AtomicBoolean released = new AtomicBoolean();
+
+	private ReleasingDirContextInvocationHandler(DirContext target, Runnable release,
+			Consumer<Throwable> failureListener) {
+		this.target = target;
+		this.release = release;
+		this.failureListener = failureListener;
+	}
+
+	/**
+	 * Create a proxy for the supplied context.
+	 *
+	 * @param target the context to forward operations to.
+	 * @param release run the first time the proxy is closed, even if closing
+	 * the target fails.
+	 * @param failureListener notified of every exception thrown by the target,
+	 * may be <code>null</code>.
+	 * @return the proxy, implementing the same interfaces as the target as well
+	 * as {@link DirContextProxy}.
+	 */
+	static DirContext newProxy(DirContext target, Runnable release, Consumer<Throwable> failureListener) {
+		return (DirContext) Proxy.newProxyInstance(DirContextProxy.class.getClassLoader(),
+				new Class<?>[] { LdapUtils.getActualTargetClass(target), DirContextProxy.class },
+				new ReleasingDirContextInvocationHandler(target, release, failureListener));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String methodName = method.getName();
+		if (methodName.equals("getTargetContext")) {
+			return this.target;
+		}
+		else if (methodName.equals("equals")) {
+			return (proxy == args[0]);
+		}
+		else if (methodName.equals("hashCode")) {
+			return System.identityHashCode(proxy);
+		}
+		else if (methodName.equals("close")) {
+			try {
+				this.target.close();
+			}
+			finally {
+				if (this.released.compareAndSet(false, true)) {
+					this.release.run();
+				}
+			}
+			return null;
+		}
+
+		try {
+			return method.invoke(this.target, args);
+		}
+		catch (InvocationTargetException ex) {
+			if (this.failureListener != null) {
+				this.failureListener.accept(ex.getTargetException());
+			}
+			throw ex.getTargetException();
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.observation;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+
+import org.springframework.ldap.observation.LdapObservationDocumentation.HighCardinalityKeyNames;
+import org.springframework.ldap.observation.LdapObservationDocumentation.LowCardinalityKeyNames;
+import org.springframework.ldap.query.SearchScope;
+
+/**
+ * Default {@link LdapObservationConvention}.
+ * <p>
+ * To keep the number of time series bounded, the search filter is only tagged
+ * by its shape: every assertion value is replaced by <code>?</code>, while
+ * wildcards are kept, so that <code>(&amp;(objectclass=person)(cn=John*))</code>
+ * is tagged as <code>(&amp;(objectclass=?)(cn=?*))</code>. The distinguished name
+ * of the target entry is only ever added as a high cardinality key value.
+ *
+ * @since 3.1
+ */
+public class DefaultLdapObservationConvention implements LdapObservationConvention {
+
+	private static final String DEFAULT_NAME = "spring.ldap.operation";
+
+	private static final String NONE = "none";
+
+	private static final KeyValue BASE_NONE = KeyValue.of(LowCardinalityKeyNames.BASE, NONE);
+
+	private static final KeyValue SCOPE_NONE = KeyValue.of(LowCardinalityKeyNames.SCOPE, NONE);
+
+	private static final KeyValue FILTER_NONE = KeyValue.of(LowCardinalityKeyNames.FILTER, NONE);
+
+	private static final KeyValue EXCEPTION_NONE = KeyValue.of(LowCardinalityKeyNames.EXCEPTION, NONE);
+
+	private final String name;
+
+	/**
+	 * Create a convention using the default observation name,
+	 * <code>spring.ldap.operation</code>.
+	 */
+	public DefaultLdapObservationConvention() {
+		this(DEFAULT_NAME);
+	}
+
+	/**
+	 * Create a convention using a custom observation name.
+	 *
+	 * @param name the observation name.
+	 */
+	public DefaultLdapObservationConvention(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public String getContextualName(LdapObservationContext context) {
+		return "ldap " + context.getOperation().getValue();
+	}
+
+	@Override
+	public KeyValues getLowCardinalityKeyValues(LdapObservationContext context) {
+		return KeyValues.of(operation(context), base(context), scope(context), filter(context), exception(context));
+	}
+
+	@Override
+	public KeyValues getHighCardinalityKeyValues(LdapObservationContext context) {
+		KeyValues keyValues = KeyValues.of(
+				KeyValue.of(HighCardinalityKeyNames.RESULT_COUNT, String.valueOf(context.getResultCount())));
+		String dn = context.getDn();
+		if (dn != null) {
+			keyValues = keyValues.and(KeyValue.of(HighCardinalityKeyNames.DN, dn));
+		}
+		return keyValues;
+	}
+
+	protected KeyValue operation(LdapObservationContext context) {
+		return KeyValue.of(LowCardinalityKeyNames.OPERATION, context.getOperation().getValue());
+	}
+
+	protected KeyValue base(LdapObservationContext context) {
+		String dn = context.getDn();
+		if (!context.getOperation().isSearch() || dn == null) {
+			return BASE_NONE;
+		}
+		return KeyValue.of(LowCardinalityKeyNames.BASE, dn.isEmpty() ? "root" : dn);
+	}
+
+	protected KeyValue scope(LdapObservationContext context) {
+		Integer searchScope = context.getSearchScope();
+		if (searchScope != null) {
+			for (SearchScope candidate : SearchScope.values()) {
+				if (candidate.getId() == searchScope) {
+					return KeyValue.of(LowCardinalityKeyNames.SCOPE, candidate.name().toLowerCase());
+				}
+			}
+		}
+		return SCOPE_NONE;
+	}
+
+	protected KeyValue filter(LdapObservationContext context) {
+		String filter = context.getFilter();
+		if (filter == null) {
+			return FILTER_NONE;
+		}
+		return KeyValue.of(LowCardinalityKeyNames.FILTER, filterShape(filter));
+	}
+
+	protected KeyValue exception(LdapObservationContext context) {
+		Throwable error = context.getError();
+		if (error == null) {
+			return EXCEPTION_NONE;
+		}
+		String simpleName = error.getClass().getSimpleName();
+		return KeyValue.of(LowCardinalityKeyNames.EXCEPTION,
+				!simpleName.isEmpty() ? simpleName : error.getClass().getName());
+	}
+
+	/**
+	 * Reduce an encoded LDAP filter to its shape, replacing every assertion
+	 * value with <code>?</code> but keeping any wildcards.
+	 *
+	 * @param filter the encoded filter.
+	 * @return the shape of the filter.
+	 */
+	static String filterShape(String filter) {
+		StringBuilder shape = new StringBuilder(filter.length());
+		boolean inValue = false;
+		boolean inLiteral = false;
+		for (int i = 0; i < filter.length(); i++) {
+			char c = filter.charAt(i);
+			if (!inValue) {
+				shape.append(c);
+				inValue = (c == '=');
+			}
+			else if (c == ')') {
+				shape.append(c);
+				inValue = false;
+				inLiteral = false;
+			}
+			else if (c == '*') {
+				shape.append(c);
+				inLiteral = false;
+			}
+			else if (!inLiteral) {
+				shape.append('?');
+				inLiteral = true;
+			}
+		}
+		return shape.toString();
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.observation;
+
+import io.micrometer.observation.Observation;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link Observation.Context} holding the details of a single LDAP operation,
+ * as performed by {@link org.springframework.ldap.core.LdapTemplate}.
+ * <p>
+ * For search type operations the name is the search base; for all other
+ * operations it is the distinguished name of the target entry.
+ *
+ * @since 3.1
+ * @see LdapObservationConvention
+ */
+public class LdapObservationContext extends Observation.Context {
+
+	private final Operation operation;
+
+	private final Object name;
+
+	private final String filter;
+
+	private final Integer searchScope;
+
+	private long resultCount;
+
+	/**
+	 * Create a new context for an operation targeting a single entry.
+	 *
+	 * @param operation the operation being performed.
+	 * @param name the distinguished name of the target entry; a
+	 * {@link javax.naming.Name} or a String.
+	 */
+	public LdapObservationContext(Operation operation, Object name) {
+		this(operation, name, null, null);
+	}
+
+	/**
+	 * Create a new context for a search type operation.
+	 *
+	 * @param operation the operation being performed.
+	 * @param base the search base; a {@link javax.naming.Name} or a String.
+	 * @param filter the encoded search filter, or <code>null</code> if not
+	 * applicable.
+	 * @param searchScope the search scope as defined in
+	 * {@link javax.naming.directory.SearchControls}, or <code>null</code> if
+	 * not applicable.
+	 */
+	public LdapObservationContext(Operation operation, Object base, String filter, Integer searchScope) {
+		Assert.notNull(operation, "operation must not be null");
+		this.operation = operation;
+		this.name = base;
+		this.filter = filter;
+		this.searchScope = searchScope;
+	}
+
+	public Operation getOperation() {
+		return this.operation;
+	}
+
+	/**
+	 * Get the search base or the distinguished name of the target entry.
+	 *
+	 * @return the name as a String, or <code>null</code> if not known.
+	 */
+	public String getDn() {
+		return (this.name != null) ? this.name.toString() : null;
+	}
+
+	public String getFilter() {
+		return this.filter;
+	}
+
+	public Integer getSearchScope() {
+		return this.searchScope;
+	}
+
+	/**
+	 * Get the number of entries returned (for searches) or affected (for all
+	 * other operations) by the operation.
+	 *
+	 * @return the number of entries handled so far.
+	 */
+	public long getResultCount() {
+		return this.resultCount;
+	}
+
+	public void setResultCount(long resultCount) {
+		this.resultCount = resultCount;
+	}
+
+	/**
+	 * Increment the result count by one. Called for each entry handled by a
+	 * search.
+	 */
+	public void incrementResultCount() {
+		this.resultCount++;
+	}
+
+	/**
+	 * The LDAP operations being observed.
+	 */
+	public enum Operation {
+
+		SEARCH("search"),
+
+		LIST("list"),
+
+		LIST_BINDINGS("list.bindings"),
+
+		LOOKUP("lookup"),
+
+		BIND("bind"),
+
+		REBIND("rebind"),
+
+		MODIFY_ATTRIBUTES("modify.attributes"),
+
+		RENAME("rename"),
+
+		UNBIND("unbind"),
+
+		AUTHENTICATE("authenticate");
+
+		private final String value;
+
+		Operation(String value) {
+			this.value = value;
+		}
+
+		/**
+		 * Get the value used when tagging observations with this operation.
+		 *
+		 * @return the tag value.
+		 */
+		public String getValue() {
+			return this.value;
+		}
+
+		/**
+		 * Whether this operation starts from a search base rather than
+		 * targeting a single, known entry.
+		 *
+		 * @return <code>true</code> for search, list and authenticate
+		 * operations.
+		 */
+		public boolean isSearch() {
+			return this == SEARCH || this == LIST || this == LIST_BINDINGS || this == AUTHENTICATE;
+		}
+
+	}
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.observation;
+
+import io.micrometer.common.docs.KeyName;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationConvention;
+import io.micrometer.observation.docs.ObservationDocumentation;
+
+/**
+ * Documented {@link io.micrometer.common.KeyValue KeyValues} for the
+ * observations of LDAP operations.
+ *
+ * @since 3.1
+ */
+public enum LdapObservationDocumentation implements ObservationDocumentation {
+
+	/**
+	 * Observation created for each operation performed by
+	 * {@link org.springframework.ldap.core.LdapTemplate}.
+	 */
+	LDAP_OPERATION {
+		@Override
+		public Class<? extends ObservationConvention<? extends Observation.Context>> getDefaultConvention() {
+			return DefaultLdapObservationConvention.class;
+		}
+
+		@Override
+		public KeyName[] getLowCardinalityKeyNames() {
+			return LowCardinalityKeyNames.values();
+		}
+
+		@Override
+		public KeyName[] getHighCardinalityKeyNames() {
+			return HighCardinalityKeyNames.values();
+		}
+	};
+
+	public enum LowCardinalityKeyNames implements KeyName {
+
+		/**
+		 * The LDAP operation, e.g. <code>search</code> or <code>bind</code>.
+		 */
+		OPERATION {
+			@Override
+			public String asString() {
+				return "ldap.operation";
+			}
+		},
+
+		/**
+		 * The search base, or <code>none</code> for operations targeting a
+		 * single entry.
+		 */
+		BASE {
+			@Override
+			public String asString() {
+				return "ldap.base";
+			}
+		},
+
+		/**
+		 * The search scope: <code>object</code>, <code>onelevel</code>,
+		 * <code>subtree</code> or <code>none</code>.
+		 */
+		SCOPE {
+			@Override
+			public String asString() {
+				return "ldap.scope";
+			}
+		},
+
+		/**
+		 * The shape of the search filter, with all assertion values replaced by
+		 * <code>?</code>, or <code>none</code> if no filter was used.
+		 */
+		FILTER {
+			@Override
+			public String asString() {
+				return "ldap.filter";
+			}
+		},
+
+		/**
+		 * Simple class name of the exception thrown by the operation, or
+		 * <code>none</code>.
+		 */
+		EXCEPTION {
+			@Override
+			public String asString() {
+				return "exception";
+			}
+		}
+
+	}
+
+	public enum HighCardinalityKeyNames implements KeyName {
+
+		/**
+		 * The distinguished name of the target entry, or the search base.
+		 */
+		DN {
+			@Override
+			public String asString() {
+				return "ldap.dn";
+			}
+		},
+
+		/**
+		 * Number of entries returned by a search, or affected by any other
+		 * operation.
+		 */
+		RESULT_COUNT {
+			@Override
+			public String asString() {
+				return "ldap.result.count";
+			}
+		}
+
+	}
+
+}
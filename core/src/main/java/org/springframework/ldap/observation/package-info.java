@@ -0,0 +1,4 @@
+/**
+ * Micrometer Observation support for LDAP operations.
+ */
+package org.springframework.ldap.observation;
@@ -31,6 +31,24 @@ public @interface Attribute {
 		BINARY
 	}
 
+	/**
+	 * The FetchType attribute indicates when the values of a multi-valued
+	 * attribute are read from LDAP.
+	 *
+	 * @since 3.1
+	 */
+	enum FetchType {
+		/**
+		 * The values are read together with the entry.
+		 */
+		EAGER, /**
+		 * The values are only read when the collection is first accessed,
+		 * using ranged retrieval, see
+		 * {@link org.springframework.ldap.core.support.DefaultIncrementalAttributesMapper}.
+		 */
+		LAZY
+	}
+
 	/**
 	 * The LDAP attribute name that this field represents.
 	 * <p>
@@ -74,4 +92,24 @@ public @interface Attribute {
 	 */
 	boolean readonly() default false;
 
+	/**
+	 * Indicates whether the values of this attribute are read together with the
+	 * entry (<code>FetchType.EAGER</code>) or only when the field is first
+	 * accessed (<code>FetchType.LAZY</code>).
+	 * <p>
+	 * Lazily fetched attributes are not requested when searching for or looking
+	 * up entries. Unless the attribute is present in the entry anyway, the field
+	 * is set to a collection that reads the values of the attribute, using
+	 * ranged retrieval, the first time it is used. This is intended for
+	 * attributes with a very large number of values, such as the
+	 * <code>member</code> attribute of large groups. Only fields declared as
+	 * <code>Collection</code>, <code>List</code>, <code>Set</code> or
+	 * <code>SortedSet</code> can be fetched lazily, and the collection is only
+	 * written back to LDAP if it has been read.
+	 *
+	 * @return Either <code>FetchType.EAGER</code> or <code>FetchType.LAZY</code>.
+	 * @since 3.1
+	 */
+	FetchType fetch() default FetchType.EAGER;
+
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.odm.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Identifies the constructor through which instances of an {@link Entry} annotated
+ * class are created when they are read from LDAP. Each constructor parameter is bound
+ * to the field of the same name and receives the value that would otherwise have been
+ * written to that field, so that entries can be immutable. Fields that are not bound
+ * to a parameter are populated after the constructor has returned; they must not be
+ * <code>final</code> unless they are {@link Transient}.
+ * <p>
+ * Parameter names are taken from {@link #value()} if specified, otherwise from the
+ * class file, which requires the class to be compiled with <code>-parameters</code>.
+ * <p>
+ * Records need no annotation: unless another constructor is annotated, they are
+ * created through their canonical constructor.
+ *
+ * @since 3.1
+ * @see Entry
+ */
+@Documented
+@Target(ElementType.CONSTRUCTOR)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EntryConstructor {
+
+	/**
+	 * The names of the fields bound to the constructor parameters, in parameter order.
+	 * @return the field names, or an empty array to use the parameter names.
+	 */
+	String[] value() default {};
+
+}
@@ -0,0 +1,602 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.odm.apt;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+import org.springframework.ldap.odm.annotations.Attribute;
+import org.springframework.ldap.odm.annotations.DnAttribute;
+import org.springframework.ldap.odm.annotations.Entry;
+import org.springframework.ldap.odm.annotations.EntryConstructor;
+import org.springframework.ldap.odm.annotations.Id;
+import org.springframework.ldap.odm.annotations.Transient;
+
+/**
+ * Annotation processor generating a mapper for each {@link Entry} annotated
+ * class, so that
+ * {@link org.springframework.ldap.odm.core.impl.DefaultObjectDirectoryMapper}
+ * can map entries without reflection. For an entity <code>com.example.Person</code>
+ * the processor generates <code>com.example.Person_EntryMapper</code>, which is
+ * picked up automatically at runtime.
+ * <p>
+ * The processor is not registered as a service, so it never runs unless it is
+ * requested explicitly: add <code>spring-ldap-core</code> to the annotation
+ * processor path and name the processor, e.g. with Gradle:
+ *
+ * <pre>
+ * annotationProcessor "org.springframework.ldap:spring-ldap-core"
+ * compileJava.options.compilerArgs += ["-processor", "org.springframework.ldap.odm.apt.EntryMapperProcessor"]
+ * </pre>
+ *
+ * or with the <code>annotationProcessorPaths</code> and
+ * <code>annotationProcessors</code> of the Maven compiler plugin.
+ *
+ * Fields are accessed directly when they are not private, and through
+ * <code>getXxx</code>/<code>isXxx</code> and <code>setXxx</code> methods
+ * otherwise. Classes that cannot be mapped without reflection, for instance
+ * because a private field has no accessor or the class has no accessible
+ * zero-argument constructor, are skipped with a note, and keep being mapped
+ * reflectively.
+ *
+ * @since 3.1
+ */
+@SupportedAnnotationTypes("org.springframework.ldap.odm.annotations.Entry")
+public class EntryMapperProcessor extends AbstractProcessor {
+
+	private static final String SUFFIX = "_EntryMapper";
+
+	private static final String MAPPER_CLASS = "org.springframework.ldap.odm.core.impl.GeneratedEntryMapper";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		for (Element element : roundEnv.getElementsAnnotatedWith(Entry.class)) {
+			if (element.getKind() != ElementKind.CLASS) {
+				continue;
+			}
+			TypeElement type = (TypeElement) element;
+			try {
+				EntityModel model = new EntityModel(type);
+				write(model);
+			}
+			catch (UnsupportedEntityException ex) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+						"No mapper generated for " + type.getQualifiedName() + ", it will be mapped reflectively: "
+								+ ex.getMessage(),
+						type);
+			}
+			catch (IOException ex) {
+				this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+						"Could not write mapper for " + type.getQualifiedName() + ": " + ex.getMessage(), type);
+			}
+		}
+		// Leave the annotations unclaimed for other processors
+		return false;
+	}
+
+	private void write(EntityModel model) throws IOException {
+		String mapperName = model.mapperSimpleName();
+		String qualifiedName = model.packageName.isEmpty() ? mapperName : model.packageName + "." + mapperName;
+		try (PrintWriter out = new PrintWriter(
+				this.processingEnv.getFiler().createSourceFile(qualifiedName, model.type).openWriter())) {
+			if (!model.packageName.isEmpty()) {
+				out.println("package " + model.packageName + ";");
+				out.println();
+			}
+			String entity = model.type.getQualifiedName().toString();
+			out.println("@javax.annotation.processing.Generated(\"" + EntryMapperProcessor.class.getName() + "\")");
+			out.println("public final class " + mapperName + " extends " + MAPPER_CLASS + "<" + entity + "> {");
+			out.println();
+			out.println("\tpublic " + mapperName + "() {");
+			out.println("\t\tsuper(" + entity + ".class);");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tprotected " + entity + " newInstance() {");
+			out.println("\t\treturn new " + entity + "();");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tprotected void read(" + entity + " entry, javax.naming.Name dn, "
+					+ "javax.naming.directory.Attributes attributes, "
+					+ "org.springframework.ldap.odm.typeconversion.ConverterManager converters) "
+					+ "throws javax.naming.NamingException {");
+			for (FieldModel field : model.fields) {
+				field.writeRead(out);
+			}
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tprotected void write(" + entity + " entry, org.springframework.LdapDataEntry context, "
+					+ "org.springframework.ldap.odm.typeconversion.ConverterManager converters) {");
+			for (FieldModel field : model.fields) {
+				field.writeWrite(out);
+			}
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tprotected javax.naming.Name getId(" + entity + " entry) {");
+			out.println("\t\treturn " + model.id.getter + ";");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tprotected void setId(" + entity + " entry, javax.naming.Name id) {");
+			out.println("\t\t" + model.id.setter("(" + model.id.typeName + ") id") + ";");
+			out.println("\t}");
+			out.println();
+			out.println("\t@Override");
+			out.println("\tprotected javax.naming.Name getCalculatedId(" + entity + " entry) {");
+			if (model.calculatedDn.isEmpty()) {
+				out.println("\t\treturn null;");
+			}
+			else {
+				List<String> keys = new ArrayList<>();
+				List<String> names = new ArrayList<>();
+				List<String> values = new ArrayList<>();
+				for (FieldModel field : model.calculatedDn) {
+					keys.add(literal(field.dnKey));
+					names.add(literal(field.name));
+					values.add(field.getter);
+				}
+				out.println("\t\treturn calculatedId(" + literal(model.base) + ", new String[] { "
+						+ String.join(", ", keys) + " }, new String[] { " + String.join(", ", names) + " }, "
+						+ String.join(", ", values) + ");");
+			}
+			out.println("\t}");
+			out.println();
+			out.println("}");
+		}
+	}
+
+	private String literal(String value) {
+		return this.processingEnv.getElementUtils().getConstantExpression(value);
+	}
+
+	private static String capitalize(String name) {
+		return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+	}
+
+	@SuppressWarnings("serial")
+	private static final class UnsupportedEntityException extends Exception {
+
+		private UnsupportedEntityException(String message) {
+			super(message);
+		}
+
+	}
+
+	private final class EntityModel {
+
+		private final TypeElement type;
+
+		private final String packageName;
+
+		private final String base;
+
+		private final List<FieldModel> fields = new ArrayList<>();
+
+		private final List<FieldModel> calculatedDn = new ArrayList<>();
+
+		private FieldModel id;
+
+		private EntityModel(TypeElement type) throws UnsupportedEntityException {
+			this.type = type;
+			Elements elements = EntryMapperProcessor.this.processingEnv.getElementUtils();
+			this.packageName = elements.getPackageOf(type).getQualifiedName().toString();
+			this.base = type.getAnnotation(Entry.class).base();
+			checkInstantiable(type);
+			List<FieldModel> dnAttributes = new ArrayList<>();
+			for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+				if (field.getModifiers().contains(Modifier.STATIC)) {
+					continue;
+				}
+				FieldModel model = new FieldModel(this, field);
+				if (model.id) {
+					if (this.id != null) {
+						throw new UnsupportedEntityException("more than one @Id field");
+					}
+					this.id = model;
+				}
+				if (model.dnKey != null) {
+					dnAttributes.add(model);
+				}
+				this.fields.add(model);
+			}
+			if (this.id == null) {
+				throw new UnsupportedEntityException("no @Id field");
+			}
+			boolean indexed = dnAttributes.stream().anyMatch((field) -> field.dnIndex != -1);
+			if (indexed) {
+				dnAttributes.sort(Comparator.comparingInt((FieldModel field) -> field.dnIndex));
+				Set<Integer> indexes = new HashSet<>();
+				for (FieldModel field : dnAttributes) {
+					if (field.dnIndex == -1 || !indexes.add(field.dnIndex)) {
+						throw new UnsupportedEntityException("inconsistent @DnAttribute indexes");
+					}
+					field.requireGetter();
+				}
+				this.calculatedDn.addAll(dnAttributes);
+			}
+			this.id.requireGetter();
+		}
+
+		private void checkInstantiable(TypeElement type) throws UnsupportedEntityException {
+			if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+				throw new UnsupportedEntityException("class is abstract");
+			}
+			if (!type.getTypeParameters().isEmpty()) {
+				throw new UnsupportedEntityException("class is generic");
+			}
+			if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+				throw new UnsupportedEntityException("class is an inner class");
+			}
+			for (Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()) {
+				if (current.getModifiers().contains(Modifier.PRIVATE)) {
+					throw new UnsupportedEntityException("class is not accessible from its package");
+				}
+			}
+			if (ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+					.anyMatch((constructor) -> constructor.getAnnotation(EntryConstructor.class) != null)) {
+				throw new UnsupportedEntityException("entries are created through an @EntryConstructor");
+			}
+			boolean hasConstructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+					.anyMatch((constructor) -> constructor.getParameters().isEmpty()
+							&& !constructor.getModifiers().contains(Modifier.PRIVATE));
+			if (!hasConstructor) {
+				throw new UnsupportedEntityException("no accessible zero-argument constructor");
+			}
+		}
+
+		private String mapperSimpleName() {
+			Elements elements = EntryMapperProcessor.this.processingEnv.getElementUtils();
+			String binaryName = elements.getBinaryName(this.type).toString();
+			String simpleName = this.packageName.isEmpty() ? binaryName
+					: binaryName.substring(this.packageName.length() + 1);
+			return simpleName.replace('$', '_') + SUFFIX;
+		}
+
+	}
+
+	private final class FieldModel {
+
+		private final EntityModel entity;
+
+		private final VariableElement field;
+
+		private final String name;
+
+		private final TypeMirror type;
+
+		private final String typeName;
+
+		private final boolean id;
+
+		private final boolean isTransient;
+
+		private final String dnKey;
+
+		private final int dnIndex;
+
+		private String attributeName;
+
+		private String syntax = "";
+
+		private boolean binary;
+
+		private boolean readOnly;
+
+		private boolean collection;
+
+		private String valueClass;
+
+		private String valueType;
+
+		private String collectionInstance;
+
+		private String getter;
+
+		private ExecutableElement setterMethod;
+
+		private FieldModel(EntityModel entity, VariableElement field) throws UnsupportedEntityException {
+			this.entity = entity;
+			this.field = field;
+			this.name = field.getSimpleName().toString();
+			this.type = field.asType();
+			this.typeName = erasure(this.type);
+			this.id = field.getAnnotation(Id.class) != null;
+			this.isTransient = field.getAnnotation(Transient.class) != null;
+			DnAttribute dnAttribute = field.getAnnotation(DnAttribute.class);
+			this.dnKey = (dnAttribute != null) ? dnAttribute.value() : null;
+			this.dnIndex = (dnAttribute != null) ? dnAttribute.index() : -1;
+			if (dnAttribute != null) {
+				requireSetter();
+				if (!isSameType(this.type, "java.lang.String")) {
+					throw unsupported("@DnAttribute field is not a String");
+				}
+			}
+			if (this.id) {
+				if (!isAssignable(this.type, "javax.naming.Name")) {
+					throw unsupported("@Id field is not a javax.naming.Name");
+				}
+				requireSetter();
+				return;
+			}
+			if (this.isTransient) {
+				return;
+			}
+			Attribute attribute = field.getAnnotation(Attribute.class);
+			this.attributeName = this.name;
+			if (attribute != null) {
+				if (!attribute.name().isEmpty()) {
+					this.attributeName = attribute.name();
+				}
+				this.syntax = attribute.syntax();
+				this.binary = attribute.type() == Attribute.Type.BINARY;
+				this.readOnly = attribute.readonly();
+				if (attribute.fetch() == Attribute.FetchType.LAZY) {
+					throw unsupported("field " + this.name + " is fetched lazily");
+				}
+			}
+			determineValueType();
+			requireSetter();
+			if (isWritten()) {
+				requireGetter();
+			}
+		}
+
+		private boolean isWritten() {
+			return !this.id && !this.isTransient && !this.readOnly && !this.attributeName.equalsIgnoreCase("objectclass");
+		}
+
+		private void determineValueType() throws UnsupportedEntityException {
+			Types types = types();
+			this.collection = isAssignable(types.erasure(this.type), "java.util.Collection");
+			if (!this.collection) {
+				if (this.type.getKind().isPrimitive()) {
+					this.valueClass = this.type.toString() + ".class";
+					this.valueType = types.boxedClass((PrimitiveType) this.type)
+							.getQualifiedName().toString();
+				}
+				else {
+					this.valueType = classLiteralType(this.type);
+					this.valueClass = this.valueType + ".class";
+				}
+				return;
+			}
+			List<? extends TypeMirror> arguments = ((DeclaredType) this.type).getTypeArguments();
+			if (arguments.size() != 1) {
+				throw unsupported("cannot determine the element type");
+			}
+			this.valueType = classLiteralType(arguments.get(0));
+			this.valueClass = this.valueType + ".class";
+			String collectionType = this.typeName;
+			String elementType = "<" + this.valueType + ">";
+			TypeElement collectionElement = (TypeElement) types.asElement(this.type);
+			if (collectionElement.getKind() == ElementKind.INTERFACE) {
+				if (collectionType.equals("java.util.Collection") || collectionType.equals("java.util.List")) {
+					this.collectionInstance = "new java.util.ArrayList" + elementType + "()";
+				}
+				else if (collectionType.equals("java.util.SortedSet")) {
+					this.collectionInstance = "new java.util.TreeSet" + elementType + "()";
+				}
+				else if (collectionType.equals("java.util.Set")) {
+					this.collectionInstance = "new java.util.LinkedHashSet" + elementType + "()";
+				}
+				else {
+					throw unsupported("collection type " + collectionType + " is not supported");
+				}
+			}
+			else {
+				boolean instantiable = !collectionElement.getModifiers().contains(Modifier.ABSTRACT)
+						&& ElementFilter.constructorsIn(collectionElement.getEnclosedElements()).stream()
+								.anyMatch((constructor) -> constructor.getParameters().isEmpty()
+										&& constructor.getModifiers().contains(Modifier.PUBLIC));
+				if (!instantiable) {
+					throw unsupported("collection type " + collectionType + " cannot be instantiated");
+				}
+				this.collectionInstance = "new " + collectionType + elementType + "()";
+			}
+		}
+
+		/**
+		 * The type name usable in a class literal, provided the type is not
+		 * parameterized.
+		 */
+		private String classLiteralType(TypeMirror type) throws UnsupportedEntityException {
+			if (type.getKind() == TypeKind.ARRAY) {
+				TypeMirror component = ((ArrayType) type).getComponentType();
+				return (component.getKind().isPrimitive() ? component.toString() : classLiteralType(component))
+						+ "[]";
+			}
+			if (type.getKind() != TypeKind.DECLARED || !((DeclaredType) type).getTypeArguments().isEmpty()) {
+				throw unsupported("type " + type + " is not supported");
+			}
+			return erasure(type);
+		}
+
+		private void requireGetter() throws UnsupportedEntityException {
+			if (this.getter != null) {
+				return;
+			}
+			if (isAccessible(this.field)) {
+				this.getter = "entry." + this.name;
+				return;
+			}
+			List<String> candidates = new ArrayList<>();
+			candidates.add("get" + capitalize(this.name));
+			if (this.type.getKind() == TypeKind.BOOLEAN) {
+				candidates.add("is" + capitalize(this.name));
+			}
+			for (ExecutableElement method : methods()) {
+				if (candidates.contains(method.getSimpleName().toString()) && method.getParameters().isEmpty()
+						&& types().isSameType(method.getReturnType(), this.type)) {
+					this.getter = "entry." + method.getSimpleName() + "()";
+					return;
+				}
+			}
+			throw unsupported("no getter for private field " + this.name);
+		}
+
+		private void requireSetter() throws UnsupportedEntityException {
+			if (this.setterMethod != null || (isAccessible(this.field)
+					&& !this.field.getModifiers().contains(Modifier.FINAL))) {
+				return;
+			}
+			String setterName = "set" + capitalize(this.name);
+			for (ExecutableElement method : methods()) {
+				if (method.getSimpleName().contentEquals(setterName) && method.getParameters().size() == 1
+						&& types().isSameType(method.getParameters().get(0).asType(), this.type)) {
+					this.setterMethod = method;
+					return;
+				}
+			}
+			throw unsupported("no setter for field " + this.name);
+		}
+
+		private String setter(String value) {
+			return (this.setterMethod != null) ? "entry." + this.setterMethod.getSimpleName() + "(" + value + ")"
+					: "entry." + this.name + " = " + value;
+		}
+
+		private void writeRead(PrintWriter out) {
+			if (this.id) {
+				out.println("\t\t" + setter("convertId(dn, \"\", " + this.typeName + ".class, converters)") + ";");
+			}
+			else if (!this.isTransient) {
+				String args = "attributes, " + literal(this.attributeName) + ", " + literal(this.syntax) + ", "
+						+ this.valueClass;
+				if (this.collection) {
+					out.println("\t\t" + setter("readValues(" + args + ", " + this.collectionInstance
+							+ ", converters)") + ";");
+				}
+				else {
+					String local = "_" + this.name;
+					out.println("\t\t" + this.valueType + " " + local + " = readValue(" + args + ", converters);");
+					out.println("\t\tif (" + local + " != null) {");
+					out.println("\t\t\t" + setter(local) + ";");
+					out.println("\t\t}");
+				}
+			}
+			if (this.dnKey != null) {
+				out.println("\t\t" + setter("dnValue(dn, " + literal(this.dnKey) + ", " + this.dnIndex + ")") + ";");
+			}
+		}
+
+		private void writeWrite(PrintWriter out) {
+			if (!isWritten()) {
+				return;
+			}
+			String jndiClass = this.binary ? "byte[].class"
+					: (isAssignableToName() ? "javax.naming.Name.class" : "java.lang.String.class");
+			out.println("\t\t" + (this.collection ? "writeValues" : "writeValue") + "(context, "
+					+ literal(this.attributeName) + ", " + literal(this.syntax) + ", " + jndiClass + ", "
+					+ this.getter + ", converters);");
+		}
+
+		private boolean isAssignableToName() {
+			if (this.valueType.endsWith("[]")) {
+				return false;
+			}
+			TypeElement valueElement = elements().getTypeElement(this.valueType);
+			return valueElement != null && isAssignable(valueElement.asType(), "javax.naming.Name");
+		}
+
+		private boolean isAccessible(Element element) {
+			return !element.getModifiers().contains(Modifier.PRIVATE);
+		}
+
+		private List<ExecutableElement> methods() {
+			List<ExecutableElement> methods = new ArrayList<>();
+			PackageElement entityPackage = elements().getPackageOf(this.entity.type);
+			for (ExecutableElement method : ElementFilter.methodsIn(elements().getAllMembers(this.entity.type))) {
+				Set<Modifier> modifiers = method.getModifiers();
+				if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.PRIVATE)) {
+					continue;
+				}
+				if (modifiers.contains(Modifier.PUBLIC)
+						|| elements().getPackageOf(method).equals(entityPackage)) {
+					methods.add(method);
+				}
+			}
+			return methods;
+		}
+
+		private UnsupportedEntityException unsupported(String message) {
+			return new UnsupportedEntityException(message);
+		}
+
+		private boolean isSameType(TypeMirror type, String className) {
+			TypeElement element = elements().getTypeElement(className);
+			return element != null && types().isSameType(type, element.asType());
+		}
+
+		private boolean isAssignable(TypeMirror type, String className) {
+			TypeElement element = elements().getTypeElement(className);
+			return element != null && types().isAssignable(type, types().erasure(element.asType()));
+		}
+
+		private String erasure(TypeMirror type) {
+			TypeMirror erased = types().erasure(type);
+			if (erased.getKind() == TypeKind.DECLARED) {
+				return ((TypeElement) ((DeclaredType) erased).asElement()).getQualifiedName().toString();
+			}
+			return erased.toString();
+		}
+
+		private Types types() {
+			return EntryMapperProcessor.this.processingEnv.getTypeUtils();
+		}
+
+		private Elements elements() {
+			return EntryMapperProcessor.this.processingEnv.getElementUtils();
+		}
+
+	}
+
+}
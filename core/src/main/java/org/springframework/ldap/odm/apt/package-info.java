@@ -0,0 +1,8 @@
+/**
+ * Provides an annotation processor generating mappers for
+ * {@link org.springframework.ldap.odm.annotations.Entry} annotated classes at
+ * compile time.
+ *
+ * @since 3.1
+ */
+package org.springframework.ldap.odm.apt;
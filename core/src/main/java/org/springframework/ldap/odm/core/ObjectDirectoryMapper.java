@@ -17,6 +17,7 @@
 package org.springframework.ldap.odm.core;
 
 import javax.naming.Name;
+import javax.naming.directory.Attributes;
 
 import org.springframework.LdapDataEntry;
 import org.springframework.ldap.filter.Filter;
@@ -65,6 +66,20 @@ public interface ObjectDirectoryMapper {
 	 */
 	void setId(Object entry, Name id);
 
+	/**
+	 * Determine whether {@link #setId(Object, Name)} can set the distinguished name of entries of the
+	 * specified class. This is not the case for entries whose id is only set through their constructor,
+	 * such as records.
+	 *
+	 * @param clazz the entry class.
+	 * @return <code>true</code> if the id of existing entries can be set.
+	 * @throws org.springframework.ldap.NamingException on error.
+	 * @since 3.1
+	 */
+	default boolean isIdWritable(Class<?> clazz) {
+		return true;
+	}
+
 	Name getCalculatedId(Object entry);
 
 	/**
@@ -95,4 +110,60 @@ public interface ObjectDirectoryMapper {
 	 * @return all relevant attribute names used in the given class (either for reading from LDAP or for writing to LDAP or both)
 	 * @throws org.springframework.ldap.NamingException on error. */
 	String[] manageClass(Class<?> clazz);
+
+	/**
+	 * Check that the specified projection can be populated from entries of the specified managed class,
+	 * managing the class if necessary. A projection is either an interface, whose accessor methods are
+	 * matched to the fields of the managed class by their property name, or a record, whose components are
+	 * matched to the fields by name.
+	 *
+	 * @param clazz the managed class.
+	 * @param projection the projection type.
+	 * @return the attribute names needed to populate the projection, including the object class.
+	 * @throws org.springframework.ldap.NamingException on error.
+	 * @since 3.1
+	 */
+	default String[] manageProjection(Class<?> clazz, Class<?> projection) {
+		throw new UnsupportedOperationException(getClass().getName() + " does not support projections");
+	}
+
+	/**
+	 * Used to convert from the JNDI LDAP representation of an Entry of the specified managed class to the
+	 * specified projection of it when reading from LDAP.
+	 *
+	 * @param ctx the entry to convert.
+	 * @param clazz the managed class.
+	 * @param projection the projection type, see {@link #manageProjection(Class, Class)}.
+	 * @return the projection, or <code>null</code> if the entry is not of the managed class.
+	 * @throws org.springframework.ldap.NamingException on error.
+	 * @since 3.1
+	 */
+	default <T> T mapFromLdapDataEntry(LdapDataEntry ctx, Class<?> clazz, Class<T> projection) {
+		throw new UnsupportedOperationException(getClass().getName() + " does not support projections");
+	}
+
+	/**
+	 * Record the state of the supplied entry as it is in the directory, after having been read from or written
+	 * to it, so that it can later be updated without reading it again. Mappers not tracking the state of
+	 * entries ignore this.
+	 *
+	 * @param entry the entry.
+	 * @param ctx the JNDI LDAP representation of the entry, holding all attributes of its managed class.
+	 * @since 3.1
+	 * @see #getSnapshot(Object)
+	 */
+	default void takeSnapshot(Object entry, LdapDataEntry ctx) {
+	}
+
+	/**
+	 * Get the state of the supplied entry as last recorded by {@link #takeSnapshot(Object, LdapDataEntry)}.
+	 *
+	 * @param entry the entry.
+	 * @return the attributes of the entry as they are in the directory, or <code>null</code> if its state is
+	 * not known.
+	 * @since 3.1
+	 */
+	default Attributes getSnapshot(Object entry) {
+		return null;
+	}
 }
@@ -23,6 +23,9 @@ import org.springframework.ldap.odm.annotations.Id;
 import org.springframework.ldap.odm.annotations.Transient;
 
 import javax.naming.Name;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
@@ -35,6 +38,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.Supplier;
 
 /*
  * Extract attribute meta-data from the @Attribute annotation, the @Id annotation
@@ -44,6 +48,10 @@ import java.util.TreeSet;
  */
 /* package */ final class AttributeMetaData {
 	private static final CaseIgnoreString OBJECT_CLASS_ATTRIBUTE_CI=new CaseIgnoreString("objectclass");
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
 	
 	// Name of the LDAP attribute from the @Attribute annotation
 	private CaseIgnoreString name;
@@ -57,6 +65,12 @@ import java.util.TreeSet;
 	// The Java field corresponding to this meta-data
 	private final Field field;
 
+	// Accessors for the field, resolved once so that mapping entries does not go
+	// through reflective access checks for every value
+	private final MethodHandle getter;
+
+	private final MethodHandle setter;
+
 	// The Java class of the field corresponding to this meta data
 	// This is the actual scalar type meaning that if the field is 
 	// List<String> then the valueClass will be String
@@ -70,6 +84,8 @@ import java.util.TreeSet;
 
 	private Class<? extends Collection> collectionClass;
 
+	private Supplier<Object> collectionFactory;
+
 	// Is this the objectClass attribute
 	private boolean isObjectClass;
 
@@ -77,10 +93,15 @@ import java.util.TreeSet;
 
 	private boolean isReadOnly = false;
 
+	private boolean isLazy = false;
+
 	private String[] attributes;
 
 	private DnAttribute dnAttribute;
 
+	// Index of the constructor parameter bound to this field, -1 if it is populated directly
+	private int constructorParameter = -1;
+
 	// Extract information from the @Attribute annotation:
 	// syntax, isBinary, isObjectClass and name.
 	private boolean processAttributeAnnotation(Field field) {
@@ -114,6 +135,7 @@ import java.util.TreeSet;
 			syntax = attribute.syntax();
 			isBinary = attribute.type() == Attribute.Type.BINARY;
 			isReadOnly = attribute.readonly();
+			isLazy = attribute.fetch() == Attribute.FetchType.LAZY;
 		}
 		attributes = attrList.toArray(new String[attrList.size()]);
 		
@@ -184,15 +206,13 @@ import java.util.TreeSet;
 		} else {
 			collectionClass = (Class<? extends Collection>) fieldType;
 		}
+		collectionFactory = ObjectMetaData.instantiator(collectionClass,
+				(ex) -> new UncategorizedLdapException("Failed to instantiate collection class", ex));
 	}
 
 	@SuppressWarnings("unchecked")
 	public Collection<Object> newCollectionInstance() {
-		try {
-			return (Collection<Object>) collectionClass.newInstance();
-		} catch (Exception e) {
-			throw new UncategorizedLdapException("Failed to instantiate collection class", e);
-		}
+		return (Collection<Object>) collectionFactory.get();
 	}
 
 	// Extract information from the @Id annotation:
@@ -213,9 +233,29 @@ import java.util.TreeSet;
 		return isId;
 	}
 	
+	private static MethodHandle getter(Field field) {
+		try {
+			return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+		} catch (IllegalAccessException e) {
+			throw new MetaDataException(String.format("Can't access field %1$s in Entry class %2$s",
+					field, field.getDeclaringClass()), e);
+		}
+	}
+
+	// Final fields of records and hidden classes can't be written to
+	private static MethodHandle setter(Field field) {
+		try {
+			return MethodHandles.lookup().unreflectSetter(field).asType(SETTER_TYPE);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
 	// Extract meta-data from the given field
 	public AttributeMetaData(Field field) {
 		this.field=field;
+		this.getter = getter(field);
+		this.setter = setter(field);
 
 		this.dnAttribute = field.getAnnotation(DnAttribute.class);
 		if(this.dnAttribute != null && !field.getType().equals(String.class)) {
@@ -247,6 +287,12 @@ import java.util.TreeSet;
 							Id.class, Attribute.class, field.getName(), field.getDeclaringClass()));
 		}
 		
+		// Lazily fetched values are loaded into a proxy implementing the collection interface
+		if (isLazy && (!isCollection || !field.getType().isInterface() || isObjectClass)) {
+			throw new MetaDataException(String.format("Only collection fields declared as an interface can be fetched lazily, " +
+					"error in field %1$s in Entry class %2$s", field.getName(), field.getDeclaringClass()));
+		}
+
 		// If this is the objectclass attribute then it must be of type List<String>
 		if (isObjectClass() && (!isCollection() || valueClass!=String.class)) {
 			throw new MetaDataException(String.format("The type of the objectclass attribute must be List<String> in classs %1$s",
@@ -267,6 +313,47 @@ import java.util.TreeSet;
 		return field;
 	}
 
+	/**
+	 * Read the value of the field from the supplied entry.
+	 */
+	public Object getValue(Object entry) {
+		try {
+			return (Object) getter.invokeExact(entry);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new UncategorizedLdapException(String.format("Can't read field %1$s", field), e);
+		}
+	}
+
+	public boolean isWritable() {
+		return setter != null;
+	}
+
+	int getConstructorParameter() {
+		return constructorParameter;
+	}
+
+	void setConstructorParameter(int constructorParameter) {
+		this.constructorParameter = constructorParameter;
+	}
+
+	/**
+	 * Write the supplied value to the field of the entry.
+	 */
+	public void setValue(Object entry, Object value) {
+		if (setter == null) {
+			throw new InvalidEntryException(String.format("Can't set field %1$s", field));
+		}
+		try {
+			setter.invokeExact(entry, value);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new UncategorizedLdapException(String.format("Can't set field %1$s", field), e);
+		}
+	}
+
 	public CaseIgnoreString getName() {
 		return name;
 	}
@@ -287,6 +374,10 @@ import java.util.TreeSet;
 		return isTransient;
 	}
 
+	public boolean isLazy() {
+		return isLazy;
+	}
+
 	public DnAttribute getDnAttribute() {
 		return dnAttribute;
 	}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.odm.core.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.ldap.odm.annotations.EntryConstructor;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+
+/*
+ * Meta-data about the constructor through which entries of an immutable Entry class,
+ * a record or a class with an @EntryConstructor, are created, with each parameter
+ * bound to the attribute meta-data of a field.
+ */
+/* package */ final class ConstructorMetaData {
+
+	private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+	private final Constructor<?> constructor;
+
+	private final MethodHandle handle;
+
+	// Values passed for parameters whose attribute is not present in an entry
+	private final Object[] defaults;
+
+	private ConstructorMetaData(Constructor<?> constructor, MethodHandle handle) {
+		this.constructor = constructor;
+		this.handle = handle;
+		Class<?>[] parameterTypes = constructor.getParameterTypes();
+		this.defaults = new Object[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			this.defaults[i] = defaultValue(parameterTypes[i]);
+		}
+	}
+
+	// The value of an uninitialized field of the supplied type
+	static Object defaultValue(Class<?> type) {
+		return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+	}
+
+	/*
+	 * Return the constructor meta-data for the supplied class, or null if its entries are
+	 * created through the zero argument constructor and populated field by field.
+	 */
+	static ConstructorMetaData forClass(Class<?> clazz, Map<String, AttributeMetaData> attributes) {
+		Constructor<?> constructor = null;
+		for (Constructor<?> candidate : clazz.getDeclaredConstructors()) {
+			if (candidate.isAnnotationPresent(EntryConstructor.class)) {
+				if (constructor != null) {
+					throw new MetaDataException(String.format("Only one constructor of %1$s may be annotated with %2$s",
+							clazz, EntryConstructor.class));
+				}
+				constructor = candidate;
+			}
+		}
+
+		String[] names;
+		if (constructor != null) {
+			names = parameterNames(constructor);
+		} else if (clazz.isRecord()) {
+			RecordComponent[] components = clazz.getRecordComponents();
+			Class<?>[] types = new Class<?>[components.length];
+			names = new String[components.length];
+			for (int i = 0; i < components.length; i++) {
+				types[i] = components[i].getType();
+				names[i] = components[i].getName();
+			}
+			try {
+				constructor = clazz.getDeclaredConstructor(types);
+			} catch (NoSuchMethodException e) {
+				throw new MetaDataException(String.format("Can't find the canonical constructor of %1$s", clazz), e);
+			}
+		} else {
+			return null;
+		}
+
+		bind(constructor, names, attributes);
+		try {
+			ReflectionUtils.makeAccessible(constructor);
+			MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor)
+					.asSpreader(Object[].class, names.length).asType(CONSTRUCTOR_TYPE);
+			return new ConstructorMetaData(constructor, handle);
+		} catch (IllegalAccessException e) {
+			throw new MetaDataException(String.format("Can't access constructor %1$s", constructor), e);
+		}
+	}
+
+	private static String[] parameterNames(Constructor<?> constructor) {
+		String[] names = constructor.getAnnotation(EntryConstructor.class).value();
+		if (ObjectUtils.isEmpty(names)) {
+			names = PARAMETER_NAME_DISCOVERER.getParameterNames(constructor);
+		}
+		if (names == null) {
+			throw new MetaDataException(String.format("Can't determine the parameter names of %1$s, either compile " +
+					"with -parameters or list them in the %2$s annotation", constructor, EntryConstructor.class));
+		}
+		if (names.length != constructor.getParameterCount()) {
+			throw new MetaDataException(String.format("%1$s names %2$d parameters, but %3$s has %4$d",
+					EntryConstructor.class, names.length, constructor, constructor.getParameterCount()));
+		}
+		return names;
+	}
+
+	private static void bind(Constructor<?> constructor, String[] names, Map<String, AttributeMetaData> attributes) {
+		Class<?>[] parameterTypes = constructor.getParameterTypes();
+		for (int i = 0; i < names.length; i++) {
+			AttributeMetaData attribute = attributes.get(names[i]);
+			if (attribute == null) {
+				throw new MetaDataException(String.format("Parameter %1$s of %2$s does not match a field of %3$s",
+						names[i], constructor, constructor.getDeclaringClass()));
+			}
+			if (attribute.getConstructorParameter() != -1) {
+				throw new MetaDataException(String.format("Field %1$s is bound to more than one parameter of %2$s",
+						names[i], constructor));
+			}
+			if (!ClassUtils.isAssignable(parameterTypes[i], attribute.getField().getType())) {
+				throw new MetaDataException(String.format("Parameter %1$s of %2$s is of type %3$s, " +
+						"which can't be assigned from field type %4$s", names[i], constructor, parameterTypes[i],
+						attribute.getField().getType()));
+			}
+			attribute.setConstructorParameter(i);
+		}
+
+		for (AttributeMetaData attribute : attributes.values()) {
+			// Final fields could be written to by reflection, but entries created through a constructor
+			// are meant to be immutable
+			if (attribute.getConstructorParameter() == -1
+					&& (Modifier.isFinal(attribute.getField().getModifiers()) || !attribute.isWritable())
+					&& (!attribute.isTransient() || attribute.isDnAttribute())) {
+				throw new MetaDataException(String.format("Field %1$s is final but not bound to a parameter of %2$s",
+						attribute.getField(), constructor));
+			}
+		}
+	}
+
+	/*
+	 * Return a new array of constructor arguments, initialized with the values used for
+	 * attributes that are not present.
+	 */
+	Object[] newArguments() {
+		return this.defaults.clone();
+	}
+
+	Object newInstance(Object[] arguments) {
+		try {
+			return (Object) this.handle.invokeExact(arguments);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new InvalidEntryException(String.format("Could not instantiate %1$s through %2$s",
+					this.constructor.getDeclaringClass(), this.constructor), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("constructor=%1$s | defaults=%2$s", this.constructor, Arrays.toString(this.defaults));
+	}
+
+}
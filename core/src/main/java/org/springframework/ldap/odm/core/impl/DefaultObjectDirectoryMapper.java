@@ -20,10 +20,8 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -33,11 +31,14 @@ import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
 import javax.naming.directory.Attribute;
 import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttributes;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.LdapDataEntry;
 import org.springframework.core.SpringVersion;
+import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.core.support.DefaultIncrementalAttributesMapper;
 import org.springframework.ldap.filter.AndFilter;
 import org.springframework.ldap.filter.EqualsFilter;
 import org.springframework.ldap.filter.Filter;
@@ -49,7 +50,6 @@ import org.springframework.ldap.odm.typeconversion.impl.ConverterManagerImpl;
 import org.springframework.ldap.support.LdapNameBuilder;
 import org.springframework.ldap.support.LdapUtils;
 import org.springframework.util.Assert;
-import org.springframework.util.ReflectionUtils;
 
 /**
  * Default implementation of {@link ObjectDirectoryMapper}. Unless you need to explicitly configure
@@ -65,8 +65,20 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 	// The converter manager to use to translate values between LDAP and Java
 	private ConverterManager converterManager;
 
+	private boolean useGeneratedMappers = true;
+
+	// Used to read the values of lazily fetched attributes
+	private LdapOperations ldapOperations;
+
+	private boolean dirtyTracking = false;
+
+	// The state of tracked entries as last read from or written to the directory
+	private final EntrySnapshots snapshots = new EntrySnapshots();
+
 	private static final String OBJECT_CLASS_ATTRIBUTE="objectclass";
-	private static final CaseIgnoreString OBJECT_CLASS_ATTRIBUTE_CI=new CaseIgnoreString(OBJECT_CLASS_ATTRIBUTE);
+
+	// Marks a field that is left untouched when reading an entry
+	private static final Object NOT_PRESENT = new Object();
 
 
 	public DefaultObjectDirectoryMapper() {
@@ -89,19 +101,86 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 		this.converterManager = converterManager;
 	}
 
+	/**
+	 * Set whether mappers generated by
+	 * {@link org.springframework.ldap.odm.apt.EntryMapperProcessor} are used for
+	 * the entity classes they were generated for, instead of accessing fields
+	 * reflectively. Default is <code>true</code>. Must be set before any class
+	 * is managed.
+	 *
+	 * @param useGeneratedMappers whether to use generated mappers.
+	 * @since 3.1
+	 */
+	public void setUseGeneratedMappers(boolean useGeneratedMappers) {
+		this.useGeneratedMappers = useGeneratedMappers;
+	}
+
+	/**
+	 * Set the {@link LdapOperations} used to read the values of attributes
+	 * declared with <code>fetch = FetchType.LAZY</code> when they are first
+	 * accessed. This is not set automatically: a mapper may be shared between
+	 * templates using different context sources, so the instance to read with
+	 * must be chosen explicitly, typically the template using this mapper.
+	 * Without one, lazily fetched attributes not present in the entry read are
+	 * set to <code>null</code>, so that updating the entry leaves their values
+	 * in the directory unchanged.
+	 *
+	 * @param ldapOperations the LdapOperations to read lazily fetched values with.
+	 * @since 3.1
+	 */
+	public void setLdapOperations(LdapOperations ldapOperations) {
+		this.ldapOperations = ldapOperations;
+	}
+
+	/**
+	 * Get the {@link LdapOperations} used to read the values of lazily fetched
+	 * attributes.
+	 *
+	 * @return the LdapOperations, or <code>null</code> if none has been set.
+	 * @since 3.1
+	 */
+	public LdapOperations getLdapOperations() {
+		return ldapOperations;
+	}
+
+	/**
+	 * Set whether the state of entries read from or written to the directory
+	 * is tracked, so that they can be updated by comparing them to their state
+	 * as last read or written, rather than by reading them again. Default is
+	 * <code>false</code>.
+	 * <p>
+	 * Only a snapshot of the attributes mapped by the managed class is kept for
+	 * each tracked entry, for as long as the entry itself is referenced.
+	 * Changes made to an entry in the directory since it was read are not
+	 * taken into account when updating it from its snapshot, which may cause
+	 * the update to fail, or to overwrite these changes.
+	 *
+	 * @param dirtyTracking whether to track the state of entries.
+	 * @since 3.1
+	 * @see #takeSnapshot(Object, LdapDataEntry)
+	 */
+	public void setDirtyTracking(boolean dirtyTracking) {
+		this.dirtyTracking = dirtyTracking;
+	}
+
 	static final class EntityData {
 		final ObjectMetaData metaData;
 		final Filter ocFilter;
+		final GeneratedEntryMapper<Object> generatedMapper;
 
-		private EntityData(ObjectMetaData metaData, Filter ocFilter) {
+		private EntityData(ObjectMetaData metaData, Filter ocFilter, GeneratedEntryMapper<Object> generatedMapper) {
 			this.metaData=metaData;
 			this.ocFilter=ocFilter;
+			this.generatedMapper=generatedMapper;
 		}
 	}
 
 	// A map of managed classes to to meta data about those classes
 	private final ConcurrentMap<Class<?>, EntityData> metaDataMap=new ConcurrentHashMap<Class<?>, EntityData>();
 
+	// Projections of managed classes, keyed by managed class and projection type
+	private final ConcurrentMap<List<Class<?>>, ProjectionMetaData> projections=new ConcurrentHashMap<List<Class<?>>, ProjectionMetaData>();
+
 	private EntityData getEntityData(Class<?> managedClass) {
 		EntityData result = metaDataMap.get(managedClass);
 		if (result == null) {
@@ -118,8 +197,8 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 		// extract all relevant attributes
 		for (Field field : entityData.metaData) {
 			AttributeMetaData attributeMetaData = entityData.metaData.getAttribute(field);
-			// skip transient fields
-			if (attributeMetaData.isTransient()) {
+			// skip transient fields, and lazily fetched fields which are read when first accessed
+			if (attributeMetaData.isTransient() || attributeMetaData.isLazy()) {
 				continue;
 			}
 			String[] attributesOfField = attributeMetaData.getAttributes();
@@ -150,12 +229,16 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 		// Extract the meta-data from the class
 		ObjectMetaData metaData=new ObjectMetaData(managedClass);
 
-		// Check we can construct the target type - it must have a zero argument public constructor
-		try {
-			managedClass.getConstructor();
-		} catch (NoSuchMethodException e) {
-			throw new InvalidEntryException(String.format(
-					"The class %1$s must have a zero argument constructor to be an Entry", managedClass), e);
+		// Check we can construct the target type - unless it is a record or has an @EntryConstructor
+		// it must have a zero argument public constructor
+		if (metaData.getEntryConstructor() == null) {
+			try {
+				managedClass.getConstructor();
+			} catch (NoSuchMethodException e) {
+				throw new InvalidEntryException(String.format(
+						"The class %1$s must have a zero argument constructor, an @EntryConstructor " +
+						"or be a record to be an Entry", managedClass), e);
+			}
 		}
 
 		// Check we have all of the necessary converters for the class
@@ -172,7 +255,15 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 			ocFilter.and(new EqualsFilter(OBJECT_CLASS_ATTRIBUTE, oc.toString()));
 		}
 
-		EntityData newValue = new EntityData(metaData, ocFilter);
+		@SuppressWarnings("unchecked")
+		GeneratedEntryMapper<Object> generatedMapper = useGeneratedMappers && metaData.getEntryConstructor() == null
+				? (GeneratedEntryMapper<Object>) GeneratedEntryMapper.forClass(managedClass) : null;
+		if (generatedMapper != null && LOG.isDebugEnabled()) {
+			LOG.debug(String.format("Using generated mapper %1$s for %2$s", generatedMapper.getClass().getName(),
+					managedClass));
+		}
+
+		EntityData newValue = new EntityData(metaData, ocFilter, generatedMapper);
 		EntityData previousValue = metaDataMap.putIfAbsent(managedClass, newValue);
 		// Just in case someone beat us to it
 		if(previousValue != null) {
@@ -199,7 +290,8 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 
 	@Override
 	public void mapToLdapDataEntry(Object entry, LdapDataEntry context) {
-		ObjectMetaData metaData=getEntityData(entry.getClass()).metaData;
+		EntityData entityData = getEntityData(entry.getClass());
+		ObjectMetaData metaData=entityData.metaData;
 
 		Attribute objectclassAttribute = context.getAttributes().get(OBJECT_CLASS_ATTRIBUTE);
 		if(objectclassAttribute == null || objectclassAttribute.size() == 0) {
@@ -216,39 +308,37 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 			context.setAttributeValues(OBJECT_CLASS_ATTRIBUTE, stringOcs);
 		}
 
+		if (entityData.generatedMapper != null) {
+			entityData.generatedMapper.write(entry, context, converterManager);
+			return;
+		}
+
 		// Loop through each of the fields in the object to write to LDAP
-		for (Field field : metaData) {
-			// Grab the meta data for the current field
-			AttributeMetaData attributeInfo = metaData.getAttribute(field);
+		for (AttributeMetaData attributeInfo : metaData.getAttributes()) {
 			// We dealt with the object class field about, and the DN is set by the call to write the object to LDAP
 			if (!attributeInfo.isTransient() && !attributeInfo.isId() && !(attributeInfo.isObjectClass()) && !(attributeInfo.isReadOnly())) {
-				try {
-					// If this is a "binary" object the JNDI expects a byte[] otherwise a String
-					Class<?> targetClass = attributeInfo.getJndiClass();
-					// Multi valued?
-					if (!attributeInfo.isCollection()) {
-						populateSingleValueAttribute(entry, context, field, attributeInfo, targetClass);
+				// If this is a "binary" object the JNDI expects a byte[] otherwise a String
+				Class<?> targetClass = attributeInfo.getJndiClass();
+				// Multi valued?
+				if (!attributeInfo.isCollection()) {
+					populateSingleValueAttribute(entry, context, attributeInfo, targetClass);
 
-					} else {
-						// Multi-valued
-						populateMultiValueAttribute(entry, context, field, attributeInfo, targetClass);
+				} else {
+					// Multi-valued
+					populateMultiValueAttribute(entry, context, attributeInfo, targetClass);
 
-					}
-				} catch (IllegalAccessException e) {
-					throw new InvalidEntryException(String.format("Can't set attribute %1$s", attributeInfo.getName()),
-							e);
 				}
 			}
 		}
 	}
 
-	private void populateMultiValueAttribute(Object entry, LdapDataEntry context, Field field, AttributeMetaData attributeInfo, Class<?> targetClass) throws IllegalAccessException {
+	private void populateMultiValueAttribute(Object entry, LdapDataEntry context, AttributeMetaData attributeInfo, Class<?> targetClass) {
 		// We need to build up a list of of the values
 		List<Object> attributeValues = new ArrayList<Object>();
 		// Get the list of values
-		Collection<?> fieldValues = (Collection<?>)field.get(entry);
-		// Ignore null lists
-		if (fieldValues != null) {
+		Collection<?> fieldValues = (Collection<?>)attributeInfo.getValue(entry);
+		// Ignore null lists, and lazily fetched values that have never been read
+		if (fieldValues != null && LazyAttributeValues.isLoaded(fieldValues)) {
 			for (final Object o : fieldValues) {
 				// Ignore null values
 				if (o != null) {
@@ -260,9 +350,9 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 		}
 	}
 
-	private void populateSingleValueAttribute(Object entry, LdapDataEntry context, Field field, AttributeMetaData attributeInfo, Class<?> targetClass) throws IllegalAccessException {
+	private void populateSingleValueAttribute(Object entry, LdapDataEntry context, AttributeMetaData attributeInfo, Class<?> targetClass) {
 		// Single valued - get the value of the field
-		Object fieldValue = field.get(entry);
+		Object fieldValue = attributeInfo.getValue(entry);
 		// Ignore null field values
 		if (fieldValue != null) {
 			// Convert the field value to the required type and write it into the JNDI context
@@ -282,87 +372,195 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 		// The Java representation of the LDAP entry
 		T result;
 
-		ObjectMetaData metaData=getEntityData(clazz).metaData;
+		EntityData entityData = getEntityData(clazz);
+		if (entityData.generatedMapper != null) {
+			return mapWithGeneratedMapper(context, clazz, entityData);
+		}
 
-		try {
-			// The result class must have a zero argument constructor
-			result = clazz.newInstance();
+		ObjectMetaData metaData=entityData.metaData;
 
-			// Build a map of JNDI attribute names to values
-			Map<CaseIgnoreString, Attribute> attributeValueMap = new HashMap<CaseIgnoreString, Attribute>();
-			// Get a NamingEnumeration to loop through the JNDI attributes in the entry
+		try {
+			// JNDI attributes are looked up by their (case independent) name as each field is populated
 			Attributes attributes = context.getAttributes();
-			NamingEnumeration<? extends Attribute> attributesEnumeration = attributes.getAll();
-			// Loop through all of the JNDI attributes
-			while (attributesEnumeration.hasMoreElements()) {
-				Attribute currentAttribute = attributesEnumeration.nextElement();
-				// Add the current attribute to the map keyed on the lowercased (case indep) id of the attribute
-				attributeValueMap.put(new CaseIgnoreString(currentAttribute.getID()), currentAttribute);
-			}
-
 
-			// If this is the objectclass attribute then check that values correspond to the metadata we have
+			// Check that the values of the objectclass attribute correspond to the metadata we have
 			// for the Java representation
-			Attribute ocAttribute = attributeValueMap.get(OBJECT_CLASS_ATTRIBUTE_CI);
-			if (ocAttribute != null) {
-				// Get all object class values from the JNDI attribute
-				Set<CaseIgnoreString> objectClassesFromJndi = new HashSet<CaseIgnoreString>();
-				NamingEnumeration<?> objectClassesFromJndiEnum = ocAttribute.getAll();
-				while (objectClassesFromJndiEnum.hasMoreElements()) {
-					objectClassesFromJndi.add(new CaseIgnoreString((String)objectClassesFromJndiEnum.nextElement()));
-				}
-				// OK - checks its the same as the meta-data we have
-				if(!collectionContainsAll(objectClassesFromJndi, metaData.getObjectClasses())) {
-					return null;
-				}
+			if (!hasObjectClasses(attributes, metaData, clazz)) {
+				return null;
+			}
+
+			Name dn = context.getDn();
+			ConstructorMetaData entryConstructor = metaData.getEntryConstructor();
+			if (entryConstructor == null) {
+				// The result class must have a zero argument constructor
+				result = clazz.cast(metaData.newInstance());
 			} else {
-				throw new InvalidEntryException(String.format("No object classes were returned for class %1$s",
-						clazz.getName()));
+				// Immutable entries are created in one go from the values of the fields bound to the
+				// constructor parameters
+				Object[] arguments = entryConstructor.newArguments();
+				for (AttributeMetaData attributeInfo : metaData.getAttributes()) {
+					int parameter = attributeInfo.getConstructorParameter();
+					if (parameter != -1) {
+						Object value = readFieldValue(attributes, dn, attributeInfo);
+						if (value != NOT_PRESENT) {
+							arguments[parameter] = value;
+						}
+					}
+				}
+				result = clazz.cast(entryConstructor.newInstance(arguments));
 			}
 
-			// Now loop through all the fields in the Java representation populating it with values from the
-			// attributeValueMap
-			for (Field field : metaData) {
-				// Get the current field
-				AttributeMetaData attributeInfo = metaData.getAttribute(field);
-				// We deal with the Id field specially
-				Name dn = context.getDn();
-				if (!attributeInfo.isTransient() && !attributeInfo.isId()) {
-					// Not the ID - but is is multi valued?
-					if (!attributeInfo.isCollection()) {
-						// No - its single valued, grab the JNDI attribute that corresponds to the metadata on the
-						// current field
-						populateSingleValueField(result, attributeValueMap, field, attributeInfo);
-					} else {
-						// We are dealing with a multi valued attribute
-						populateMultiValueField(result, attributeValueMap, field, attributeInfo);
+			// Now loop through all the remaining fields in the Java representation populating them with
+			// values from the JNDI attributes
+			for (AttributeMetaData attributeInfo : metaData.getAttributes()) {
+				if (attributeInfo.getConstructorParameter() == -1) {
+					Object value = readFieldValue(attributes, dn, attributeInfo);
+					if (value != NOT_PRESENT) {
+						attributeInfo.setValue(result, value);
 					}
-				} else if(attributeInfo.isId()) { // The id field
-					field.set(result, converterManager.convert(dn, attributeInfo.getSyntax(),
-							attributeInfo.getValueClass()));
 				}
+			}
+		} catch (NamingException ne) {
+			throw new InvalidEntryException(String.format("Problem creating %1$s from LDAP Entry %2$s",
+					clazz, context), ne);
+		}
 
-				DnAttribute dnAttribute = attributeInfo.getDnAttribute();
-				if(dnAttribute != null) {
-					String dnValue;
-					int index = dnAttribute.index();
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(String.format("Converted object - %1$s", result));
+		}
 
-					if(index != -1) {
-						dnValue = LdapUtils.getStringValue(dn, index);
-					} else {
-						dnValue = LdapUtils.getStringValue(dn, dnAttribute.value());
+		return result;
+	}
+
+	@Override
+	public void takeSnapshot(Object entry, LdapDataEntry context) {
+		if (!dirtyTracking) {
+			return;
+		}
+		ObjectMetaData metaData = getEntityData(entry.getClass()).metaData;
+		Attributes attributes = context.getAttributes();
+		// Only keep the attributes written when the entry is updated
+		Attributes snapshot = new BasicAttributes(true);
+		try {
+			Attribute objectClasses = GeneratedEntryMapper.attribute(attributes, OBJECT_CLASS_ATTRIBUTE);
+			if (objectClasses != null) {
+				snapshot.put((Attribute) objectClasses.clone());
+			}
+			for (AttributeMetaData attributeInfo : metaData.getAttributes()) {
+				if (!attributeInfo.isTransient() && !attributeInfo.isId() && !attributeInfo.isObjectClass()
+						&& !attributeInfo.isReadOnly() && !attributeInfo.isLazy()) {
+					Attribute attribute = GeneratedEntryMapper.attribute(attributes, attributeInfo.getName().toString());
+					if (attribute != null) {
+						snapshot.put((Attribute) attribute.clone());
 					}
-					field.set(result, dnValue);
 				}
 			}
+		} catch (NamingException ne) {
+			throw LdapUtils.convertLdapException(ne);
+		}
+		snapshots.put(entry, snapshot);
+	}
+
+	@Override
+	public Attributes getSnapshot(Object entry) {
+		if (!dirtyTracking) {
+			return null;
+		}
+		Attributes snapshot = snapshots.get(entry);
+		if (snapshot != null) {
+			// The values of lazily fetched attributes are not part of the snapshot, so the entry can
+			// only be compared to it as long as none of them will be written
+			for (AttributeMetaData attributeInfo : getEntityData(entry.getClass()).metaData.getAttributes()) {
+				if (attributeInfo.isLazy() && !attributeInfo.isReadOnly()) {
+					Object value = attributeInfo.getValue(entry);
+					if (value != null && LazyAttributeValues.isLoaded(value)) {
+						return null;
+					}
+				}
+			}
+		}
+		return snapshot;
+	}
+
+	private boolean hasObjectClasses(Attributes attributes, ObjectMetaData metaData, Class<?> clazz) throws NamingException {
+		Attribute ocAttribute = GeneratedEntryMapper.attribute(attributes, OBJECT_CLASS_ATTRIBUTE);
+		if (ocAttribute == null) {
+			throw new InvalidEntryException(String.format("No object classes were returned for class %1$s",
+					clazz.getName()));
+		}
+		// Get all object class values from the JNDI attribute
+		Set<CaseIgnoreString> objectClassesFromJndi = new HashSet<CaseIgnoreString>();
+		NamingEnumeration<?> objectClassesFromJndiEnum = ocAttribute.getAll();
+		while (objectClassesFromJndiEnum.hasMoreElements()) {
+			objectClassesFromJndi.add(new CaseIgnoreString((String)objectClassesFromJndiEnum.nextElement()));
+		}
+		// OK - checks its the same as the meta-data we have
+		return collectionContainsAll(objectClassesFromJndi, metaData.getObjectClasses());
+	}
+
+	@Override
+	public String[] manageProjection(Class<?> clazz, Class<?> projection) {
+		return getProjectionMetaData(clazz, projection).getAttributeNames();
+	}
+
+	@Override
+	public <T> T mapFromLdapDataEntry(LdapDataEntry context, Class<?> clazz, Class<T> projection) {
+		EntityData entityData = getEntityData(clazz);
+		ProjectionMetaData projectionMetaData = getProjectionMetaData(clazz, projection);
+
+		T result;
+		try {
+			Attributes attributes = context.getAttributes();
+			if (!hasObjectClasses(attributes, entityData.metaData, clazz)) {
+				return null;
+			}
+
+			Name dn = context.getDn();
+			AttributeMetaData[] properties = projectionMetaData.getProperties();
+			Object[] values = new Object[properties.length];
+			for (int i = 0; i < properties.length; i++) {
+				Object value = readFieldValue(attributes, dn, properties[i]);
+				values[i] = (value != NOT_PRESENT) ? value : null;
+			}
+			result = projection.cast(projectionMetaData.newInstance(values));
+		} catch (NamingException ne) {
+			throw new InvalidEntryException(String.format("Problem creating %1$s from LDAP Entry %2$s",
+					projection, context), ne);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(String.format("Converted projection - %1$s", result));
+		}
+
+		return result;
+	}
+
+	private ProjectionMetaData getProjectionMetaData(Class<?> clazz, Class<?> projection) {
+		List<Class<?>> key = Arrays.asList(clazz, projection);
+		ProjectionMetaData result = projections.get(key);
+		if (result == null) {
+			result = new ProjectionMetaData(clazz, getEntityData(clazz).metaData, projection);
+			ProjectionMetaData previousValue = projections.putIfAbsent(key, result);
+			if (previousValue != null) {
+				return previousValue;
+			}
+		}
+		return result;
+	}
+
+	private <T> T mapWithGeneratedMapper(LdapDataEntry context, Class<T> clazz, EntityData entityData) {
+		T result;
+		try {
+			Attributes attributes = context.getAttributes();
+			if (!hasObjectClasses(attributes, entityData.metaData, clazz)) {
+				return null;
+			}
+
+			result = clazz.cast(entityData.generatedMapper.newInstance());
+			entityData.generatedMapper.read(result, context.getDn(), attributes, converterManager);
 		} catch (NamingException ne) {
 			throw new InvalidEntryException(String.format("Problem creating %1$s from LDAP Entry %2$s",
 					clazz, context), ne);
-		} catch (IllegalAccessException iae) {
-			throw new InvalidEntryException(String.format(
-					"Could not create an instance of %1$s could not access field", clazz.getName()), iae);
-		} catch (InstantiationException ie) {
-			throw new InvalidEntryException(String.format("Could not instantiate %1$s", clazz), ie);
 		}
 
 		if (LOG.isDebugEnabled()) {
@@ -372,11 +570,52 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 		return result;
 	}
 
-	private <T> void populateMultiValueField(T result, Map<CaseIgnoreString, Attribute> attributeValueMap, Field field, AttributeMetaData attributeInfo) throws NamingException, IllegalAccessException {
+	/*
+	 * Read the value of the supplied field from the JNDI attributes and distinguished name of an entry,
+	 * returning NOT_PRESENT if the field should be left untouched.
+	 */
+	private Object readFieldValue(Attributes attributes, Name dn, AttributeMetaData attributeInfo) throws NamingException {
+		Object value = NOT_PRESENT;
+		// We deal with the Id field specially
+		if (!attributeInfo.isTransient() && !attributeInfo.isId()) {
+			// Not the ID - but is is multi valued?
+			if (!attributeInfo.isCollection()) {
+				// No - its single valued, grab the JNDI attribute that corresponds to the metadata on the
+				// current field
+				value = readSingleValue(attributes, attributeInfo);
+			} else {
+				// We are dealing with a multi valued attribute
+				if (attributeInfo.isLazy()
+						&& GeneratedEntryMapper.attribute(attributes, attributeInfo.getName().toString()) == null) {
+					// Lazily fetched values are read using ranged retrieval when first accessed. Without
+					// anything to read them with, null keeps an update from clearing them
+					value = (ldapOperations != null) ? lazyMultiValue(dn, attributeInfo) : null;
+				} else {
+					value = readMultiValue(attributes, attributeInfo);
+				}
+			}
+		} else if(attributeInfo.isId()) { // The id field
+			value = converterManager.convert(dn, attributeInfo.getSyntax(), attributeInfo.getValueClass());
+		}
+
+		DnAttribute dnAttribute = attributeInfo.getDnAttribute();
+		if(dnAttribute != null) {
+			int index = dnAttribute.index();
+
+			if(index != -1) {
+				value = LdapUtils.getStringValue(dn, index);
+			} else {
+				value = LdapUtils.getStringValue(dn, dnAttribute.value());
+			}
+		}
+		return value;
+	}
+
+	private Object readMultiValue(Attributes attributes, AttributeMetaData attributeInfo) throws NamingException {
 		// We need to build up a list of values
 		Collection<Object> fieldValues = attributeInfo.newCollectionInstance();
 		// Grab the attribute from the JNDI representation
-		Attribute currentAttribute = attributeValueMap.get(attributeInfo.getName());
+		Attribute currentAttribute = GeneratedEntryMapper.attribute(attributes, attributeInfo.getName().toString());
 		// There is no guarantee that this attribute is present in the directory - so ignore nulls
 		if (currentAttribute != null) {
 			// Loop through the values of the JNDI attribute
@@ -392,12 +631,27 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 				}
 			}
 		}
-		// Now we need to set the List in to a Java object
-		field.set(result, fieldValues);
+		return fieldValues;
 	}
 
-	private <T> void populateSingleValueField(T result, Map<CaseIgnoreString, Attribute> attributeValueMap, Field field, AttributeMetaData attributeInfo) throws NamingException, IllegalAccessException {
-		Attribute attribute = attributeValueMap.get(attributeInfo.getName());
+	private Object lazyMultiValue(final Name dn, final AttributeMetaData attributeInfo) {
+		final LdapOperations operations = ldapOperations;
+		return LazyAttributeValues.newProxy(attributeInfo.getField().getType(), () -> {
+			Collection<Object> fieldValues = attributeInfo.newCollectionInstance();
+			List<Object> values = DefaultIncrementalAttributesMapper.lookupAttributeValues(operations, dn,
+					attributeInfo.getName().toString());
+			for (Object value : values) {
+				if (value != null) {
+					fieldValues.add(converterManager.convert(value, attributeInfo.getSyntax(),
+							attributeInfo.getValueClass()));
+				}
+			}
+			return fieldValues;
+		});
+	}
+
+	private Object readSingleValue(Attributes attributes, AttributeMetaData attributeInfo) throws NamingException {
+		Attribute attribute = GeneratedEntryMapper.attribute(attributes, attributeInfo.getName().toString());
 		// There is no guarantee that this attribute is present in the directory - so ignore nulls
 		if (attribute != null) {
 			// Grab the JNDI value
@@ -406,48 +660,64 @@ public class DefaultObjectDirectoryMapper implements ObjectDirectoryMapper {
 			if (value != null) {
 				// Convert the JNDI value to its Java representation - this will throw if the
 				// conversion fails
-				Object convertedValue = converterManager.convert(value, attributeInfo.getSyntax(),
-						attributeInfo.getValueClass());
-				// Set it in the Java version
-				field.set(result, convertedValue);
+				return converterManager.convert(value, attributeInfo.getSyntax(), attributeInfo.getValueClass());
 			}
 		}
+		return NOT_PRESENT;
 	}
 
 	@Override
 	public Name getId(Object entry) {
+		GeneratedEntryMapper<Object> generatedMapper = getEntityData(entry.getClass()).generatedMapper;
+		if (generatedMapper != null) {
+			return generatedMapper.getId(entry);
+		}
 		try {
-			return (Name) getIdField(entry).get(entry);
+			return (Name) getIdAttribute(entry).getValue(entry);
 		} catch (Exception e) {
 			throw new InvalidEntryException(String.format("Can't get Id field from Entry %1$s", entry),
 					e);
 		}
 	}
 
-	private Field getIdField(Object entry) {
-		return getEntityData(entry.getClass()).metaData.getIdAttribute().getField();
+	private AttributeMetaData getIdAttribute(Object entry) {
+		return getEntityData(entry.getClass()).metaData.getIdAttribute();
 	}
 
 	@Override
 	public void setId(Object entry, Name id) {
+		GeneratedEntryMapper<Object> generatedMapper = getEntityData(entry.getClass()).generatedMapper;
+		if (generatedMapper != null) {
+			generatedMapper.setId(entry, id);
+			return;
+		}
 		try {
-			getIdField(entry).set(entry, id);
+			getIdAttribute(entry).setValue(entry, id);
 		} catch (Exception e) {
 			throw new InvalidEntryException(
 					String.format("Can't set Id field on Entry %s to %s", entry, id), e);
 		}
 	}
 
+	@Override
+	public boolean isIdWritable(Class<?> clazz) {
+		EntityData entityData = getEntityData(clazz);
+		return entityData.generatedMapper != null || entityData.metaData.getIdAttribute().isWritable();
+	}
+
 	@Override
 	public Name getCalculatedId(Object entry) {
 		Assert.notNull(entry, "Entry must not be null");
 		EntityData entityData = getEntityData(entry.getClass());
+		if (entityData.generatedMapper != null) {
+			return entityData.generatedMapper.getCalculatedId(entry);
+		}
 		if(entityData.metaData.canCalculateDn()) {
 			Set<AttributeMetaData> dnAttributes = entityData.metaData.getDnAttributes();
 			LdapNameBuilder ldapNameBuilder = LdapNameBuilder.newInstance(entityData.metaData.getBase());
 
 			for (AttributeMetaData dnAttribute : dnAttributes) {
-				Object dnFieldValue = ReflectionUtils.getField(dnAttribute.getField(), entry);
+				Object dnFieldValue = dnAttribute.getValue(entry);
 				if(dnFieldValue == null) {
 					throw new IllegalStateException(
 							String.format("DnAttribute for field %s on class %s is null; cannot build DN",
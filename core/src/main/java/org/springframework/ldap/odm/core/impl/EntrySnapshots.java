@@ -0,0 +1,83 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.odm.core.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.naming.directory.Attributes;
+
+/*
+ * The snapshots of tracked entries, keyed by the identity of the entries rather than by their
+ * equals method, and only weakly referencing them so that the snapshot of an entry is discarded
+ * once the entry itself is no longer used.
+ */
+/* package */ final class EntrySnapshots {
+
+	private final ConcurrentMap<Key, Attributes> snapshots = new ConcurrentHashMap<Key, Attributes>();
+
+	private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+
+	void put(Object entry, Attributes snapshot) {
+		expunge();
+		snapshots.put(new Key(entry, collected), snapshot);
+	}
+
+	Attributes get(Object entry) {
+		expunge();
+		return snapshots.get(new Key(entry, null));
+	}
+
+	private void expunge() {
+		Reference<?> reference;
+		while ((reference = collected.poll()) != null) {
+			snapshots.remove(reference);
+		}
+	}
+
+	private static final class Key extends WeakReference<Object> {
+
+		private final int hash;
+
+		private Key(Object entry, ReferenceQueue<Object> queue) {
+			super(entry, queue);
+			this.hash = System.identityHashCode(entry);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Object entry = get();
+			return entry != null && entry == ((Key) other).get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+	}
+
+}
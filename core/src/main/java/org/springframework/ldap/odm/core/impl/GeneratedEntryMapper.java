@@ -0,0 +1,215 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.odm.core.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.naming.Name;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.Attributes;
+
+import org.springframework.LdapDataEntry;
+import org.springframework.ldap.odm.typeconversion.ConverterManager;
+import org.springframework.ldap.support.LdapNameBuilder;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Base class of the mappers generated at compile time by
+ * {@link org.springframework.ldap.odm.apt.EntryMapperProcessor} for
+ * {@link org.springframework.ldap.odm.annotations.Entry} annotated classes.
+ * Generated mappers access the fields of the entity directly or through its
+ * accessor methods, so that {@link DefaultObjectDirectoryMapper} does not need
+ * to use reflection when mapping entries. They are picked up automatically when
+ * present next to the entity class.
+ * <p>
+ * Not intended to be extended by hand; the contract may change between minor
+ * versions as long as the processor is updated accordingly.
+ *
+ * @param <T> the entity type.
+ * @since 3.1
+ */
+public abstract class GeneratedEntryMapper<T> {
+
+	static final String SUFFIX = "_EntryMapper";
+
+	private final Class<T> entityClass;
+
+	protected GeneratedEntryMapper(Class<T> entityClass) {
+		this.entityClass = entityClass;
+	}
+
+	/**
+	 * @return the entity class handled by this mapper.
+	 */
+	public final Class<T> getEntityClass() {
+		return this.entityClass;
+	}
+
+	/**
+	 * Create a new, empty, instance of the entity.
+	 *
+	 * @return the new instance.
+	 */
+	protected abstract T newInstance();
+
+	/**
+	 * Populate the entity from the distinguished name and attributes of an
+	 * entry.
+	 *
+	 * @param entry the entity to populate.
+	 * @param dn the distinguished name of the entry.
+	 * @param attributes the attributes of the entry.
+	 * @param converters the converters to use.
+	 * @throws NamingException if the attribute values cannot be read.
+	 */
+	protected abstract void read(T entry, Name dn, Attributes attributes, ConverterManager converters)
+			throws NamingException;
+
+	/**
+	 * Write the writable attributes of the entity to an entry.
+	 *
+	 * @param entry the entity to read from.
+	 * @param context the entry to write to.
+	 * @param converters the converters to use.
+	 */
+	protected abstract void write(T entry, LdapDataEntry context, ConverterManager converters);
+
+	protected abstract Name getId(T entry);
+
+	protected abstract void setId(T entry, Name id);
+
+	/**
+	 * @param entry the entity.
+	 * @return the distinguished name calculated from the indexed
+	 * <code>DnAttribute</code> fields, or <code>null</code> if the entity has
+	 * none.
+	 */
+	protected abstract Name getCalculatedId(T entry);
+
+	protected static <V> V readValue(Attributes attributes, String name, String syntax, Class<V> valueClass,
+			ConverterManager converters) throws NamingException {
+		Attribute attribute = attribute(attributes, name);
+		if (attribute == null) {
+			return null;
+		}
+		Object value = attribute.get();
+		return (value != null) ? converters.convert(value, syntax, valueClass) : null;
+	}
+
+	protected static <V, C extends Collection<V>> C readValues(Attributes attributes, String name, String syntax,
+			Class<V> valueClass, C values, ConverterManager converters) throws NamingException {
+		Attribute attribute = attribute(attributes, name);
+		if (attribute != null) {
+			NamingEnumeration<?> enumeration = attribute.getAll();
+			while (enumeration.hasMore()) {
+				Object value = enumeration.nextElement();
+				if (value != null) {
+					values.add(converters.convert(value, syntax, valueClass));
+				}
+			}
+		}
+		return values;
+	}
+
+	protected static <V> V convertId(Name dn, String syntax, Class<V> idClass, ConverterManager converters) {
+		return converters.convert(dn, syntax, idClass);
+	}
+
+	protected static String dnValue(Name dn, String key, int index) {
+		return (index != -1) ? LdapUtils.getStringValue(dn, index) : LdapUtils.getStringValue(dn, key);
+	}
+
+	protected static void writeValue(LdapDataEntry context, String name, String syntax, Class<?> jndiClass,
+			Object value, ConverterManager converters) {
+		context.setAttributeValue(name, (value != null) ? converters.convert(value, syntax, jndiClass) : null);
+	}
+
+	protected static void writeValues(LdapDataEntry context, String name, String syntax, Class<?> jndiClass,
+			Collection<?> values, ConverterManager converters) {
+		if (values == null) {
+			return;
+		}
+		List<Object> converted = new ArrayList<>(values.size());
+		for (Object value : values) {
+			if (value != null) {
+				converted.add(converters.convert(value, syntax, jndiClass));
+			}
+		}
+		context.setAttributeValues(name, converted.toArray());
+	}
+
+	protected final Name calculatedId(String base, String[] dnAttributes, String[] fieldNames, Object... values) {
+		LdapNameBuilder builder = LdapNameBuilder.newInstance(base);
+		for (int i = 0; i < dnAttributes.length; i++) {
+			if (values[i] == null) {
+				throw new IllegalStateException(String.format(
+						"DnAttribute for field %s on class %s is null; cannot build DN", fieldNames[i],
+						this.entityClass.getName()));
+			}
+			builder.add(dnAttributes[i], values[i].toString());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Look up an attribute by name, ignoring case even if the attributes
+	 * themselves do not.
+	 */
+	static Attribute attribute(Attributes attributes, String name) throws NamingException {
+		Attribute attribute = attributes.get(name);
+		if (attribute != null || attributes.isCaseIgnored()) {
+			return attribute;
+		}
+		NamingEnumeration<? extends Attribute> all = attributes.getAll();
+		while (all.hasMore()) {
+			Attribute candidate = all.next();
+			if (candidate.getID().equalsIgnoreCase(name)) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the generated mapper for the supplied entity class, if any.
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> GeneratedEntryMapper<T> forClass(Class<T> entityClass) {
+		String mapperName = entityClass.getName().replace('$', '_') + SUFFIX;
+		if (!ClassUtils.isPresent(mapperName, entityClass.getClassLoader())) {
+			return null;
+		}
+		try {
+			Class<?> mapperClass = ClassUtils.forName(mapperName, entityClass.getClassLoader());
+			if (!GeneratedEntryMapper.class.isAssignableFrom(mapperClass)) {
+				return null;
+			}
+			GeneratedEntryMapper<T> mapper = (GeneratedEntryMapper<T>) mapperClass.getDeclaredConstructor()
+					.newInstance();
+			return (mapper.getEntityClass() == entityClass) ? mapper : null;
+		}
+		catch (ReflectiveOperationException | LinkageError ex) {
+			throw new MetaDataException(String.format("Could not instantiate generated mapper %s", mapperName), ex);
+		}
+	}
+
+}
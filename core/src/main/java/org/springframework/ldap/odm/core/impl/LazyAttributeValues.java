@@ -0,0 +1,85 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.odm.core.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/*
+ * Values of a lazily fetched multi-valued attribute: a proxy implementing the collection
+ * interface of the field, which reads the values through the supplied loader the first
+ * time any of its methods is invoked and delegates to the loaded collection from then on.
+ */
+/* package */ final class LazyAttributeValues implements InvocationHandler {
+
+	private final Supplier<Collection<Object>> loader;
+
+	private volatile Collection<Object> values;
+
+	private LazyAttributeValues(Supplier<Collection<Object>> loader) {
+		this.loader = loader;
+	}
+
+	static Object newProxy(Class<?> collectionInterface, Supplier<Collection<Object>> loader) {
+		return Proxy.newProxyInstance(collectionInterface.getClassLoader(), new Class<?>[] { collectionInterface },
+				new LazyAttributeValues(loader));
+	}
+
+	/*
+	 * Whether the supplied collection holds values that have been read, i.e. it is not a lazy
+	 * proxy that has never been accessed.
+	 */
+	static boolean isLoaded(Object collection) {
+		if (!Proxy.isProxyClass(collection.getClass())) {
+			return true;
+		}
+		InvocationHandler handler = Proxy.getInvocationHandler(collection);
+		return !(handler instanceof LazyAttributeValues) || ((LazyAttributeValues) handler).values != null;
+	}
+
+	private Collection<Object> values() {
+		Collection<Object> result = values;
+		if (result == null) {
+			synchronized (this) {
+				result = values;
+				if (result == null) {
+					result = loader.get();
+					values = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getName().equals("equals") && args != null && args.length == 1 && args[0] == proxy) {
+			return true;
+		}
+		try {
+			return method.invoke(values(), args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+}
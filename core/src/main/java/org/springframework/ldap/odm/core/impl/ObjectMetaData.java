@@ -21,11 +21,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.ldap.odm.annotations.Entry;
 import org.springframework.ldap.odm.annotations.Id;
 import org.springframework.ldap.support.LdapUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 import javax.naming.Name;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -33,6 +40,8 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /*
  * An internal class to process the meta-data and reflection data for an entry.
@@ -64,6 +73,10 @@ import java.util.TreeSet;
 
 	private Name base = LdapUtils.emptyLdapName();
 
+	private final Supplier<Object> instantiator;
+
+	private final ConstructorMetaData entryConstructor;
+
 	public Set<CaseIgnoreString> getObjectClasses() {
 		return objectClasses;
 	}
@@ -84,6 +97,27 @@ import java.util.TreeSet;
 	public AttributeMetaData getAttribute(Field field) {
 		return fieldToAttribute.get(field);
 	}
+
+	Collection<AttributeMetaData> getAttributes() {
+		return fieldToAttribute.values();
+	}
+
+	/**
+	 * The constructor through which entries are created from their attribute values,
+	 * or <code>null</code> if they are created through {@link #newInstance()} and
+	 * populated field by field.
+	 */
+	ConstructorMetaData getEntryConstructor() {
+		return entryConstructor;
+	}
+
+	/**
+	 * Create a new, empty, instance of the entry class using its zero argument
+	 * constructor.
+	 */
+	Object newInstance() {
+		return instantiator.get();
+	}
 	
 	public ObjectMetaData(Class<?> clazz) {
 		if (LOG.isDebugEnabled()) {
@@ -153,11 +187,64 @@ import java.util.TreeSet;
 
 		postProcessDnAttributes(clazz);
 
+		Map<String, AttributeMetaData> attributesByFieldName = new HashMap<String, AttributeMetaData>();
+		for (AttributeMetaData attribute : fieldToAttribute.values()) {
+			attributesByFieldName.put(attribute.getField().getName(), attribute);
+		}
+		entryConstructor = ConstructorMetaData.forClass(clazz, attributesByFieldName);
+
+		instantiator = instantiator(clazz,
+				(ex) -> new InvalidEntryException(String.format("Could not instantiate %1$s", clazz), ex));
+
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(String.format("Extracted metadata from %1$s as %2$s", clazz, this));
 		}
 	}
 
+	/*
+	 * Resolve the zero argument constructor of the supplied class once. Where
+	 * possible the constructor is bound to a Supplier generated by the
+	 * LambdaMetafactory, which the JIT compiler handles like a plain constructor
+	 * call, falling back to invoking a method handle. Classes that can't be
+	 * instantiated fail only when an instance is actually requested.
+	 */
+	@SuppressWarnings("unchecked")
+	static Supplier<Object> instantiator(Class<?> clazz, Function<Throwable, RuntimeException> failure) {
+		MethodHandle constructor;
+		try {
+			if (Modifier.isAbstract(clazz.getModifiers())) {
+				throw new InstantiationException(clazz.getName());
+			}
+			Constructor<?> declaredConstructor = clazz.getDeclaredConstructor();
+			ReflectionUtils.makeAccessible(declaredConstructor);
+			constructor = MethodHandles.lookup().unreflectConstructor(declaredConstructor);
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			return () -> {
+				throw failure.apply(ex);
+			};
+		}
+
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+			return (Supplier<Object>) LambdaMetafactory.metafactory(lookup, "get",
+					MethodType.methodType(Supplier.class), MethodType.methodType(Object.class), constructor,
+					MethodType.methodType(clazz)).getTarget().invokeExact();
+		} catch (Throwable ex) {
+			LOG.debug(String.format("Falling back to a method handle to instantiate %1$s", clazz), ex);
+		}
+
+		MethodHandle genericConstructor = constructor.asType(MethodType.methodType(Object.class));
+		return () -> {
+			try {
+				return (Object) genericConstructor.invokeExact();
+			} catch (RuntimeException | Error ex) {
+				throw ex;
+			} catch (Throwable ex) {
+				throw failure.apply(ex);
+			}
+		};
+	}
+
 	private void postProcessDnAttributes(Class<?> clazz) {
 		boolean hasIndexed = false;
 		boolean hasNonIndexed = false;
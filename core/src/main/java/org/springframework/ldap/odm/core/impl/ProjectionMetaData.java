@@ -0,0 +1,234 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.odm.core.impl;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/*
+ * Meta-data about a projection of an Entry class: an interface or a record declaring a
+ * subset of the fields of the Entry class, which is populated from entries read with
+ * only the attributes of those fields.
+ */
+/* package */ final class ProjectionMetaData {
+
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+	private final Class<?> projection;
+
+	private final String[] propertyNames;
+
+	// The fields of the Entry class populating each of the properties
+	private final AttributeMetaData[] properties;
+
+	// Values of properties whose attribute is not present in an entry
+	private final Object[] defaults;
+
+	private final String[] attributeNames;
+
+	// The canonical constructor of a record projection
+	private final MethodHandle constructor;
+
+	// The accessor methods of an interface projection, mapped to their property index
+	private final Map<Method, Integer> accessors = new HashMap<Method, Integer>();
+
+	ProjectionMetaData(Class<?> clazz, ObjectMetaData metaData, Class<?> projection) {
+		this.projection = projection;
+		List<String> names = new ArrayList<String>();
+		List<Class<?>> types = new ArrayList<Class<?>>();
+		if (projection.isRecord()) {
+			for (RecordComponent component : projection.getRecordComponents()) {
+				names.add(component.getName());
+				types.add(component.getType());
+			}
+			try {
+				Constructor<?> canonical = projection.getDeclaredConstructor(types.toArray(new Class<?>[0]));
+				ReflectionUtils.makeAccessible(canonical);
+				this.constructor = MethodHandles.lookup().unreflectConstructor(canonical)
+						.asSpreader(Object[].class, names.size()).asType(CONSTRUCTOR_TYPE);
+			} catch (ReflectiveOperationException e) {
+				throw new MetaDataException(String.format("Can't access the canonical constructor of %1$s",
+						projection), e);
+			}
+		} else if (projection.isInterface()) {
+			this.constructor = null;
+			for (Method method : projection.getMethods()) {
+				if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+					continue;
+				}
+				if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+					throw new MetaDataException(String.format("Projection method %1$s is not an accessor", method));
+				}
+				this.accessors.put(method, names.size());
+				names.add(propertyName(method, metaData));
+				types.add(method.getReturnType());
+			}
+		} else {
+			throw new MetaDataException(String.format("Projection %1$s must be an interface or a record", projection));
+		}
+
+		Map<String, AttributeMetaData> attributesByFieldName = new HashMap<String, AttributeMetaData>();
+		for (AttributeMetaData attribute : metaData.getAttributes()) {
+			attributesByFieldName.put(attribute.getField().getName(), attribute);
+		}
+
+		this.propertyNames = names.toArray(new String[0]);
+		this.properties = new AttributeMetaData[this.propertyNames.length];
+		this.defaults = new Object[this.propertyNames.length];
+		Set<String> attributes = new LinkedHashSet<String>();
+		for (int i = 0; i < this.propertyNames.length; i++) {
+			AttributeMetaData attribute = attributesByFieldName.get(this.propertyNames[i]);
+			if (attribute == null) {
+				throw new MetaDataException(String.format("Property %1$s of projection %2$s does not match a field of %3$s",
+						this.propertyNames[i], projection, clazz));
+			}
+			Class<?> type = types.get(i);
+			if (!ClassUtils.isAssignable(type, attribute.getField().getType())) {
+				throw new MetaDataException(String.format("Property %1$s of projection %2$s is of type %3$s, " +
+						"which can't be assigned from field type %4$s", this.propertyNames[i], projection, type,
+						attribute.getField().getType()));
+			}
+			this.properties[i] = attribute;
+			this.defaults[i] = ConstructorMetaData.defaultValue(type);
+			if (!attribute.isTransient() && !attribute.isId() && !attribute.isLazy()) {
+				String[] attributeNamesOfField = attribute.getAttributes();
+				if (attributeNamesOfField != null && attributeNamesOfField.length > 0) {
+					attributes.addAll(Arrays.asList(attributeNamesOfField));
+				} else {
+					attributes.add(attribute.getField().getName());
+				}
+			}
+		}
+		attributes.add("objectclass");
+		this.attributeNames = attributes.toArray(new String[0]);
+	}
+
+	// Accessors are matched by their own name, as for records, or by their bean property name
+	private static String propertyName(Method method, ObjectMetaData metaData) {
+		String name = method.getName();
+		for (AttributeMetaData attribute : metaData.getAttributes()) {
+			if (attribute.getField().getName().equals(name)) {
+				return name;
+			}
+		}
+		if (name.startsWith("get") && name.length() > 3) {
+			return StringUtils.uncapitalize(name.substring(3));
+		}
+		if (name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+			return StringUtils.uncapitalize(name.substring(2));
+		}
+		return name;
+	}
+
+	/*
+	 * The fields of the Entry class populating the properties of the projection, in the
+	 * order in which values are to be passed to newInstance.
+	 */
+	AttributeMetaData[] getProperties() {
+		return this.properties;
+	}
+
+	String[] getAttributeNames() {
+		return this.attributeNames.clone();
+	}
+
+	Object newInstance(Object[] values) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				values[i] = this.defaults[i];
+			}
+		}
+		if (this.constructor == null) {
+			return Proxy.newProxyInstance(this.projection.getClassLoader(), new Class<?>[] { this.projection },
+					new ProjectionInvocationHandler(this, values));
+		}
+		try {
+			return (Object) this.constructor.invokeExact(values);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new InvalidEntryException(String.format("Could not instantiate projection %1$s", this.projection), e);
+		}
+	}
+
+	private static final class ProjectionInvocationHandler implements InvocationHandler {
+
+		private final ProjectionMetaData metaData;
+
+		private final Object[] values;
+
+		private ProjectionInvocationHandler(ProjectionMetaData metaData, Object[] values) {
+			this.metaData = metaData;
+			this.values = values;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			Integer index = this.metaData.accessors.get(method);
+			if (index != null) {
+				return this.values[index];
+			}
+			if (method.isDefault()) {
+				return InvocationHandler.invokeDefault(proxy, method, args);
+			}
+			switch (method.getName()) {
+			case "equals":
+				return proxy == args[0] || (args[0] != null && Proxy.isProxyClass(args[0].getClass())
+						&& Proxy.getInvocationHandler(args[0]) instanceof ProjectionInvocationHandler other
+						&& other.metaData == this.metaData && Arrays.equals(other.values, this.values));
+			case "hashCode":
+				return Arrays.hashCode(this.values);
+			case "toString":
+				return toString();
+			default:
+				throw new UnsupportedOperationException(method.toString());
+			}
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder result = new StringBuilder(this.metaData.projection.getSimpleName()).append('[');
+			for (int i = 0; i < this.values.length; i++) {
+				if (i > 0) {
+					result.append(", ");
+				}
+				result.append(this.metaData.propertyNames[i]).append('=').append(this.values[i]);
+			}
+			return result.append(']').toString();
+		}
+
+	}
+
+}
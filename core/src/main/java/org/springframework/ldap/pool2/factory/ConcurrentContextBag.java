@@ -0,0 +1,243 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.factory;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free container for the pooled contexts of one {@link org.springframework.ldap.pool2.DirContextType},
+ * modelled on the <code>ConcurrentBag</code> of HikariCP.
+ * <p>
+ * Entries are never moved between collections; instead each entry carries its own state,
+ * which is claimed with a compare-and-set. A borrowing thread first looks at the entries it
+ * returned most recently, which are usually still idle and still in its CPU cache, then scans
+ * the shared list of all entries and, failing that, waits for a returning thread to hand an
+ * entry over through a {@link SynchronousQueue}. None of these steps takes a lock.
+ * <p>
+ * The entries last returned by each thread are only weakly referenced, so that entries
+ * removed from the bag by another thread, along with their contexts, can be reclaimed
+ * without waiting for that thread to borrow again.
+ *
+ * @param <T> the entry type
+ * @since 3.1
+ */
+final class ConcurrentContextBag<T extends ConcurrentContextBag.Entry> {
+
+	static final int STATE_NOT_IN_USE = 0;
+
+	static final int STATE_IN_USE = 1;
+
+	static final int STATE_REMOVED = -1;
+
+	private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+
+	private final CopyOnWriteArrayList<T> sharedList = new CopyOnWriteArrayList<>();
+
+	private final ThreadLocal<List<WeakReference<T>>> threadList = ThreadLocal
+			.withInitial(() -> new ArrayList<>(MAX_THREAD_LOCAL_ENTRIES));
+
+	private final SynchronousQueue<T> handoffQueue = new SynchronousQueue<>(true);
+
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	/**
+	 * Claim an idle entry without blocking, preferring the entries last returned by the
+	 * calling thread.
+	 *
+	 * @return the claimed entry, or <code>null</code> if none is idle.
+	 */
+	T poll() {
+		List<WeakReference<T>> list = this.threadList.get();
+		for (int i = list.size() - 1; i >= 0; i--) {
+			T entry = list.remove(i).get();
+			if (entry != null && entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+				return entry;
+			}
+		}
+		return pollShared();
+	}
+
+	/**
+	 * Wait for an entry to become idle, either by being handed over by a returning thread
+	 * or by being {@link #add(Entry) added}.
+	 *
+	 * @param timeoutNanos the maximum time to wait.
+	 * @return the claimed entry, or <code>null</code> if none became idle in time.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	T await(long timeoutNanos) throws InterruptedException {
+		this.waiters.incrementAndGet();
+		try {
+			// An entry may have been returned before we were registered as a waiter
+			T entry = pollShared();
+			if (entry != null) {
+				return entry;
+			}
+
+			long deadline = System.nanoTime() + timeoutNanos;
+			long remaining = timeoutNanos;
+			while (remaining > 0) {
+				entry = this.handoffQueue.poll(remaining, TimeUnit.NANOSECONDS);
+				if (entry == null || entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+					return entry;
+				}
+				remaining = deadline - System.nanoTime();
+			}
+			return null;
+		}
+		finally {
+			this.waiters.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Return a borrowed entry, handing it directly to a waiting thread if there is one.
+	 *
+	 * @param entry an entry claimed from this bag.
+	 */
+	void requite(T entry) {
+		entry.setState(STATE_NOT_IN_USE);
+
+		for (int i = 0; this.waiters.get() > 0; i++) {
+			if (entry.getState() != STATE_NOT_IN_USE || this.handoffQueue.offer(entry)) {
+				return;
+			}
+			if ((i & 0xff) == 0xff) {
+				LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+			}
+			else {
+				Thread.yield();
+			}
+		}
+
+		List<WeakReference<T>> list = this.threadList.get();
+		if (list.size() >= MAX_THREAD_LOCAL_ENTRIES) {
+			list.removeIf((reference) -> isRemoved(reference.get()));
+		}
+		if (list.size() < MAX_THREAD_LOCAL_ENTRIES) {
+			list.add(new WeakReference<>(entry));
+		}
+	}
+
+	/**
+	 * Add a new entry. Idle entries are handed to a waiting thread if there is one.
+	 *
+	 * @param entry the entry to add, in state {@link #STATE_NOT_IN_USE} or {@link #STATE_IN_USE}.
+	 */
+	void add(T entry) {
+		this.sharedList.add(entry);
+
+		while (this.waiters.get() > 0 && entry.getState() == STATE_NOT_IN_USE && !this.handoffQueue.offer(entry)) {
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Remove an entry if it is in the expected state, i.e. borrowed by the calling
+	 * thread or idle.
+	 *
+	 * @param entry the entry to remove.
+	 * @param expectedState {@link #STATE_IN_USE} or {@link #STATE_NOT_IN_USE}.
+	 * @return <code>true</code> if the entry was removed by this call.
+	 */
+	boolean remove(T entry, int expectedState) {
+		if (!entry.compareAndSetState(expectedState, STATE_REMOVED)) {
+			return false;
+		}
+		this.sharedList.remove(entry);
+		this.threadList.get().removeIf((reference) -> reference.get() == entry);
+		return true;
+	}
+
+	/**
+	 * @return a snapshot of all entries, in any state.
+	 */
+	List<T> values() {
+		return new ArrayList<>(this.sharedList);
+	}
+
+	/**
+	 * @param state the state to count.
+	 * @return the number of entries currently in the given state.
+	 */
+	int getCount(int state) {
+		int count = 0;
+		for (T entry : this.sharedList) {
+			if (entry.getState() == state) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of threads waiting for an entry.
+	 */
+	int getWaitingThreadCount() {
+		return this.waiters.get();
+	}
+
+	private static boolean isRemoved(Entry entry) {
+		return entry == null || entry.getState() == STATE_REMOVED;
+	}
+
+	private T pollShared() {
+		for (T entry : this.sharedList) {
+			if (entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Base class for the entries of a {@link ConcurrentContextBag}, holding their state.
+	 */
+	abstract static class Entry {
+
+		private static final AtomicIntegerFieldUpdater<Entry> STATE = AtomicIntegerFieldUpdater
+				.newUpdater(Entry.class, "state");
+
+		private volatile int state;
+
+		Entry(int state) {
+			this.state = state;
+		}
+
+		int getState() {
+			return this.state;
+		}
+
+		void setState(int state) {
+			this.state = state;
+		}
+
+		boolean compareAndSetState(int expect, int update) {
+			return STATE.compareAndSet(this, expect, update);
+		}
+
+	}
+
+}
@@ -0,0 +1,837 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.factory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.naming.CommunicationException;
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.core.DirContextProxy;
+import org.springframework.ldap.core.support.DelegatingBaseLdapPathContextSourceSupport;
+import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.ldap.pool2.FailureAwareContext;
+import org.springframework.ldap.pool2.metrics.PoolMetricsRecorder;
+import org.springframework.ldap.pool2.validation.DirContextValidator;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ContextSource} pooling the {@link DirContext}s of a target {@link ContextSource}
+ * without locks, as an alternative to {@link PooledContextSource} for applications where
+ * many threads borrow contexts concurrently.
+ * <p>
+ * Idle contexts are kept in a lock-free bag, in the style of HikariCP: a thread first tries
+ * the contexts it returned most recently, then all idle contexts, and when the pool is
+ * exhausted waits for a returning thread to hand a context over directly. Each pooled
+ * context is wrapped in two proxies when it is opened, which are handed out alternately, so
+ * borrowing and returning a context allocates nothing. Each proxy is stamped with the borrow
+ * it was handed out for, so closing a context more than once returns it to the pool only
+ * once, and using it after closing it fails, even if it has been borrowed again since. This
+ * only holds until the context has been borrowed twice more, when the proxy is handed out
+ * again, so a closed context must still not be kept.
+ * <p>
+ * The following {@link PoolConfig} properties are honored: <code>maxTotal</code>,
+ * <code>maxTotalPerKey</code>, <code>minIdlePerKey</code>, <code>maxWaitMillis</code>,
+ * <code>blockWhenExhausted</code>, <code>testOnCreate</code>, <code>testOnBorrow</code>,
+ * <code>testOnReturn</code>, <code>testWhileIdle</code>,
+ * <code>timeBetweenEvictionRunsMillis</code> and <code>validationBypassWindowMillis</code>.
+ * With <code>testWhileIdle</code>, every idle context that has not been used within the
+ * bypass window is validated by a background thread on each run. Validation uses the configured
+ * {@link DirContextValidator}, and contexts on which one of the configured
+ * {@link #setNonTransientExceptions(Collection) non-transient exceptions} was thrown are
+ * closed instead of being returned to the pool, exactly as with
+ * {@link PooledContextSource}. Unlike {@link PooledContextSource}, idle contexts are never
+ * evicted and commons-pool2 is not required. Pooled authentication is not supported.
+ * <p>
+ * When {@link #afterPropertiesSet() initialized}, the pool opens <code>minIdlePerKey</code>
+ * contexts of each type up front, so that the first operations do not have to wait for
+ * connections to be established. Contexts can also be given a
+ * {@link #setMaxLifetime(Duration) maximum lifetime}, for instance to stay below the
+ * connection age limit of a load balancer: expired contexts are closed as soon as they are
+ * idle and replaced in the background.
+ *
+ * @since 3.1
+ * @see PooledContextSource
+ */
+public class ConcurrentPooledContextSource extends DelegatingBaseLdapPathContextSourceSupport
+		implements ContextSource, InitializingBean, DisposableBean {
+
+	private static final Set<String> UNSUPPORTED_METHODS = Set.of("addToEnvironment", "removeFromEnvironment",
+			"createSubcontext", "destroySubcontext", "getSchema", "getSchemaClassDefinition", "newInstance",
+			"reconnect", "setRequestControls");
+
+	private static final long CAPACITY_RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+	/**
+	 * The logger for this class and sub-classes
+	 */
+	protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	private final PoolConfig poolConfig;
+
+	private final KeyedBag readOnlyBag = new KeyedBag(DirContextType.READ_ONLY);
+
+	private final KeyedBag readWriteBag = new KeyedBag(DirContextType.READ_WRITE);
+
+	private final AtomicInteger totalCount = new AtomicInteger();
+
+	private ContextSource contextSource;
+
+	private DirContextValidator dirContextValidator;
+
+	private Set<Class<? extends Throwable>> nonTransientExceptions = Collections.singleton(CommunicationException.class);
+
+	private PoolMetricsRecorder poolMetricsRecorder = PoolMetricsRecorder.NOOP;
+
+	private Duration maxLifetime = Duration.ZERO;
+
+	private Duration maxLifetimeJitter;
+
+	private volatile ScheduledExecutorService housekeeper;
+
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new pooling context source.
+	 *
+	 * @param poolConfig the configuration of the pool; <code>null</code> to use the
+	 * defaults of {@link PoolConfig}.
+	 */
+	public ConcurrentPooledContextSource(PoolConfig poolConfig) {
+		this.poolConfig = (poolConfig != null) ? poolConfig : new PoolConfig();
+	}
+
+	/**
+	 * @return the poolConfig
+	 */
+	public PoolConfig getPoolConfig() {
+		return this.poolConfig;
+	}
+
+	/**
+	 * @return the number of idle contexts of both types.
+	 */
+	public int getNumIdle() {
+		return getNumIdleRead() + getNumIdleWrite();
+	}
+
+	/**
+	 * @return the number of idle {@link DirContextType#READ_ONLY} contexts.
+	 */
+	public int getNumIdleRead() {
+		return this.readOnlyBag.bag.getCount(ConcurrentContextBag.STATE_NOT_IN_USE);
+	}
+
+	/**
+	 * @return the number of idle {@link DirContextType#READ_WRITE} contexts.
+	 */
+	public int getNumIdleWrite() {
+		return this.readWriteBag.bag.getCount(ConcurrentContextBag.STATE_NOT_IN_USE);
+	}
+
+	/**
+	 * @return the number of borrowed contexts of both types.
+	 */
+	public int getNumActive() {
+		return getNumActiveRead() + getNumActiveWrite();
+	}
+
+	/**
+	 * @return the number of borrowed {@link DirContextType#READ_ONLY} contexts.
+	 */
+	public int getNumActiveRead() {
+		return this.readOnlyBag.bag.getCount(ConcurrentContextBag.STATE_IN_USE);
+	}
+
+	/**
+	 * @return the number of borrowed {@link DirContextType#READ_WRITE} contexts.
+	 */
+	public int getNumActiveWrite() {
+		return this.readWriteBag.bag.getCount(ConcurrentContextBag.STATE_IN_USE);
+	}
+
+	/**
+	 * @return the number of threads waiting for a context of either type.
+	 */
+	public int getNumWaiters() {
+		return this.readOnlyBag.bag.getWaitingThreadCount() + this.readWriteBag.bag.getWaitingThreadCount();
+	}
+
+	/**
+	 * @return the contextSource
+	 */
+	public ContextSource getContextSource() {
+		return this.contextSource;
+	}
+
+	/**
+	 * @param contextSource the contextSource to set
+	 * Required
+	 */
+	public void setContextSource(ContextSource contextSource) {
+		if (contextSource == null) {
+			throw new IllegalArgumentException("contextSource may not be null");
+		}
+		this.contextSource = contextSource;
+	}
+
+	/**
+	 * @return the dirContextValidator
+	 */
+	public DirContextValidator getDirContextValidator() {
+		return this.dirContextValidator;
+	}
+
+	/**
+	 * @param dirContextValidator the dirContextValidator to set
+	 * Required if any of the test options are enabled.
+	 */
+	public void setDirContextValidator(DirContextValidator dirContextValidator) {
+		if (dirContextValidator == null) {
+			throw new IllegalArgumentException("dirContextValidator may not be null");
+		}
+		this.dirContextValidator = dirContextValidator;
+	}
+
+	/**
+	 * Configure the exception classes that are to be interpreted as non-transient with
+	 * regards to eager context invalidation. If one of the configured exceptions (or
+	 * subclasses of them) is thrown by any method on a pooled DirContext, that instance
+	 * will be closed rather than returned to the pool, without any additional testing.
+	 * Default is {@link javax.naming.CommunicationException}.
+	 *
+	 * @param nonTransientExceptions the exception classes that should be interpreted as
+	 * non-transient with regards to eager invalidation.
+	 * @see PooledContextSource#setNonTransientExceptions(Collection)
+	 */
+	public void setNonTransientExceptions(Collection<Class<? extends Throwable>> nonTransientExceptions) {
+		this.nonTransientExceptions = new HashSet<Class<? extends Throwable>>(nonTransientExceptions);
+	}
+
+	/**
+	 * @return the poolMetricsRecorder
+	 */
+	public PoolMetricsRecorder getPoolMetricsRecorder() {
+		return this.poolMetricsRecorder;
+	}
+
+	/**
+	 * Set the {@link PoolMetricsRecorder} to notify about pool activity. Default is
+	 * {@link PoolMetricsRecorder#NOOP}.
+	 *
+	 * @param poolMetricsRecorder the recorder to use.
+	 * @see PooledContextSource#setPoolMetricsRecorder(PoolMetricsRecorder)
+	 */
+	public void setPoolMetricsRecorder(PoolMetricsRecorder poolMetricsRecorder) {
+		Assert.notNull(poolMetricsRecorder, "poolMetricsRecorder may not be null");
+		this.poolMetricsRecorder = poolMetricsRecorder;
+	}
+
+	/**
+	 * @return the maximum lifetime of pooled contexts
+	 */
+	public Duration getMaxLifetime() {
+		return this.maxLifetime;
+	}
+
+	/**
+	 * Set the maximum time a pooled context is kept open. Expired contexts are closed as
+	 * soon as they are idle, or when they are returned, and replaced in the background.
+	 * Default is {@link Duration#ZERO}, meaning that contexts are kept open indefinitely.
+	 * Requires the pool to be {@link #afterPropertiesSet() initialized}.
+	 *
+	 * @param maxLifetime the maximum lifetime; zero for no limit.
+	 * @see #setMaxLifetimeJitter(Duration)
+	 */
+	public void setMaxLifetime(Duration maxLifetime) {
+		Assert.isTrue(maxLifetime != null && !maxLifetime.isNegative(), "maxLifetime must not be negative");
+		this.maxLifetime = maxLifetime;
+	}
+
+	/**
+	 * Set the maximum random amount by which the lifetime of each context is shortened,
+	 * so that contexts opened together, such as when the pool is initialized, do not all
+	 * expire at the same time. Default is 2.5% of the {@link #setMaxLifetime(Duration)
+	 * maximum lifetime}.
+	 *
+	 * @param maxLifetimeJitter the maximum jitter; must be shorter than the maximum lifetime.
+	 */
+	public void setMaxLifetimeJitter(Duration maxLifetimeJitter) {
+		Assert.isTrue(maxLifetimeJitter != null && !maxLifetimeJitter.isNegative(),
+				"maxLifetimeJitter must not be negative");
+		this.maxLifetimeJitter = maxLifetimeJitter;
+	}
+
+	/**
+	 * Open <code>minIdlePerKey</code> contexts of each type, start retiring contexts that
+	 * reach their maximum lifetime and, if <code>testWhileIdle</code> is enabled, start
+	 * validating idle contexts in the background. Contexts that cannot be opened are
+	 * logged rather than failing initialization.
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		Assert.notNull(this.contextSource, "contextSource must be set");
+		Assert.isTrue(this.maxLifetime.isZero() || getMaxLifetimeJitterNanos() < this.maxLifetime.toNanos(),
+				"maxLifetimeJitter must be shorter than maxLifetime");
+		final boolean validateIdle = this.poolConfig.isTestWhileIdle()
+				&& this.poolConfig.getTimeBetweenEvictionRunsMillis() > 0;
+		if (this.housekeeper == null
+				&& (!this.maxLifetime.isZero() || this.poolConfig.getMinIdlePerKey() > 0 || validateIdle)) {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, (runnable) -> {
+				Thread thread = new Thread(runnable, "spring-ldap-pool-housekeeper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			if (validateIdle) {
+				long intervalMillis = this.poolConfig.getTimeBetweenEvictionRunsMillis();
+				executor.scheduleWithFixedDelay(this::validateIdle, intervalMillis, intervalMillis,
+						TimeUnit.MILLISECONDS);
+			}
+			this.housekeeper = executor;
+		}
+		this.readOnlyBag.fill();
+		this.readWriteBag.fill();
+	}
+
+	/**
+	 * Close all idle contexts. Borrowed contexts are closed when they are returned.
+	 */
+	@Override
+	public void destroy() {
+		this.closed = true;
+		if (this.housekeeper != null) {
+			this.housekeeper.shutdownNow();
+		}
+		this.readOnlyBag.closeIdle();
+		this.readWriteBag.closeIdle();
+	}
+
+	@Override
+	protected ContextSource getTarget() {
+		return getContextSource();
+	}
+
+	@Override
+	public DirContext getReadOnlyContext() {
+		return getContext(DirContextType.READ_ONLY);
+	}
+
+	@Override
+	public DirContext getReadWriteContext() {
+		return getContext(DirContextType.READ_WRITE);
+	}
+
+	/**
+	 * Not supported by this implementation.
+	 *
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	public DirContext getContext(String principal, String credentials) {
+		throw new UnsupportedOperationException("Not supported for this implementation");
+	}
+
+	/**
+	 * Borrow a DirContext of the specified type from the pool, recording the time spent
+	 * waiting.
+	 *
+	 * @param dirContextType The type of context to return.
+	 * @return A pooled DirContext of the specified type, returned to the pool when closed.
+	 * @throws DataAccessResourceFailureException If no context could be borrowed.
+	 */
+	protected DirContext getContext(DirContextType dirContextType) {
+		final long start = System.nanoTime();
+		boolean success = false;
+		try {
+			final DirContext dirContext = keyedBag(dirContextType).borrow().lend();
+			success = true;
+			return dirContext;
+		}
+		finally {
+			this.poolMetricsRecorder.recordBorrow(dirContextType, System.nanoTime() - start, success);
+		}
+	}
+
+	private void validateIdle() {
+		this.readOnlyBag.validateIdle();
+		this.readWriteBag.validateIdle();
+	}
+
+	private long getMaxLifetimeJitterNanos() {
+		return (this.maxLifetimeJitter != null) ? this.maxLifetimeJitter.toNanos() : this.maxLifetime.toNanos() / 40;
+	}
+
+	private KeyedBag keyedBag(DirContextType dirContextType) {
+		return (dirContextType == DirContextType.READ_WRITE) ? this.readWriteBag : this.readOnlyBag;
+	}
+
+	/**
+	 * The bag of contexts of one type, along with the number of contexts of that type.
+	 */
+	private final class KeyedBag {
+
+		private final DirContextType contextType;
+
+		private final ConcurrentContextBag<PooledDirContext> bag = new ConcurrentContextBag<>();
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		KeyedBag(DirContextType contextType) {
+			this.contextType = contextType;
+		}
+
+		PooledDirContext borrow() {
+			if (closed) {
+				throw new DataAccessResourceFailureException("Failed to borrow DirContext from pool: pool is closed");
+			}
+
+			final long maxWaitMillis = poolConfig.getMaxWaitMillis();
+			final long deadline = (maxWaitMillis < 0) ? Long.MAX_VALUE
+					: System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+			while (true) {
+				PooledDirContext pooledContext = this.bag.poll();
+				if (pooledContext == null) {
+					if (reserve()) {
+						return create(ConcurrentContextBag.STATE_IN_USE);
+					}
+					if (!poolConfig.isBlockWhenExhausted()) {
+						throw new DataAccessResourceFailureException("Failed to borrow DirContext from pool: pool exhausted");
+					}
+					pooledContext = await(deadline);
+					if (pooledContext == null) {
+						continue;
+					}
+				}
+
+				if (!poolConfig.isTestOnBorrow() || recentlyUsed(pooledContext) || validate(pooledContext)) {
+					return pooledContext;
+				}
+				destroy(pooledContext);
+			}
+		}
+
+		private PooledDirContext await(long deadline) {
+			// Wait in slices, so that capacity freed by destroyed contexts is noticed
+			long remaining = (deadline == Long.MAX_VALUE) ? Long.MAX_VALUE : deadline - System.nanoTime();
+			if (remaining <= 0) {
+				throw new DataAccessResourceFailureException(
+						"Failed to borrow DirContext from pool: timeout waiting for idle object");
+			}
+			try {
+				return this.bag.await(Math.min(remaining, CAPACITY_RECHECK_NANOS));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DataAccessResourceFailureException("Interrupted while waiting for a pooled DirContext", e);
+			}
+		}
+
+		private PooledDirContext create(int state) {
+			Assert.notNull(contextSource, "ContextSource may not be null");
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating a new " + this.contextType + " DirContext");
+			}
+
+			final DirContext dirContext;
+			final long start = System.nanoTime();
+			boolean success = false;
+			try {
+				dirContext = (this.contextType == DirContextType.READ_WRITE)
+						? contextSource.getReadWriteContext()
+						: contextSource.getReadOnlyContext();
+				success = true;
+			}
+			catch (RuntimeException e) {
+				release();
+				throw new DataAccessResourceFailureException("Failed to borrow DirContext from pool.", e);
+			}
+			finally {
+				poolMetricsRecorder.recordCreate(this.contextType, System.nanoTime() - start, success);
+			}
+
+			final PooledDirContext pooledContext = new PooledDirContext(this, dirContext, state);
+			if (poolConfig.isTestOnCreate() && !validate(pooledContext)) {
+				close(pooledContext);
+				throw new DataAccessResourceFailureException("Failed to validate newly created DirContext");
+			}
+			scheduleRetirement(pooledContext);
+			this.bag.add(pooledContext);
+			return pooledContext;
+		}
+
+		/**
+		 * Open an idle context if the pool has capacity left.
+		 */
+		private boolean createIdle() {
+			if (closed || !reserve()) {
+				return false;
+			}
+			try {
+				create(ConcurrentContextBag.STATE_NOT_IN_USE);
+				return true;
+			}
+			catch (RuntimeException e) {
+				logger.warn("Failed to open a " + this.contextType + " DirContext for the pool", e);
+				return false;
+			}
+		}
+
+		void fill() {
+			while (this.bag.getCount(ConcurrentContextBag.STATE_NOT_IN_USE) < poolConfig.getMinIdlePerKey()
+					&& createIdle()) {
+				// Keep opening contexts
+			}
+		}
+
+		private void scheduleRetirement(PooledDirContext pooledContext) {
+			final ScheduledExecutorService executor = housekeeper;
+			if (executor == null || maxLifetime.isZero()) {
+				return;
+			}
+			final long jitterNanos = getMaxLifetimeJitterNanos();
+			final long lifetimeNanos = maxLifetime.toNanos()
+					- ((jitterNanos > 0) ? ThreadLocalRandom.current().nextLong(jitterNanos) : 0);
+			try {
+				pooledContext.retirement = executor.schedule(() -> retire(pooledContext), lifetimeNanos,
+						TimeUnit.NANOSECONDS);
+			}
+			catch (RejectedExecutionException e) {
+				// Shutting down
+			}
+		}
+
+		private void retire(PooledDirContext pooledContext) {
+			pooledContext.expired = true;
+			if (this.bag.remove(pooledContext, ConcurrentContextBag.STATE_NOT_IN_USE)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Retiring expired " + this.contextType + " DirContext='" + pooledContext.target + "'");
+				}
+				close(pooledContext);
+				createIdle();
+			}
+			// Otherwise the context is borrowed, and is retired when it is returned
+		}
+
+		private void replaceInBackground(boolean expired) {
+			final ScheduledExecutorService executor = housekeeper;
+			if (executor == null || closed) {
+				return;
+			}
+			try {
+				executor.execute(expired ? this::createIdle : this::fill);
+			}
+			catch (RejectedExecutionException e) {
+				// Shutting down
+			}
+		}
+
+		void requite(PooledDirContext pooledContext) {
+			if (pooledContext.failed || pooledContext.expired || closed
+					|| (poolConfig.isTestOnReturn() && !recentlyUsed(pooledContext) && !validate(pooledContext))) {
+				destroy(pooledContext);
+				replaceInBackground(pooledContext.expired);
+				return;
+			}
+
+			pooledContext.lastUsed = System.nanoTime();
+			giveBack(pooledContext);
+		}
+
+		/**
+		 * Validate the idle contexts that have not been used within the bypass window,
+		 * claiming each one so that it cannot be borrowed while being validated.
+		 */
+		void validateIdle() {
+			for (PooledDirContext pooledContext : this.bag.values()) {
+				if (closed) {
+					return;
+				}
+				if (recentlyUsed(pooledContext) || !pooledContext.compareAndSetState(
+						ConcurrentContextBag.STATE_NOT_IN_USE, ConcurrentContextBag.STATE_IN_USE)) {
+					continue;
+				}
+
+				if (validate(pooledContext)) {
+					pooledContext.lastUsed = System.nanoTime();
+					giveBack(pooledContext);
+				}
+				else {
+					destroy(pooledContext);
+					createIdle();
+				}
+			}
+		}
+
+		private boolean recentlyUsed(PooledDirContext pooledContext) {
+			final long bypassWindowMillis = poolConfig.getValidationBypassWindowMillis();
+			return bypassWindowMillis > 0
+					&& System.nanoTime() - pooledContext.lastUsed < TimeUnit.MILLISECONDS.toNanos(bypassWindowMillis);
+		}
+
+		private void giveBack(PooledDirContext pooledContext) {
+			this.bag.requite(pooledContext);
+			if (pooledContext.expired || closed) {
+				// Raced with retirement or destroy(); make sure the context does not outlive either
+				if (closeIdle(pooledContext)) {
+					replaceInBackground(true);
+				}
+			}
+		}
+
+		private boolean validate(PooledDirContext pooledContext) {
+			Assert.notNull(dirContextValidator, "DirContextValidator may not be null");
+			final long start = System.nanoTime();
+			boolean valid = false;
+			try {
+				valid = dirContextValidator.validateDirContext(this.contextType, pooledContext.target);
+				return valid;
+			}
+			catch (Exception e) {
+				logger.warn("Failed to validate '" + pooledContext.target + "' due to an unexpected exception.", e);
+				return false;
+			}
+			finally {
+				poolMetricsRecorder.recordValidation(this.contextType, System.nanoTime() - start, valid);
+			}
+		}
+
+		private boolean reserve() {
+			final int maxTotalPerKey = poolConfig.getMaxTotalPerKey();
+			int current;
+			do {
+				current = this.count.get();
+				if (maxTotalPerKey >= 0 && current >= maxTotalPerKey) {
+					return false;
+				}
+			}
+			while (!this.count.compareAndSet(current, current + 1));
+
+			final int maxTotal = poolConfig.getMaxTotal();
+			do {
+				current = totalCount.get();
+				if (maxTotal >= 0 && current >= maxTotal) {
+					this.count.decrementAndGet();
+					return false;
+				}
+			}
+			while (!totalCount.compareAndSet(current, current + 1));
+			return true;
+		}
+
+		private void release() {
+			this.count.decrementAndGet();
+			totalCount.decrementAndGet();
+		}
+
+		private void destroy(PooledDirContext pooledContext) {
+			if (this.bag.remove(pooledContext, ConcurrentContextBag.STATE_IN_USE)) {
+				close(pooledContext);
+			}
+		}
+
+		void closeIdle() {
+			for (PooledDirContext pooledContext : this.bag.values()) {
+				closeIdle(pooledContext);
+			}
+		}
+
+		private boolean closeIdle(PooledDirContext pooledContext) {
+			if (this.bag.remove(pooledContext, ConcurrentContextBag.STATE_NOT_IN_USE)) {
+				close(pooledContext);
+				return true;
+			}
+			return false;
+		}
+
+		private void close(PooledDirContext pooledContext) {
+			release();
+			if (pooledContext.retirement != null) {
+				pooledContext.retirement.cancel(false);
+			}
+			final long start = System.nanoTime();
+			try {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Closing " + this.contextType + " DirContext='" + pooledContext.target + "'");
+				}
+				pooledContext.target.close();
+			}
+			catch (Exception e) {
+				logger.warn("An exception occured while closing '" + pooledContext.target + "'", e);
+			}
+			finally {
+				poolMetricsRecorder.recordDestroy(this.contextType, System.nanoTime() - start);
+			}
+		}
+
+	}
+
+	/**
+	 * A pooled context, along with the proxies handed out when it is borrowed. A proxy
+	 * returns the context to the pool when closed, and checks thrown exceptions against
+	 * the configured {@link #nonTransientExceptions}, marking the context as failed on
+	 * match.
+	 */
+	private final class PooledDirContext extends ConcurrentContextBag.Entry {
+
+		private final KeyedBag keyedBag;
+
+		private final DirContext target;
+
+		// Handed out alternately, so that a proxy closed already can't return a later borrow
+		private final Lease[] leases;
+
+		// Counts lending and returning the context, so it is odd while the context is lent out
+		private final AtomicLong lends = new AtomicLong();
+
+		private volatile boolean failed;
+
+		private volatile boolean expired;
+
+		private ScheduledFuture<?> retirement;
+
+		private volatile long lastUsed = System.nanoTime();
+
+		PooledDirContext(KeyedBag keyedBag, DirContext target, int state) {
+			super(state);
+			this.keyedBag = keyedBag;
+			this.target = target;
+			this.leases = new Lease[] { new Lease(), new Lease() };
+		}
+
+		/**
+		 * Hand out the context to the borrower that claimed it.
+		 */
+		DirContext lend() {
+			final long lend = this.lends.incrementAndGet();
+			final Lease lease = this.leases[(int) ((lend >>> 1) & 1)];
+			lease.lend = lend;
+			return lease.proxy;
+		}
+
+		private boolean isLent(Lease lease) {
+			return this.lends.get() == lease.lend;
+		}
+
+		private void giveBack(Lease lease) {
+			// Only the first close of a lease returns the context
+			if (this.lends.compareAndSet(lease.lend, lease.lend + 1)) {
+				this.keyedBag.requite(this);
+			}
+		}
+
+		/**
+		 * The proxy handed out for one borrow of the context.
+		 */
+		private final class Lease implements InvocationHandler {
+
+			private final DirContext proxy;
+
+			private volatile long lend;
+
+			Lease() {
+				this.proxy = (DirContext) Proxy.newProxyInstance(DirContextProxy.class.getClassLoader(),
+						new Class<?>[] { LdapUtils.getActualTargetClass(target), DirContextProxy.class,
+								FailureAwareContext.class },
+						this);
+			}
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				final String methodName = method.getName();
+				switch (methodName) {
+					case "getTargetContext":
+						return target;
+					case "hasFailed":
+						return failed;
+					case "close":
+						giveBack(this);
+						return null;
+					case "equals":
+						Object other = args[0];
+						if (other instanceof DirContextProxy) {
+							other = ((DirContextProxy) other).getTargetContext();
+						}
+						return target == other || target.equals(other);
+					case "hashCode":
+						return target.hashCode();
+					case "toString":
+						return target.toString();
+					default:
+						break;
+				}
+
+				if (!isLent(this)) {
+					throw new NamingException("DirContext is closed.");
+				}
+				if (UNSUPPORTED_METHODS.contains(methodName)) {
+					throw new UnsupportedOperationException("Cannot call " + methodName + " on a pooled context");
+				}
+
+				try {
+					return method.invoke(target, args);
+				}
+				catch (InvocationTargetException e) {
+					Throwable targetException = e.getTargetException();
+					Class<? extends Throwable> targetExceptionClass = targetException.getClass();
+					for (Class<? extends Throwable> clazz : nonTransientExceptions) {
+						if (clazz.isAssignableFrom(targetExceptionClass)) {
+							if (logger.isDebugEnabled()) {
+								logger.debug(String.format("A %s - explicitly configured to be a non-transient exception - encountered; eagerly invalidating the target context.",
+										targetExceptionClass));
+							}
+							if (!failed) {
+								poolMetricsRecorder.recordEagerInvalidation(keyedBag.contextType, targetExceptionClass);
+							}
+							failed = true;
+							break;
+						}
+					}
+					throw targetException;
+				}
+			}
+
+		}
+
+	}
+
+}
@@ -18,25 +18,35 @@ package org.springframework.ldap.pool2.factory;
 import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.EvictionConfig;
+import org.apache.commons.pool2.impl.EvictionPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.core.DirContextProxy;
 import org.springframework.ldap.pool2.DirContextType;
 import org.springframework.ldap.pool2.FailureAwareContext;
+import org.springframework.ldap.pool2.metrics.PoolMetricsRecorder;
 import org.springframework.ldap.pool2.validation.DirContextValidator;
 import org.springframework.ldap.support.LdapUtils;
 import org.springframework.util.Assert;
 
+import javax.naming.AuthenticationException;
 import javax.naming.CommunicationException;
+import javax.naming.Context;
+import javax.naming.NamingException;
 import javax.naming.directory.DirContext;
+import javax.naming.ldap.LdapContext;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Factory that creates {@link DirContext} instances for pooling via a
@@ -95,10 +105,69 @@ class DirContextPooledObjectFactory extends BaseKeyedPooledObjectFactory<Object,
 
 	private Set<Class<? extends Throwable>> nonTransientExceptions = DEFAULT_NONTRANSIENT_EXCEPTIONS;
 
+	private PoolMetricsRecorder poolMetricsRecorder = PoolMetricsRecorder.NOOP;
+
+	private long validationBypassWindowMillis = 0L;
+
+	private Duration maxLifetime = Duration.ZERO;
+
+	private Duration maxLifetimeJitter;
+
 	void setNonTransientExceptions(Collection<Class<? extends Throwable>> nonTransientExceptions) {
 		this.nonTransientExceptions = new HashSet<Class<? extends Throwable>>(nonTransientExceptions);
 	}
 
+	void setValidationBypassWindowMillis(long validationBypassWindowMillis) {
+		this.validationBypassWindowMillis = validationBypassWindowMillis;
+	}
+
+	Duration getMaxLifetime() {
+		return this.maxLifetime;
+	}
+
+	void setMaxLifetime(Duration maxLifetime) {
+		Assert.isTrue(maxLifetime != null && !maxLifetime.isNegative(), "maxLifetime must not be negative");
+		this.maxLifetime = maxLifetime;
+	}
+
+	void setMaxLifetimeJitter(Duration maxLifetimeJitter) {
+		Assert.isTrue(maxLifetimeJitter != null && !maxLifetimeJitter.isNegative(),
+				"maxLifetimeJitter must not be negative");
+		this.maxLifetimeJitter = maxLifetimeJitter;
+	}
+
+	long getMaxLifetimeJitterMillis() {
+		return (this.maxLifetimeJitter != null) ? this.maxLifetimeJitter.toMillis() : this.maxLifetime.toMillis() / 40;
+	}
+
+	/**
+	 * @return whether the supplied object was created by this factory and has reached
+	 * its maximum lifetime.
+	 */
+	boolean isExpired(PooledObject<Object> pooledObject) {
+		return pooledObject instanceof ExpiringPooledObject
+				&& System.currentTimeMillis() >= ((ExpiringPooledObject) pooledObject).expiryTime;
+	}
+
+	/**
+	 * @param delegate the policy to consult for contexts that have not expired;
+	 * <code>null</code> to only evict expired contexts.
+	 * @return an eviction policy that also evicts idle contexts which have reached
+	 * their maximum lifetime.
+	 */
+	EvictionPolicy<Object> createMaxLifetimeEvictionPolicy(EvictionPolicy<Object> delegate) {
+		return new MaxLifetimeEvictionPolicy(delegate);
+	}
+
+	PoolMetricsRecorder getPoolMetricsRecorder() {
+		return this.poolMetricsRecorder;
+	}
+
+	void setPoolMetricsRecorder(PoolMetricsRecorder poolMetricsRecorder) {
+		Assert.notNull(poolMetricsRecorder, "poolMetricsRecorder may not be null");
+		this.poolMetricsRecorder = poolMetricsRecorder;
+	}
+
 	/**
 	 * @return the contextSource
 	 */
@@ -138,14 +207,14 @@ class DirContextPooledObjectFactory extends BaseKeyedPooledObjectFactory<Object,
 		this.dirContextValidator = dirContextValidator;
 	}
 
-	private Object makeFailureAwareProxy(DirContext readOnlyContext) {
+	private Object makeFailureAwareProxy(DirContext readOnlyContext, DirContextType contextType) {
 		return Proxy.newProxyInstance(DirContextProxy.class
 				.getClassLoader(),
 				new Class<?>[]{
 						LdapUtils.getActualTargetClass(readOnlyContext),
 						DirContextProxy.class,
 						FailureAwareContext.class},
-				new FailureAwareContextProxy(readOnlyContext));
+				new FailureAwareContextProxy(readOnlyContext, contextType));
 	}
 
 	/**
@@ -164,15 +233,28 @@ class DirContextPooledObjectFactory extends BaseKeyedPooledObjectFactory<Object,
 				"The Object to validate must be of type '" + DirContext.class
 						+ "'");
 
+		// commons-pool2 initializes the last return time to the creation time, so only
+		// contexts that have actually been returned, after being used successfully, qualify
+		if (this.validationBypassWindowMillis > 0
+				&& pooledObject.getLastReturnTime() > pooledObject.getCreateTime()
+				&& System.currentTimeMillis() - pooledObject.getLastReturnTime() < this.validationBypassWindowMillis) {
+			return true;
+		}
+
+		final DirContextType contextType = (DirContextType) key;
+		final long start = System.nanoTime();
+		boolean valid = false;
 		try {
-			final DirContextType contextType = (DirContextType) key;
 			final DirContext dirContext = (DirContext) pooledObject.getObject();
-			return this.dirContextValidator.validateDirContext(contextType,
+			valid = this.dirContextValidator.validateDirContext(contextType,
 					dirContext);
+			return valid;
 		} catch (Exception e) {
 			this.logger.warn("Failed to validate '" + pooledObject.getObject()
 					+ "' due to an unexpected exception.", e);
 			return false;
+		} finally {
+			this.poolMetricsRecorder.recordValidation(contextType, System.nanoTime() - start, valid);
 		}
 	}
 
@@ -188,6 +270,7 @@ class DirContextPooledObjectFactory extends BaseKeyedPooledObjectFactory<Object,
 				"The Object to destroy must be of type '" + DirContext.class
 						+ "'");
 
+		final long start = System.nanoTime();
 		try {
 			final DirContext dirContext = (DirContext) pooledObject.getObject();
 			if (this.logger.isDebugEnabled()) {
@@ -202,6 +285,10 @@ class DirContextPooledObjectFactory extends BaseKeyedPooledObjectFactory<Object,
 		} catch (Exception e) {
 			this.logger.warn(
 					"An exception occured while closing '" + pooledObject.getObject() + "'", e);
+		} finally {
+			if (key instanceof DirContextType) {
+				this.poolMetricsRecorder.recordDestroy((DirContextType) key, System.nanoTime() - start);
+			}
 		}
 	}
 
@@ -221,39 +308,152 @@ class DirContextPooledObjectFactory extends BaseKeyedPooledObjectFactory<Object,
 		}
 
 		if (contextType == DirContextType.READ_WRITE) {
-			final DirContext readWriteContext = this.contextSource
-					.getReadWriteContext();
+			final DirContext readWriteContext = openContext(contextType);
 
 			if (this.logger.isDebugEnabled()) {
 				this.logger.debug("Created new " + DirContextType.READ_WRITE
 						+ " DirContext='" + readWriteContext + "'");
 			}
 
-			return makeFailureAwareProxy(readWriteContext);
+			return makeFailureAwareProxy(readWriteContext, contextType);
 		} else if (contextType == DirContextType.READ_ONLY) {
 
-			final DirContext readOnlyContext = this.contextSource
-					.getReadOnlyContext();
+			final DirContext readOnlyContext = openContext(contextType);
 
 			if (this.logger.isDebugEnabled()) {
 				this.logger.debug("Created new " + DirContextType.READ_ONLY
 						+ " DirContext='" + readOnlyContext + "'");
 			}
 
-			return makeFailureAwareProxy(readOnlyContext);
+			return makeFailureAwareProxy(readOnlyContext, contextType);
 		} else {
 			throw new IllegalArgumentException("Unrecognized ContextType: "
 					+ contextType);
 		}
 	}
 
+	private DirContext openContext(DirContextType contextType) {
+		final long start = System.nanoTime();
+		boolean success = false;
+		try {
+			final DirContext dirContext = (contextType == DirContextType.READ_WRITE)
+					? this.contextSource.getReadWriteContext()
+					: this.contextSource.getReadOnlyContext();
+			success = true;
+			return dirContext;
+		} finally {
+			this.poolMetricsRecorder.recordCreate(contextType, System.nanoTime() - start, success);
+		}
+	}
+
+	/**
+	 * Re-bind a pooled context with the supplied credentials, using a simple
+	 * bind on the existing connection. The original identity of the context
+	 * is restored when it is passivated, i.e. returned to the pool.
+	 *
+	 * @param pooledContext a context created by this factory.
+	 * @param principal the DN to bind as.
+	 * @param credentials the password to bind with.
+	 * @throws NamingException if the bind fails.
+	 */
+	void authenticate(Object pooledContext, String principal, String credentials) throws NamingException {
+		FailureAwareContextProxy failureAwareContextProxy = getFailureAwareContextProxy(pooledContext);
+		Assert.notNull(failureAwareContextProxy, "The context to authenticate must have been created by this factory");
+		failureAwareContextProxy.authenticate(principal, credentials);
+	}
+
+	/**
+	 * Reject contexts that have reached their maximum lifetime, so that the pool
+	 * destroys them instead of lending them out.
+	 *
+	 * @see BaseKeyedPooledObjectFactory#activateObject(Object, PooledObject)
+	 */
+	@Override
+	public void activateObject(Object key, PooledObject<Object> pooledObject) throws Exception {
+		assertNotExpired(key, pooledObject);
+	}
+
+	/**
+	 * Restore the original identity of contexts that were re-bound through
+	 * {@link #authenticate(Object, String, String)}. If that fails, or if the
+	 * context has reached its maximum lifetime, the pool will destroy the context.
+	 *
+	 * @see BaseKeyedPooledObjectFactory#passivateObject(Object, PooledObject)
+	 */
+	@Override
+	public void passivateObject(Object key, PooledObject<Object> pooledObject) throws Exception {
+		assertNotExpired(key, pooledObject);
+		FailureAwareContextProxy failureAwareContextProxy = getFailureAwareContextProxy(pooledObject.getObject());
+		if (failureAwareContextProxy != null) {
+			failureAwareContextProxy.resetIdentity();
+		}
+	}
+
+	private void assertNotExpired(Object key, PooledObject<Object> pooledObject) {
+		if (isExpired(pooledObject)) {
+			if (this.logger.isDebugEnabled()) {
+				this.logger.debug("Retiring " + key + " DirContext='" + pooledObject.getObject()
+						+ "' after reaching its maximum lifetime");
+			}
+			throw new IllegalStateException("DirContext has reached its maximum lifetime");
+		}
+	}
+
+	private FailureAwareContextProxy getFailureAwareContextProxy(Object pooledContext) {
+		if (pooledContext != null && Proxy.isProxyClass(pooledContext.getClass())) {
+			InvocationHandler invocationHandler = Proxy.getInvocationHandler(pooledContext);
+			if (invocationHandler instanceof FailureAwareContextProxy) {
+				return (FailureAwareContextProxy) invocationHandler;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * @see BaseKeyedPooledObjectFactory#wrap(Object)
 	 *
 	 * */
 	@Override
 	public PooledObject<Object> wrap(Object value) {
-		return new DefaultPooledObject<Object>(value);
+		final long lifetimeMillis = this.maxLifetime.toMillis();
+		if (lifetimeMillis <= 0) {
+			return new DefaultPooledObject<Object>(value);
+		}
+		final long jitterMillis = getMaxLifetimeJitterMillis();
+		final long expiryTime = System.currentTimeMillis() + lifetimeMillis
+				- ((jitterMillis > 0) ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0);
+		return new ExpiringPooledObject(value, expiryTime);
+	}
+
+	/**
+	 * Pooled object that remembers when it reaches its jittered maximum lifetime.
+	 */
+	private static final class ExpiringPooledObject extends DefaultPooledObject<Object> {
+
+		private final long expiryTime;
+
+		ExpiringPooledObject(Object object, long expiryTime) {
+			super(object);
+			this.expiryTime = expiryTime;
+		}
+	}
+
+	/**
+	 * Eviction policy that evicts idle contexts which have reached their maximum
+	 * lifetime, and otherwise defers to the configured policy, if any.
+	 */
+	private class MaxLifetimeEvictionPolicy implements EvictionPolicy<Object> {
+
+		private final EvictionPolicy<Object> delegate;
+
+		MaxLifetimeEvictionPolicy(EvictionPolicy<Object> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public boolean evict(EvictionConfig config, PooledObject<Object> underTest, int idleCount) {
+			return isExpired(underTest) || (this.delegate != null && this.delegate.evict(config, underTest, idleCount));
+		}
 	}
 
 	/**
@@ -268,11 +468,73 @@ class DirContextPooledObjectFactory extends BaseKeyedPooledObjectFactory<Object,
 
 		private DirContext target;
 
+		private final DirContextType contextType;
+
 		private boolean hasFailed = false;
 
-		public FailureAwareContextProxy(DirContext target) {
+		private Hashtable<?, ?> originalIdentity;
+
+		public FailureAwareContextProxy(DirContext target, DirContextType contextType) {
 			Assert.notNull(target, "Target must not be null");
 			this.target = target;
+			this.contextType = contextType;
+		}
+
+		void authenticate(String principal, String credentials) throws NamingException {
+			if (!(target instanceof LdapContext)) {
+				throw new UnsupportedOperationException("Pooled authentication requires LdapContext instances, got "
+						+ target.getClass());
+			}
+
+			if (originalIdentity == null) {
+				originalIdentity = (Hashtable<?, ?>) target.getEnvironment().clone();
+			}
+
+			try {
+				rebind((LdapContext) target, "simple", principal, credentials);
+			}
+			catch (NamingException e) {
+				// Bad credentials leave the connection usable; it will be reset when returned.
+				// Anything else leaves it in an unknown state, so make sure it is invalidated.
+				if (!(e instanceof AuthenticationException)) {
+					hasFailed = true;
+				}
+				throw e;
+			}
+		}
+
+		void resetIdentity() throws NamingException {
+			if (originalIdentity == null) {
+				return;
+			}
+
+			rebind((LdapContext) target,
+					originalIdentity.get(Context.SECURITY_AUTHENTICATION),
+					originalIdentity.get(Context.SECURITY_PRINCIPAL),
+					originalIdentity.get(Context.SECURITY_CREDENTIALS));
+			if (logger.isDebugEnabled()) {
+				logger.debug("Restored original identity of pooled DirContext='" + target + "'");
+			}
+			originalIdentity = null;
+		}
+
+		private void rebind(LdapContext ldapContext, Object authentication, Object principal, Object credentials)
+				throws NamingException {
+
+			setOrRemove(ldapContext, Context.SECURITY_AUTHENTICATION, authentication);
+			setOrRemove(ldapContext, Context.SECURITY_PRINCIPAL, principal);
+			setOrRemove(ldapContext, Context.SECURITY_CREDENTIALS, credentials);
+			// reconnect() issues a new bind request on the existing connection
+			ldapContext.reconnect(ldapContext.getConnectControls());
+		}
+
+		private void setOrRemove(LdapContext ldapContext, String property, Object value) throws NamingException {
+			if (value != null) {
+				ldapContext.addToEnvironment(property, value);
+			}
+			else {
+				ldapContext.removeFromEnvironment(property);
+			}
 		}
 
 		/*
@@ -310,6 +572,9 @@ class DirContextPooledObjectFactory extends BaseKeyedPooledObjectFactory<Object,
 				}
 
 				if(nonTransientEncountered) {
+					if (!hasFailed) {
+						poolMetricsRecorder.recordEagerInvalidation(contextType, targetExceptionClass);
+					}
 					hasFailed = true;
 				} else {
 					if (logger.isDebugEnabled()) {
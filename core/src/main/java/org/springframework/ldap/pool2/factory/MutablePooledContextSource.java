@@ -16,7 +16,6 @@
 
 package org.springframework.ldap.pool2.factory;
 
-import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.ldap.pool2.DirContextType;
 import org.springframework.ldap.pool2.DelegatingDirContext;
 import org.springframework.ldap.pool2.MutableDelegatingLdapContext;
@@ -45,13 +44,7 @@ public class MutablePooledContextSource extends PooledContextSource {
 	}
 
 	protected DirContext getContext(DirContextType dirContextType) {
-		final DirContext dirContext;
-		try {
-			dirContext = (DirContext) this.keyedObjectPool.borrowObject(dirContextType);
-		}
-		catch (Exception e) {
-			throw new DataAccessResourceFailureException("Failed to borrow DirContext from pool.", e);
-		}
+		final DirContext dirContext = borrowContext(dirContextType);
 
 		if (dirContext instanceof LdapContext) {
 			return new MutableDelegatingLdapContext(this.keyedObjectPool, (LdapContext) dirContext, dirContextType);
@@ -46,8 +46,25 @@ public class PoolConfig {
 	private boolean testOnReturn = false;
 	private boolean testWhileIdle = false;
 	private long timeBetweenEvictionRunsMillis = -1L;
+	private long validationBypassWindowMillis = 0L;
 
 
+	/**
+	 * Skip validating contexts that were returned to the pool less than the given number
+	 * of milliseconds ago, since they have just been used successfully. This avoids a
+	 * validation round trip before most operations on a busy pool with
+	 * <code>testOnBorrow</code>, while contexts that have been idle for longer are still
+	 * validated. Newly created contexts have not been returned yet, so they are always
+	 * validated with <code>testOnCreate</code>. Default is <code>0</code>, meaning that
+	 * contexts are always validated.
+	 *
+	 * @param validationBypassWindowMillis the window within which validation is skipped.
+	 * @since 3.1
+	 */
+	public void setValidationBypassWindowMillis(long validationBypassWindowMillis) {
+		this.validationBypassWindowMillis = validationBypassWindowMillis;
+	}
+
 	/**
 	 * @see org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig#setMaxIdlePerKey(int)
 	 *
@@ -329,4 +346,12 @@ public class PoolConfig {
 	public long getTimeBetweenEvictionRunsMillis() {
 		return timeBetweenEvictionRunsMillis;
 	}
+
+	/**
+	 * @see #setValidationBypassWindowMillis(long)
+	 * @since 3.1
+	 */
+	public long getValidationBypassWindowMillis() {
+		return validationBypassWindowMillis;
+	}
 }
@@ -21,16 +21,23 @@ import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.core.support.DelegatingBaseLdapPathContextSourceSupport;
+import org.springframework.ldap.pool2.DelegatingContext;
 import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.ldap.pool2.metrics.PoolMetricsRecorder;
 import org.springframework.ldap.pool2.validation.DirContextValidator;
 import org.springframework.ldap.pool2.DelegatingDirContext;
 import org.springframework.ldap.pool2.DelegatingLdapContext;
+import org.springframework.ldap.support.LdapUtils;
+import org.springframework.util.Assert;
 
+import javax.naming.NamingException;
 import javax.naming.directory.DirContext;
 import javax.naming.ldap.LdapContext;
+import java.time.Duration;
 import java.util.Collection;
 
 /**
@@ -69,6 +76,34 @@ import java.util.Collection;
  * <td valign="top">No</td>
  * <td valign="top">null</td>
  * </tr>
+ * <tr>
+ * <td valign="top">poolMetricsRecorder</td>
+ * <td valign="top">The {@link PoolMetricsRecorder} notified of borrow wait times and of
+ * the creation, validation, destruction and eager invalidation of pooled contexts.</td>
+ * <td valign="top">No</td>
+ * <td valign="top">{@link PoolMetricsRecorder#NOOP}</td>
+ * </tr>
+ * <tr>
+ * <td valign="top">authenticationPoolingEnabled</td>
+ * <td valign="top">Whether {@link #getContext(String, String)} should re-bind pooled
+ * read-only connections with the user's credentials rather than being unsupported.</td>
+ * <td valign="top">No</td>
+ * <td valign="top">false</td>
+ * </tr>
+ * <tr>
+ * <td valign="top">maxLifetime</td>
+ * <td valign="top">The maximum time a pooled context is kept open before it is retired,
+ * for instance to stay below the connection age limit of a load balancer.</td>
+ * <td valign="top">No</td>
+ * <td valign="top">{@link Duration#ZERO}, meaning no limit</td>
+ * </tr>
+ * <tr>
+ * <td valign="top">maxLifetimeJitter</td>
+ * <td valign="top">The maximum random amount by which the lifetime of each context is
+ * shortened, so that contexts opened together do not all expire at the same time.</td>
+ * <td valign="top">No</td>
+ * <td valign="top">2.5% of <code>maxLifetime</code></td>
+ * </tr>
  * </table>
  *
  * @since 2.0
@@ -77,7 +112,7 @@ import java.util.Collection;
  */
 public class PooledContextSource
 		extends DelegatingBaseLdapPathContextSourceSupport
-		implements ContextSource, DisposableBean {
+		implements ContextSource, InitializingBean, DisposableBean {
 	/**
 	 * The logger for this class and sub-classes
 	 */
@@ -89,6 +124,8 @@ public class PooledContextSource
 
 	private PoolConfig poolConfig;
 
+	private boolean authenticationPoolingEnabled = false;
+
 	/**
 	 * Creates a new pooling context source, setting up the DirContext object
 	 * factory and generic keyed object pool.
@@ -97,6 +134,7 @@ public class PooledContextSource
 		this.dirContextPooledObjectFactory = new DirContextPooledObjectFactory();
 		if (poolConfig != null) {
 			this.poolConfig = poolConfig;
+			this.dirContextPooledObjectFactory.setValidationBypassWindowMillis(poolConfig.getValidationBypassWindowMillis());
 			GenericKeyedObjectPoolConfig objectPoolConfig = getConfig(poolConfig);
 			this.keyedObjectPool =
 					new GenericKeyedObjectPool<Object,Object>(this.dirContextPooledObjectFactory, objectPoolConfig);
@@ -212,6 +250,136 @@ public class PooledContextSource
 		this.dirContextPooledObjectFactory.setNonTransientExceptions(nonTransientExceptions);
 	}
 
+	/**
+	 * @return the poolMetricsRecorder
+	 * @since 3.1
+	 */
+	public PoolMetricsRecorder getPoolMetricsRecorder() {
+		return this.dirContextPooledObjectFactory.getPoolMetricsRecorder();
+	}
+
+	/**
+	 * Set the {@link PoolMetricsRecorder} to notify about pool activity: the time spent
+	 * waiting to borrow contexts, and the creation, validation, destruction and eager
+	 * invalidation of pooled contexts. Default is {@link PoolMetricsRecorder#NOOP}.
+	 *
+	 * @param poolMetricsRecorder the recorder to use.
+	 * @since 3.1
+	 * @see org.springframework.ldap.pool2.metrics.MicrometerPoolMetricsRecorder
+	 */
+	public void setPoolMetricsRecorder(PoolMetricsRecorder poolMetricsRecorder) {
+		this.dirContextPooledObjectFactory.setPoolMetricsRecorder(poolMetricsRecorder);
+	}
+
+
+	/**
+	 * @return whether pooled authentication is enabled
+	 * @since 3.1
+	 */
+	public boolean isAuthenticationPoolingEnabled() {
+		return this.authenticationPoolingEnabled;
+	}
+
+	/**
+	 * Enable pooled authentication. When enabled, {@link #getContext(String, String)}
+	 * borrows a {@link DirContextType#READ_ONLY} context from the pool and re-binds it
+	 * with the supplied credentials on its existing connection, instead of requiring a
+	 * new connection (and, with TLS, a new handshake) for each authentication. When the
+	 * returned context is closed, its original identity is restored with another bind
+	 * before it is returned to the pool; should that fail, the context is destroyed.
+	 * <p>
+	 * Only simple authentication is supported, and the target {@link ContextSource}
+	 * must provide {@link LdapContext} instances. Authentications share the read-only
+	 * part of the pool, which should be sized accordingly. Default is <code>false</code>,
+	 * in which case {@link #getContext(String, String)} is not supported.
+	 *
+	 * @param authenticationPoolingEnabled <code>true</code> to enable pooled authentication.
+	 * @since 3.1
+	 */
+	public void setAuthenticationPoolingEnabled(boolean authenticationPoolingEnabled) {
+		this.authenticationPoolingEnabled = authenticationPoolingEnabled;
+	}
+
+	/**
+	 * @return the maximum lifetime of pooled contexts
+	 * @since 3.1
+	 */
+	public Duration getMaxLifetime() {
+		return this.dirContextPooledObjectFactory.getMaxLifetime();
+	}
+
+	/**
+	 * Set the maximum time a pooled context is kept open. Expired contexts are destroyed
+	 * when they are returned or about to be borrowed and, once the pool is
+	 * {@link #afterPropertiesSet() initialized}, by the pool's evictor while they are
+	 * idle, which then opens replacements for <code>minIdlePerKey</code> in the
+	 * background. If <code>timeBetweenEvictionRunsMillis</code> is not configured, the
+	 * evictor is started to only retire expired contexts, running at the interval of the
+	 * {@link #setMaxLifetimeJitter(Duration) jitter}, but at least every second. Each run
+	 * examines at most <code>numTestsPerEvictionRun</code> idle contexts.
+	 * Default is {@link Duration#ZERO}, meaning that contexts are kept open indefinitely.
+	 *
+	 * @param maxLifetime the maximum lifetime; zero for no limit.
+	 * @since 3.1
+	 * @see #setMaxLifetimeJitter(Duration)
+	 */
+	public void setMaxLifetime(Duration maxLifetime) {
+		this.dirContextPooledObjectFactory.setMaxLifetime(maxLifetime);
+	}
+
+	/**
+	 * Set the maximum random amount by which the lifetime of each context is shortened,
+	 * so that contexts opened together, such as when the pool is initialized, do not all
+	 * expire at the same time. Default is 2.5% of the {@link #setMaxLifetime(Duration)
+	 * maximum lifetime}.
+	 *
+	 * @param maxLifetimeJitter the maximum jitter; must be shorter than the maximum lifetime.
+	 * @since 3.1
+	 */
+	public void setMaxLifetimeJitter(Duration maxLifetimeJitter) {
+		this.dirContextPooledObjectFactory.setMaxLifetimeJitter(maxLifetimeJitter);
+	}
+
+	// ***** InitializingBean interface methods *****//
+
+	/**
+	 * Start retiring idle contexts that reach their {@link #setMaxLifetime(Duration)
+	 * maximum lifetime}, and open <code>minIdlePerKey</code> contexts of each
+	 * {@link DirContextType} up front, so that the first operations do not have to wait
+	 * for connections to be established. Contexts that cannot be opened are logged
+	 * rather than failing initialization; the pool then opens them on demand.
+	 *
+	 * @since 3.1
+	 */
+	@Override
+	public void afterPropertiesSet() {
+		final long lifetimeMillis = getMaxLifetime().toMillis();
+		if (lifetimeMillis > 0) {
+			final long jitterMillis = this.dirContextPooledObjectFactory.getMaxLifetimeJitterMillis();
+			Assert.isTrue(jitterMillis < lifetimeMillis, "maxLifetimeJitter must be shorter than maxLifetime");
+			if (this.keyedObjectPool.getTimeBetweenEvictionRunsMillis() > 0) {
+				this.keyedObjectPool.setEvictionPolicy(this.dirContextPooledObjectFactory.createMaxLifetimeEvictionPolicy(
+						this.keyedObjectPool.getEvictionPolicy()));
+			}
+			else {
+				// Idle eviction is not configured, so only evict expired contexts
+				this.keyedObjectPool.setEvictionPolicy(this.dirContextPooledObjectFactory.createMaxLifetimeEvictionPolicy(null));
+				this.keyedObjectPool.setTimeBetweenEvictionRunsMillis(Math.max(1000L,
+						(jitterMillis > 0) ? jitterMillis : lifetimeMillis / 40));
+			}
+		}
+		prepare(DirContextType.READ_ONLY);
+		prepare(DirContextType.READ_WRITE);
+	}
+
+	private void prepare(DirContextType dirContextType) {
+		try {
+			this.keyedObjectPool.preparePool(dirContextType);
+		}
+		catch (Exception e) {
+			this.logger.warn("Failed to open " + dirContextType + " DirContexts for the pool", e);
+		}
+	}
 
 	// ***** DisposableBean interface methods *****//
 
@@ -255,13 +423,7 @@ public class PooledContextSource
 	 * the pool throws an exception
 	 */
 	protected DirContext getContext(DirContextType dirContextType) {
-		final DirContext dirContext;
-		try {
-			dirContext = (DirContext) this.keyedObjectPool.borrowObject(dirContextType);
-		}
-		catch (Exception e) {
-			throw new DataAccessResourceFailureException("Failed to borrow DirContext from pool.", e);
-		}
+		final DirContext dirContext = borrowContext(dirContextType);
 
 		if (dirContext instanceof LdapContext) {
 			return new DelegatingLdapContext(this.keyedObjectPool, (LdapContext) dirContext, dirContextType);
@@ -270,9 +432,62 @@ public class PooledContextSource
 		return new DelegatingDirContext(this.keyedObjectPool, dirContext, dirContextType);
 	}
 
+	/**
+	 * Borrow a DirContext of the specified type from the keyed object pool,
+	 * recording the time spent waiting.
+	 */
+	DirContext borrowContext(DirContextType dirContextType) {
+		final PoolMetricsRecorder poolMetricsRecorder = getPoolMetricsRecorder();
+		final long start = System.nanoTime();
+		boolean success = false;
+		try {
+			final DirContext dirContext = (DirContext) this.keyedObjectPool.borrowObject(dirContextType);
+			success = true;
+			return dirContext;
+		}
+		catch (Exception e) {
+			throw new DataAccessResourceFailureException("Failed to borrow DirContext from pool.", e);
+		}
+		finally {
+			poolMetricsRecorder.recordBorrow(dirContextType, System.nanoTime() - start, success);
+		}
+	}
+
+	/**
+	 * Gets a pooled {@link DirContextType#READ_ONLY} DirContext authenticated with the
+	 * supplied credentials. Only supported if
+	 * {@link #setAuthenticationPoolingEnabled(boolean) pooled authentication} is enabled.
+	 *
+	 * @throws UnsupportedOperationException if pooled authentication is not enabled
+	 * @throws org.springframework.ldap.NamingException if the bind fails
+	 * @see #setAuthenticationPoolingEnabled(boolean)
+	 */
 	@Override
 	public DirContext getContext(String principal, String credentials) {
-		throw new UnsupportedOperationException("Not supported for this implementation");
+		if (!this.authenticationPoolingEnabled) {
+			throw new UnsupportedOperationException("Not supported for this implementation");
+		}
+
+		final DirContext dirContext = getContext(DirContextType.READ_ONLY);
+		try {
+			this.dirContextPooledObjectFactory.authenticate(
+					((DelegatingContext) dirContext).getInnermostDelegateContext(), principal, credentials);
+		}
+		catch (NamingException e) {
+			closeContext(dirContext);
+			throw LdapUtils.convertLdapException(e);
+		}
+
+		return dirContext;
+	}
+
+	private void closeContext(DirContext dirContext) {
+		try {
+			dirContext.close();
+		}
+		catch (Exception e) {
+			this.logger.debug("Failed to return DirContext to pool after failed authentication", e);
+		}
 	}
 
 	private GenericKeyedObjectPoolConfig getConfig(PoolConfig poolConfig) {
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.metrics;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.util.Assert;
+
+/**
+ * {@link PoolMetricsRecorder} publishing to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * The following meters are registered, all tagged with the context type
+ * (<code>read_only</code> or <code>read_write</code>) in addition to any
+ * common tags supplied:
+ * <ul>
+ * <li><code>spring.ldap.pool.borrow</code>: time spent waiting to borrow a
+ * context, tagged with the <code>outcome</code> (<code>success</code> or
+ * <code>failure</code>). A percentile histogram is published so that wait time
+ * distributions can be aggregated across instances.</li>
+ * <li><code>spring.ldap.pool.create</code>: time spent opening new contexts,
+ * tagged with the <code>outcome</code>.</li>
+ * <li><code>spring.ldap.pool.validate</code>: time spent validating contexts,
+ * tagged with the <code>outcome</code> (<code>valid</code> or
+ * <code>invalid</code>).</li>
+ * <li><code>spring.ldap.pool.destroy</code>: time spent closing contexts.</li>
+ * <li><code>spring.ldap.pool.invalidations</code>: number of contexts
+ * eagerly invalidated after a non-transient exception, tagged with the
+ * <code>exception</code> class.</li>
+ * </ul>
+ *
+ * @since 3.1
+ */
+public class MicrometerPoolMetricsRecorder implements PoolMetricsRecorder {
+
+	private static final String PREFIX = "spring.ldap.pool.";
+
+	private final MeterRegistry registry;
+
+	private final Tags tags;
+
+	private final TypeMeters readOnly;
+
+	private final TypeMeters readWrite;
+
+	/**
+	 * Create a new recorder registering its meters in the supplied registry.
+	 *
+	 * @param registry the registry to publish to.
+	 */
+	public MicrometerPoolMetricsRecorder(MeterRegistry registry) {
+		this(registry, Collections.emptyList());
+	}
+
+	/**
+	 * Create a new recorder registering its meters in the supplied registry.
+	 *
+	 * @param registry the registry to publish to.
+	 * @param tags common tags added to all meters, typically identifying the
+	 * pool when several are in use.
+	 */
+	public MicrometerPoolMetricsRecorder(MeterRegistry registry, Iterable<Tag> tags) {
+		Assert.notNull(registry, "registry must not be null");
+		Assert.notNull(tags, "tags must not be null");
+		this.registry = registry;
+		this.tags = Tags.of(tags);
+		this.readOnly = new TypeMeters(DirContextType.READ_ONLY);
+		this.readWrite = new TypeMeters(DirContextType.READ_WRITE);
+	}
+
+	@Override
+	public void recordBorrow(DirContextType contextType, long waitNanos, boolean success) {
+		TypeMeters meters = meters(contextType);
+		(success ? meters.borrowSuccess : meters.borrowFailure).record(waitNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordCreate(DirContextType contextType, long durationNanos, boolean success) {
+		TypeMeters meters = meters(contextType);
+		(success ? meters.createSuccess : meters.createFailure).record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordValidation(DirContextType contextType, long durationNanos, boolean valid) {
+		TypeMeters meters = meters(contextType);
+		(valid ? meters.validateValid : meters.validateInvalid).record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordDestroy(DirContextType contextType, long durationNanos) {
+		meters(contextType).destroy.record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void recordEagerInvalidation(DirContextType contextType, Class<? extends Throwable> exceptionClass) {
+		Counter.builder(PREFIX + "invalidations")
+				.description("Pooled contexts eagerly invalidated after a non-transient exception")
+				.tags(this.tags)
+				.tag("type", typeTag(contextType))
+				.tag("exception", exceptionClass.getSimpleName())
+				.register(this.registry)
+				.increment();
+	}
+
+	private TypeMeters meters(DirContextType contextType) {
+		return (contextType == DirContextType.READ_WRITE) ? this.readWrite : this.readOnly;
+	}
+
+	private static String typeTag(DirContextType contextType) {
+		return contextType.toString().toLowerCase();
+	}
+
+	private final class TypeMeters {
+
+		private final Timer borrowSuccess;
+
+		private final Timer borrowFailure;
+
+		private final Timer createSuccess;
+
+		private final Timer createFailure;
+
+		private final Timer validateValid;
+
+		private final Timer validateInvalid;
+
+		private final Timer destroy;
+
+		private TypeMeters(DirContextType contextType) {
+			Tags typeTags = tags.and("type", typeTag(contextType));
+			this.borrowSuccess = borrowTimer(typeTags, "success");
+			this.borrowFailure = borrowTimer(typeTags, "failure");
+			this.createSuccess = timer("create", "Time spent opening new pooled contexts", typeTags, "success");
+			this.createFailure = timer("create", "Time spent opening new pooled contexts", typeTags, "failure");
+			this.validateValid = timer("validate", "Time spent validating pooled contexts", typeTags, "valid");
+			this.validateInvalid = timer("validate", "Time spent validating pooled contexts", typeTags, "invalid");
+			this.destroy = Timer.builder(PREFIX + "destroy")
+					.description("Time spent closing pooled contexts")
+					.tags(typeTags)
+					.register(registry);
+		}
+
+		private Timer borrowTimer(Tags typeTags, String outcome) {
+			return Timer.builder(PREFIX + "borrow")
+					.description("Time spent waiting to borrow a context from the pool")
+					.tags(typeTags)
+					.tag("outcome", outcome)
+					.publishPercentileHistogram()
+					.register(registry);
+		}
+
+		private Timer timer(String name, String description, Tags typeTags, String outcome) {
+			return Timer.builder(PREFIX + name)
+					.description(description)
+					.tags(typeTags)
+					.tag("outcome", outcome)
+					.register(registry);
+		}
+
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.metrics;
+
+import org.springframework.ldap.pool2.DirContextType;
+
+/**
+ * Callback interface for recording metrics about the lifecycle of pooled
+ * {@link javax.naming.directory.DirContext} instances. All methods have empty
+ * default implementations, so implementations only need to override the events
+ * they are interested in.
+ * <p>
+ * Implementations are invoked on the threads borrowing, creating, validating
+ * and destroying pooled contexts, and must therefore be thread-safe and fast.
+ *
+ * @since 3.1
+ * @see org.springframework.ldap.pool2.factory.PooledContextSource#setPoolMetricsRecorder(PoolMetricsRecorder)
+ * @see MicrometerPoolMetricsRecorder
+ */
+public interface PoolMetricsRecorder {
+
+	/**
+	 * A recorder that does nothing.
+	 */
+	PoolMetricsRecorder NOOP = new PoolMetricsRecorder() {
+	};
+
+	/**
+	 * Record an attempt to borrow a context from the pool.
+	 *
+	 * @param contextType the type of context requested.
+	 * @param waitNanos the time spent waiting for the pool, including the time
+	 * needed to create and validate a new context if none was idle.
+	 * @param success <code>false</code> if no context could be borrowed.
+	 */
+	default void recordBorrow(DirContextType contextType, long waitNanos, boolean success) {
+	}
+
+	/**
+	 * Record the creation of a new context by the pool.
+	 *
+	 * @param contextType the type of context created.
+	 * @param durationNanos the time spent opening the context.
+	 * @param success <code>false</code> if the target ContextSource failed to
+	 * provide a context.
+	 */
+	default void recordCreate(DirContextType contextType, long durationNanos, boolean success) {
+	}
+
+	/**
+	 * Record the validation of a pooled context.
+	 *
+	 * @param contextType the type of context validated.
+	 * @param durationNanos the time spent validating the context.
+	 * @param valid the validation outcome.
+	 */
+	default void recordValidation(DirContextType contextType, long durationNanos, boolean valid) {
+	}
+
+	/**
+	 * Record the destruction of a pooled context.
+	 *
+	 * @param contextType the type of context destroyed.
+	 * @param durationNanos the time spent closing the context.
+	 */
+	default void recordDestroy(DirContextType contextType, long durationNanos) {
+	}
+
+	/**
+	 * Record a pooled context being marked as failed after one of the
+	 * configured non-transient exceptions was thrown; the context will be
+	 * invalidated rather than returned to the pool.
+	 *
+	 * @param contextType the type of the failed context.
+	 * @param exceptionClass the non-transient exception encountered.
+	 */
+	default void recordEagerInvalidation(DirContextType contextType, Class<? extends Throwable> exceptionClass) {
+	}
+
+}
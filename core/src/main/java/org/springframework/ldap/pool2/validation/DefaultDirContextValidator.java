@@ -77,6 +77,7 @@ import javax.naming.directory.SearchResult;
 public class DefaultDirContextValidator implements DirContextValidator {
 	public static final String DEFAULT_FILTER = "objectclass=*";
 	private static final int DEFAULT_TIME_LIMIT = 500;
+	private static final String NO_ATTRIBUTES = "1.1";
 
 	/**
 	 * Logger for this class and sub-classes
@@ -114,6 +115,21 @@ public class DefaultDirContextValidator implements DirContextValidator {
 		this.filter = DEFAULT_FILTER;
 	}
 	
+	/**
+	 * Create a validator that reads the Root DSE without requesting any attributes,
+	 * making the response as small as a search response can be. Prefer
+	 * {@link WhoAmIDirContextValidator} if the server supports the WhoAmI extended
+	 * operation.
+	 *
+	 * @return a new validator.
+	 * @since 3.1
+	 */
+	public static DefaultDirContextValidator rootDse() {
+		DefaultDirContextValidator validator = new DefaultDirContextValidator();
+		validator.getSearchControls().setReturningAttributes(new String[] { NO_ATTRIBUTES });
+		return validator;
+	}
+
 	/**
 	 * @return the baseName
 	 */
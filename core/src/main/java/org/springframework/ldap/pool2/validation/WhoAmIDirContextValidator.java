@@ -0,0 +1,117 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.validation;
+
+import java.util.Arrays;
+
+import javax.naming.directory.DirContext;
+import javax.naming.ldap.ExtendedRequest;
+import javax.naming.ldap.ExtendedResponse;
+import javax.naming.ldap.LdapContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DirContextValidator} that issues the WhoAmI extended operation
+ * (<a href="https://www.rfc-editor.org/rfc/rfc4532">RFC 4532</a>). The request carries no
+ * value and the response only the authorization identity, which makes it cheaper for the
+ * server than the search issued by {@link DefaultDirContextValidator}. The server must
+ * support the operation, and the validated contexts must be {@link LdapContext}s.
+ *
+ * @since 3.1
+ */
+public class WhoAmIDirContextValidator implements DirContextValidator {
+
+	/**
+	 * The object identifier of the WhoAmI extended operation.
+	 */
+	public static final String WHO_AM_I_OID = "1.3.6.1.4.1.4203.1.11.3";
+
+	private static final ExtendedRequest WHO_AM_I_REQUEST = new WhoAmIRequest();
+
+	/**
+	 * Logger for this class and sub-classes
+	 */
+	protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	/**
+	 * @see DirContextValidator#validateDirContext(DirContextType, DirContext)
+	 */
+	@Override
+	public boolean validateDirContext(DirContextType contextType, DirContext dirContext) {
+		Assert.notNull(contextType, "contextType may not be null");
+		Assert.isInstanceOf(LdapContext.class, dirContext, "WhoAmI validation requires an LdapContext");
+
+		try {
+			((LdapContext) dirContext).extendedOperation(WHO_AM_I_REQUEST);
+			this.logger.debug("DirContext '{}' passed validation.", dirContext);
+			return true;
+		}
+		catch (Exception e) {
+			this.logger.debug("DirContext '{}' failed validation with an exception.", dirContext, e);
+			return false;
+		}
+	}
+
+	private static final class WhoAmIRequest implements ExtendedRequest {
+
+		@Override
+		public String getID() {
+			return WHO_AM_I_OID;
+		}
+
+		@Override
+		public byte[] getEncodedValue() {
+			return null;
+		}
+
+		@Override
+		public ExtendedResponse createExtendedResponse(String id, byte[] berValue, int offset, int length) {
+			return new WhoAmIResponse(id,
+					(berValue != null) ? Arrays.copyOfRange(berValue, offset, offset + length) : null);
+		}
+
+	}
+
+	private static final class WhoAmIResponse implements ExtendedResponse {
+
+		private final String id;
+
+		private final byte[] encodedValue;
+
+		WhoAmIResponse(String id, byte[] encodedValue) {
+			this.id = id;
+			this.encodedValue = encodedValue;
+		}
+
+		@Override
+		public String getID() {
+			return this.id;
+		}
+
+		@Override
+		public byte[] getEncodedValue() {
+			return this.encodedValue;
+		}
+
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.support.LdapUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.ldap.core.SearchResultFixtures.cnMapper;
+import static org.springframework.ldap.core.SearchResultFixtures.results;
+import static org.springframework.ldap.core.SearchResultFixtures.searchResult;
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+public class AsyncLdapTemplateTest {
+
+	private static final LdapName BASE = LdapUtils.newLdapName("ou=people");
+
+	private static final String FILTER = "(objectclass=person)";
+
+	private ContextSource contextSourceMock;
+
+	private DirContext dirContextMock;
+
+	private AsyncLdapTemplate tested;
+
+	@Before
+	public void setUp() {
+		this.contextSourceMock = mock(ContextSource.class);
+		this.dirContextMock = mock(DirContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock);
+		when(this.contextSourceMock.getReadWriteContext()).thenReturn(this.dirContextMock);
+
+		this.tested = new AsyncLdapTemplate(this.contextSourceMock);
+	}
+
+	@Test
+	public void lookupCompletesWithMappedEntry() throws Exception {
+		when(this.dirContextMock.lookup("cn=john")).thenReturn("entry");
+
+		CompletableFuture<String> future = this.tested.lookup("cn=john", (ContextMapper<String>) (ctx) -> ctx + "!");
+
+		assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo("entry!");
+		verify(this.dirContextMock).close();
+	}
+
+	@Test
+	public void failedLookupCompletesExceptionallyWithTranslatedException() throws Exception {
+		when(this.dirContextMock.lookup("cn=missing")).thenThrow(new javax.naming.NameNotFoundException());
+
+		CompletableFuture<Object> future = this.tested.lookup("cn=missing", (ContextMapper<Object>) (ctx) -> ctx);
+
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+				.withCauseInstanceOf(NameNotFoundException.class);
+	}
+
+	@Test
+	public void searchCollectsMappedResults() throws Exception {
+		NamingEnumeration<SearchResult> results = results(searchResult("a"), searchResult("b"));
+		when(this.dirContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(results);
+
+		CompletableFuture<List<String>> future = this.tested
+				.search(query().base(BASE).where("objectclass").is("person"), cnMapper());
+
+		assertThat(future.get(5, TimeUnit.SECONDS)).containsExactly("a", "b");
+		verify(results).close();
+		verify(this.dirContextMock).close();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void cancellingSearchClosesNamingEnumeration() throws Exception {
+		CountDownLatch searching = new CountDownLatch(1);
+		CountDownLatch closed = new CountDownLatch(1);
+		NamingEnumeration<SearchResult> results = mock(NamingEnumeration.class);
+		when(results.hasMore()).thenAnswer((invocation) -> {
+			searching.countDown();
+			closed.await(5, TimeUnit.SECONDS);
+			return false;
+		});
+		doAnswer((invocation) -> {
+			closed.countDown();
+			return null;
+		}).when(results).close();
+		when(this.dirContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(results);
+
+		CompletableFuture<List<String>> future = this.tested
+				.search(query().base(BASE).where("objectclass").is("person"), cnMapper());
+		assertThat(searching.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(future.cancel(true)).isTrue();
+
+		assertThat(closed.getCount()).isZero();
+		verify(this.dirContextMock, timeout(5000)).close();
+	}
+
+	@Test
+	public void operationCancelledBeforeStartingIsNotPerformed() {
+		List<Runnable> tasks = new ArrayList<>();
+		this.tested.setExecutor(tasks::add);
+
+		CompletableFuture<List<String>> search = this.tested
+				.search(query().base(BASE).where("objectclass").is("person"), cnMapper());
+		CompletableFuture<Object> lookup = this.tested.lookup("cn=john", (ContextMapper<Object>) (ctx) -> ctx);
+		search.cancel(true);
+		lookup.cancel(true);
+		tasks.forEach(Runnable::run);
+
+		verifyNoInteractions(this.contextSourceMock);
+	}
+
+}
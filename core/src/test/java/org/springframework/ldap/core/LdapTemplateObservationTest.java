@@ -0,0 +1,183 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.ModificationItem;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapName;
+
+import io.micrometer.observation.tck.TestObservationRegistry;
+import io.micrometer.observation.tck.TestObservationRegistryAssert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.support.LdapUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+/**
+ * Tests for the observations recorded by {@link LdapTemplate}.
+ */
+public class LdapTemplateObservationTest {
+
+	private static final String OBSERVATION_NAME = "spring.ldap.operation";
+
+	private ContextSource contextSourceMock;
+
+	private DirContext dirContextMock;
+
+	private NamingEnumeration<SearchResult> namingEnumerationMock;
+
+	private TestObservationRegistry observationRegistry;
+
+	private LdapTemplate tested;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		this.contextSourceMock = mock(ContextSource.class);
+		this.dirContextMock = mock(DirContext.class);
+		this.namingEnumerationMock = mock(NamingEnumeration.class);
+		this.observationRegistry = TestObservationRegistry.create();
+
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock);
+		when(this.contextSourceMock.getReadWriteContext()).thenReturn(this.dirContextMock);
+
+		this.tested = new LdapTemplate(this.contextSourceMock);
+		this.tested.setObservationRegistry(this.observationRegistry);
+	}
+
+	@Test
+	public void searchIsObservedWithFilterShapeAndResultCount() throws Exception {
+		LdapName base = LdapUtils.newLdapName("ou=people");
+		when(this.dirContextMock.search(eq(base), eq("(&(objectclass=person)(cn=John*))"), any(SearchControls.class)))
+				.thenReturn(this.namingEnumerationMock);
+		when(this.namingEnumerationMock.hasMore()).thenReturn(true, true, false);
+		when(this.namingEnumerationMock.next()).thenReturn(searchResult(), searchResult());
+
+		List<Object> result = this.tested.search(base, "(&(objectclass=person)(cn=John*))",
+				SearchControls.ONELEVEL_SCOPE, (AttributesMapper<Object>) (attributes) -> attributes);
+
+		assertThat(result).hasSize(2);
+		TestObservationRegistryAssert.assertThat(this.observationRegistry)
+				.hasSingleObservationThat()
+				.hasNameEqualTo(OBSERVATION_NAME)
+				.hasContextualNameEqualTo("ldap search")
+				.hasBeenStopped()
+				.hasLowCardinalityKeyValue("ldap.operation", "search")
+				.hasLowCardinalityKeyValue("ldap.base", "ou=people")
+				.hasLowCardinalityKeyValue("ldap.scope", "onelevel")
+				.hasLowCardinalityKeyValue("ldap.filter", "(&(objectclass=?)(cn=?*))")
+				.hasLowCardinalityKeyValue("exception", "none")
+				.hasHighCardinalityKeyValue("ldap.result.count", "2");
+	}
+
+	@Test
+	public void failedSearchIsObservedWithTranslatedException() throws Exception {
+		when(this.dirContextMock.search(eq("ou=missing"), eq("(cn=john)"), any(SearchControls.class)))
+				.thenThrow(new javax.naming.NameNotFoundException());
+
+		assertThatExceptionOfType(NameNotFoundException.class).isThrownBy(() -> this.tested.search("ou=missing",
+				"(cn=john)", (AttributesMapper<Object>) (attributes) -> attributes));
+
+		TestObservationRegistryAssert.assertThat(this.observationRegistry)
+				.hasSingleObservationThat()
+				.hasBeenStopped()
+				.hasError()
+				.hasLowCardinalityKeyValue("exception", "NameNotFoundException")
+				.hasHighCardinalityKeyValue("ldap.result.count", "0");
+	}
+
+	@Test
+	public void lookupIsObservedWithDnAsHighCardinalityKeyValue() throws Exception {
+		LdapName dn = LdapUtils.newLdapName("cn=john,ou=people");
+		when(this.dirContextMock.lookup(dn)).thenReturn("entry");
+
+		assertThat(this.tested.lookup(dn)).isEqualTo("entry");
+
+		TestObservationRegistryAssert.assertThat(this.observationRegistry)
+				.hasSingleObservationThat()
+				.hasContextualNameEqualTo("ldap lookup")
+				.hasLowCardinalityKeyValue("ldap.operation", "lookup")
+				.hasLowCardinalityKeyValue("ldap.base", "none")
+				.hasLowCardinalityKeyValue("ldap.filter", "none")
+				.hasHighCardinalityKeyValue("ldap.dn", "cn=john,ou=people")
+				.hasHighCardinalityKeyValue("ldap.result.count", "1");
+	}
+
+	@Test
+	public void modifyAttributesIsObserved() throws Exception {
+		this.tested.modifyAttributes("cn=john,ou=people", new ModificationItem[0]);
+
+		TestObservationRegistryAssert.assertThat(this.observationRegistry)
+				.hasSingleObservationThat()
+				.hasLowCardinalityKeyValue("ldap.operation", "modify.attributes")
+				.hasHighCardinalityKeyValue("ldap.dn", "cn=john,ou=people");
+	}
+
+	@Test
+	public void streamObservationIsStoppedWhenStreamIsClosed() throws Exception {
+		when(this.dirContextMock.search(any(LdapName.class), eq("(cn=john)"), any(SearchControls.class)))
+				.thenReturn(this.namingEnumerationMock);
+		when(this.namingEnumerationMock.asIterator()).thenCallRealMethod();
+		when(this.namingEnumerationMock.hasMoreElements()).thenReturn(true, false);
+		when(this.namingEnumerationMock.nextElement()).thenReturn(searchResult());
+
+		try (Stream<Object> stream = this.tested.searchForStream(query().where("cn").is("john"),
+				(AttributesMapper<Object>) (attributes) -> attributes)) {
+			assertThat(stream.count()).isEqualTo(1);
+			TestObservationRegistryAssert.assertThat(this.observationRegistry)
+					.hasSingleObservationThat()
+					.hasBeenStarted()
+					.isNotStopped();
+		}
+
+		TestObservationRegistryAssert.assertThat(this.observationRegistry)
+				.hasSingleObservationThat()
+				.hasBeenStopped()
+				.hasHighCardinalityKeyValue("ldap.result.count", "1");
+	}
+
+	@Test
+	public void noObservationsWithoutRegistry() throws Exception {
+		LdapTemplate template = new LdapTemplate(this.contextSourceMock);
+		when(this.dirContextMock.lookup("cn=john")).thenReturn("entry");
+
+		assertThat(template.lookup("cn=john")).isEqualTo("entry");
+
+		TestObservationRegistryAssert.assertThat(this.observationRegistry).doesNotHaveAnyObservation();
+	}
+
+	private static SearchResult searchResult() {
+		return new SearchResult("", null, new BasicAttributes());
+	}
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.PagedResultsControl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.support.LdapUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.ldap.core.SearchResultFixtures.cnMapper;
+import static org.springframework.ldap.core.SearchResultFixtures.responseControls;
+import static org.springframework.ldap.core.SearchResultFixtures.results;
+import static org.springframework.ldap.core.SearchResultFixtures.searchResult;
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+/**
+ * Tests for the paged {@link LdapTemplate#searchForStream(LdapQuery, int, AttributesMapper)}.
+ */
+public class LdapTemplatePagedStreamTest {
+
+	private static final LdapName BASE = LdapUtils.newLdapName("ou=people");
+
+	private static final String FILTER = "(objectclass=person)";
+
+	private static final LdapQuery QUERY = query().base(BASE).where("objectclass").is("person");
+
+	private ContextSource contextSourceMock;
+
+	private LdapContext ldapContextMock;
+
+	private LdapTemplate tested;
+
+	@Before
+	public void setUp() {
+		this.contextSourceMock = mock(ContextSource.class);
+		this.ldapContextMock = mock(LdapContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.ldapContextMock);
+		this.tested = new LdapTemplate(this.contextSourceMock);
+	}
+
+	@Test
+	public void nextPageIsRequestedWhenCurrentPageIsDrained() throws Exception {
+		NamingEnumeration<SearchResult> firstPage = results(searchResult("a"), searchResult("b"));
+		NamingEnumeration<SearchResult> secondPage = results(searchResult("c"));
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(firstPage,
+				secondPage);
+		Control[] morePages = responseControls(new byte[] { 1 });
+		Control[] lastPage = responseControls(new byte[0]);
+		when(this.ldapContextMock.getResponseControls()).thenReturn(morePages, lastPage);
+
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, 2, cnMapper())) {
+			verify(this.ldapContextMock, never()).search(any(LdapName.class), any(String.class),
+					any(SearchControls.class));
+			Iterator<String> iterator = stream.iterator();
+			assertThat(iterator.next()).isEqualTo("a");
+			assertThat(iterator.next()).isEqualTo("b");
+			verify(this.ldapContextMock, times(1)).search(eq(BASE), eq(FILTER), any(SearchControls.class));
+			assertThat(iterator.next()).isEqualTo("c");
+			assertThat(iterator.hasNext()).isFalse();
+			verify(this.ldapContextMock, times(2)).search(eq(BASE), eq(FILTER), any(SearchControls.class));
+			verify(this.ldapContextMock, never()).close();
+		}
+
+		ArgumentCaptor<Control[]> controls = ArgumentCaptor.forClass(Control[].class);
+		verify(this.ldapContextMock, times(3)).setRequestControls(controls.capture());
+		assertThat(controls.getAllValues().get(0)).hasOnlyElementsOfType(PagedResultsControl.class);
+		assertThat(controls.getAllValues().get(1)).hasOnlyElementsOfType(PagedResultsControl.class);
+		assertThat(controls.getAllValues().get(2)).isEmpty();
+		verify(firstPage).close();
+		verify(secondPage).close();
+		verify(this.ldapContextMock).close();
+	}
+
+	@Test
+	public void closingStreamEarlyClosesResultsAndContext() throws Exception {
+		NamingEnumeration<SearchResult> firstPage = results(searchResult("a"), searchResult("b"));
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(firstPage);
+
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, 2, cnMapper())) {
+			assertThat(stream.findFirst()).hasValue("a");
+		}
+
+		verify(firstPage).close();
+		verify(this.ldapContextMock, never()).getResponseControls();
+		verify(this.ldapContextMock).close();
+	}
+
+	@Test
+	public void contextIsNotObtainedUntilStreamIsConsumed() throws Exception {
+		NamingEnumeration<SearchResult> firstPage = results(searchResult("a"));
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(firstPage);
+
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, 0, cnMapper())) {
+			verify(this.contextSourceMock, never()).getReadOnlyContext();
+			assertThat(stream.findFirst()).hasValue("a");
+			verify(this.contextSourceMock, times(1)).getReadOnlyContext();
+		}
+		verify(this.ldapContextMock).close();
+	}
+
+	@Test
+	public void closingUnconsumedStreamNeverObtainsContext() {
+		Stream<String> stream = this.tested.searchForStream(QUERY, 2, cnMapper());
+		stream.close();
+
+		verify(this.contextSourceMock, never()).getReadOnlyContext();
+	}
+
+	@Test
+	public void zeroPageSizeSearchesWithoutPagedResultsControl() throws Exception {
+		NamingEnumeration<SearchResult> results = results(searchResult("a"), searchResult("b"));
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(results);
+
+		List<String> collected;
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, 0, cnMapper())) {
+			collected = stream.collect(Collectors.toList());
+		}
+
+		assertThat(collected).containsExactly("a", "b");
+		verify(this.ldapContextMock, never()).setRequestControls(any());
+	}
+
+	@Test
+	public void searchExceptionsAreTranslated() throws Exception {
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class)))
+				.thenThrow(new javax.naming.NameNotFoundException());
+
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, 2, cnMapper())) {
+			assertThatExceptionOfType(NameNotFoundException.class).isThrownBy(stream::count);
+		}
+		verify(this.ldapContextMock).close();
+	}
+
+	@Test
+	public void ignoredSearchExceptionsEndTheStream() throws Exception {
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class)))
+				.thenThrow(new javax.naming.NameNotFoundException());
+		this.tested.setIgnoreNameNotFoundException(true);
+
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, 2, cnMapper())) {
+			assertThat(stream.count()).isZero();
+		}
+	}
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.naming.Name;
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.LdapContext;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.core.support.AttributePrefixSearchPartitioner;
+import org.springframework.ldap.core.support.CountNameClassPairCallbackHandler;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+/**
+ * Tests for the partitioned searches of {@link LdapTemplate}.
+ */
+public class LdapTemplatePartitionedSearchTest {
+
+	private static final LdapQuery QUERY = query().base("ou=people").where("objectclass").is("person");
+
+	private static final SearchPartitioner PARTITIONER = new AttributePrefixSearchPartitioner("uid", "a", "b");
+
+	private final List<LdapContext> contexts = new CopyOnWriteArrayList<>();
+
+	private LdapTemplate tested;
+
+	@Before
+	public void setUp() {
+		ContextSource contextSourceMock = mock(ContextSource.class);
+		when(contextSourceMock.getReadOnlyContext()).thenAnswer((invocation) -> {
+			LdapContext ctx = mock(LdapContext.class);
+			when(ctx.search(any(Name.class), anyString(), any(SearchControls.class)))
+					.thenAnswer((search) -> results(search.getArgument(1)));
+			this.contexts.add(ctx);
+			return ctx;
+		});
+		this.tested = new LdapTemplate(contextSourceMock);
+	}
+
+	@Test
+	public void partitionsAreMergedIntoOneStream() throws Exception {
+		List<String> uids;
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, PARTITIONER, 2, 0, uidMapper())) {
+			uids = stream.collect(Collectors.toList());
+		}
+
+		assertThat(uids).containsExactlyInAnyOrder("a1", "a2", "b1", "c1");
+		assertThat(this.contexts).hasSize(3);
+		for (LdapContext ctx : this.contexts) {
+			verify(ctx).close();
+		}
+	}
+
+	@Test
+	public void partitionsArePassedToCallbackHandler() {
+		CountNameClassPairCallbackHandler handler = new CountNameClassPairCallbackHandler();
+
+		this.tested.search(QUERY, PARTITIONER, 3, 0, handler);
+
+		assertThat(handler.getNoOfRows()).isEqualTo(4);
+	}
+
+	@Test
+	public void failureInPartitionIsPropagated() {
+		SearchPartitioner partitioner = new AttributePrefixSearchPartitioner("uid", "a", "missing");
+
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, partitioner, 2, 0, uidMapper())) {
+			assertThatExceptionOfType(NameNotFoundException.class).isThrownBy(stream::count);
+		}
+	}
+
+	@Test
+	public void closingStreamStopsSearches() throws Exception {
+		SearchPartitioner partitioner = new AttributePrefixSearchPartitioner("uid", "large", "huge");
+
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, partitioner, 3, 0, uidMapper())) {
+			assertThat(stream.limit(5).count()).isEqualTo(5);
+		}
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.contexts.size() < 3 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		for (LdapContext ctx : this.contexts) {
+			verify(ctx, timeout(5000)).close();
+		}
+	}
+
+	@Test
+	public void missingSearchScopeIsResolvedAgainstDefaultSearchScope() throws Exception {
+		List<LdapQuery> partitioned = new CopyOnWriteArrayList<>();
+		SearchPartitioner partitioner = (query, operations) -> {
+			partitioned.add(query);
+			return Collections.singletonList(query);
+		};
+		this.tested.setDefaultSearchScope(SearchControls.ONELEVEL_SCOPE);
+
+		try (Stream<String> stream = this.tested.searchForStream(QUERY, partitioner, 1, 0, uidMapper())) {
+			stream.count();
+		}
+
+		assertThat(partitioned).extracting(LdapQuery::searchScope).containsExactly(SearchScope.ONELEVEL);
+		ArgumentCaptor<SearchControls> controls = ArgumentCaptor.forClass(SearchControls.class);
+		verify(this.contexts.get(0)).search(any(Name.class), anyString(), controls.capture());
+		assertThat(controls.getValue().getSearchScope()).isEqualTo(SearchControls.ONELEVEL_SCOPE);
+	}
+
+	private static AttributesMapper<String> uidMapper() {
+		return (attributes) -> (String) attributes.get("uid").get();
+	}
+
+	private static NamingEnumeration<SearchResult> results(String filter) throws javax.naming.NamingException {
+		if (filter.contains("(uid=missing*)")) {
+			throw new javax.naming.NameNotFoundException();
+		}
+		List<String> uids;
+		if (filter.contains("(uid=large*)") || filter.contains("(uid=huge*)")) {
+			uids = IntStream.range(0, 10000).mapToObj((i) -> "x" + i).collect(Collectors.toList());
+		}
+		else if (filter.contains("(!(")) {
+			uids = Collections.singletonList("c1");
+		}
+		else if (filter.contains("(uid=a*)")) {
+			uids = List.of("a1", "a2");
+		}
+		else {
+			uids = Collections.singletonList("b1");
+		}
+		List<SearchResult> results = new ArrayList<>();
+		for (String uid : uids) {
+			results.add(new SearchResult("uid=" + uid, null, new BasicAttributes("uid", uid)));
+		}
+		return new IteratorNamingEnumeration(results.iterator());
+	}
+
+	private static final class IteratorNamingEnumeration implements NamingEnumeration<SearchResult> {
+
+		private final Iterator<SearchResult> iterator;
+
+		private IteratorNamingEnumeration(Iterator<SearchResult> iterator) {
+			this.iterator = iterator;
+		}
+
+		@Override
+		public SearchResult next() {
+			return nextElement();
+		}
+
+		@Override
+		public boolean hasMore() {
+			return this.iterator.hasNext();
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public boolean hasMoreElements() {
+			return this.iterator.hasNext();
+		}
+
+		@Override
+		public SearchResult nextElement() {
+			if (!this.iterator.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return this.iterator.next();
+		}
+
+	}
+
+}
@@ -16,13 +16,17 @@
 
 package org.springframework.ldap.core;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import javax.naming.Binding;
 import javax.naming.CompositeName;
 import javax.naming.Name;
 import javax.naming.NamingEnumeration;
 import javax.naming.NamingException;
+import javax.naming.directory.BasicAttribute;
 import javax.naming.directory.BasicAttributes;
 import javax.naming.directory.DirContext;
 import javax.naming.directory.ModificationItem;
@@ -39,22 +43,32 @@ import org.mockito.ArgumentMatcher;
 import org.springframework.LdapDataEntry;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.ldap.CommunicationException;
 import org.springframework.ldap.LimitExceededException;
+import org.springframework.ldap.NameAlreadyBoundException;
 import org.springframework.ldap.NameNotFoundException;
 import org.springframework.ldap.PartialResultException;
 import org.springframework.ldap.UncategorizedLdapException;
 import org.springframework.ldap.filter.EqualsFilter;
 import org.springframework.ldap.filter.Filter;
+import org.springframework.ldap.odm.annotations.Attribute;
+import org.springframework.ldap.odm.annotations.DnAttribute;
+import org.springframework.ldap.odm.annotations.Entry;
+import org.springframework.ldap.odm.annotations.Id;
 import org.springframework.ldap.odm.core.ObjectDirectoryMapper;
+import org.springframework.ldap.odm.core.impl.DefaultObjectDirectoryMapper;
 import org.springframework.ldap.query.LdapQuery;
 import org.springframework.ldap.query.LdapQueryBuilder;
 import org.springframework.ldap.support.LdapUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -131,6 +145,8 @@ public class LdapTemplateTest {
 		query = LdapQueryBuilder.query().base("ou=spring").filter("ou=user");
 		authContextMapperMock = mock(AuthenticatedLdapEntryContextMapper.class);
 
+		when(odmMock.isIdWritable(any(Class.class))).thenReturn(true);
+
 		tested = new LdapTemplate(contextSourceMock);
 		tested.setObjectDirectoryMapper(odmMock);
 	}
@@ -635,6 +651,32 @@ public class LdapTemplateTest {
 		assertThat(result).isSameAs(expectedResult);
 	}
 
+	@Test
+	public void findProjectionRequestsOnlyTheProjectedAttributes() throws Exception {
+		Class<Object> expectedClass = Object.class;
+		Class<CharSequence> expectedProjection = CharSequence.class;
+		String[] expectedReturningAttributes = new String[] { "cn", "objectclass" };
+		SearchControls expectedControls = searchControlsRecursive();
+		expectedControls.setReturningAttributes(expectedReturningAttributes);
+
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock);
+		when(odmMock.filterFor(expectedClass,
+				new EqualsFilter("ou", "somevalue"))).thenReturn(new EqualsFilter("ou", "somevalue"));
+		when(odmMock.manageProjection(expectedClass, expectedProjection)).thenReturn(expectedReturningAttributes);
+
+		DirContextAdapter expectedObject = new DirContextAdapter();
+		SearchResult searchResult = new SearchResult("", expectedObject, new BasicAttributes());
+		singleSearchResult(expectedControls, searchResult);
+		when(odmMock.mapFromLdapDataEntry(expectedObject, expectedClass, expectedProjection)).thenReturn("projection");
+
+		List<CharSequence> result = tested.find(query().where("ou").is("somevalue"), expectedClass, expectedProjection);
+
+		assertThat(result).containsExactly("projection");
+		verify(odmMock, never()).manageClass(any(Class.class));
+		verify(namingEnumerationMock).close();
+		verify(dirContextMock).close();
+	}
+
 	@Test
 	public void verifyThatFindOneThrowsEmptyResultIfNoResult() throws Exception {
 		Class<Object> expectedClass = Object.class;
@@ -1141,13 +1183,24 @@ public class LdapTemplateTest {
 		}
 	}
 
+	@Test
+	public void testObjectDirectoryMapperIsNotBoundToTemplate() {
+		DefaultObjectDirectoryMapper objectDirectoryMapper = new DefaultObjectDirectoryMapper();
+		LdapTemplate first = new LdapTemplate(contextSourceMock);
+		first.setObjectDirectoryMapper(objectDirectoryMapper);
+		LdapTemplate second = new LdapTemplate(mock(ContextSource.class));
+		second.setObjectDirectoryMapper(objectDirectoryMapper);
+
+		assertThat(objectDirectoryMapper.getLdapOperations()).isNull();
+	}
+
 	@Test
 	public void testUpdateWithIdSpecified() throws NamingException {
-		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock);
 		when(contextSourceMock.getReadWriteContext()).thenReturn(dirContextMock);
 		LdapName expectedName = LdapUtils.newLdapName("ou=someOu");
 
-		ModificationItem[] expectedModificationItems = new ModificationItem[0];
+		ModificationItem[] expectedModificationItems = new ModificationItem[] {
+				new ModificationItem(DirContext.REPLACE_ATTRIBUTE, new BasicAttribute("description", "some value")) };
 		DirContextOperations ctxMock = mock(DirContextOperations.class);
 		when(ctxMock.getDn()).thenReturn(expectedName);
 		when(ctxMock.isUpdateMode()).thenReturn(true);
@@ -1164,17 +1217,18 @@ public class LdapTemplateTest {
 		verify(odmMock, never()).setId(expectedObject, expectedName);
 		verify(odmMock).mapToLdapDataEntry(expectedObject, ctxMock);
 		verify(dirContextMock).modifyAttributes(expectedName, expectedModificationItems);
+		verify(contextSourceMock, never()).getReadOnlyContext();
 
-		verify(dirContextMock, times(2)).close();
+		verify(dirContextMock).close();
 	}
 
 	@Test
 	public void testUpdateWithIdCalculated() throws NamingException {
-		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock);
 		when(contextSourceMock.getReadWriteContext()).thenReturn(dirContextMock);
 		LdapName expectedName = LdapUtils.newLdapName("ou=someOu");
 
-		ModificationItem[] expectedModificationItems = new ModificationItem[0];
+		ModificationItem[] expectedModificationItems = new ModificationItem[] {
+				new ModificationItem(DirContext.REPLACE_ATTRIBUTE, new BasicAttribute("description", "some value")) };
 		DirContextOperations ctxMock = mock(DirContextOperations.class);
 		when(ctxMock.getDn()).thenReturn(expectedName);
 		when(ctxMock.isUpdateMode()).thenReturn(true);
@@ -1191,8 +1245,9 @@ public class LdapTemplateTest {
 		verify(odmMock).setId(expectedObject, expectedName);
 		verify(odmMock).mapToLdapDataEntry(expectedObject, ctxMock);
 		verify(dirContextMock).modifyAttributes(expectedName, expectedModificationItems);
+		verify(contextSourceMock, never()).getReadOnlyContext();
 
-		verify(dirContextMock, times(2)).close();
+		verify(dirContextMock).close();
 	}
 
 	@Test
@@ -1217,6 +1272,237 @@ public class LdapTemplateTest {
 		verify(dirContextMock, times(2)).close();
 	}
 
+	@Test
+	public void testUpdateMovesRecordEntryWithoutSettingItsId() throws NamingException {
+		when(contextSourceMock.getReadWriteContext()).thenReturn(dirContextMock, dirContextMock);
+		LdapName originalName = LdapUtils.newLdapName("cn=John,ou=people");
+		PersonRecord person = new PersonRecord(originalName, "Jane");
+		LdapTemplate template = new LdapTemplate(contextSourceMock);
+
+		template.update(person);
+
+		assertThat(person.dn()).isEqualTo(originalName);
+		verify(dirContextMock).unbind(originalName);
+		verify(dirContextMock).bind(eq(LdapUtils.newLdapName("cn=Jane,ou=people")), any(DirContextAdapter.class),
+				eq(null));
+	}
+
+	@Test
+	public void testUpdateWithSnapshotDoesNotReadEntry() throws NamingException {
+		expectGetReadWriteContext();
+		LdapName expectedName = LdapUtils.newLdapName("ou=someOu");
+
+		Object expectedObject = new Object();
+		when(odmMock.getId(expectedObject)).thenReturn(expectedName);
+		when(odmMock.getSnapshot(expectedObject)).thenReturn(new BasicAttributes("description", "old", true));
+		ArgumentCaptor<DirContextOperations> ctxCaptor = ArgumentCaptor.forClass(DirContextOperations.class);
+		doAnswer((invocation) -> {
+			invocation.<DirContextOperations>getArgument(1).setAttributeValue("description", "new");
+			return null;
+		}).when(odmMock).mapToLdapDataEntry(eq(expectedObject), ctxCaptor.capture());
+
+		tested.update(expectedObject);
+
+		ArgumentCaptor<ModificationItem[]> modsCaptor = ArgumentCaptor.forClass(ModificationItem[].class);
+		verify(dirContextMock).modifyAttributes(eq(expectedName), modsCaptor.capture());
+		assertThat(modsCaptor.getValue()).hasSize(1);
+		assertThat(modsCaptor.getValue()[0].getModificationOp()).isEqualTo(DirContext.REPLACE_ATTRIBUTE);
+		verify(contextSourceMock, never()).getReadOnlyContext();
+		verify(dirContextMock, never()).lookup(any(Name.class));
+		verify(odmMock).takeSnapshot(expectedObject, ctxCaptor.getValue());
+		assertThat(ctxCaptor.getValue().getStringAttribute("description")).isEqualTo("new");
+	}
+
+	@Test
+	public void testUpdateWithUnchangedSnapshotDoesNothing() throws NamingException {
+		Object expectedObject = new Object();
+		when(odmMock.getId(expectedObject)).thenReturn(LdapUtils.newLdapName("ou=someOu"));
+		when(odmMock.getSnapshot(expectedObject)).thenReturn(new BasicAttributes("description", "old", true));
+
+		tested.update(expectedObject);
+
+		verify(contextSourceMock, never()).getReadWriteContext();
+		verify(contextSourceMock, never()).getReadOnlyContext();
+	}
+
+	@Test
+	public void testCreateAllReportsFailuresPerEntry() throws NamingException {
+		expectGetReadWriteContext();
+
+		Object existing = new Object();
+		Object created = new Object();
+		LdapName existingName = LdapUtils.newLdapName("cn=existing,ou=people");
+		LdapName createdName = LdapUtils.newLdapName("cn=created,ou=people");
+		when(odmMock.getId(existing)).thenReturn(existingName);
+		when(odmMock.getId(created)).thenReturn(createdName);
+		doThrow(new javax.naming.NameAlreadyBoundException()).when(dirContextMock).bind(eq(existingName),
+				any(DirContextAdapter.class), eq(null));
+
+		BulkResult<Object> result = tested.createAll(Arrays.asList(existing, created));
+
+		assertThat(result.getSucceeded()).containsExactly(created);
+		assertThat(result.getFailures()).hasSize(1);
+		assertThat(result.getFailures().get(0).getEntry()).isSameAs(existing);
+		assertThat(result.getFailures().get(0).getException()).isInstanceOf(NameAlreadyBoundException.class);
+		verify(dirContextMock).bind(eq(createdName), any(DirContextAdapter.class), eq(null));
+		verify(contextSourceMock).getReadWriteContext();
+		verify(dirContextMock).close();
+	}
+
+	@Test
+	public void testUpdateAllReadsEntriesWithSingleSearchPerParent() throws NamingException {
+		expectGetReadWriteContext();
+
+		Object john = new Object();
+		Object jane = new Object();
+		Object missing = new Object();
+		LdapName johnName = LdapUtils.newLdapName("cn=john,ou=people");
+		LdapName janeName = LdapUtils.newLdapName("cn=jane,ou=people");
+		LdapName missingName = LdapUtils.newLdapName("cn=missing,ou=people");
+		when(odmMock.getId(john)).thenReturn(johnName);
+		when(odmMock.getId(jane)).thenReturn(janeName);
+		when(odmMock.getId(missing)).thenReturn(missingName);
+		doAnswer((invocation) -> {
+			invocation.<DirContextOperations>getArgument(1).setAttributeValue("description", "updated");
+			return null;
+		}).when(odmMock).mapToLdapDataEntry(any(), any(DirContextOperations.class));
+
+		when(dirContextMock.search(eq(LdapUtils.newLdapName("ou=people")), eq("(|(cn=john)(cn=jane)(cn=missing))"),
+				any(SearchControls.class))).thenReturn(namingEnumerationMock);
+		when(namingEnumerationMock.hasMore()).thenReturn(true, true, false);
+		when(namingEnumerationMock.next()).thenReturn(
+				new SearchResult("cn=john", null, new BasicAttributes("description", "old", true)),
+				new SearchResult("cn=jane", null, new BasicAttributes("description", "updated", true)));
+		when(dirContextMock.lookup(missingName)).thenThrow(new javax.naming.NameNotFoundException());
+
+		BulkResult<Object> result = tested.updateAll(Arrays.asList(john, jane, missing));
+
+		assertThat(result.getSucceeded()).containsExactly(john, jane);
+		assertThat(result.getFailures()).extracting(BulkResult.Failure::getEntry).containsExactly(missing);
+		verify(dirContextMock).modifyAttributes(eq(johnName), any(ModificationItem[].class));
+		verify(dirContextMock, never()).modifyAttributes(eq(janeName), any(ModificationItem[].class));
+		verify(dirContextMock, never()).lookup(johnName);
+		verify(namingEnumerationMock).close();
+		verify(dirContextMock).close();
+	}
+
+	@Test
+	public void testUpdateAllReadsEntriesOneAtATimeWhenSearchFails() throws NamingException {
+		expectGetReadWriteContext();
+
+		Object john = new Object();
+		Object missing = new Object();
+		LdapName johnName = LdapUtils.newLdapName("cn=john,ou=people");
+		LdapName missingName = LdapUtils.newLdapName("cn=missing,ou=people");
+		when(odmMock.getId(john)).thenReturn(johnName);
+		when(odmMock.getId(missing)).thenReturn(missingName);
+		doAnswer((invocation) -> {
+			invocation.<DirContextOperations>getArgument(1).setAttributeValue("description", "updated");
+			return null;
+		}).when(odmMock).mapToLdapDataEntry(any(), any(DirContextOperations.class));
+
+		when(dirContextMock.search(eq(LdapUtils.newLdapName("ou=people")), anyString(), any(SearchControls.class)))
+				.thenThrow(new javax.naming.SizeLimitExceededException());
+		DirContextAdapter johnContext = new DirContextAdapter(new BasicAttributes("description", "old", true),
+				johnName);
+		johnContext.setUpdateMode(true);
+		when(dirContextMock.lookup(johnName)).thenReturn(johnContext);
+		when(dirContextMock.lookup(missingName)).thenThrow(new javax.naming.NameNotFoundException());
+
+		BulkResult<Object> result = tested.updateAll(Arrays.asList(john, missing));
+
+		assertThat(result.getSucceeded()).containsExactly(john);
+		assertThat(result.getFailures()).extracting(BulkResult.Failure::getEntry).containsExactly(missing);
+		assertThat(result.getFailures()).extracting(BulkResult.Failure::getException)
+				.hasOnlyElementsOfType(NameNotFoundException.class);
+		verify(dirContextMock).modifyAttributes(eq(johnName), any(ModificationItem[].class));
+		verify(dirContextMock).close();
+	}
+
+	@Test
+	public void testBulkOperationFailsWhenNoContextCanBeObtained() {
+		when(contextSourceMock.getReadWriteContext()).thenThrow(new CommunicationException(
+				new javax.naming.CommunicationException()));
+
+		assertThatExceptionOfType(CommunicationException.class)
+				.isThrownBy(() -> tested.deleteAll(Arrays.asList(new Object())));
+	}
+
+	@Test
+	public void testDeleteAllWritesChunksConcurrently() throws NamingException {
+		when(contextSourceMock.getReadWriteContext()).thenReturn(dirContextMock);
+		tested.setBulkChunkSize(1);
+		tested.setPartitionExecutor(Runnable::run);
+
+		Object first = new Object();
+		Object second = new Object();
+		LdapName firstName = LdapUtils.newLdapName("cn=first");
+		LdapName secondName = LdapUtils.newLdapName("cn=second");
+		when(odmMock.getId(first)).thenReturn(firstName);
+		when(odmMock.getId(second)).thenReturn(secondName);
+
+		BulkResult<Object> result = tested.deleteAll(Stream.of(first, second), 2);
+
+		assertThat(result.hasFailures()).isFalse();
+		assertThat(result.getSucceeded()).containsExactly(first, second);
+		verify(dirContextMock).unbind(firstName);
+		verify(dirContextMock).unbind(secondName);
+		verify(dirContextMock).close();
+	}
+
+	@Test
+	public void testLookupAllSearchesOncePerParent() throws NamingException {
+		expectGetReadOnlyContext();
+
+		LdapName people = LdapUtils.newLdapName("ou=people");
+		when(dirContextMock.search(eq(people), eq("(|(cn=john)(cn=jane)(cn=missing))"), any(SearchControls.class)))
+				.thenReturn(namingEnumerationMock);
+		when(namingEnumerationMock.hasMore()).thenReturn(true, true, false);
+		when(namingEnumerationMock.next()).thenReturn(
+				new SearchResult("cn=Jane", null, new BasicAttributes("cn", "Jane", true)),
+				new SearchResult("cn=john", null, new BasicAttributes("cn", "john", true)));
+		when(dirContextMock.search(eq(LdapUtils.newLdapName("ou=removed")), eq("(cn=gone)"),
+				any(SearchControls.class))).thenThrow(new javax.naming.NameNotFoundException());
+
+		Map<LdapName, String> result = tested.lookupAll(
+				Arrays.asList(LdapUtils.newLdapName("cn=john,ou=people"), LdapUtils.newLdapName("cn=gone,ou=removed"),
+						LdapUtils.newLdapName("cn=jane,ou=people"), LdapUtils.newLdapName("cn=missing,ou=people")),
+				new String[] { "cn" }, (AttributesMapper<String>) (attributes) -> (String) attributes.get("cn").get());
+
+		assertThat(result.values()).containsExactly("john", "Jane");
+		assertThat(result.get(LdapUtils.newLdapName("CN=JANE, OU=People"))).isEqualTo("Jane");
+		ArgumentCaptor<SearchControls> controls = ArgumentCaptor.forClass(SearchControls.class);
+		verify(dirContextMock).search(eq(people), anyString(), controls.capture());
+		assertThat(controls.getValue().getSearchScope()).isEqualTo(SearchControls.ONELEVEL_SCOPE);
+		assertThat(controls.getValue().getReturningAttributes()).containsExactly("cn");
+		verify(dirContextMock, never()).getAttributes(any(Name.class), any(String[].class));
+		verify(namingEnumerationMock).close();
+		verify(dirContextMock).close();
+	}
+
+	@Test
+	public void testLookupAllReadsEntriesWithoutFilterableNameIndividually() throws NamingException {
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock);
+		tested.setBulkChunkSize(1);
+		tested.setPartitionExecutor(Runnable::run);
+
+		LdapName binary = LdapUtils.newLdapName("uid=#04024869,ou=people");
+		when(dirContextMock.getAttributes(binary, null)).thenReturn(new BasicAttributes("uid", "binary", true));
+		when(dirContextMock.search(eq(LdapUtils.newLdapName("ou=people")), eq("(cn=john)"),
+				any(SearchControls.class))).thenReturn(namingEnumerationMock);
+		when(namingEnumerationMock.hasMore()).thenReturn(true, false);
+		when(namingEnumerationMock.next())
+				.thenReturn(new SearchResult("cn=john", null, new BasicAttributes("uid", "john", true)));
+
+		Map<LdapName, String> result = tested.lookupAll(
+				Arrays.asList(binary, LdapUtils.newLdapName("cn=john,ou=people")), null,
+				(ContextMapper<String>) (ctx) -> ((DirContextOperations) ctx).getStringAttribute("uid"), 2);
+
+		assertThat(result.values()).containsExactly("binary", "john");
+		verify(dirContextMock).getAttributes(binary, null);
+		verify(dirContextMock).close();
+	}
+
 	@Test
 	public void testUnbind() throws Exception {
 		expectGetReadWriteContext();
@@ -1909,6 +2195,10 @@ public class LdapTemplateTest {
 		return controls;
 	}
 
+	@Entry(objectClasses = { "person", "top" }, base = "ou=people")
+	record PersonRecord(@Id Name dn, @Attribute(name = "cn") @DnAttribute(value = "cn", index = 0) String name) {
+	}
+
 	private static class SearchControlsMatcher implements ArgumentMatcher<SearchControls> {
 		private final SearchControls controls;
 
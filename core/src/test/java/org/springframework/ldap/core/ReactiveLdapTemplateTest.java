@@ -0,0 +1,184 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.ModificationItem;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.LdapContext;
+import javax.naming.ldap.LdapName;
+import javax.naming.ldap.PagedResultsControl;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.support.LdapUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.ldap.core.SearchResultFixtures.cnMapper;
+import static org.springframework.ldap.core.SearchResultFixtures.responseControls;
+import static org.springframework.ldap.core.SearchResultFixtures.results;
+import static org.springframework.ldap.core.SearchResultFixtures.searchResult;
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+public class ReactiveLdapTemplateTest {
+
+	private static final LdapName BASE = LdapUtils.newLdapName("ou=people");
+
+	private static final String FILTER = "(objectclass=person)";
+
+	private ContextSource contextSourceMock;
+
+	private LdapContext ldapContextMock;
+
+	private LdapTemplate ldapTemplate;
+
+	private ReactiveLdapTemplate tested;
+
+	@Before
+	public void setUp() {
+		this.contextSourceMock = mock(ContextSource.class);
+		this.ldapContextMock = mock(LdapContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.ldapContextMock);
+		when(this.contextSourceMock.getReadWriteContext()).thenReturn(this.ldapContextMock);
+
+		this.ldapTemplate = new LdapTemplate(this.contextSourceMock);
+		this.tested = new ReactiveLdapTemplate(this.ldapTemplate);
+		this.tested.setScheduler(Schedulers.immediate());
+	}
+
+	@Test
+	public void searchRequestsNextPageOnlyWhenDemanded() throws Exception {
+		NamingEnumeration<SearchResult> firstPage = results(searchResult("a"), searchResult("b"));
+		NamingEnumeration<SearchResult> secondPage = results(searchResult("c"));
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(firstPage,
+				secondPage);
+		Control[] morePages = responseControls(new byte[] { 1 });
+		Control[] lastPage = responseControls(new byte[0]);
+		when(this.ldapContextMock.getResponseControls()).thenReturn(morePages, lastPage);
+		this.tested.setPageSize(2);
+
+		StepVerifier.create(this.tested.search(query().base(BASE).where("objectclass").is("person"), cnMapper()), 0)
+				.thenRequest(2)
+				.expectNext("a", "b")
+				.then(() -> verifySearches(1))
+				.thenRequest(2)
+				.expectNext("c")
+				.verifyComplete();
+
+		verifySearches(2);
+		ArgumentCaptor<Control[]> controls = ArgumentCaptor.forClass(Control[].class);
+		verify(this.ldapContextMock, times(3)).setRequestControls(controls.capture());
+		assertThat(controls.getAllValues().get(0)).hasOnlyElementsOfType(PagedResultsControl.class);
+		assertThat(controls.getAllValues().get(2)).isEmpty();
+		verify(firstPage).close();
+		verify(secondPage).close();
+		verify(this.ldapContextMock).close();
+	}
+
+	@Test
+	public void searchWithoutPageSizeDoesNotSetRequestControls() throws Exception {
+		NamingEnumeration<SearchResult> results = results(searchResult("a"));
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(results);
+
+		StepVerifier.create(this.tested.search(query().base(BASE).where("objectclass").is("person"), cnMapper()))
+				.expectNext("a")
+				.verifyComplete();
+
+		verify(this.ldapContextMock, never()).setRequestControls(any());
+		verify(this.ldapContextMock).close();
+	}
+
+	@Test
+	public void cancelledSearchClosesResultsAndContext() throws Exception {
+		NamingEnumeration<SearchResult> results = results(searchResult("a"), searchResult("b"));
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class))).thenReturn(results);
+
+		StepVerifier.create(this.tested.search(query().base(BASE).where("objectclass").is("person"), cnMapper()), 1)
+				.expectNext("a")
+				.thenCancel()
+				.verify();
+
+		verify(results).close();
+		verify(this.ldapContextMock).close();
+	}
+
+	@Test
+	public void searchSignalsTranslatedException() throws Exception {
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class)))
+				.thenThrow(new javax.naming.NameNotFoundException());
+
+		StepVerifier.create(this.tested.search(query().base(BASE).where("objectclass").is("person"), cnMapper()))
+				.verifyError(NameNotFoundException.class);
+
+		verify(this.ldapContextMock).close();
+	}
+
+	@Test
+	public void searchCompletesOnIgnoredException() throws Exception {
+		when(this.ldapContextMock.search(eq(BASE), eq(FILTER), any(SearchControls.class)))
+				.thenThrow(new javax.naming.NameNotFoundException());
+		this.ldapTemplate.setIgnoreNameNotFoundException(true);
+
+		StepVerifier.create(this.tested.search(query().base(BASE).where("objectclass").is("person"), cnMapper()))
+				.verifyComplete();
+	}
+
+	@Test
+	public void lookupIsDeferredUntilSubscription() throws Exception {
+		LdapName dn = LdapUtils.newLdapName("cn=john,ou=people");
+		when(this.ldapContextMock.lookup(dn)).thenReturn(new DirContextAdapter(dn));
+
+		StepVerifier.create(this.tested.lookupContext(dn))
+				.then(() -> verify(this.contextSourceMock).getReadOnlyContext())
+				.assertNext((ctx) -> assertThat(ctx.getDn()).isEqualTo(dn))
+				.verifyComplete();
+	}
+
+	@Test
+	public void modifyAttributesCompletesEmpty() throws Exception {
+		ModificationItem[] mods = new ModificationItem[0];
+
+		StepVerifier.create(this.tested.modifyAttributes("cn=john", mods)).verifyComplete();
+
+		verify(this.ldapContextMock).modifyAttributes("cn=john", mods);
+		verify(this.ldapContextMock).close();
+	}
+
+	private void verifySearches(int count) {
+		try {
+			verify(this.ldapContextMock, times(count)).search(eq(BASE), eq(FILTER), any(SearchControls.class));
+		}
+		catch (javax.naming.NamingException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+}
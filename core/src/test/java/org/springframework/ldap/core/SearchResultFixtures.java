@@ -0,0 +1,83 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.SearchResult;
+import javax.naming.ldap.Control;
+import javax.naming.ldap.PagedResultsResponseControl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Search results and related fixtures shared by the tests of the streaming,
+ * asynchronous and reactive search operations.
+ */
+final class SearchResultFixtures {
+
+	private SearchResultFixtures() {
+	}
+
+	/**
+	 * @return a mapper returning the <code>cn</code> attribute of each entry.
+	 */
+	static AttributesMapper<String> cnMapper() {
+		return (attributes) -> (String) attributes.get("cn").get();
+	}
+
+	/**
+	 * @param cn the common name of the entry.
+	 * @return a search result for the relative name <code>cn=&lt;cn&gt;</code>
+	 * with only a <code>cn</code> attribute.
+	 */
+	static SearchResult searchResult(String cn) {
+		return new SearchResult("cn=" + cn, null, new BasicAttributes("cn", cn));
+	}
+
+	/**
+	 * @param results the results to enumerate, possibly none.
+	 * @return a mocked enumeration of the supplied results.
+	 */
+	@SuppressWarnings("unchecked")
+	static NamingEnumeration<SearchResult> results(SearchResult... results) throws Exception {
+		NamingEnumeration<SearchResult> enumeration = mock(NamingEnumeration.class);
+		Boolean[] hasMore = new Boolean[results.length];
+		for (int i = 0; i < results.length; i++) {
+			hasMore[i] = (i < results.length - 1);
+		}
+		when(enumeration.hasMore()).thenReturn(results.length > 0, hasMore);
+		if (results.length > 0) {
+			SearchResult[] rest = new SearchResult[results.length - 1];
+			System.arraycopy(results, 1, rest, 0, rest.length);
+			when(enumeration.next()).thenReturn(results[0], rest);
+		}
+		return enumeration;
+	}
+
+	/**
+	 * @param cookie the paged results cookie; empty on the last page.
+	 * @return response controls holding a paged results response with the cookie.
+	 */
+	static Control[] responseControls(byte[] cookie) {
+		PagedResultsResponseControl control = mock(PagedResultsResponseControl.class);
+		when(control.getCookie()).thenReturn(cookie);
+		return new Control[] { control };
+	}
+
+}
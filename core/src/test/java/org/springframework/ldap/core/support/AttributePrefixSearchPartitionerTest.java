@@ -0,0 +1,64 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+public class AttributePrefixSearchPartitionerTest {
+
+	@Test
+	public void partitionsByPrefixWithRemainder() {
+		LdapQuery query = query().base("ou=people").searchScope(SearchScope.SUBTREE).attributes("cn")
+				.where("objectclass").is("person");
+
+		List<LdapQuery> partitions = new AttributePrefixSearchPartitioner("uid", "A", "b").partition(query, null);
+
+		assertThat(partitions).extracting((partition) -> partition.filter().encode()).containsExactly(
+				"(&(objectclass=person)(uid=a*))",
+				"(&(objectclass=person)(uid=b*))",
+				"(&(objectclass=person)(!(|(uid=a*)(uid=b*))))");
+		assertThat(partitions).allSatisfy((partition) -> {
+			assertThat(partition.base()).isEqualTo(query.base());
+			assertThat(partition.searchScope()).isEqualTo(SearchScope.SUBTREE);
+			assertThat(partition.attributes()).containsExactly("cn");
+		});
+	}
+
+	@Test
+	public void defaultPrefixesAreLettersAndDigits() {
+		List<LdapQuery> partitions = new AttributePrefixSearchPartitioner("uid")
+				.partition(query().where("objectclass").is("person"), null);
+
+		assertThat(partitions).hasSize(37);
+	}
+
+	@Test
+	public void overlappingPrefixesAreRejected() {
+		assertThatIllegalArgumentException().isThrownBy(() -> new AttributePrefixSearchPartitioner("uid", "a", "AB"));
+		assertThatIllegalArgumentException().isThrownBy(() -> new AttributePrefixSearchPartitioner("uid", "a", "a"));
+	}
+
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.naming.ldap.LdapName;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ldap.UncategorizedLdapException;
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.odm.core.ObjectDirectoryMapper;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+import org.springframework.ldap.support.LdapUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+public class CachingLdapOperationsTest {
+
+	private final AttributesMapper<String> mapper = (attributes) -> "mapped";
+
+	private LdapOperations delegate;
+
+	private Clock clock;
+
+	private CachingLdapOperations tested;
+
+	@Before
+	public void setUp() {
+		this.delegate = mock(LdapOperations.class);
+		this.clock = mock(Clock.class);
+		when(this.delegate.lookup(anyString(), eq(this.mapper))).thenReturn("mapped");
+		this.tested = new CachingLdapOperations(this.delegate);
+		this.tested.setClock(this.clock);
+	}
+
+	@Test
+	public void lookupIsCachedByNormalizedDn() {
+		assertThat(this.tested.lookup("cn=John,ou=People", this.mapper)).isEqualTo("mapped");
+		assertThat(this.tested.lookup("CN=john, OU=people", this.mapper)).isEqualTo("mapped");
+
+		verify(this.delegate).lookup("cn=John,ou=People", this.mapper);
+		LdapCacheStatistics statistics = this.tested.getStatistics();
+		assertThat(statistics.getHitCount()).isEqualTo(1);
+		assertThat(statistics.getMissCount()).isEqualTo(1);
+		assertThat(statistics.getHitRate()).isEqualTo(0.5);
+		assertThat(statistics.getSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void requestedAttributesArePartOfTheKey() {
+		when(this.delegate.lookup(anyString(), any(String[].class), eq(this.mapper))).thenReturn("mapped");
+
+		this.tested.lookup("cn=john", new String[] { "cn", "mail" }, this.mapper);
+		this.tested.lookup("cn=john", new String[] { "MAIL", "cn" }, this.mapper);
+		this.tested.lookup("cn=john", new String[] { "cn" }, this.mapper);
+		this.tested.lookup("cn=john", this.mapper);
+
+		assertThat(this.tested.getStatistics().getHitCount()).isEqualTo(1);
+		assertThat(this.tested.getStatistics().getMissCount()).isEqualTo(3);
+	}
+
+	@Test
+	public void entriesExpireAfterTimeToLive() {
+		this.tested.setTimeToLive(Duration.ofSeconds(10));
+		when(this.clock.millis()).thenReturn(0L, 9999L, 10000L);
+
+		this.tested.lookup("cn=john", this.mapper);
+		this.tested.lookup("cn=john", this.mapper);
+		this.tested.lookup("cn=john", this.mapper);
+
+		verify(this.delegate, times(2)).lookup("cn=john", this.mapper);
+		assertThat(this.tested.getStatistics().getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void leastRecentlyUsedEntriesAreEvictedWhenFull() {
+		this.tested.setMaximumSize(2);
+
+		this.tested.lookup("cn=a", this.mapper);
+		this.tested.lookup("cn=b", this.mapper);
+		this.tested.lookup("cn=a", this.mapper);
+		this.tested.lookup("cn=c", this.mapper);
+		this.tested.lookup("cn=a", this.mapper);
+		this.tested.lookup("cn=b", this.mapper);
+
+		verify(this.delegate, times(1)).lookup("cn=a", this.mapper);
+		verify(this.delegate, times(2)).lookup("cn=b", this.mapper);
+		assertThat(this.tested.getStatistics().getSize()).isEqualTo(2);
+	}
+
+	@Test
+	public void writesInvalidateTheModifiedEntry() {
+		this.tested.lookup("cn=john,ou=people", this.mapper);
+		this.tested.lookup("cn=jane,ou=people", this.mapper);
+
+		this.tested.modifyAttributes("CN=John,ou=people", null);
+		this.tested.lookup("cn=john,ou=people", this.mapper);
+		this.tested.lookup("cn=jane,ou=people", this.mapper);
+
+		verify(this.delegate, times(2)).lookup("cn=john,ou=people", this.mapper);
+		verify(this.delegate, times(1)).lookup("cn=jane,ou=people", this.mapper);
+		assertThat(this.tested.getStatistics().getInvalidationCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void renameInvalidatesTheSubtree() {
+		this.tested.lookup("cn=john,ou=people", this.mapper);
+		this.tested.lookup("ou=people", this.mapper);
+		this.tested.lookup("cn=john,ou=groups", this.mapper);
+
+		this.tested.rename("ou=people", "ou=persons");
+
+		assertThat(this.tested.getStatistics().getInvalidationCount()).isEqualTo(2);
+		assertThat(this.tested.getStatistics().getSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void failedWriteStillInvalidates() {
+		this.tested.lookup("cn=john", this.mapper);
+		doThrow(new IllegalStateException()).when(this.delegate).unbind("cn=john");
+
+		assertThatIllegalStateException().isThrownBy(() -> this.tested.unbind("cn=john"));
+
+		assertThat(this.tested.getStatistics().getSize()).isZero();
+	}
+
+	@Test
+	public void findByDnIsCachedAndInvalidatedOnUpdate() {
+		ObjectDirectoryMapper odm = mock(ObjectDirectoryMapper.class);
+		LdapName dn = LdapUtils.newLdapName("cn=john,ou=people");
+		Person entity = new Person("john");
+		when(this.delegate.getObjectDirectoryMapper()).thenReturn(odm);
+		when(this.delegate.findByDn(dn, Person.class)).thenReturn(entity);
+		when(odm.getId(entity)).thenReturn(dn);
+		when(odm.getCalculatedId(entity)).thenReturn(LdapUtils.newLdapName("cn=johnny,ou=people"));
+
+		assertThat(this.tested.findByDn(dn, Person.class)).isSameAs(entity);
+		assertThat(this.tested.findByDn(LdapUtils.newLdapName("CN=John,OU=People"), Person.class)).isSameAs(entity);
+		verify(this.delegate, times(1)).findByDn(dn, Person.class);
+
+		this.tested.update(entity);
+		this.tested.findByDn(dn, Person.class);
+
+		verify(this.delegate).update(entity);
+		verify(this.delegate, times(2)).findByDn(dn, Person.class);
+	}
+
+	@Test
+	public void mutableEntitiesAreNotCachedByDefault() {
+		LdapName dn = LdapUtils.newLdapName("cn=john,ou=people");
+		when(this.delegate.findByDn(dn, Object.class)).thenAnswer((invocation) -> new Object());
+		when(this.delegate.find(any(LdapQuery.class), eq(Object.class)))
+				.thenAnswer((invocation) -> Arrays.asList(new Object()));
+		LdapQuery query = query().base("ou=people").where("objectclass").is("person");
+
+		assertThat(this.tested.findByDn(dn, Object.class)).isNotSameAs(this.tested.findByDn(dn, Object.class));
+		assertThat(this.tested.find(query, Object.class).get(0))
+				.isNotSameAs(this.tested.find(query, Object.class).get(0));
+		verify(this.delegate, times(2)).findByDn(dn, Object.class);
+		verify(this.delegate, times(2)).find(query, Object.class);
+
+		this.tested.setCacheMutableEntities(true);
+
+		assertThat(this.tested.findByDn(dn, Object.class)).isSameAs(this.tested.findByDn(dn, Object.class));
+		verify(this.delegate, times(3)).findByDn(dn, Object.class);
+	}
+
+	@Test
+	public void equivalentQueriesShareCachedResults() {
+		when(this.delegate.search(any(LdapQuery.class), eq(this.mapper)))
+				.thenAnswer((invocation) -> new ArrayList<>(Arrays.asList("a", "b")));
+
+		List<String> first = this.tested.search(query().base("ou=people").where("objectclass").is("person")
+				.and(query().where("uid").is("jd").or("mail").is("jd@example.com")), this.mapper);
+		first.clear();
+		List<String> second = this.tested.search(query().base("OU=People")
+				.where("mail").is("jd@example.com").or("uid").is("jd")
+				.and(query().where("objectClass").is("person")), this.mapper);
+
+		assertThat(second).containsExactly("a", "b");
+		verify(this.delegate, times(1)).search(any(LdapQuery.class), eq(this.mapper));
+		assertThat(this.tested.getQueryStatistics().getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void queryTimeToLiveCanBeResolvedPerQuery() {
+		when(this.delegate.search(any(LdapQuery.class), eq(this.mapper))).thenReturn(Arrays.asList("a"));
+		this.tested.setQueryTimeToLiveResolver(
+				(query) -> query.base().toString().equals("ou=groups") ? Duration.ofMinutes(1) : null);
+
+		this.tested.search(query().base("ou=groups").where("cn").is("admins"), this.mapper);
+		this.tested.search(query().base("ou=groups").where("cn").is("admins"), this.mapper);
+		this.tested.search(query().base("ou=people").where("cn").is("john"), this.mapper);
+		this.tested.search(query().base("ou=people").where("cn").is("john"), this.mapper);
+
+		verify(this.delegate, times(3)).search(any(LdapQuery.class), eq(this.mapper));
+		assertThat(this.tested.getQueryStatistics().getHitCount()).isEqualTo(1);
+		assertThat(this.tested.getQueryStatistics().getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void writesInvalidateQueriesWhoseScopeContainsTheModifiedEntry() {
+		when(this.delegate.search(any(LdapQuery.class), eq(this.mapper))).thenReturn(Arrays.asList("a"));
+		this.tested.search(query().base("ou=people").where("cn").is("john"), this.mapper);
+		this.tested.search(query().base("ou=people").searchScope(SearchScope.ONELEVEL).where("cn").is("john"),
+				this.mapper);
+		this.tested.search(query().base("ou=people").searchScope(SearchScope.OBJECT).where("cn").is("john"),
+				this.mapper);
+		this.tested.search(query().base("ou=groups").where("cn").is("john"), this.mapper);
+
+		this.tested.modifyAttributes("cn=john,ou=department,ou=people", null);
+		assertThat(this.tested.getQueryStatistics().getSize()).isEqualTo(3);
+
+		this.tested.unbind("cn=john,ou=people");
+		assertThat(this.tested.getQueryStatistics().getSize()).isEqualTo(2);
+
+		this.tested.rename("ou=groups", "ou=teams");
+		assertThat(this.tested.getQueryStatistics().getSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void concurrentIdenticalLookupsShareOneCall() throws Exception {
+		this.tested.setTimeToLive(Duration.ZERO);
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(this.delegate.lookup("cn=john", this.mapper)).thenAnswer((invocation) -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return "mapped";
+		});
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> first = executor.submit(() -> this.tested.lookup("cn=john", this.mapper));
+			assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+			Future<String> second = executor.submit(() -> this.tested.lookup("CN=John", this.mapper));
+			awaitCoalesced(1);
+			release.countDown();
+
+			assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("mapped");
+			assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("mapped");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		verify(this.delegate).lookup("cn=john", this.mapper);
+
+		this.tested.lookup("cn=john", this.mapper);
+		verify(this.delegate, times(2)).lookup("cn=john", this.mapper);
+		assertThat(this.tested.getStatistics().getSize()).isZero();
+	}
+
+	@Test
+	public void lookupWaitingForConcurrentCallCanBeInterrupted() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(this.delegate.lookup("cn=john", this.mapper)).thenAnswer((invocation) -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return "mapped";
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> first = executor.submit(() -> this.tested.lookup("cn=john", this.mapper));
+			assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+			AtomicReference<RuntimeException> failure = new AtomicReference<>();
+			Thread waiter = new Thread(() -> {
+				try {
+					this.tested.lookup("cn=john", this.mapper);
+				}
+				catch (RuntimeException ex) {
+					failure.set(ex);
+				}
+			});
+			waiter.start();
+			awaitCoalesced(1);
+			waiter.interrupt();
+			waiter.join(5000);
+
+			assertThat(waiter.isAlive()).isFalse();
+			assertThat(failure.get()).isInstanceOf(UncategorizedLdapException.class)
+					.hasCauseInstanceOf(InterruptedException.class);
+			release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("mapped");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void lookupAfterWriteDoesNotShareCallStartedBeforeIt() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(this.delegate.lookup("cn=john", this.mapper)).thenAnswer((invocation) -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return "stale";
+		}).thenReturn("fresh");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> first = executor.submit(() -> this.tested.lookup("cn=john", this.mapper));
+			assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+			this.tested.modifyAttributes("cn=john", null);
+
+			assertThat(this.tested.lookup("cn=john", this.mapper)).isEqualTo("fresh");
+			release.countDown();
+			assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("stale");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(this.tested.lookup("cn=john", this.mapper)).isEqualTo("fresh");
+		assertThat(this.tested.getStatistics().getCoalescedCount()).isZero();
+	}
+
+	private void awaitCoalesced(long count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (this.tested.getStatistics().getCoalescedCount() < count && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		assertThat(this.tested.getStatistics().getCoalescedCount()).isEqualTo(count);
+	}
+
+	record Person(String name) {
+	}
+
+}
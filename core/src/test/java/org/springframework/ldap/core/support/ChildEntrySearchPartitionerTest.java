@@ -0,0 +1,66 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.query.LdapQuery;
+import org.springframework.ldap.query.SearchScope;
+import org.springframework.ldap.support.LdapUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.ldap.query.LdapQueryBuilder.query;
+
+public class ChildEntrySearchPartitionerTest {
+
+	private final LdapOperations ldapOperationsMock = mock(LdapOperations.class);
+
+	private final ChildEntrySearchPartitioner tested = new ChildEntrySearchPartitioner();
+
+	@Test
+	public void partitionsBySubtreeOfEachChild() {
+		LdapQuery query = query().base("dc=example,dc=com").where("objectclass").is("person");
+		when(this.ldapOperationsMock.list(query.base())).thenReturn(Arrays.asList("ou=sales", "ou=it"));
+
+		List<LdapQuery> partitions = this.tested.partition(query, this.ldapOperationsMock);
+
+		assertThat(partitions).extracting(LdapQuery::base).containsExactly(
+				LdapUtils.newLdapName("dc=example,dc=com"),
+				LdapUtils.newLdapName("ou=sales,dc=example,dc=com"),
+				LdapUtils.newLdapName("ou=it,dc=example,dc=com"));
+		assertThat(partitions).extracting(LdapQuery::searchScope).containsExactly(SearchScope.OBJECT,
+				SearchScope.SUBTREE, SearchScope.SUBTREE);
+		assertThat(partitions).allSatisfy(
+				(partition) -> assertThat(partition.filter().encode()).isEqualTo("(objectclass=person)"));
+	}
+
+	@Test
+	public void onlySubtreeSearchesArePartitioned() {
+		LdapQuery query = query().searchScope(SearchScope.ONELEVEL).where("objectclass").is("person");
+
+		assertThat(this.tested.partition(query, this.ldapOperationsMock)).containsExactly(query);
+		verifyNoInteractions(this.ldapOperationsMock);
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.naming.directory.DirContext;
+import javax.naming.ldap.LdapContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.core.DirContextProxy;
+import org.springframework.ldap.core.LdapTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConcurrencyLimitingContextSourceTest {
+
+	private ContextSource contextSourceMock;
+
+	private LdapContext ldapContextMock;
+
+	private ConcurrencyLimitingContextSource tested;
+
+	@Before
+	public void setUp() {
+		this.contextSourceMock = mock(ContextSource.class);
+		this.ldapContextMock = mock(LdapContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.ldapContextMock);
+		when(this.contextSourceMock.getReadWriteContext()).thenReturn(this.ldapContextMock);
+		this.tested = new ConcurrencyLimitingContextSource(this.contextSourceMock, 2);
+	}
+
+	@Test
+	public void permitIsReleasedOnceWhenContextIsClosed() throws Exception {
+		DirContext ctx = this.tested.getReadOnlyContext();
+
+		assertThat(ctx).isInstanceOf(LdapContext.class).isInstanceOf(DirContextProxy.class);
+		assertThat(((DirContextProxy) ctx).getTargetContext()).isSameAs(this.ldapContextMock);
+		assertThat(this.tested.getAvailablePermits()).isEqualTo(1);
+
+		ctx.close();
+		ctx.close();
+
+		assertThat(this.tested.getAvailablePermits()).isEqualTo(2);
+		verify(this.ldapContextMock, times(2)).close();
+	}
+
+	@Test
+	public void waitingForPermitTimesOut() throws Exception {
+		this.tested.setMaxWaitMillis(10);
+		this.tested.getReadOnlyContext();
+		this.tested.getReadWriteContext();
+
+		assertThatExceptionOfType(DataAccessResourceFailureException.class)
+				.isThrownBy(() -> this.tested.getReadOnlyContext());
+	}
+
+	@Test
+	public void permitIsReleasedWhenTargetFails() {
+		when(this.contextSourceMock.getReadOnlyContext()).thenThrow(new DataAccessResourceFailureException("down"));
+
+		assertThatExceptionOfType(DataAccessResourceFailureException.class)
+				.isThrownBy(() -> this.tested.getReadOnlyContext());
+		assertThat(this.tested.getAvailablePermits()).isEqualTo(2);
+	}
+
+	@Test
+	public void concurrentLookupsAreBoundedByPermits() throws Exception {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		doAnswer((invocation) -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			Thread.sleep(2);
+			inFlight.decrementAndGet();
+			return "entry";
+		}).when(this.ldapContextMock).lookup("cn=john");
+		LdapTemplate ldapTemplate = new LdapTemplate(this.tested);
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Object>> lookups = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			lookups.add(executor.submit(() -> {
+				start.await();
+				return ldapTemplate.lookup("cn=john");
+			}));
+		}
+		start.countDown();
+		for (Future<Object> lookup : lookups) {
+			assertThat(lookup.get(10, TimeUnit.SECONDS)).isEqualTo("entry");
+		}
+		executor.shutdown();
+
+		assertThat(maxInFlight.get()).isLessThanOrEqualTo(2);
+		assertThat(this.tested.getAvailablePermits()).isEqualTo(2);
+	}
+
+}
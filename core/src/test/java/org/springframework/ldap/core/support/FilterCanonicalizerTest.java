@@ -0,0 +1,66 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import org.junit.Test;
+
+import org.springframework.ldap.filter.AndFilter;
+import org.springframework.ldap.filter.EqualsFilter;
+import org.springframework.ldap.filter.HardcodedFilter;
+import org.springframework.ldap.filter.OrFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FilterCanonicalizerTest {
+
+	@Test
+	public void operandOrderDoesNotMatter() {
+		AndFilter first = new AndFilter();
+		first.and(new EqualsFilter("objectclass", "person"));
+		first.and(new OrFilter().or(new EqualsFilter("uid", "jd")).or(new EqualsFilter("mail", "jd@example.com")));
+
+		AndFilter second = new AndFilter();
+		second.and(new OrFilter().or(new EqualsFilter("mail", "jd@example.com")).or(new EqualsFilter("uid", "jd")));
+		second.and(new EqualsFilter("objectClass", "person"));
+
+		assertThat(FilterCanonicalizer.canonicalize(first)).isEqualTo(FilterCanonicalizer.canonicalize(second))
+				.isEqualTo("(&(objectclass=person)(|(mail=jd@example.com)(uid=jd)))");
+	}
+
+	@Test
+	public void nestedOperatorsAreFlattenedAndDuplicatesRemoved() {
+		assertThat(FilterCanonicalizer.canonicalize("(&(b=2)(&(a=1)(b=2))(|(c=3)))")).isEqualTo("(&(a=1)(b=2)(c=3))");
+		assertThat(FilterCanonicalizer.canonicalize("(|(&(a=1)))")).isEqualTo("(a=1)");
+		assertThat(FilterCanonicalizer.canonicalize("(!(|(b=2)(a=1)))")).isEqualTo("(!(|(a=1)(b=2)))");
+	}
+
+	@Test
+	public void attributeDescriptionsAndEscapesAreLowerCased() {
+		assertThat(FilterCanonicalizer.canonicalize("(CN=John \\2A)")).isEqualTo("(cn=John \\2a)");
+		assertThat(FilterCanonicalizer.canonicalize("(Age>=42)")).isEqualTo("(age>=42)");
+		assertThat(FilterCanonicalizer.canonicalize("(CN:dn:=John)")).isEqualTo("(cn:dn:=John)");
+		assertThat(FilterCanonicalizer.canonicalize("objectClass=*")).isEqualTo("(objectclass=*)");
+	}
+
+	@Test
+	public void unparseableFiltersAreReturnedAsEncoded() {
+		assertThat(FilterCanonicalizer.canonicalize(new HardcodedFilter("(cn=a)(cn=b)"))).isEqualTo("(cn=a)(cn=b)");
+		assertThat(FilterCanonicalizer.canonicalize("(&(cn=a)")).isEqualTo("(&(cn=a)");
+		assertThat(FilterCanonicalizer.canonicalize("")).isEmpty();
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.util.Arrays;
+
+import javax.naming.directory.DirContext;
+import javax.naming.ldap.LdapContext;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ldap.AuthenticationException;
+import org.springframework.ldap.CommunicationException;
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.core.DirContextProxy;
+import org.springframework.ldap.core.support.LoadBalancingContextSource.Policy;
+import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.ldap.pool2.validation.DirContextValidator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LoadBalancingContextSourceTest {
+
+	private ContextSource firstMock;
+
+	private ContextSource secondMock;
+
+	private LdapContext firstContextMock;
+
+	private LdapContext secondContextMock;
+
+	private DirContextValidator validatorMock;
+
+	private LoadBalancingContextSource tested;
+
+	@Before
+	public void setUp() {
+		this.firstMock = mock(ContextSource.class);
+		this.secondMock = mock(ContextSource.class);
+		this.firstContextMock = mock(LdapContext.class);
+		this.secondContextMock = mock(LdapContext.class);
+		this.validatorMock = mock(DirContextValidator.class);
+		when(this.firstMock.getReadOnlyContext()).thenReturn(this.firstContextMock);
+		when(this.secondMock.getReadOnlyContext()).thenReturn(this.secondContextMock);
+
+		this.tested = new LoadBalancingContextSource(Arrays.asList(this.firstMock, this.secondMock));
+		this.tested.setValidator(this.validatorMock);
+		this.tested.setFailureThreshold(2);
+		this.tested.setRecoveryThreshold(2);
+	}
+
+	@Test
+	public void roundRobinUsesEveryServerInTurn() throws Exception {
+		for (int i = 0; i < 4; i++) {
+			this.tested.getReadOnlyContext().close();
+		}
+
+		verify(this.firstMock, times(2)).getReadOnlyContext();
+		verify(this.secondMock, times(2)).getReadOnlyContext();
+		verify(this.firstContextMock, times(2)).close();
+	}
+
+	@Test
+	public void unreachableServerIsSkippedAndEjected() {
+		when(this.firstMock.getReadWriteContext())
+				.thenThrow(new CommunicationException(new javax.naming.CommunicationException("down")));
+		when(this.secondMock.getReadWriteContext()).thenReturn(this.secondContextMock);
+
+		for (int i = 0; i < 4; i++) {
+			DirContext context = this.tested.getReadWriteContext();
+			assertThat(((DirContextProxy) context).getTargetContext()).isSameAs(this.secondContextMock);
+		}
+
+		verify(this.firstMock, times(2)).getReadWriteContext();
+		assertThat(this.tested.getServers().get(0).isEjected()).isTrue();
+		assertThat(this.tested.getServers().get(1).isEjected()).isFalse();
+	}
+
+	@Test
+	public void authenticationFailureIsNotAServerFailure() {
+		when(this.firstMock.getContext("cn=john", "wrong"))
+				.thenThrow(new AuthenticationException(new javax.naming.AuthenticationException()));
+
+		for (int i = 0; i < 2; i++) {
+			assertThatExceptionOfType(AuthenticationException.class)
+					.isThrownBy(() -> this.tested.getContext("cn=john", "wrong"));
+			this.tested.getReadOnlyContext();
+		}
+
+		verify(this.secondMock, never()).getContext(any(), any());
+		assertThat(this.tested.getServers().get(0).isEjected()).isFalse();
+	}
+
+	@Test
+	public void communicationFailureOnContextCountsTowardsEjection() throws Exception {
+		when(this.firstContextMock.lookup("cn=john")).thenThrow(new javax.naming.CommunicationException());
+
+		for (int i = 0; i < 2; i++) {
+			DirContext context = this.tested.getReadOnlyContext();
+			assertThatExceptionOfType(javax.naming.CommunicationException.class)
+					.isThrownBy(() -> context.lookup("cn=john"));
+			this.tested.getReadOnlyContext();
+		}
+
+		assertThat(this.tested.getServers().get(0).isEjected()).isTrue();
+	}
+
+	@Test
+	public void probesEjectAndReadmitServers() throws Exception {
+		when(this.validatorMock.validateDirContext(DirContextType.READ_ONLY, this.firstContextMock)).thenReturn(false,
+				false, true, true);
+		when(this.validatorMock.validateDirContext(eq(DirContextType.READ_ONLY), eq(this.secondContextMock)))
+				.thenReturn(true);
+
+		this.tested.probe();
+		this.tested.probe();
+		assertThat(this.tested.getServers().get(0).isEjected()).isTrue();
+
+		this.tested.probe();
+		assertThat(this.tested.getServers().get(0).isEjected()).isTrue();
+		this.tested.probe();
+		assertThat(this.tested.getServers().get(0).isEjected()).isFalse();
+		assertThat(this.tested.getServers().get(0).getLatency()).isNotNull();
+		verify(this.firstContextMock, times(4)).close();
+	}
+
+	@Test
+	public void leastOutstandingPrefersServerWithFewestOpenContexts() throws Exception {
+		this.tested.setPolicy(Policy.LEAST_OUTSTANDING);
+
+		DirContext first = this.tested.getReadOnlyContext();
+		DirContext second = this.tested.getReadOnlyContext();
+		first.close();
+		DirContext third = this.tested.getReadOnlyContext();
+		DirContext fourth = this.tested.getReadOnlyContext();
+
+		assertThat(((DirContextProxy) first).getTargetContext())
+				.isSameAs(((DirContextProxy) third).getTargetContext());
+		assertThat(((DirContextProxy) second).getTargetContext())
+				.isNotSameAs(((DirContextProxy) third).getTargetContext());
+		assertThat(this.tested.getServers()).extracting(LoadBalancingContextSource.Server::getOutstanding)
+				.containsExactlyInAnyOrder(1, 2);
+		fourth.close();
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.core.support;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import javax.naming.directory.DirContext;
+import javax.naming.ldap.LdapContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.ldap.core.ContextSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReadWriteRoutingContextSourceTest {
+
+	private ContextSource primaryMock;
+
+	private ContextSource replicasMock;
+
+	private LdapContext primaryContextMock;
+
+	private LdapContext replicaContextMock;
+
+	private Clock clock;
+
+	private ReadWriteRoutingContextSource tested;
+
+	@Before
+	public void setUp() {
+		this.primaryMock = mock(ContextSource.class);
+		this.replicasMock = mock(ContextSource.class);
+		this.primaryContextMock = mock(LdapContext.class);
+		this.replicaContextMock = mock(LdapContext.class);
+		this.clock = mock(Clock.class);
+		when(this.primaryMock.getReadWriteContext()).thenReturn(this.primaryContextMock);
+		when(this.primaryMock.getReadOnlyContext()).thenReturn(this.primaryContextMock);
+		when(this.replicasMock.getReadOnlyContext()).thenReturn(this.replicaContextMock);
+
+		this.tested = new ReadWriteRoutingContextSource(this.primaryMock, this.replicasMock);
+		this.tested.setClock(this.clock);
+	}
+
+	@After
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void readsGoToReplicasAndWritesToPrimary() throws Exception {
+		this.tested.getReadWriteContext().close();
+
+		assertThat(this.tested.getReadOnlyContext()).isSameAs(this.replicaContextMock);
+	}
+
+	@Test
+	public void readsStickToPrimaryWithinWindowAfterWrite() throws Exception {
+		this.tested.setReadYourWritesWindow(Duration.ofSeconds(1));
+		when(this.clock.millis()).thenReturn(0L, 500L, 999L, 1499L, 2499L);
+
+		DirContext context = this.tested.getReadWriteContext();
+		context.close();
+
+		assertThat(this.tested.getReadOnlyContext()).isSameAs(this.primaryContextMock);
+		assertThat(CompletableFuture.supplyAsync(this.tested::getReadOnlyContext).get())
+				.isSameAs(this.replicaContextMock);
+		assertThat(this.tested.getReadOnlyContext()).isSameAs(this.primaryContextMock);
+		assertThat(this.tested.getReadOnlyContext()).isSameAs(this.replicaContextMock);
+	}
+
+	@Test
+	public void readsStickToPrimaryUntilTransactionCompletes() throws Exception {
+		this.tested.setReadYourWritesWindow(Duration.ofSeconds(1));
+		when(this.clock.millis()).thenReturn(0L, 0L, 60000L, 60000L);
+		TransactionSynchronizationManager.initSynchronization();
+
+		this.tested.getReadWriteContext().close();
+
+		assertThat(this.tested.getReadOnlyContext()).isSameAs(this.primaryContextMock);
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+		assertThat(this.tested.getReadOnlyContext()).isSameAs(this.replicaContextMock);
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.observation;
+
+import javax.naming.directory.SearchControls;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import org.junit.Test;
+
+import org.springframework.ldap.NameNotFoundException;
+import org.springframework.ldap.observation.LdapObservationContext.Operation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DefaultLdapObservationConventionTest {
+
+	private final DefaultLdapObservationConvention convention = new DefaultLdapObservationConvention();
+
+	@Test
+	public void filterShapeMasksAssertionValues() {
+		assertThat(DefaultLdapObservationConvention.filterShape("(cn=John Doe)")).isEqualTo("(cn=?)");
+		assertThat(DefaultLdapObservationConvention.filterShape("(&(objectclass=person)(|(uid=jd)(mail=*@example.com)))"))
+				.isEqualTo("(&(objectclass=?)(|(uid=?)(mail=*?)))");
+		assertThat(DefaultLdapObservationConvention.filterShape("(cn=*)")).isEqualTo("(cn=*)");
+		assertThat(DefaultLdapObservationConvention.filterShape("(cn=a*b*c)")).isEqualTo("(cn=?*?*?)");
+		assertThat(DefaultLdapObservationConvention.filterShape("(!(age>=42))")).isEqualTo("(!(age>=?))");
+		assertThat(DefaultLdapObservationConvention.filterShape("(cn:dn:=John)")).isEqualTo("(cn:dn:=?)");
+		assertThat(DefaultLdapObservationConvention.filterShape("(cn=\\28escaped\\29)")).isEqualTo("(cn=?)");
+		assertThat(DefaultLdapObservationConvention.filterShape("objectclass=*")).isEqualTo("objectclass=*");
+	}
+
+	@Test
+	public void searchKeyValues() {
+		LdapObservationContext context = new LdapObservationContext(Operation.SEARCH, "ou=people", "(uid=jd)",
+				SearchControls.SUBTREE_SCOPE);
+		context.incrementResultCount();
+
+		assertThat(this.convention.getLowCardinalityKeyValues(context)).containsExactlyInAnyOrder(
+				KeyValue.of("ldap.operation", "search"), KeyValue.of("ldap.base", "ou=people"),
+				KeyValue.of("ldap.scope", "subtree"), KeyValue.of("ldap.filter", "(uid=?)"),
+				KeyValue.of("exception", "none"));
+		assertThat(this.convention.getHighCardinalityKeyValues(context)).containsExactlyInAnyOrder(
+				KeyValue.of("ldap.dn", "ou=people"), KeyValue.of("ldap.result.count", "1"));
+	}
+
+	@Test
+	public void pointOperationDoesNotTagDnAsLowCardinality() {
+		LdapObservationContext context = new LdapObservationContext(Operation.UNBIND, "uid=jd,ou=people");
+		context.setError(new NameNotFoundException("missing"));
+
+		assertThat(this.convention.getLowCardinalityKeyValues(context)).containsExactlyInAnyOrder(
+				KeyValue.of("ldap.operation", "unbind"), KeyValue.of("ldap.base", "none"),
+				KeyValue.of("ldap.scope", "none"), KeyValue.of("ldap.filter", "none"),
+				KeyValue.of("exception", "NameNotFoundException"));
+	}
+
+	@Test
+	public void supportsOnlyLdapContexts() {
+		assertThat(this.convention.supportsContext(new LdapObservationContext(Operation.BIND, "cn=x"))).isTrue();
+		assertThat(this.convention.supportsContext(new Observation.Context())).isFalse();
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.odm.apt;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.odm.core.impl.DefaultObjectDirectoryMapper;
+import org.springframework.ldap.support.LdapUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntryMapperProcessorTest {
+
+	private static final String PERSON = String.join("\n",
+			"package com.example;",
+			"import java.util.List;",
+			"import javax.naming.Name;",
+			"import org.springframework.ldap.odm.annotations.*;",
+			"@Entry(objectClasses = { \"person\", \"top\" }, base = \"ou=people\")",
+			"public class Person {",
+			"  @Id private Name dn;",
+			"  @Attribute(name = \"cn\") @DnAttribute(value = \"cn\", index = 1) private String fullName;",
+			"  @Attribute(name = \"sn\") String lastName;",
+			"  @Attribute(name = \"description\") private List<String> description;",
+			"  private int employeeNumber;",
+			"  @Attribute(name = \"entryUUID\", readonly = true) private String entryUuid;",
+			"  @Transient private int setterCalls;",
+			"  public Name getDn() { return dn; }",
+			"  public void setDn(Name dn) { this.dn = dn; }",
+			"  public String getFullName() { return fullName; }",
+			"  public void setFullName(String fullName) { this.fullName = fullName; setterCalls++; }",
+			"  public List<String> getDescription() { return description; }",
+			"  public void setDescription(List<String> description) { this.description = description; }",
+			"  public int getEmployeeNumber() { return employeeNumber; }",
+			"  public void setEmployeeNumber(int employeeNumber) { this.employeeNumber = employeeNumber; }",
+			"  public String getEntryUuid() { return entryUuid; }",
+			"  void setEntryUuid(String entryUuid) { this.entryUuid = entryUuid; }",
+			"  public String toString() { return dn + \"|\" + fullName + \"|\" + lastName + \"|\" + description",
+			"      + \"|\" + employeeNumber + \"|\" + entryUuid + \"|\" + setterCalls; }",
+			"}");
+
+	private static final String UNSUPPORTED = String.join("\n",
+			"package com.example;",
+			"import javax.naming.Name;",
+			"import org.springframework.ldap.odm.annotations.*;",
+			"@Entry(objectClasses = \"person\")",
+			"public class Unsupported {",
+			"  @Id private Name dn;",
+			"}");
+
+	private static final String IMMUTABLE = String.join("\n",
+			"package com.example;",
+			"import javax.naming.Name;",
+			"import org.springframework.ldap.odm.annotations.*;",
+			"@Entry(objectClasses = \"person\")",
+			"public class Immutable {",
+			"  @Id final Name dn;",
+			"  @Attribute(name = \"cn\") final String fullName;",
+			"  public Immutable() { this(null, null); }",
+			"  @EntryConstructor({ \"dn\", \"fullName\" })",
+			"  public Immutable(Name dn, String fullName) { this.dn = dn; this.fullName = fullName; }",
+			"  public String toString() { return dn + \"|\" + fullName; }",
+			"}");
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private File output;
+
+	private DiagnosticCollector<JavaFileObject> diagnostics;
+
+	@Before
+	public void compile() throws Exception {
+		this.output = this.temporaryFolder.newFolder();
+		this.diagnostics = new DiagnosticCollector<>();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		JavaCompiler.CompilationTask task = compiler.getTask(null, null, this.diagnostics,
+				Arrays.asList("-d", this.output.getPath(), "-s", this.output.getPath(), "-classpath",
+						System.getProperty("java.class.path")),
+				null, Arrays.asList(source("com.example.Person", PERSON), source("com.example.Unsupported", UNSUPPORTED),
+						source("com.example.Immutable", IMMUTABLE)));
+		task.setProcessors(Collections.singletonList(new EntryMapperProcessor()));
+		assertThat(task.call()).as(this.diagnostics.getDiagnostics().toString()).isTrue();
+	}
+
+	@Test
+	public void mapperIsGeneratedAndUsedForReading() throws Exception {
+		try (URLClassLoader classLoader = classLoader()) {
+			Class<?> personClass = classLoader.loadClass("com.example.Person");
+			DirContextAdapter entry = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+			entry.setAttributeValues("objectclass", new String[] { "top", "person" });
+			entry.setAttributeValue("cn", "John Doe");
+			entry.setAttributeValue("SN", "Doe");
+			entry.setAttributeValues("description", new String[] { "first", "second" });
+			entry.setAttributeValue("employeeNumber", "42");
+			entry.setAttributeValue("entryUUID", "uuid");
+
+			Object person = new DefaultObjectDirectoryMapper().mapFromLdapDataEntry(entry, personClass);
+
+			// Going through the setter proves the generated mapper was used
+			assertThat(person).hasToString("cn=John Doe,ou=people|John Doe|Doe|[first, second]|42|uuid|2");
+		}
+	}
+
+	@Test
+	public void mapperIsGeneratedAndUsedForWriting() throws Exception {
+		try (URLClassLoader classLoader = classLoader()) {
+			Class<?> personClass = classLoader.loadClass("com.example.Person");
+			DirContextAdapter source = new DirContextAdapter(LdapUtils.newLdapName("cn=Jane Doe,ou=people"));
+			source.setAttributeValues("objectclass", new String[] { "top", "person" });
+			source.setAttributeValue("cn", "Jane Doe");
+			source.setAttributeValue("sn", "Doe");
+			source.setAttributeValue("employeeNumber", "7");
+			source.setAttributeValue("entryUUID", "uuid");
+			DefaultObjectDirectoryMapper mapper = new DefaultObjectDirectoryMapper();
+			Object person = mapper.mapFromLdapDataEntry(source, personClass);
+
+			DirContextAdapter target = new DirContextAdapter();
+			mapper.mapToLdapDataEntry(person, target);
+
+			assertThat(target.getStringAttributes("objectclass")).containsExactly("person", "top");
+			assertThat(target.getStringAttribute("cn")).isEqualTo("Jane Doe");
+			assertThat(target.getStringAttribute("sn")).isEqualTo("Doe");
+			assertThat(target.getStringAttribute("employeeNumber")).isEqualTo("7");
+			assertThat(target.attributeExists("entryUUID")).isFalse();
+			assertThat(mapper.getId(person)).isEqualTo(LdapUtils.newLdapName("cn=Jane Doe,ou=people"));
+			assertThat(mapper.getCalculatedId(person)).isEqualTo(LdapUtils.newLdapName("cn=Jane Doe,ou=people"));
+		}
+	}
+
+	@Test
+	public void unsupportedEntitiesAreSkippedWithANote() {
+		assertThat(new File(this.output, "com/example/Person_EntryMapper.java")).exists();
+		assertThat(new File(this.output, "com/example/Unsupported_EntryMapper.java")).doesNotExist();
+		assertThat(this.diagnostics.getDiagnostics()).anySatisfy((diagnostic) -> {
+			assertThat(diagnostic.getKind()).isEqualTo(Diagnostic.Kind.NOTE);
+			assertThat(diagnostic.getMessage(Locale.ROOT)).contains("com.example.Unsupported")
+					.contains("no setter for field dn");
+		});
+	}
+
+	@Test
+	public void entitiesWithAnEntryConstructorAreMappedReflectively() throws Exception {
+		assertThat(new File(this.output, "com/example/Immutable_EntryMapper.java")).doesNotExist();
+		assertThat(this.diagnostics.getDiagnostics()).anySatisfy((diagnostic) -> assertThat(
+				diagnostic.getMessage(Locale.ROOT)).contains("com.example.Immutable").contains("@EntryConstructor"));
+
+		try (URLClassLoader classLoader = classLoader()) {
+			Class<?> immutableClass = classLoader.loadClass("com.example.Immutable");
+			DirContextAdapter entry = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+			entry.setAttributeValues("objectclass", new String[] { "top", "person" });
+			entry.setAttributeValue("cn", "John Doe");
+
+			assertThat(new DefaultObjectDirectoryMapper().mapFromLdapDataEntry(entry, immutableClass).toString())
+					.isEqualTo("cn=John Doe,ou=people|John Doe");
+		}
+	}
+
+	@Test
+	public void reflectiveMappingCanBeForced() throws Exception {
+		try (URLClassLoader classLoader = classLoader()) {
+			Class<?> personClass = classLoader.loadClass("com.example.Person");
+			DirContextAdapter entry = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+			entry.setAttributeValues("objectclass", new String[] { "top", "person" });
+			entry.setAttributeValue("cn", "John Doe");
+			DefaultObjectDirectoryMapper mapper = new DefaultObjectDirectoryMapper();
+			mapper.setUseGeneratedMappers(false);
+
+			assertThat(mapper.mapFromLdapDataEntry(entry, personClass).toString()).endsWith("|0");
+		}
+	}
+
+	private URLClassLoader classLoader() throws Exception {
+		return new URLClassLoader(new URL[] { this.output.toURI().toURL() }, getClass().getClassLoader());
+	}
+
+	private static JavaFileObject source(String className, String content) {
+		return new SimpleJavaFileObject(
+				java.net.URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+				JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return content;
+			}
+		};
+	}
+
+}
@@ -1,12 +1,25 @@
 package org.springframework.ldap.odm.core.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 import static org.springframework.ldap.query.LdapQueryBuilder.query;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 
 import javax.naming.Name;
+import javax.naming.directory.Attributes;
+import javax.naming.directory.BasicAttribute;
+import javax.naming.directory.BasicAttributes;
+import javax.naming.directory.ModificationItem;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -15,6 +28,14 @@ import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.core.SpringVersion;
+import org.springframework.ldap.core.AttributesMapper;
+import org.springframework.ldap.core.DirContextAdapter;
+import org.springframework.ldap.core.LdapOperations;
+import org.springframework.ldap.odm.annotations.Attribute;
+import org.springframework.ldap.odm.annotations.Entry;
+import org.springframework.ldap.odm.annotations.EntryConstructor;
+import org.springframework.ldap.odm.annotations.Id;
+import org.springframework.ldap.odm.annotations.Transient;
 import org.springframework.ldap.support.LdapUtils;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
@@ -105,6 +126,225 @@ public class DefaultObjectDirectoryMapperTest {
 		tested.manageClass(UnitTestPersonWithIndexedAndUnindexedDnAttributes.class);
 	}
 
+	@Test
+	public void reflectiveMappingReadsAndWritesPrivateFields() {
+		tested.manageClass(PrivateFieldsPerson.class);
+
+		DirContextAdapter adapter = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+		adapter.setAttributeValues("objectclass", new String[] { "top", "person" });
+		adapter.setAttributeValue("CN", "John Doe");
+		adapter.setAttributeValues("description", new String[] { "first", "second" });
+
+		PrivateFieldsPerson person = tested.mapFromLdapDataEntry(adapter, PrivateFieldsPerson.class);
+
+		assertThat(person.dn).isEqualTo(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+		assertThat(person.name).isEqualTo("John Doe");
+		assertThat(person.description).containsExactly("first", "second");
+
+		person.name = "Jane Doe";
+		DirContextAdapter written = new DirContextAdapter(LdapUtils.newLdapName("cn=Jane Doe,ou=people"));
+		tested.mapToLdapDataEntry(person, written);
+		assertThat(written.getStringAttribute("cn")).isEqualTo("Jane Doe");
+		assertThat(written.getStringAttributes("description")).containsExactly("first", "second");
+		assertThat(tested.getId(person)).isEqualTo(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+	}
+
+	@Test
+	public void recordsAreCreatedThroughTheirCanonicalConstructor() {
+		tested.manageClass(PersonRecord.class);
+
+		DirContextAdapter adapter = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+		adapter.setAttributeValues("objectclass", new String[] { "top", "person" });
+		adapter.setAttributeValue("cn", "John Doe");
+		adapter.setAttributeValues("description", new String[] { "first", "second" });
+
+		PersonRecord person = tested.mapFromLdapDataEntry(adapter, PersonRecord.class);
+
+		assertThat(person).isEqualTo(new PersonRecord(LdapUtils.newLdapName("cn=John Doe,ou=people"), "John Doe",
+				Arrays.asList("first", "second"), 0, null));
+
+		DirContextAdapter written = new DirContextAdapter(person.dn());
+		tested.mapToLdapDataEntry(new PersonRecord(person.dn(), "Jane Doe", person.description(), 42, "x"), written);
+		assertThat(written.getStringAttribute("cn")).isEqualTo("Jane Doe");
+		assertThat(written.getStringAttribute("employeeNumber")).isEqualTo("42");
+		assertThat(written.attributeExists("cache")).isFalse();
+		assertThat(tested.getId(person)).isEqualTo(person.dn());
+		assertThatExceptionOfType(InvalidEntryException.class)
+				.isThrownBy(() -> tested.setId(person, LdapUtils.newLdapName("cn=Jane Doe,ou=people")));
+	}
+
+	@Test
+	public void idOfRecordsIsNotWritable() {
+		tested.manageClass(PersonRecord.class);
+
+		assertThat(tested.isIdWritable(PersonRecord.class)).isFalse();
+		assertThat(tested.isIdWritable(PrivateFieldsPerson.class)).isTrue();
+	}
+
+	@Test
+	public void annotatedConstructorIsUsedToCreateEntries() {
+		tested.manageClass(ImmutablePerson.class);
+
+		DirContextAdapter adapter = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+		adapter.setAttributeValues("objectclass", new String[] { "top", "person" });
+		adapter.setAttributeValue("cn", "John Doe");
+		adapter.setAttributeValue("telephoneNumber", "555-1234");
+
+		ImmutablePerson person = tested.mapFromLdapDataEntry(adapter, ImmutablePerson.class);
+
+		assertThat(person.dn).isEqualTo(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+		assertThat(person.name).isEqualTo("John Doe");
+		assertThat(person.constructed).isTrue();
+		assertThat(person.telephoneNumber).isEqualTo("555-1234");
+	}
+
+	@Test
+	public void finalFieldsMustBeBoundToTheEntryConstructor() {
+		assertThatExceptionOfType(MetaDataException.class)
+				.isThrownBy(() -> tested.manageClass(UnboundFinalFieldPerson.class))
+				.withMessageContaining("telephoneNumber");
+	}
+
+	@Test
+	public void interfaceProjectionIsPopulatedFromItsAttributesOnly() {
+		assertThat(tested.manageProjection(UnitTestPerson.class, PersonSummary.class))
+				.containsExactlyInAnyOrder("cn", "description", "objectclass");
+
+		DirContextAdapter adapter = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=company1,c=Sweden"));
+		adapter.setAttributeValues("objectclass", new String[] { "top", "person", "organizationalPerson", "inetOrgPerson" });
+		adapter.setAttributeValue("cn", "John Doe");
+		adapter.setAttributeValues("description", new String[] { "first", "second" });
+
+		PersonSummary summary = tested.mapFromLdapDataEntry(adapter, UnitTestPerson.class, PersonSummary.class);
+
+		assertThat(summary.getDn()).isEqualTo(LdapUtils.newLdapName("cn=John Doe,ou=company1,c=Sweden"));
+		assertThat(summary.getFullName()).isEqualTo("John Doe");
+		assertThat(summary.getDescription()).containsExactly("first", "second");
+		assertThat(summary.company()).isEqualTo("company1");
+		assertThat(summary.label()).isEqualTo("John Doe (company1)");
+		assertThat(summary).isEqualTo(tested.mapFromLdapDataEntry(adapter, UnitTestPerson.class, PersonSummary.class));
+		assertThat(summary.toString()).contains("fullName=John Doe");
+	}
+
+	@Test
+	public void recordProjectionIsCreatedThroughItsCanonicalConstructor() {
+		assertThat(tested.manageProjection(UnitTestPerson.class, PersonName.class))
+				.containsExactlyInAnyOrder("cn", "sn", "objectclass");
+
+		DirContextAdapter adapter = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=company1,c=Sweden"));
+		adapter.setAttributeValues("objectclass", new String[] { "top", "person", "organizationalPerson", "inetOrgPerson" });
+		adapter.setAttributeValue("cn", "John Doe");
+
+		assertThat(tested.mapFromLdapDataEntry(adapter, UnitTestPerson.class, PersonName.class))
+				.isEqualTo(new PersonName("John Doe", null));
+
+		adapter.setAttributeValues("objectclass", new String[] { "top", "device" });
+		assertThat(tested.mapFromLdapDataEntry(adapter, UnitTestPerson.class, PersonName.class)).isNull();
+	}
+
+	@Test
+	public void projectionPropertiesMustMatchFieldsOfTheEntry() {
+		assertThatExceptionOfType(MetaDataException.class)
+				.isThrownBy(() -> tested.manageProjection(UnitTestPerson.class, InvalidProjection.class))
+				.withMessageContaining("mail");
+	}
+
+	@Test
+	public void snapshotHoldsTheMappedAttributesOfTrackedEntries() {
+		DirContextAdapter adapter = new DirContextAdapter(LdapUtils.newLdapName("cn=John Doe,ou=people"));
+		adapter.setAttributeValues("objectclass", new String[] { "top", "person" });
+		adapter.setAttributeValue("cn", "John Doe");
+		adapter.setAttributeValues("description", new String[] { "first", "second" });
+		adapter.setAttributeValue("telephoneNumber", "123");
+		PrivateFieldsPerson person = tested.mapFromLdapDataEntry(adapter, PrivateFieldsPerson.class);
+
+		tested.takeSnapshot(person, adapter);
+		assertThat(tested.getSnapshot(person)).isNull();
+
+		tested.setDirtyTracking(true);
+		tested.takeSnapshot(person, adapter);
+		Attributes snapshot = tested.getSnapshot(person);
+
+		assertThat(snapshot.size()).isEqualTo(3);
+		assertThat(snapshot.get("objectClass")).isNotNull();
+		assertThat(snapshot.get("cn")).isNotNull();
+		assertThat(snapshot.get("description").size()).isEqualTo(2);
+		assertThat(tested.getSnapshot(tested.mapFromLdapDataEntry(adapter, PrivateFieldsPerson.class))).isNull();
+
+		adapter.setAttributeValue("cn", "Jane Doe");
+		assertThat(tested.getSnapshot(person).get("cn").contains("John Doe")).isTrue();
+	}
+
+	@Test
+	public void lazyAttributeIsReadWhenFirstAccessed() {
+		Name dn = LdapUtils.newLdapName("cn=admins,ou=groups");
+		LdapOperations ldapOperations = mock(LdapOperations.class);
+		when(ldapOperations.lookup(eq(dn), any(String[].class), any(AttributesMapper.class))).thenAnswer((invocation) -> {
+			BasicAttributes attributes = new BasicAttributes(true);
+			BasicAttribute member = new BasicAttribute("member");
+			member.add("cn=John Doe,ou=people");
+			member.add("cn=Jane Doe,ou=people");
+			attributes.put(member);
+			return invocation.<AttributesMapper<?>>getArgument(2).mapFromAttributes(attributes);
+		});
+		tested.setLdapOperations(ldapOperations);
+
+		assertThat(tested.manageClass(LazyGroup.class)).doesNotContain("member");
+
+		DirContextAdapter adapter = new DirContextAdapter(dn);
+		adapter.setAttributeValues("objectclass", new String[] { "top", "groupOfNames" });
+		adapter.setAttributeValue("cn", "admins");
+		LazyGroup group = tested.mapFromLdapDataEntry(adapter, LazyGroup.class);
+
+		assertThat(group.name).isEqualTo("admins");
+		verifyNoInteractions(ldapOperations);
+
+		DirContextAdapter unread = new DirContextAdapter(dn);
+		tested.mapToLdapDataEntry(group, unread);
+		assertThat(unread.getStringAttributes("member")).isNull();
+
+		assertThat(group.members).containsExactlyInAnyOrder(LdapUtils.newLdapName("cn=John Doe,ou=people"),
+				LdapUtils.newLdapName("cn=Jane Doe,ou=people"));
+		assertThat(group.members).hasSize(2);
+		verify(ldapOperations).lookup(eq(dn), any(String[].class), any(AttributesMapper.class));
+
+		DirContextAdapter read = new DirContextAdapter(dn);
+		tested.mapToLdapDataEntry(group, read);
+		assertThat(read.getStringAttributes("member")).containsExactlyInAnyOrder("cn=John Doe,ou=people",
+				"cn=Jane Doe,ou=people");
+	}
+
+	@Test
+	public void updatingLazyAttributeNotReadWithoutLdapOperationsLeavesItUnchanged() throws Exception {
+		Name dn = LdapUtils.newLdapName("cn=admins,ou=groups");
+		DirContextAdapter adapter = new DirContextAdapter(dn);
+		adapter.setAttributeValues("objectclass", new String[] { "top", "groupOfNames" });
+		adapter.setAttributeValue("cn", "admins");
+		LazyGroup group = tested.mapFromLdapDataEntry(adapter, LazyGroup.class);
+
+		assertThat(group.members).isNull();
+
+		BasicAttributes existing = new BasicAttributes(true);
+		existing.put(new BasicAttribute("objectclass", "groupOfNames"));
+		existing.put(new BasicAttribute("cn", "admins"));
+		existing.put(new BasicAttribute("member", "cn=John Doe,ou=people"));
+		DirContextAdapter update = new DirContextAdapter(existing, dn);
+		update.setUpdateMode(true);
+		group.name = "administrators";
+		tested.mapToLdapDataEntry(group, update);
+
+		ModificationItem[] modifications = update.getModificationItems();
+		assertThat(modifications).hasSize(1);
+		assertThat(modifications[0].getAttribute().getID()).isEqualTo("cn");
+	}
+
+	@Test
+	public void lazyAttributeMustBeACollectionInterface() {
+		assertThatExceptionOfType(MetaDataException.class)
+				.isThrownBy(() -> tested.manageClass(InvalidLazyGroup.class))
+				.withMessageContaining("members");
+	}
+
 	private void assertField(DefaultObjectDirectoryMapper.EntityData entityData,
 							 String fieldName,
 							 String expectedAttributeName,
@@ -138,6 +378,118 @@ public class DefaultObjectDirectoryMapperTest {
 		}
 	}
 
+	@Entry(objectClasses = { "person", "top" })
+	static final class PrivateFieldsPerson {
+
+		@Id
+		private Name dn;
+
+		@Attribute(name = "cn")
+		private String name;
+
+		private List<String> description;
+
+		public PrivateFieldsPerson() {
+		}
+
+	}
+
+	interface PersonSummary {
+
+		Name getDn();
+
+		String getFullName();
+
+		List<String> getDescription();
+
+		String company();
+
+		default String label() {
+			return getFullName() + " (" + company() + ")";
+		}
+
+	}
+
+	record PersonName(String fullName, String lastName) {
+	}
+
+	interface InvalidProjection {
+
+		String getMail();
+
+	}
+
+	@Entry(objectClasses = { "person", "top" })
+	record PersonRecord(@Id Name dn, @Attribute(name = "cn") String name, List<String> description,
+			@Attribute(name = "employeeNumber") int number, @Transient String cache) {
+	}
+
+	@Entry(objectClasses = { "person", "top" })
+	static final class ImmutablePerson {
+
+		@Id
+		private final Name dn;
+
+		@Attribute(name = "cn")
+		private final String name;
+
+		@Transient
+		private final boolean constructed;
+
+		private String telephoneNumber;
+
+		@EntryConstructor({ "name", "dn" })
+		ImmutablePerson(String name, Name dn) {
+			this.dn = dn;
+			this.name = name;
+			this.constructed = true;
+		}
+
+	}
+
+	@Entry(objectClasses = { "person", "top" })
+	static final class UnboundFinalFieldPerson {
+
+		@Id
+		private final Name dn;
+
+		private final String telephoneNumber = null;
+
+		@EntryConstructor({ "dn" })
+		UnboundFinalFieldPerson(Name dn) {
+			this.dn = dn;
+		}
+
+	}
+
+	@Entry(objectClasses = { "groupOfNames", "top" })
+	public static final class LazyGroup {
+
+		@Id
+		private Name dn;
+
+		@Attribute(name = "cn")
+		private String name;
+
+		@Attribute(name = "member", fetch = Attribute.FetchType.LAZY)
+		private Set<Name> members;
+
+		public LazyGroup() {
+		}
+
+	}
+
+	@Entry(objectClasses = { "groupOfNames", "top" })
+	public static final class InvalidLazyGroup {
+
+		@Id
+		private Name dn;
+
+		@Attribute(name = "member", fetch = Attribute.FetchType.LAZY)
+		private String members;
+
+	}
+
 	private <T> T getInternalState(Object target, String fieldName) {
 		Field field = ReflectionUtils.findField(target.getClass(), fieldName);
 		field.setAccessible(true);
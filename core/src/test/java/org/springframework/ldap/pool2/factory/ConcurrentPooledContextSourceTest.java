@@ -0,0 +1,328 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.factory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.CommunicationException;
+import javax.naming.NamingException;
+import javax.naming.directory.DirContext;
+
+import org.junit.Test;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.ldap.core.DirContextProxy;
+import org.springframework.ldap.pool2.AbstractPoolTestCase;
+import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.ldap.pool2.metrics.PoolMetricsRecorder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConcurrentPooledContextSourceTest extends AbstractPoolTestCase {
+
+	@Test
+	public void contextsAreReturnedToThePoolWhenClosed() throws Exception {
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock);
+		ConcurrentPooledContextSource tested = newContextSource(null);
+
+		DirContext first = tested.getReadOnlyContext();
+		assertThat(first).isEqualTo(this.dirContextMock);
+		assertThat(((DirContextProxy) first).getTargetContext()).isSameAs(this.dirContextMock);
+		assertThat(tested.getNumActive()).isEqualTo(1);
+		first.close();
+		first.close();
+		assertThat(tested.getNumActive()).isEqualTo(0);
+		assertThat(tested.getNumIdleRead()).isEqualTo(1);
+
+		DirContext second = tested.getReadOnlyContext();
+		assertThat(second).isEqualTo(first);
+		second.close();
+
+		verify(this.contextSourceMock, times(1)).getReadOnlyContext();
+		verify(this.dirContextMock, never()).close();
+	}
+
+	@Test
+	public void closingTwiceDoesNotReturnContextBorrowedAgain() throws Exception {
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock);
+		ConcurrentPooledContextSource tested = newContextSource(null);
+
+		DirContext first = tested.getReadOnlyContext();
+		first.close();
+		DirContext second = tested.getReadOnlyContext();
+		first.close();
+
+		assertThat(tested.getNumActiveRead()).isEqualTo(1);
+		assertThat(tested.getNumIdleRead()).isEqualTo(0);
+		assertThatExceptionOfType(NamingException.class).isThrownBy(() -> first.lookup("cn=john"));
+		second.lookup("cn=john");
+		verify(this.dirContextMock).lookup("cn=john");
+
+		second.close();
+		assertThat(tested.getNumActiveRead()).isEqualTo(0);
+		assertThat(tested.getNumIdleRead()).isEqualTo(1);
+	}
+
+	@Test
+	public void closedContextsCannotBeUsed() throws Exception {
+		when(this.contextSourceMock.getReadWriteContext()).thenReturn(this.dirContextMock);
+		ConcurrentPooledContextSource tested = newContextSource(null);
+
+		DirContext dirContext = tested.getReadWriteContext();
+		dirContext.close();
+
+		assertThatExceptionOfType(NamingException.class).isThrownBy(() -> dirContext.lookup("cn=john"));
+		verify(this.dirContextMock, never()).lookup("cn=john");
+	}
+
+	@Test
+	public void nonTransientExceptionClosesContextOnReturn() throws Exception {
+		DirContext secondDirContextMock = mock(DirContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock, secondDirContextMock);
+		when(this.dirContextMock.lookup("cn=john")).thenThrow(new CommunicationException());
+		PoolMetricsRecorder recorder = mock(PoolMetricsRecorder.class);
+		ConcurrentPooledContextSource tested = newContextSource(null);
+		tested.setPoolMetricsRecorder(recorder);
+
+		DirContext dirContext = tested.getReadOnlyContext();
+		assertThatExceptionOfType(CommunicationException.class).isThrownBy(() -> dirContext.lookup("cn=john"));
+		dirContext.close();
+
+		verify(this.dirContextMock).close();
+		verify(recorder).recordEagerInvalidation(DirContextType.READ_ONLY, CommunicationException.class);
+		assertThat(tested.getNumIdle()).isEqualTo(0);
+		assertThat(tested.getReadOnlyContext()).isEqualTo(secondDirContextMock);
+	}
+
+	@Test
+	public void invalidContextsAreReplacedOnBorrow() throws Exception {
+		DirContext secondDirContextMock = mock(DirContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock, secondDirContextMock);
+		when(this.dirContextValidatorMock.validateDirContext(DirContextType.READ_ONLY, this.dirContextMock))
+				.thenReturn(false);
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setTestOnBorrow(true);
+		ConcurrentPooledContextSource tested = newContextSource(poolConfig);
+
+		tested.getReadOnlyContext().close();
+		DirContext dirContext = tested.getReadOnlyContext();
+
+		assertThat(dirContext).isEqualTo(secondDirContextMock);
+		verify(this.dirContextMock).close();
+		verify(this.dirContextValidatorMock, never()).validateDirContext(DirContextType.READ_ONLY, secondDirContextMock);
+	}
+
+	@Test
+	public void exhaustedPoolHandsReturnedContextToWaitingThread() throws Exception {
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock);
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMaxTotalPerKey(1);
+		poolConfig.setMaxWaitMillis(5000);
+		ConcurrentPooledContextSource tested = newContextSource(poolConfig);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			DirContext borrowed = tested.getReadOnlyContext();
+			Future<DirContext> waiting = executor.submit(tested::getReadOnlyContext);
+			while (tested.getNumWaiters() == 0) {
+				Thread.sleep(1);
+			}
+
+			borrowed.close();
+
+			assertThat(waiting.get(5, TimeUnit.SECONDS)).isEqualTo(borrowed);
+			verify(this.contextSourceMock, times(1)).getReadOnlyContext();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void borrowTimesOutWhenPoolIsExhausted() {
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock);
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMaxTotalPerKey(1);
+		poolConfig.setMaxWaitMillis(20);
+		ConcurrentPooledContextSource tested = newContextSource(poolConfig);
+
+		tested.getReadOnlyContext();
+
+		assertThatExceptionOfType(DataAccessResourceFailureException.class).isThrownBy(tested::getReadOnlyContext);
+		assertThat(tested.getNumWaiters()).isEqualTo(0);
+	}
+
+	@Test
+	public void destroyClosesIdleAndReturnedContexts() throws Exception {
+		DirContext secondDirContextMock = mock(DirContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock, secondDirContextMock);
+		ConcurrentPooledContextSource tested = newContextSource(null);
+		tested.getReadOnlyContext().close();
+		DirContext borrowed = tested.getReadOnlyContext();
+		DirContext stillBorrowed = tested.getReadOnlyContext();
+		borrowed.close();
+
+		tested.destroy();
+
+		verify(this.dirContextMock).close();
+		stillBorrowed.close();
+		verify(secondDirContextMock).close();
+		assertThatExceptionOfType(DataAccessResourceFailureException.class).isThrownBy(tested::getReadOnlyContext);
+	}
+
+	@Test
+	public void contextsAreNeverSharedBetweenConcurrentBorrowers() throws Exception {
+		when(this.contextSourceMock.getReadOnlyContext()).thenAnswer((invocation) -> mock(DirContext.class));
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMaxTotalPerKey(4);
+		ConcurrentPooledContextSource tested = newContextSource(poolConfig);
+		Set<DirContext> inUse = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				results.add(executor.submit(() -> {
+					boolean exclusive = true;
+					for (int j = 0; j < 1000; j++) {
+						DirContext dirContext = tested.getReadOnlyContext();
+						DirContext target = ((DirContextProxy) dirContext).getTargetContext();
+						exclusive &= inUse.add(target);
+						Thread.yield();
+						inUse.remove(target);
+						dirContext.close();
+					}
+					return exclusive;
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertThat(result.get(30, TimeUnit.SECONDS)).isTrue();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(tested.getNumIdleRead()).isBetween(1, 4);
+		assertThat(tested.getNumActive()).isEqualTo(0);
+	}
+
+	@Test
+	public void afterPropertiesSetOpensMinIdleContextsOfEachType() {
+		when(this.contextSourceMock.getReadOnlyContext()).thenAnswer((invocation) -> mock(DirContext.class));
+		when(this.contextSourceMock.getReadWriteContext()).thenAnswer((invocation) -> mock(DirContext.class));
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMinIdlePerKey(2);
+		ConcurrentPooledContextSource tested = newContextSource(poolConfig);
+
+		tested.afterPropertiesSet();
+
+		assertThat(tested.getNumIdleRead()).isEqualTo(2);
+		assertThat(tested.getNumIdleWrite()).isEqualTo(2);
+		tested.destroy();
+	}
+
+	@Test
+	public void expiredIdleContextsAreReplacedInTheBackground() throws Exception {
+		DirContext secondDirContextMock = mock(DirContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock, secondDirContextMock);
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMinIdlePerKey(1);
+		ConcurrentPooledContextSource tested = newContextSource(poolConfig);
+		tested.setMaxLifetime(Duration.ofMillis(100));
+		tested.afterPropertiesSet();
+
+		verify(this.dirContextMock, timeout(5000)).close();
+		verify(this.contextSourceMock, timeout(5000).atLeast(2)).getReadOnlyContext();
+		tested.destroy();
+	}
+
+	@Test
+	public void expiredBorrowedContextsAreClosedWhenReturned() throws Exception {
+		DirContext secondDirContextMock = mock(DirContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock, secondDirContextMock);
+		ConcurrentPooledContextSource tested = newContextSource(null);
+		tested.setMaxLifetime(Duration.ofMillis(50));
+		tested.setMaxLifetimeJitter(Duration.ZERO);
+		tested.afterPropertiesSet();
+
+		DirContext dirContext = tested.getReadOnlyContext();
+		Thread.sleep(200);
+		verify(this.dirContextMock, never()).close();
+		dirContext.close();
+
+		verify(this.dirContextMock).close();
+		verify(this.contextSourceMock, timeout(5000).atLeast(2)).getReadOnlyContext();
+		tested.destroy();
+	}
+
+	@Test
+	public void recentlyUsedContextsAreNotValidatedOnBorrow() throws Exception {
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock);
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setTestOnBorrow(true);
+		poolConfig.setValidationBypassWindowMillis(60000);
+		ConcurrentPooledContextSource tested = newContextSource(poolConfig);
+
+		tested.getReadOnlyContext().close();
+		tested.getReadOnlyContext().close();
+
+		verify(this.dirContextValidatorMock, never()).validateDirContext(any(), any(DirContext.class));
+	}
+
+	@Test
+	public void idleContextsAreValidatedInTheBackground() throws Exception {
+		DirContext secondDirContextMock = mock(DirContext.class);
+		when(this.contextSourceMock.getReadOnlyContext()).thenReturn(this.dirContextMock, secondDirContextMock);
+		when(this.dirContextValidatorMock.validateDirContext(DirContextType.READ_ONLY, secondDirContextMock))
+				.thenReturn(true);
+		PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMinIdlePerKey(1);
+		poolConfig.setTestWhileIdle(true);
+		poolConfig.setTimeBetweenEvictionRunsMillis(20);
+		ConcurrentPooledContextSource tested = newContextSource(poolConfig);
+		tested.afterPropertiesSet();
+
+		verify(this.dirContextMock, timeout(5000)).close();
+		verify(this.dirContextValidatorMock, timeout(5000))
+				.validateDirContext(DirContextType.READ_ONLY, secondDirContextMock);
+		assertThat(tested.getReadOnlyContext()).isEqualTo(secondDirContextMock);
+		tested.destroy();
+	}
+
+	private ConcurrentPooledContextSource newContextSource(PoolConfig poolConfig) {
+		ConcurrentPooledContextSource contextSource = new ConcurrentPooledContextSource(poolConfig);
+		contextSource.setContextSource(this.contextSourceMock);
+		contextSource.setDirContextValidator(this.dirContextValidatorMock);
+		return contextSource;
+	}
+
+}
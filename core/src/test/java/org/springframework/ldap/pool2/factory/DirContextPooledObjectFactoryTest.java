@@ -20,10 +20,14 @@ import org.apache.commons.pool2.impl.DefaultPooledObject;
 import org.junit.Test;
 import org.springframework.ldap.core.ContextSource;
 import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.ldap.pool2.FailureAwareContext;
+import org.springframework.ldap.pool2.metrics.PoolMetricsRecorder;
 import org.springframework.ldap.pool2.validation.DirContextValidator;
 import org.springframework.ldap.pool2.AbstractPoolTestCase;
 import org.springframework.util.ReflectionUtils;
 
+import javax.naming.CommunicationException;
+import javax.naming.NameNotFoundException;
 import javax.naming.directory.DirContext;
 
 import java.lang.reflect.Field;
@@ -32,8 +36,12 @@ import java.lang.reflect.Proxy;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -193,6 +201,32 @@ public class DirContextPooledObjectFactoryTest extends AbstractPoolTestCase {
 		assertThat(valid2).isFalse();
 	}
 
+	@Test
+	public void testValidateObjectSkippedWithinBypassWindow() throws Exception {
+		final DirContextPooledObjectFactory objectFactory = new DirContextPooledObjectFactory();
+		objectFactory.setDirContextValidator(dirContextValidatorMock);
+		objectFactory.setValidationBypassWindowMillis(60000);
+
+		PooledObject pooledObject = new DefaultPooledObject(dirContextMock);
+		pooledObject.allocate();
+		Thread.sleep(5);
+		pooledObject.deallocate();
+		assertThat(objectFactory.validateObject(DirContextType.READ_ONLY, pooledObject)).isTrue();
+		verify(dirContextValidatorMock, never()).validateDirContext(DirContextType.READ_ONLY, dirContextMock);
+	}
+
+	@Test
+	public void testValidateObjectNotSkippedBeforeFirstReturn() throws Exception {
+		final DirContextPooledObjectFactory objectFactory = new DirContextPooledObjectFactory();
+		objectFactory.setDirContextValidator(dirContextValidatorMock);
+		objectFactory.setValidationBypassWindowMillis(60000);
+		when(dirContextValidatorMock.validateDirContext(DirContextType.READ_ONLY, dirContextMock)).thenReturn(false);
+
+		PooledObject pooledObject = new DefaultPooledObject(dirContextMock);
+		assertThat(objectFactory.validateObject(DirContextType.READ_ONLY, pooledObject)).isFalse();
+		verify(dirContextValidatorMock).validateDirContext(DirContextType.READ_ONLY, dirContextMock);
+	}
+
 	@Test
 	public void testDestroyObjectAssertions() throws Exception {
 		final DirContextPooledObjectFactory objectFactory = new DirContextPooledObjectFactory();
@@ -230,6 +264,63 @@ public class DirContextPooledObjectFactoryTest extends AbstractPoolTestCase {
 		verify(dirContextMock).close();
 	}
 
+	@Test
+	public void testPoolMetricsRecorded() throws Exception {
+		PoolMetricsRecorder recorderMock = mock(PoolMetricsRecorder.class);
+		final DirContextPooledObjectFactory objectFactory = new DirContextPooledObjectFactory();
+		objectFactory.setContextSource(contextSourceMock);
+		objectFactory.setDirContextValidator(dirContextValidatorMock);
+		objectFactory.setPoolMetricsRecorder(recorderMock);
+
+		when(contextSourceMock.getReadWriteContext()).thenReturn(dirContextMock);
+		when(dirContextValidatorMock.validateDirContext(DirContextType.READ_WRITE, dirContextMock)).thenReturn(false);
+
+		objectFactory.makeObject(DirContextType.READ_WRITE);
+		verify(recorderMock).recordCreate(eq(DirContextType.READ_WRITE), anyLong(), eq(true));
+
+		PooledObject pooledObject = new DefaultPooledObject(dirContextMock);
+		objectFactory.validateObject(DirContextType.READ_WRITE, pooledObject);
+		verify(recorderMock).recordValidation(eq(DirContextType.READ_WRITE), anyLong(), eq(false));
+
+		objectFactory.destroyObject(DirContextType.READ_WRITE, pooledObject);
+		verify(recorderMock).recordDestroy(eq(DirContextType.READ_WRITE), anyLong());
+
+		when(contextSourceMock.getReadOnlyContext()).thenThrow(new RuntimeException("Problem getting context"));
+		try {
+			objectFactory.makeObject(DirContextType.READ_ONLY);
+			fail("RuntimeException expected");
+		} catch (RuntimeException expected) {
+			assertThat(true).isTrue();
+		}
+		verify(recorderMock).recordCreate(eq(DirContextType.READ_ONLY), anyLong(), eq(false));
+	}
+
+	@Test
+	public void testEagerInvalidationRecordedOnce() throws Exception {
+		PoolMetricsRecorder recorderMock = mock(PoolMetricsRecorder.class);
+		final DirContextPooledObjectFactory objectFactory = new DirContextPooledObjectFactory();
+		objectFactory.setContextSource(contextSourceMock);
+		objectFactory.setPoolMetricsRecorder(recorderMock);
+
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock);
+		when(dirContextMock.lookup("cn=transient")).thenThrow(new NameNotFoundException());
+		when(dirContextMock.lookup("cn=failed")).thenThrow(new CommunicationException());
+
+		DirContext pooledContext = (DirContext) objectFactory.makeObject(DirContextType.READ_ONLY).getObject();
+		for (String name : new String[] { "cn=transient", "cn=failed", "cn=failed" }) {
+			try {
+				pooledContext.lookup(name);
+				fail("NamingException expected");
+			} catch (javax.naming.NamingException expected) {
+				assertThat(true).isTrue();
+			}
+		}
+
+		assertThat(((FailureAwareContext) pooledContext).hasFailed()).isTrue();
+		verify(recorderMock, times(1)).recordEagerInvalidation(DirContextType.READ_ONLY, CommunicationException.class);
+		verify(recorderMock, never()).recordEagerInvalidation(DirContextType.READ_ONLY, NameNotFoundException.class);
+	}
+
 	private <T> T getInternalState(Object target, String fieldName) {
 		Field field = ReflectionUtils.findField(target.getClass(), fieldName);
 		field.setAccessible(true);
@@ -18,15 +18,29 @@ package org.springframework.ldap.pool2.factory;
 import org.junit.Test;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.ldap.core.ContextSource;
+import org.springframework.ldap.pool2.DirContextType;
+import org.springframework.ldap.pool2.metrics.PoolMetricsRecorder;
 import org.springframework.ldap.pool2.validation.DirContextValidator;
 import org.springframework.ldap.pool2.AbstractPoolTestCase;
 
+import javax.naming.AuthenticationException;
+import javax.naming.Context;
 import javax.naming.directory.DirContext;
 import javax.naming.ldap.LdapContext;
 
+import java.time.Duration;
+import java.util.Hashtable;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -192,6 +206,121 @@ public class PooledContextSourceTest extends AbstractPoolTestCase {
 		}
 	}
 
+	@Test
+	public void testOnCreateValidatesNewContextsWithinBypassWindow() throws Exception {
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock);
+		when(dirContextValidatorMock.validateDirContext(DirContextType.READ_ONLY, dirContextMock)).thenReturn(false);
+		final PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setTestOnCreate(true);
+		poolConfig.setValidationBypassWindowMillis(60000L);
+		poolConfig.setJmxEnabled(false);
+
+		final PooledContextSource pooledContextSource = new PooledContextSource(poolConfig);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.setDirContextValidator(dirContextValidatorMock);
+
+		try {
+			pooledContextSource.getReadOnlyContext();
+			fail("PooledContextSource.getReadOnlyContext should have thrown DataAccessResourceFailureException");
+		}
+		catch (DataAccessResourceFailureException darfe) {
+			// Expected
+		}
+		verify(dirContextValidatorMock).validateDirContext(DirContextType.READ_ONLY, dirContextMock);
+	}
+
+	@Test
+	public void testBorrowRecordedByPoolMetricsRecorder() throws Exception {
+		PoolMetricsRecorder recorderMock = mock(PoolMetricsRecorder.class);
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock);
+		when(contextSourceMock.getReadWriteContext())
+				.thenThrow(new RuntimeException("Problem getting context"));
+
+		final PooledContextSource pooledContextSource = new PooledContextSource(null);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.setPoolMetricsRecorder(recorderMock);
+		assertThat(pooledContextSource.getPoolMetricsRecorder()).isSameAs(recorderMock);
+
+		pooledContextSource.getReadOnlyContext();
+		verify(recorderMock).recordBorrow(eq(DirContextType.READ_ONLY), anyLong(), eq(true));
+
+		try {
+			pooledContextSource.getReadWriteContext();
+			fail("PooledContextSource.getReadWriteContext should have thrown DataAccessResourceFailureException");
+		}
+		catch (DataAccessResourceFailureException darfe) {
+			// Expected
+		}
+		verify(recorderMock).recordBorrow(eq(DirContextType.READ_WRITE), anyLong(), eq(false));
+	}
+
+	@Test
+	public void testGetContextWithCredentialsNotSupportedByDefault() throws Exception {
+		final PooledContextSource pooledContextSource = new PooledContextSource(null);
+		pooledContextSource.setContextSource(contextSourceMock);
+		assertThat(pooledContextSource.isAuthenticationPoolingEnabled()).isFalse();
+
+		try {
+			pooledContextSource.getContext("cn=user", "secret");
+			fail("UnsupportedOperationException expected");
+		}
+		catch (UnsupportedOperationException expected) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testGetContextWithCredentialsRebindsPooledContext() throws Exception {
+		Hashtable<String, Object> environment = new Hashtable<>();
+		environment.put(Context.SECURITY_PRINCIPAL, "cn=service");
+		environment.put(Context.SECURITY_CREDENTIALS, "service-secret");
+		doReturn(environment).when(ldapContextMock).getEnvironment();
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(ldapContextMock);
+
+		final PooledContextSource pooledContextSource = new PooledContextSource(null);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.setAuthenticationPoolingEnabled(true);
+
+		final DirContext authenticatedContext = pooledContextSource.getContext("cn=user", "secret");
+		verify(ldapContextMock).addToEnvironment(Context.SECURITY_PRINCIPAL, "cn=user");
+		verify(ldapContextMock).addToEnvironment(Context.SECURITY_CREDENTIALS, "secret");
+		verify(ldapContextMock).reconnect(any());
+		assertThat(pooledContextSource.getNumActiveRead()).isEqualTo(1);
+
+		authenticatedContext.close();
+		verify(ldapContextMock).addToEnvironment(Context.SECURITY_PRINCIPAL, "cn=service");
+		verify(ldapContextMock).addToEnvironment(Context.SECURITY_CREDENTIALS, "service-secret");
+		assertThat(pooledContextSource.getNumIdleRead()).isEqualTo(1);
+
+		// The same connection is reused for subsequent authentications
+		pooledContextSource.getContext("cn=other", "secret").close();
+		verify(contextSourceMock).getReadOnlyContext();
+		assertThat(pooledContextSource.getNumIdleRead()).isEqualTo(1);
+	}
+
+	@Test
+	public void testGetContextWithBadCredentialsReturnsContextToPool() throws Exception {
+		doReturn(new Hashtable<>()).when(ldapContextMock).getEnvironment();
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(ldapContextMock);
+		doThrow(new AuthenticationException("invalid credentials")).doNothing().when(ldapContextMock).reconnect(any());
+
+		final PooledContextSource pooledContextSource = new PooledContextSource(null);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.setAuthenticationPoolingEnabled(true);
+
+		try {
+			pooledContextSource.getContext("cn=user", "wrong");
+			fail("AuthenticationException expected");
+		}
+		catch (org.springframework.ldap.AuthenticationException expected) {
+			// Expected
+		}
+
+		verify(ldapContextMock).removeFromEnvironment(Context.SECURITY_PRINCIPAL);
+		assertThat(pooledContextSource.getNumActiveRead()).isEqualTo(0);
+		assertThat(pooledContextSource.getNumIdleRead()).isEqualTo(1);
+	}
+
 	@Test
 	public void testGetReadOnlyLdapContext() throws Exception {
 		LdapContext secondLdapContextMock = mock(LdapContext.class);
@@ -234,4 +363,101 @@ public class PooledContextSourceTest extends AbstractPoolTestCase {
 		assertThat(pooledContextSource.getNumActive()).isEqualTo(0);
 		assertThat(pooledContextSource.getNumIdle()).isEqualTo(2);
 	}
+
+	@Test
+	public void afterPropertiesSetOpensMinIdleContextsOfEachType() throws Exception {
+		when(contextSourceMock.getReadOnlyContext()).thenAnswer((invocation) -> mock(DirContext.class));
+		when(contextSourceMock.getReadWriteContext()).thenAnswer((invocation) -> mock(DirContext.class));
+		final PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMinIdlePerKey(2);
+		poolConfig.setJmxEnabled(false);
+
+		final PooledContextSource pooledContextSource = new PooledContextSource(poolConfig);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.afterPropertiesSet();
+
+		assertThat(pooledContextSource.getNumIdleRead()).isEqualTo(2);
+		assertThat(pooledContextSource.getNumIdleWrite()).isEqualTo(2);
+		assertThat(pooledContextSource.getNumActive()).isEqualTo(0);
+	}
+
+	@Test
+	public void expiredContextIsDestroyedWhenReturned() throws Exception {
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock);
+
+		final PooledContextSource pooledContextSource = new PooledContextSource(null);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.setMaxLifetime(Duration.ofMillis(50));
+		pooledContextSource.setMaxLifetimeJitter(Duration.ZERO);
+
+		final DirContext readOnlyContext = pooledContextSource.getReadOnlyContext();
+		Thread.sleep(100);
+		readOnlyContext.close();
+
+		verify(dirContextMock).close();
+		assertThat(pooledContextSource.getNumActive()).isEqualTo(0);
+		assertThat(pooledContextSource.getNumIdle()).isEqualTo(0);
+	}
+
+	@Test
+	public void expiredIdleContextIsReplacedWhenBorrowed() throws Exception {
+		DirContext secondDirContextMock = mock(DirContext.class);
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock, secondDirContextMock);
+
+		final PooledContextSource pooledContextSource = new PooledContextSource(null);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.setMaxLifetime(Duration.ofMillis(50));
+		pooledContextSource.setMaxLifetimeJitter(Duration.ZERO);
+
+		pooledContextSource.getReadOnlyContext().close();
+		assertThat(pooledContextSource.getNumIdle()).isEqualTo(1);
+		Thread.sleep(100);
+
+		final DirContext readOnlyContext = pooledContextSource.getReadOnlyContext();
+		assertThat(readOnlyContext).isEqualTo(secondDirContextMock);
+		verify(dirContextMock).close();
+		assertThat(pooledContextSource.getNumActive()).isEqualTo(1);
+		assertThat(pooledContextSource.getNumIdle()).isEqualTo(0);
+	}
+
+	@Test
+	public void expiredIdleContextsAreReplacedInBackground() throws Exception {
+		when(contextSourceMock.getReadOnlyContext()).thenReturn(dirContextMock)
+				.thenAnswer((invocation) -> mock(DirContext.class));
+		when(contextSourceMock.getReadWriteContext()).thenAnswer((invocation) -> mock(DirContext.class));
+		final PoolConfig poolConfig = new PoolConfig();
+		poolConfig.setMinIdlePerKey(1);
+		poolConfig.setTimeBetweenEvictionRunsMillis(20L);
+		poolConfig.setJmxEnabled(false);
+
+		final PooledContextSource pooledContextSource = new PooledContextSource(poolConfig);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.setMaxLifetime(Duration.ofMillis(100));
+		pooledContextSource.afterPropertiesSet();
+		try {
+			Thread.sleep(400);
+
+			verify(dirContextMock).close();
+			verify(contextSourceMock, atLeast(2)).getReadOnlyContext();
+		}
+		finally {
+			pooledContextSource.destroy();
+		}
+	}
+
+	@Test
+	public void maxLifetimeJitterMustBeShorterThanMaxLifetime() throws Exception {
+		final PooledContextSource pooledContextSource = new PooledContextSource(null);
+		pooledContextSource.setContextSource(contextSourceMock);
+		pooledContextSource.setMaxLifetime(Duration.ofSeconds(1));
+		pooledContextSource.setMaxLifetimeJitter(Duration.ofSeconds(1));
+
+		try {
+			pooledContextSource.afterPropertiesSet();
+			fail("afterPropertiesSet should have thrown an IllegalArgumentException");
+		}
+		catch (IllegalArgumentException expected) {
+			// Expected
+		}
+	}
 }
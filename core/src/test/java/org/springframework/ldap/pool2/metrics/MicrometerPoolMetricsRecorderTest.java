@@ -0,0 +1,74 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.CommunicationException;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import org.springframework.ldap.pool2.DirContextType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MicrometerPoolMetricsRecorderTest {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final MicrometerPoolMetricsRecorder recorder = new MicrometerPoolMetricsRecorder(this.registry,
+			Tags.of("pool", "main"));
+
+	@Test
+	public void borrowWaitIsRecordedPerContextType() {
+		this.recorder.recordBorrow(DirContextType.READ_ONLY, TimeUnit.MILLISECONDS.toNanos(5), true);
+		this.recorder.recordBorrow(DirContextType.READ_ONLY, TimeUnit.MILLISECONDS.toNanos(15), true);
+		this.recorder.recordBorrow(DirContextType.READ_WRITE, TimeUnit.MILLISECONDS.toNanos(100), false);
+
+		Timer readOnly = this.registry.get("spring.ldap.pool.borrow")
+				.tags("pool", "main", "type", "read_only", "outcome", "success").timer();
+		assertThat(readOnly.count()).isEqualTo(2);
+		assertThat(readOnly.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(20);
+
+		Timer readWriteFailures = this.registry.get("spring.ldap.pool.borrow")
+				.tags("type", "read_write", "outcome", "failure").timer();
+		assertThat(readWriteFailures.count()).isEqualTo(1);
+	}
+
+	@Test
+	public void lifecycleEventsAreRecorded() {
+		this.recorder.recordCreate(DirContextType.READ_WRITE, 1000, true);
+		this.recorder.recordValidation(DirContextType.READ_WRITE, 1000, false);
+		this.recorder.recordDestroy(DirContextType.READ_WRITE, 1000);
+		this.recorder.recordEagerInvalidation(DirContextType.READ_WRITE, CommunicationException.class);
+		this.recorder.recordEagerInvalidation(DirContextType.READ_WRITE, CommunicationException.class);
+
+		assertThat(this.registry.get("spring.ldap.pool.create").tags("type", "read_write", "outcome", "success")
+				.timer().count()).isEqualTo(1);
+		assertThat(this.registry.get("spring.ldap.pool.validate").tags("type", "read_write", "outcome", "invalid")
+				.timer().count()).isEqualTo(1);
+		assertThat(this.registry.get("spring.ldap.pool.destroy").tags("type", "read_write").timer().count())
+				.isEqualTo(1);
+		assertThat(this.registry.get("spring.ldap.pool.invalidations")
+				.tags("pool", "main", "type", "read_write", "exception", "CommunicationException").counter().count())
+				.isEqualTo(2);
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.validation;
+
+import javax.naming.NamingEnumeration;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.SearchControls;
+import javax.naming.directory.SearchResult;
+
+import org.junit.Test;
+
+import org.springframework.ldap.pool2.DirContextType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DefaultDirContextValidatorTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void rootDseValidatorRequestsNoAttributes() throws Exception {
+		DirContext dirContextMock = mock(DirContext.class);
+		NamingEnumeration<SearchResult> namingEnumerationMock = mock(NamingEnumeration.class);
+		when(dirContextMock.search(eq(""), eq("objectclass=*"), argThat((SearchControls controls) ->
+				controls.getSearchScope() == SearchControls.OBJECT_SCOPE
+						&& controls.getReturningAttributes().length == 1
+						&& "1.1".equals(controls.getReturningAttributes()[0]))))
+				.thenReturn(namingEnumerationMock);
+		when(namingEnumerationMock.hasMore()).thenReturn(true);
+
+		assertThat(DefaultDirContextValidator.rootDse().validateDirContext(DirContextType.READ_ONLY, dirContextMock))
+				.isTrue();
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2005-2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.ldap.pool2.validation;
+
+import javax.naming.CommunicationException;
+import javax.naming.directory.DirContext;
+import javax.naming.ldap.ExtendedRequest;
+import javax.naming.ldap.LdapContext;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.ldap.pool2.DirContextType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WhoAmIDirContextValidatorTest {
+
+	private final LdapContext ldapContextMock = mock(LdapContext.class);
+
+	private final WhoAmIDirContextValidator tested = new WhoAmIDirContextValidator();
+
+	@Test
+	public void contextAnsweringWhoAmIIsValid() throws Exception {
+		assertThat(this.tested.validateDirContext(DirContextType.READ_ONLY, this.ldapContextMock)).isTrue();
+
+		ArgumentCaptor<ExtendedRequest> request = ArgumentCaptor.forClass(ExtendedRequest.class);
+		verify(this.ldapContextMock).extendedOperation(request.capture());
+		assertThat(request.getValue().getID()).isEqualTo(WhoAmIDirContextValidator.WHO_AM_I_OID);
+		assertThat(request.getValue().getEncodedValue()).isNull();
+		assertThat(request.getValue().createExtendedResponse("id", new byte[] { 1, 2, 3 }, 1, 2).getEncodedValue())
+				.containsExactly(2, 3);
+	}
+
+	@Test
+	public void contextFailingWhoAmIIsInvalid() throws Exception {
+		when(this.ldapContextMock.extendedOperation(any(ExtendedRequest.class)))
+				.thenThrow(new CommunicationException());
+
+		assertThat(this.tested.validateDirContext(DirContextType.READ_ONLY, this.ldapContextMock)).isFalse();
+	}
+
+	@Test
+	public void contextMustBeAnLdapContext() {
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> this.tested.validateDirContext(DirContextType.READ_ONLY, mock(DirContext.class)));
+	}
+
+}